@@ -817,6 +817,11 @@ public class OpticalPathProvisionerTest {
             return allocations;
         }
 
+        @Override
+        public boolean allocate(List<ResourceAllocation> allocations) {
+            return true;
+        }
+
         @Override
         public boolean release(List<ResourceAllocation> allocations) {
             return false;
@@ -48,6 +48,12 @@ public class ResourceServiceAdapter implements ResourceService {
         return null;
     }
 
+    @Override
+    public boolean allocate(List<ResourceAllocation> allocations) {
+        // TODO Auto-generated method stub
+        return false;
+    }
+
     @Override
     public boolean release(List<ResourceAllocation> allocations) {
         // TODO Auto-generated method stub
@@ -15,6 +15,8 @@
  */
 package org.onosproject.event;
 
+import java.util.function.ObjLongConsumer;
+
 /**
  * Abstraction of an event sink capable of processing the specified event types.
  */
@@ -27,6 +29,19 @@ public interface EventSink<E extends Event> {
      */
     void process(E event);
 
+    /**
+     * Processes the specified event, reporting the time spent by each of the
+     * listeners notified of it. Sinks that do not track listeners simply
+     * process the event.
+     *
+     * @param event    event to be processed
+     * @param recorder consumer of each listener and the nanoseconds it took
+     *                 to handle the event
+     */
+    default void process(E event, ObjLongConsumer<Object> recorder) {
+        process(event);
+    }
+
     /**
      * Handles notification that event processing time limit has been exceeded.
      */
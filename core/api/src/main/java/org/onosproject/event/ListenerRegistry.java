@@ -17,8 +17,12 @@ package org.onosproject.event;
 
 import org.slf4j.Logger;
 
+import com.google.common.collect.Sets;
+
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjLongConsumer;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -34,8 +38,10 @@ public class ListenerRegistry<E extends Event, L extends EventListener<E>>
 
     private final Logger log = getLogger(getClass());
 
-    private long lastStart;
-    private L lastListener;
+    // Listener invocations of each thread processing events through this
+    // registry; several dispatch loops may deliver events concurrently
+    private final Set<Invocation> invocations = Sets.newConcurrentHashSet();
+    private final ThreadLocal<Invocation> invocation = ThreadLocal.withInitial(this::newInvocation);
 
     /**
      * Set of listeners that have registered.
@@ -58,15 +64,25 @@ public class ListenerRegistry<E extends Event, L extends EventListener<E>>
 
     @Override
     public void process(E event) {
+        process(event, null);
+    }
+
+    @Override
+    public void process(E event, ObjLongConsumer<Object> recorder) {
+        Invocation current = invocation.get();
         for (L listener : listeners) {
             try {
-                lastListener = listener;
-                lastStart = System.currentTimeMillis();
+                current.listener = listener;
+                current.start = System.nanoTime();
                 if (listener.isRelevant(event)) {
                     listener.event(event);
                 }
-                lastStart = 0;
+                if (recorder != null) {
+                    recorder.accept(listener, System.nanoTime() - current.start);
+                }
+                current.start = 0;
             } catch (Exception error) {
+                current.start = 0;
                 reportProblem(event, error);
             }
         }
@@ -74,18 +90,36 @@ public class ListenerRegistry<E extends Event, L extends EventListener<E>>
 
     @Override
     public void onProcessLimit() {
-        if (lastStart > 0) {
-            long duration = System.currentTimeMillis() - lastStart;
+        long now = System.nanoTime();
+        for (Invocation running : invocations) {
+            if (!running.thread.isAlive()) {
+                invocations.remove(running);
+                continue;
+            }
+            long start = running.start;
+            L listener = running.listener;
+            if (start == 0 || listener == null) {
+                continue;
+            }
+            long duration = TimeUnit.NANOSECONDS.toMillis(now - start);
             if (duration > LIMIT) {
                 log.error("Listener {} exceeded execution time limit: {} ms; ejected",
-                          lastListener.getClass().getName(),
+                          listener.getClass().getName(),
                           duration);
-                removeListener(lastListener);
+                removeListener(listener);
+                running.start = 0;
             }
-            lastStart = 0;
         }
     }
 
+    private Invocation newInvocation() {
+        Invocation created = new Invocation(Thread.currentThread());
+        // forget about the threads that have since terminated
+        invocations.removeIf(running -> !running.thread.isAlive());
+        invocations.add(created);
+        return created;
+    }
+
     /**
      * Reports a problem encountered while processing an event.
      *
@@ -96,4 +130,15 @@ public class ListenerRegistry<E extends Event, L extends EventListener<E>>
         log.warn("Exception encountered while processing event " + event, error);
     }
 
+    // Listener being invoked by a thread and the time at which it started.
+    private final class Invocation {
+        private final Thread thread;
+        private volatile L listener;
+        private volatile long start;
+
+        private Invocation(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
 }
@@ -43,6 +43,9 @@ public class DefaultFlowEntry extends DefaultFlowRule
 
     private long lastSeen = DEFAULT_LAST_SEEN;
 
+    // Local to the store holding the entry; not serialized
+    private transient long seenGeneration;
+
     private final int errType;
 
     private final int errCode;
@@ -144,6 +147,34 @@ public class DefaultFlowEntry extends DefaultFlowRule
         this.lastSeen = System.currentTimeMillis();
     }
 
+    private DefaultFlowEntry(FlowRule rule, FlowEntryState state, long created,
+                             long lastSeen, int errType, int errCode) {
+        super(rule, created);
+        this.state = state;
+        this.errType = errType;
+        this.errCode = errCode;
+        this.lastSeen = lastSeen;
+    }
+
+    /**
+     * Restores a flow entry read back from its serialized form, with the
+     * state, creation and last seen times and error it was written with;
+     * its statistics are then restored through the {@link StoredFlowEntry}
+     * setters.
+     *
+     * @param rule     the flow rule
+     * @param state    the flow state
+     * @param created  wallclock time the rule was created, in milliseconds
+     * @param lastSeen wallclock time the entry was last seen, in milliseconds
+     * @param errType  the error type
+     * @param errCode  the error code
+     * @return restored flow entry
+     */
+    public static DefaultFlowEntry restore(FlowRule rule, FlowEntryState state, long created,
+                                           long lastSeen, int errType, int errCode) {
+        return new DefaultFlowEntry(rule, state, created, lastSeen, errType, errCode);
+    }
+
     @Override
     public long life() {
         return life(SECONDS);
@@ -214,6 +245,16 @@ public class DefaultFlowEntry extends DefaultFlowRule
         this.bytes = bytes;
     }
 
+    @Override
+    public long seenGeneration() {
+        return seenGeneration;
+    }
+
+    @Override
+    public void setSeenGeneration(long generation) {
+        this.seenGeneration = generation;
+    }
+
     @Override
     public int errType() {
         return this.errType;
@@ -61,6 +61,17 @@ public class DefaultFlowRule implements FlowRule {
      * @param rule new flow rule
      */
     public DefaultFlowRule(FlowRule rule) {
+        this(rule, System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a new flow rule from an existing rule, with the given creation
+     * time; used to restore rules read back from their serialized form.
+     *
+     * @param rule    new flow rule
+     * @param created wallclock time the rule was created, in milliseconds
+     */
+    public DefaultFlowRule(FlowRule rule, long created) {
         this.deviceId = rule.deviceId();
         this.priority = rule.priority();
         this.selector = rule.selector();
@@ -72,7 +83,7 @@ public class DefaultFlowRule implements FlowRule {
         this.hardTimeout = rule.hardTimeout();
         this.reason = rule.reason();
         this.permanent = rule.isPermanent();
-        this.created = System.currentTimeMillis();
+        this.created = created;
         this.tableId = rule.tableId();
         this.payLoad = rule.payLoad();
     }
@@ -51,6 +51,24 @@ public interface FlowRuleProviderService extends ProviderService<FlowRuleProvide
      */
     void pushFlowMetricsWithoutFlowMissing(DeviceId deviceId, Iterable<FlowEntry> flowEntries);
 
+    /**
+     * Pushes a segment of the flow entries currently applied on the given
+     * device, as they are received from the device. Once the last segment
+     * has been pushed, the flow entries missing from all segments are
+     * processed as with {@link #pushFlowMetrics(DeviceId, Iterable)}.
+     * Segments of a device are expected to be pushed in order, one at a time;
+     * a segment of another reply abandons the segments of the previous one,
+     * whose missing flow entries are then not processed. Later segments of
+     * an abandoned or completed reply are processed without flow missing.
+     *
+     * @param deviceId device identifier
+     * @param flowEntries flow entries of the segment
+     * @param replyId identifier of the reply the segment is part of
+     * @param last true if this is the last segment
+     */
+    void pushFlowMetricsSegment(DeviceId deviceId, Iterable<FlowEntry> flowEntries,
+                                long replyId, boolean last);
+
     /**
      * Pushes the collection of table statistics entries currently extracted
      * from the given device.
@@ -17,6 +17,7 @@ package org.onosproject.net.flow;
 
 import java.util.List;
 
+import org.onosproject.core.ApplicationId;
 import org.onosproject.net.DeviceId;
 import org.onosproject.store.Store;
 
@@ -48,6 +49,56 @@ public interface FlowRuleStore extends Store<FlowRuleBatchEvent, FlowRuleStoreDe
      */
     Iterable<FlowEntry> getFlowEntries(DeviceId deviceId);
 
+    /**
+     * Returns the flow entries of an application, across all devices.
+     *
+     * @param appId the application ID
+     * @return the flow entries
+     */
+    Iterable<FlowEntry> getFlowEntriesById(ApplicationId appId);
+
+    /**
+     * Returns the flow entries of a group of flows of an application, across
+     * all devices.
+     *
+     * @param appId the application ID
+     * @param groupId the group ID of the flows within the application
+     * @return the flow entries
+     */
+    Iterable<FlowEntry> getFlowEntriesByGroupId(ApplicationId appId, short groupId);
+
+    /**
+     * Starts a new round of reconciliation of the flow entries stored for a
+     * device with the flow entries reported by the device.
+     *
+     * @param deviceId the device ID
+     * @return generation of the new round
+     */
+    long nextReconcileGeneration(DeviceId deviceId);
+
+    /**
+     * Returns the stored flow entry matching a flow rule reported by its
+     * device, and marks it as seen in the given round of reconciliation,
+     * unless it is already marked as seen in a later round.
+     *
+     * @param rule the rule reported by the device
+     * @param generation generation of the round of reconciliation
+     * @return the stored flow entry; null if none
+     */
+    FlowEntry markFlowEntry(FlowRule rule, long generation);
+
+    /**
+     * Returns the flow entries of a device which have not been marked as
+     * seen in the given round of reconciliation, nor stored after it started.
+     * The entries are a live view of the flow table of the device, meant to
+     * be swept right away.
+     *
+     * @param deviceId the device ID
+     * @param generation generation of the round of reconciliation
+     * @return the flow entries not seen
+     */
+    Iterable<FlowEntry> getUnmarkedFlowEntries(DeviceId deviceId, long generation);
+
     /**
      * // TODO: Better description of method behavior.
      * Stores a new flow rule without generating events.
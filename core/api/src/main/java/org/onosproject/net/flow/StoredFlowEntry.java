@@ -63,4 +63,18 @@ public interface StoredFlowEntry extends FlowEntry {
      */
     void setBytes(long bytes);
 
+    /**
+     * Returns the generation of the last round of reconciliation with the
+     * device in which this entry was seen; local to the store.
+     * @return reconciliation generation
+     */
+    long seenGeneration();
+
+    /**
+     * Sets the generation of the round of reconciliation with the device in
+     * which this entry was seen.
+     * @param generation reconciliation generation
+     */
+    void setSeenGeneration(long generation);
+
 }
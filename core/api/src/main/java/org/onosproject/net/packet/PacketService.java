@@ -42,7 +42,25 @@ public interface PacketService {
      */
     void addProcessor(PacketProcessor processor, int priority);
 
-    // TODO allow processors to register for particular types of packets
+    /**
+     * Adds the specified processor to the list of packet processors, to be
+     * given the packets matching the specified selector only. The selector
+     * may only use the ethernet type, IP protocol and TCP/UDP port criteria.
+     * <p>
+     * The selector merely spares the processor from irrelevant packets;
+     * implementations that do not classify packets give it all packets, as
+     * the default implementation does.
+     * </p>
+     *
+     * @param processor processor to be added
+     * @param priority  priority in the reverse natural order
+     * @param selector  selector of the packets relevant to the processor
+     * @throws java.lang.IllegalArgumentException if the selector uses
+     *                                            unsupported criteria
+     */
+    default void addProcessor(PacketProcessor processor, int priority, TrafficSelector selector) {
+        addProcessor(processor, priority);
+    }
 
     /**
      * Removes the specified processor from the processing pipeline.
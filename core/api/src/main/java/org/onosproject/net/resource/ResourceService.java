@@ -81,6 +81,16 @@ public interface ResourceService extends ResourceQueryService, ListenerService<R
         return allocate(consumer, Arrays.asList(resources));
     }
 
+    /**
+     * Transactionally allocates the specified resources to their consumers.
+     * All allocations are made when this method succeeds, or no allocation is made when this method fails.
+     * Allocations for many consumers, e.g. for a batch of intents, are made in a single transaction.
+     *
+     * @param allocations resource allocations to be made
+     * @return true if succeeded, otherwise false
+     */
+    boolean allocate(List<ResourceAllocation> allocations);
+
     /**
      * Releases the specified resource allocation.
      *
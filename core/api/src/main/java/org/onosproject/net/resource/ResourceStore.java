@@ -62,6 +62,18 @@ public interface ResourceStore extends Store<ResourceEvent, ResourceStoreDelegat
      */
     boolean allocate(List<? extends Resource> resources, ResourceConsumer consumer);
 
+    /**
+     * Allocates the specified resources to their consumers in transactional way.
+     * The state after completion of this method is all the resources are allocated to their consumers,
+     * or no resource is allocated. The whole allocation fails when any one of the resource
+     * can't be allocated. This allows the resources of many consumers to be allocated in a single
+     * transaction.
+     *
+     * @param allocations allocations to be made
+     * @return true if the allocation succeeds, false otherwise.
+     */
+    boolean allocate(List<ResourceAllocation> allocations);
+
     /**
      * Releases the specified allocated resources in transactional way.
      * The state after completion of this method is all the resources
@@ -153,6 +153,23 @@ public class ClusterMessage {
                 payloadBytes);
     }
 
+    /**
+     * Decodes the payload of a ClusterMessage from raw bytes, without
+     * decoding its sender and subject.
+     * @param bytes raw bytes
+     * @return payload
+     */
+    public static byte[] payloadOf(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int senderLength = buffer.getInt();
+        buffer.position(buffer.position() + senderLength);
+        int subjectLength = buffer.getInt();
+        buffer.position(buffer.position() + subjectLength);
+        byte[] payloadBytes = new byte[buffer.getInt()];
+        buffer.get(payloadBytes);
+        return payloadBytes;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(sender, subject, payload);
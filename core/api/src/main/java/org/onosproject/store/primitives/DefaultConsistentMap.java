@@ -16,6 +16,8 @@
 package org.onosproject.store.primitives;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -32,6 +34,7 @@ import java.util.function.Predicate;
 
 import org.onlab.util.Tools;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.ConsistentMap;
 import org.onosproject.store.service.ConsistentMapException;
 import org.onosproject.store.service.ConsistentMapException.ConcurrentModification;
@@ -148,6 +151,11 @@ public class DefaultConsistentMap<K, V> extends Synchronous<AsyncConsistentMap<K
         return complete(asyncMap.entrySet());
     }
 
+    @Override
+    public Iterator<Entry<K, Versioned<V>>> iterator() {
+        return new DefaultIterator<>(complete(asyncMap.iterator()));
+    }
+
     @Override
     public Versioned<V> putIfAbsent(K key, V value) {
         return complete(asyncMap.putIfAbsent(key, value));
@@ -178,6 +186,21 @@ public class DefaultConsistentMap<K, V> extends Synchronous<AsyncConsistentMap<K
         return complete(asyncMap.replace(key, oldVersion, newValue));
     }
 
+    @Override
+    public boolean updateAll(List<MapUpdate<K, V>> updates) {
+        return complete(asyncMap.updateAll(updates));
+    }
+
+    @Override
+    public void putAll(Map<K, V> entries) {
+        complete(asyncMap.putAll(entries));
+    }
+
+    @Override
+    public void removeAll(Collection<K> keys) {
+        complete(asyncMap.removeAll(keys));
+    }
+
     @Override
     public void addListener(MapEventListener<K, V> listener, Executor executor) {
         complete(asyncMap.addListener(listener, executor));
@@ -218,6 +241,25 @@ public class DefaultConsistentMap<K, V> extends Synchronous<AsyncConsistentMap<K
         return asJavaMap().toString();
     }
 
+    // Blocking iterator over an asynchronous one; every step is subject to the operation timeout.
+    private class DefaultIterator<E> implements Iterator<E> {
+        private final AsyncIterator<E> iterator;
+
+        DefaultIterator(AsyncIterator<E> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return complete(iterator.hasNext());
+        }
+
+        @Override
+        public E next() {
+            return complete(iterator.next());
+        }
+    }
+
     private <T> T complete(CompletableFuture<T> future) {
         try {
             return future.get(operationTimeoutMillis, TimeUnit.MILLISECONDS);
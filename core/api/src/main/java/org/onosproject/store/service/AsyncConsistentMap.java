@@ -16,7 +16,10 @@
 
 package org.onosproject.store.service;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -26,7 +29,9 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import org.onlab.util.Tools;
 import org.onosproject.store.primitives.DefaultConsistentMap;
+import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 
 import com.google.common.util.concurrent.MoreExecutors;
@@ -242,6 +247,20 @@ public interface AsyncConsistentMap<K, V> extends DistributedPrimitive {
      */
     CompletableFuture<Set<Entry<K, Versioned<V>>>> entrySet();
 
+    /**
+     * Returns an iterator over the entries of this map.
+     * Unlike {@link #entrySet()}, the entries may be fetched from the backing store in bounded
+     * pages as the iterator advances, so that large maps can be traversed without holding all
+     * their entries at once. The iterator is weakly consistent: an entry present during the whole
+     * iteration is returned exactly once, while entries added or removed during the iteration
+     * may or may not be returned.
+     *
+     * @return future for an iterator over the entries of this map
+     */
+    default CompletableFuture<AsyncIterator<Entry<K, Versioned<V>>>> iterator() {
+        return entrySet().thenApply(entries -> new CollectionAsyncIterator<>(entries.iterator()));
+    }
+
     /**
      * If the specified key is not already associated with a value associates
      * it with the given value and returns null, else behaves as a get
@@ -306,6 +325,89 @@ public interface AsyncConsistentMap<K, V> extends DistributedPrimitive {
      */
     CompletableFuture<Boolean> replace(K key, long oldVersion, V newValue);
 
+    /**
+     * Applies a batch of updates, each to a different key, to this map.
+     * <p>
+     * The updates are applied atomically within each partition of the map: if the condition of
+     * any update, e.g. {@link MapUpdate.Type#PUT_IF_VERSION_MATCH}, fails then none of the updates
+     * to the keys of that partition are applied. Updates to different partitions are applied
+     * independently of each other. If a key is locked by a transaction in progress, the returned
+     * future will be completed exceptionally with ConsistentMapException.ConcurrentModification.
+     * <p>
+     * The default implementation applies the updates one at a time.
+     *
+     * @param updates updates to apply
+     * @return {@code true} if all the updates were applied; {@code false} otherwise
+     */
+    default CompletableFuture<Boolean> updateAll(List<MapUpdate<K, V>> updates) {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(updates.size());
+        for (MapUpdate<K, V> update : updates) {
+            switch (update.type()) {
+            case PUT:
+                futures.add(put(update.key(), update.value()).thenApply(v -> true));
+                break;
+            case PUT_IF_ABSENT:
+                futures.add(putIfAbsent(update.key(), update.value()).thenApply(Objects::isNull));
+                break;
+            case PUT_IF_VERSION_MATCH:
+                futures.add(replace(update.key(), update.currentVersion(), update.value()));
+                break;
+            case PUT_IF_VALUE_MATCH:
+                futures.add(replace(update.key(), update.currentValue(), update.value()));
+                break;
+            case REMOVE:
+                futures.add(remove(update.key()).thenApply(v -> true));
+                break;
+            case REMOVE_IF_VERSION_MATCH:
+                futures.add(remove(update.key(), update.currentVersion()));
+                break;
+            case REMOVE_IF_VALUE_MATCH:
+                futures.add(remove(update.key(), update.currentValue()));
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported update type: " + update.type());
+            }
+        }
+        return Tools.allOf(futures, Boolean::logicalAnd, true);
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map, in as few
+     * updates to the backing store as possible.
+     * If a key is locked by a transaction in progress, the returned future will be
+     * completed exceptionally with ConsistentMapException.ConcurrentModification.
+     *
+     * @param entries mappings to be stored in this map
+     * @return future that will be completed when the operation finishes
+     */
+    default CompletableFuture<Void> putAll(Map<K, V> entries) {
+        List<MapUpdate<K, V>> updates = new ArrayList<>(entries.size());
+        entries.forEach((key, value) -> updates.add(MapUpdate.<K, V>newBuilder()
+                .withType(MapUpdate.Type.PUT)
+                .withKey(key)
+                .withValue(value)
+                .build()));
+        return updateAll(updates).thenApply(v -> null);
+    }
+
+    /**
+     * Removes the mappings for the specified keys from this map, in as few
+     * updates to the backing store as possible.
+     * If a key is locked by a transaction in progress, the returned future will be
+     * completed exceptionally with ConsistentMapException.ConcurrentModification.
+     *
+     * @param keys keys whose mappings are to be removed from this map
+     * @return future that will be completed when the operation finishes
+     */
+    default CompletableFuture<Void> removeAll(Collection<K> keys) {
+        List<MapUpdate<K, V>> updates = new ArrayList<>(keys.size());
+        keys.forEach(key -> updates.add(MapUpdate.<K, V>newBuilder()
+                .withType(MapUpdate.Type.REMOVE)
+                .withKey(key)
+                .build()));
+        return updateAll(updates).thenApply(v -> null);
+    }
+
     /**
      * Registers the specified listener to be notified whenever the map is updated.
      *
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous iterator over the elements of a distributed primitive.
+ * <p>
+ * Elements are fetched from the backing store as the iterator advances, so
+ * that a large primitive can be traversed without materializing all its
+ * elements at once. An iterator is meant to be used by a single caller at a
+ * time: each call must wait for the future returned by the previous call.
+ *
+ * @param <T> type of elements
+ */
+public interface AsyncIterator<T> {
+
+    /**
+     * Returns whether the iterator has more elements.
+     *
+     * @return future to be completed with true if there are more elements
+     */
+    CompletableFuture<Boolean> hasNext();
+
+    /**
+     * Returns the next element of the iterator. The future is completed
+     * exceptionally with a {@link java.util.NoSuchElementException} if there
+     * are no more elements.
+     *
+     * @return future to be completed with the next element
+     */
+    CompletableFuture<T> next();
+}
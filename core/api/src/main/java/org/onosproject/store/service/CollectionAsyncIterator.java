@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.service;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+import org.onlab.util.Tools;
+
+/**
+ * Asynchronous iterator over the elements of a local collection.
+ *
+ * @param <T> type of elements
+ */
+public final class CollectionAsyncIterator<T> implements AsyncIterator<T> {
+
+    private final Iterator<T> iterator;
+
+    /**
+     * Creates an asynchronous iterator that steps through the given iterator.
+     *
+     * @param iterator iterator over a local collection
+     */
+    public CollectionAsyncIterator(Iterator<T> iterator) {
+        this.iterator = iterator;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> hasNext() {
+        return CompletableFuture.completedFuture(iterator.hasNext());
+    }
+
+    @Override
+    public CompletableFuture<T> next() {
+        if (!iterator.hasNext()) {
+            return Tools.exceptionalFuture(new NoSuchElementException());
+        }
+        return CompletableFuture.completedFuture(iterator.next());
+    }
+}
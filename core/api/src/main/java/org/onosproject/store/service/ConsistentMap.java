@@ -17,6 +17,9 @@
 package org.onosproject.store.service;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -25,6 +28,8 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import org.onosproject.store.primitives.MapUpdate;
+
 import com.google.common.util.concurrent.MoreExecutors;
 
 /**
@@ -205,6 +210,20 @@ public interface ConsistentMap<K, V> extends DistributedPrimitive {
      */
     Set<Entry<K, Versioned<V>>> entrySet();
 
+    /**
+     * Returns an iterator over the entries of this map.
+     * Unlike {@link #entrySet()}, the entries may be fetched from the backing store in bounded
+     * pages as the iterator advances, so that large maps can be traversed without holding all
+     * their entries at once. The iterator is weakly consistent: an entry present during the whole
+     * iteration is returned exactly once, while entries added or removed during the iteration
+     * may or may not be returned. The iterator does not support removal.
+     *
+     * @return iterator over the entries of this map
+     */
+    default Iterator<Entry<K, Versioned<V>>> iterator() {
+        return Collections.unmodifiableSet(entrySet()).iterator();
+    }
+
     /**
      * If the specified key is not already associated with a value
      * associates it with the given value and returns null, else returns the current value.
@@ -268,6 +287,68 @@ public interface ConsistentMap<K, V> extends DistributedPrimitive {
      */
     boolean replace(K key, long oldVersion, V newValue);
 
+    /**
+     * Applies a batch of updates, each to a different key, to this map.
+     * The updates are applied atomically within each partition of the map, as
+     * described in {@link AsyncConsistentMap#updateAll(List)}.
+     * <p>
+     * The default implementation applies the updates one at a time.
+     *
+     * @param updates updates to apply
+     * @return {@code true} if all the updates were applied; {@code false} otherwise
+     */
+    default boolean updateAll(List<MapUpdate<K, V>> updates) {
+        boolean updated = true;
+        for (MapUpdate<K, V> update : updates) {
+            switch (update.type()) {
+            case PUT:
+                put(update.key(), update.value());
+                break;
+            case PUT_IF_ABSENT:
+                updated &= putIfAbsent(update.key(), update.value()) == null;
+                break;
+            case PUT_IF_VERSION_MATCH:
+                updated &= replace(update.key(), update.currentVersion(), update.value());
+                break;
+            case PUT_IF_VALUE_MATCH:
+                updated &= replace(update.key(), update.currentValue(), update.value());
+                break;
+            case REMOVE:
+                remove(update.key());
+                break;
+            case REMOVE_IF_VERSION_MATCH:
+                updated &= remove(update.key(), update.currentVersion());
+                break;
+            case REMOVE_IF_VALUE_MATCH:
+                updated &= remove(update.key(), update.currentValue());
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported update type: " + update.type());
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map, in as few
+     * updates to the backing store as possible.
+     *
+     * @param entries mappings to be stored in this map
+     */
+    default void putAll(Map<K, V> entries) {
+        entries.forEach(this::put);
+    }
+
+    /**
+     * Removes the mappings for the specified keys from this map, in as few
+     * updates to the backing store as possible.
+     *
+     * @param keys keys whose mappings are to be removed from this map
+     */
+    default void removeAll(Collection<K> keys) {
+        keys.forEach(this::remove);
+    }
+
     /**
      * Registers the specified listener to be notified whenever the map is updated.
      *
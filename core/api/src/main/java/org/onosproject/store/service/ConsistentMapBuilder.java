@@ -17,6 +17,10 @@ package org.onosproject.store.service;
 
 import org.onosproject.store.primitives.DistributedPrimitiveBuilder;
 
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * Builder for {@link ConsistentMap} instances.
  *
@@ -27,6 +31,8 @@ public abstract class ConsistentMapBuilder<K, V>
     extends DistributedPrimitiveBuilder<ConsistentMapBuilder<K, V>, ConsistentMap<K, V>> {
 
     private boolean purgeOnUninstall = false;
+    private boolean localReplica = false;
+    private long maxReplicaStalenessMillis;
 
     public ConsistentMapBuilder() {
         super(DistributedPrimitive.Type.CONSISTENT_MAP);
@@ -42,6 +48,42 @@ public abstract class ConsistentMapBuilder<K, V>
         return this;
     }
 
+    /**
+     * Keeps a full replica of the map on the local node and serves all read operations from it.
+     * <p>
+     * The replica is kept current by the map change events. While the node is disconnected from
+     * the map, reads keep being served from the replica for at most the given staleness bound,
+     * after which they go to the map until the replica is synchronized again. Updates are always
+     * applied to the map itself.
+     *
+     * @param maxStaleness how long the replica may serve reads after losing its connection to the map
+     * @param unit time unit of the staleness bound
+     * @return this builder
+     */
+    public ConsistentMapBuilder<K, V> withLocalReplica(long maxStaleness, TimeUnit unit) {
+        checkArgument(maxStaleness >= 0, "maxStaleness must be non-negative");
+        localReplica = true;
+        maxReplicaStalenessMillis = unit.toMillis(maxStaleness);
+        return this;
+    }
+
+    /**
+     * Returns if reads are served from a local replica of the map.
+     * @return {@code true} if yes; {@code false} otherwise.
+     */
+    public boolean localReplica() {
+        return localReplica;
+    }
+
+    /**
+     * Returns how long, in milliseconds, the local replica may serve reads after losing its
+     * connection to the map.
+     * @return staleness bound in milliseconds
+     */
+    public long maxReplicaStalenessMillis() {
+        return maxReplicaStalenessMillis;
+    }
+
     /**
      * Returns if map entries need to be cleared when owning application is uninstalled.
      * @return {@code true} if yes; {@code false} otherwise.
@@ -37,7 +37,7 @@ import java.util.stream.Collectors;
 public class MockResourceService implements ResourceService {
 
     private double bandwidth = 1000.0;
-    private final Map<Resource, ResourceConsumer> assignment = new HashMap<>();
+    private final Map<Resource, ResourceConsumerId> assignment = new HashMap<>();
     public Set<Short> availableVlanLabels = new HashSet<>();
     public Set<Integer> availableMplsLabels = new HashSet<>();
 
@@ -55,7 +55,7 @@ public class MockResourceService implements ResourceService {
     @Override
     public List<ResourceAllocation> allocate(ResourceConsumer consumer, List<? extends Resource> resources) {
         assignment.putAll(
-                resources.stream().collect(Collectors.toMap(Function.identity(), x -> consumer))
+                resources.stream().collect(Collectors.toMap(Function.identity(), x -> consumer.consumerId()))
         );
 
         return resources.stream()
@@ -63,6 +63,13 @@ public class MockResourceService implements ResourceService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public boolean allocate(List<ResourceAllocation> allocations) {
+        allocations.forEach(x -> assignment.put(x.resource(), x.consumerId()));
+
+        return true;
+    }
+
     @Override
     public boolean release(List<ResourceAllocation> allocations) {
         allocations.forEach(x -> assignment.remove(x.resource()));
@@ -73,7 +80,7 @@ public class MockResourceService implements ResourceService {
     @Override
     public boolean release(ResourceConsumer consumer) {
         List<Resource> resources = assignment.entrySet().stream()
-                .filter(x -> x.getValue().equals(consumer))
+                .filter(x -> x.getValue().equals(consumer.consumerId()))
                 .map(Map.Entry::getKey)
                 .collect(Collectors.toList());
         List<ResourceAllocation> allocations = resources.stream()
@@ -106,7 +113,7 @@ public class MockResourceService implements ResourceService {
     @Override
     public Collection<ResourceAllocation> getResourceAllocations(ResourceConsumer consumer) {
         return assignment.entrySet().stream()
-                .filter(x -> x.getValue().equals(consumer))
+                .filter(x -> x.getValue().equals(consumer.consumerId()))
                 .map(x -> new ResourceAllocation(x.getKey(), x.getValue()))
                 .collect(Collectors.toList());
     }
@@ -78,5 +78,6 @@ public class ClusterMessageTest {
         byte[] fromBytes = message3.getBytes();
         ClusterMessage message = ClusterMessage.fromBytes(fromBytes);
         assertThat(message, is(message3));
+        assertThat(ClusterMessage.payloadOf(fromBytes), is(payload1));
     }
 }
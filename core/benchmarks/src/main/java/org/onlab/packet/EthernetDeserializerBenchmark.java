@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the deserialization of the packets most commonly punted to
+ * the controller.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EthernetDeserializerBenchmark {
+
+    private static final MacAddress SRC = MacAddress.valueOf("00:00:00:00:00:01");
+    private static final MacAddress DST = MacAddress.valueOf("00:00:00:00:00:02");
+
+    @Param({"arp", "lldp", "udp", "tcp"})
+    public String packet;
+
+    private final Deserializer<Ethernet> deserializer = Ethernet.deserializer();
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        bytes = sample(packet).serialize();
+    }
+
+    private static Ethernet sample(String packet) {
+        switch (packet) {
+            case "arp":
+                return ARP.buildArpRequest(SRC.toBytes(), Ip4Address.valueOf("10.0.0.1").toOctets(),
+                                           Ip4Address.valueOf("10.0.0.2").toOctets(), (short) -1);
+            case "lldp":
+                ONOSLLDP lldp = ONOSLLDP.onosLLDP("of:0000000000000001", new ChassisId(1), 1);
+                return ethernet(Ethernet.TYPE_LLDP, lldp).setDestinationMACAddress(ONOSLLDP.LLDP_ONLAB);
+            case "udp":
+                UDP udp = new UDP();
+                udp.setSourcePort(40000);
+                udp.setDestinationPort(5000);
+                udp.setPayload(new Data(new byte[256]));
+                return ethernet(Ethernet.TYPE_IPV4, ipv4(IPv4.PROTOCOL_UDP, udp));
+            case "tcp":
+                TCP tcp = new TCP();
+                tcp.setSourcePort(40000);
+                tcp.setDestinationPort(80);
+                tcp.setPayload(new Data(new byte[512]));
+                return ethernet(Ethernet.TYPE_IPV4, ipv4(IPv4.PROTOCOL_TCP, tcp));
+            default:
+                throw new IllegalArgumentException("Unknown packet " + packet);
+        }
+    }
+
+    private static IPv4 ipv4(byte protocol, IPacket payload) {
+        IPv4 ip = new IPv4();
+        ip.setSourceAddress("10.0.0.1");
+        ip.setDestinationAddress("10.0.0.2");
+        ip.setTtl((byte) 64);
+        ip.setProtocol(protocol);
+        ip.setPayload(payload);
+        return ip;
+    }
+
+    private static Ethernet ethernet(short ethType, IPacket payload) {
+        Ethernet eth = new Ethernet();
+        eth.setSourceMACAddress(SRC);
+        eth.setDestinationMACAddress(DST);
+        eth.setEtherType(ethType);
+        eth.setPayload(payload);
+        return eth;
+    }
+
+    @Benchmark
+    public Ethernet deserialize() throws DeserializationException {
+        return deserializer.deserialize(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.util;
+
+import com.googlecode.concurrenttrees.radix.node.concrete.DefaultByteArrayNodeFactory;
+import com.googlecode.concurrenttrees.radixinverted.ConcurrentInvertedRadixTree;
+import com.googlecode.concurrenttrees.radixinverted.InvertedRadixTree;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of longest prefix match lookups and updates of the IP prefix
+ * trie, compared with the inverted radix tree over binary strings the route
+ * stores used to rely on.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IpPrefixTrieBenchmark {
+
+    private static final int LOOKUPS = 4096;
+
+    @Param({"INET", "INET6"})
+    public IpAddress.Version version;
+
+    @Param({"10000", "150000"})
+    public int prefixCount;
+
+    private IpPrefixTrie<IpPrefix> trie;
+    private InvertedRadixTree<IpPrefix> radixTree;
+    private IpPrefix[] prefixes;
+    private IpAddress[] addresses;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(prefixCount);
+        trie = new IpPrefixTrie<>(version);
+        radixTree = new ConcurrentInvertedRadixTree<>(new DefaultByteArrayNodeFactory());
+        prefixes = new IpPrefix[prefixCount];
+        for (int i = 0; i < prefixCount; i++) {
+            IpPrefix prefix = IpPrefix.valueOf(randomAddress(random), randomLength(random));
+            prefixes[i] = prefix;
+            trie.put(prefix, prefix);
+            radixTree.put(binaryString(prefix), prefix);
+        }
+        addresses = new IpAddress[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            // half of the lookups fall within a known prefix
+            addresses[i] = i % 2 == 0 ?
+                    prefixes[random.nextInt(prefixCount)].address() :
+                    randomAddress(random);
+        }
+    }
+
+    private IpAddress randomAddress(Random random) {
+        byte[] octets = new byte[IpAddress.byteLength(version)];
+        random.nextBytes(octets);
+        if (version == IpAddress.Version.INET6) {
+            // global unicast space, as in BGP tables
+            octets[0] = (byte) (0x20 | (octets[0] & 0x01));
+        }
+        return IpAddress.valueOf(version, octets);
+    }
+
+    // Prefix lengths skewed like those of BGP tables
+    private int randomLength(Random random) {
+        int r = random.nextInt(100);
+        if (version == IpAddress.Version.INET) {
+            return r < 60 ? 24 : 16 + random.nextInt(8);
+        }
+        return r < 50 ? 48 : 29 + random.nextInt(19);
+    }
+
+    // Binary string representation of RouteTools.createBinaryString
+    private static String binaryString(IpPrefix prefix) {
+        byte[] octets = prefix.address().toOctets();
+        StringBuilder result = new StringBuilder(prefix.prefixLength() + 1);
+        result.append("0");
+        for (int i = 0; i < prefix.prefixLength(); i++) {
+            boolean isSet = (octets[i / Byte.SIZE] & (1 << (Byte.SIZE - 1 - i % Byte.SIZE))) != 0;
+            result.append(isSet ? "1" : "0");
+        }
+        return result.toString();
+    }
+
+    private IpAddress nextAddress() {
+        next = (next + 1) % LOOKUPS;
+        return addresses[next];
+    }
+
+    private IpPrefix nextPrefix() {
+        next = (next + 1) % prefixCount;
+        return prefixes[next];
+    }
+
+    @Benchmark
+    public IpPrefix trieLookup() {
+        return trie.longestPrefixMatch(nextAddress());
+    }
+
+    @Benchmark
+    public IpPrefix radixTreeLookup() {
+        IpPrefix match = null;
+        for (IpPrefix prefix : radixTree.getValuesForKeysPrefixing(binaryString(nextAddress().toIpPrefix()))) {
+            match = prefix;
+        }
+        return match;
+    }
+
+    @Benchmark
+    public IpPrefix trieUpdate() {
+        IpPrefix prefix = nextPrefix();
+        trie.remove(prefix);
+        return trie.put(prefix, prefix);
+    }
+
+    @Benchmark
+    public IpPrefix radixTreeUpdate() {
+        IpPrefix prefix = nextPrefix();
+        String key = binaryString(prefix);
+        radixTree.remove(key);
+        return radixTree.put(key, prefix);
+    }
+}
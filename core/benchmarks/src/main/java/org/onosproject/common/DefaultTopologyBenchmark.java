@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.common;
+
+import org.onosproject.net.Path;
+import org.onosproject.net.topology.GraphDescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the topology computation and path search over synthetic
+ * topologies.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultTopologyBenchmark {
+
+    @Param({"grid", "linear"})
+    public String shape;
+
+    // grid side, or square root of the line length; corner to corner paths
+    // of a grid grow combinatorially, hence the modest sizes
+    @Param({"4", "8"})
+    public int size;
+
+    private GraphDescription description;
+    private DefaultTopology topology;
+    private SyntheticTopology synthetic;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // measure the search itself rather than the path cache
+        DefaultTopology.setDefaultPathCacheSize(0);
+        synthetic = SyntheticTopology.of(shape, "linear".equals(shape) ? size * size : size);
+        description = synthetic.description();
+        topology = new DefaultTopology(SyntheticTopology.PID, description);
+        topology.clusterCount();
+    }
+
+    @Benchmark
+    public int computeTopology() {
+        DefaultTopology fresh = new DefaultTopology(SyntheticTopology.PID, description);
+        return fresh.clusterCount() + fresh.getClusters().size();
+    }
+
+    @Benchmark
+    public Set<Path> shortestPaths() {
+        return topology.getPaths(synthetic.first(), synthetic.last());
+    }
+
+    @Benchmark
+    public Set<Path> singlePath() {
+        return topology.getPaths(synthetic.first(), synthetic.last(), null, 1);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.common;
+
+import com.google.common.collect.ImmutableList;
+import org.onlab.packet.ChassisId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultDevice;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.net.topology.DefaultGraphDescription;
+import org.onosproject.net.topology.GraphDescription;
+
+import java.util.List;
+
+import static org.onlab.util.Tools.toHex;
+
+/**
+ * Synthetic topologies shaped like the ones of the null provider simulators.
+ */
+final class SyntheticTopology {
+
+    static final ProviderId PID = new ProviderId("null", "benchmark");
+
+    private final List<Device> devices;
+    private final List<Link> links;
+
+    private SyntheticTopology(List<Device> devices, List<Link> links) {
+        this.devices = devices;
+        this.links = links;
+    }
+
+    /**
+     * Creates a topology of the given shape; a grid of the given size, or a
+     * line of devices of the given length.
+     *
+     * @param shape topology shape; grid or linear
+     * @param size  number of rows and columns, or number of devices
+     * @return synthetic topology
+     */
+    static SyntheticTopology of(String shape, int size) {
+        switch (shape) {
+            case "grid":
+                return grid(size, size);
+            case "linear":
+                return linear(size);
+            default:
+                throw new IllegalArgumentException("Unknown topology shape " + shape);
+        }
+    }
+
+    /**
+     * Creates a rectangular grid of devices, as GridTopologySimulator does.
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     * @return synthetic topology
+     */
+    static SyntheticTopology grid(int rows, int cols) {
+        List<Device> devices = devices(rows * cols);
+        ImmutableList.Builder<Link> links = ImmutableList.builder();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int i = r * cols + c;
+                if (c < cols - 1) {
+                    addLinks(links, devices, i, i + 1, 3, 1);
+                }
+                if (r < rows - 1) {
+                    addLinks(links, devices, i, (r + 1) * cols + c, 4, 2);
+                }
+            }
+        }
+        return new SyntheticTopology(devices, links.build());
+    }
+
+    /**
+     * Creates a line of devices, as LinearTopologySimulator does.
+     *
+     * @param length number of devices
+     * @return synthetic topology
+     */
+    static SyntheticTopology linear(int length) {
+        List<Device> devices = devices(length);
+        ImmutableList.Builder<Link> links = ImmutableList.builder();
+        for (int i = 0; i < length - 1; i++) {
+            addLinks(links, devices, i, i + 1, 2, 1);
+        }
+        return new SyntheticTopology(devices, links.build());
+    }
+
+    private static List<Device> devices(int count) {
+        ImmutableList.Builder<Device> devices = ImmutableList.builder();
+        for (int i = 1; i <= count; i++) {
+            devices.add(new DefaultDevice(PID, DeviceId.deviceId("null:" + toHex(i)),
+                                          Device.Type.SWITCH, "ON.Lab", "0.1", "0.1",
+                                          "1234", new ChassisId(i)));
+        }
+        return devices.build();
+    }
+
+    private static void addLinks(ImmutableList.Builder<Link> links, List<Device> devices,
+                                 int i, int j, int pi, int pj) {
+        ConnectPoint one = new ConnectPoint(devices.get(i).id(), PortNumber.portNumber(pi));
+        ConnectPoint two = new ConnectPoint(devices.get(j).id(), PortNumber.portNumber(pj));
+        links.add(DefaultLink.builder().providerId(PID).src(one).dst(two)
+                          .type(Link.Type.DIRECT).build());
+        links.add(DefaultLink.builder().providerId(PID).src(two).dst(one)
+                          .type(Link.Type.DIRECT).build());
+    }
+
+    /**
+     * Returns the graph description of the topology.
+     *
+     * @return graph description
+     */
+    GraphDescription description() {
+        return new DefaultGraphDescription(System.nanoTime(), System.currentTimeMillis(),
+                                           devices, links);
+    }
+
+    /**
+     * Returns the first device of the topology.
+     *
+     * @return device identifier
+     */
+    DeviceId first() {
+        return devices.get(0).id();
+    }
+
+    /**
+     * Returns the last device of the topology.
+     *
+     * @return device identifier
+     */
+    DeviceId last() {
+        return devices.get(devices.size() - 1).id();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.incubator.store.routing.impl;
+
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+import org.onosproject.incubator.net.routing.IpRoute;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.ConsistentMapBuilder;
+import org.onosproject.store.service.StorageServiceAdapter;
+import org.onosproject.store.service.Versioned;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of the route update rate of the distributed route store, over
+ * maps acknowledging every update at once, so that the store itself is
+ * measured; run with -t to update from several threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistributedRouteStoreBenchmark {
+
+    private static final IpAddress NH1 = IpAddress.valueOf("192.168.1.1");
+    private static final IpAddress NH2 = IpAddress.valueOf("192.168.1.2");
+
+    @Param({"1000", "100000"})
+    public int routeCount;
+
+    private DistributedRouteStore store;
+    private IpRoute[] routes;
+    private final AtomicLong next = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        store = new DistributedRouteStore(new LocalStorageService());
+        store.activate();
+        routes = new IpRoute[routeCount * 2];
+        for (int i = 0; i < routeCount; i++) {
+            IpPrefix prefix = IpPrefix.valueOf(IpAddress.valueOf((10 << 24) + (i << 8)), 24);
+            routes[2 * i] = new IpRoute(IpRoute.Source.STATIC, prefix, NH1);
+            routes[2 * i + 1] = new IpRoute(IpRoute.Source.STATIC, prefix, NH2);
+            store.updateRoute(routes[2 * i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.deactivate();
+    }
+
+    private IpRoute nextRoute() {
+        long n = next.getAndIncrement();
+        // moves each prefix to the other next hop in turn
+        int i = (int) (n % routeCount);
+        int round = (int) (n / routeCount);
+        return routes[2 * i + (round + 1) % 2];
+    }
+
+    @Benchmark
+    public void updateRoute() {
+        store.updateRoute(nextRoute());
+    }
+
+    @Benchmark
+    public void updateAndRemoveRoute() {
+        IpRoute route = nextRoute();
+        store.updateRoute(route);
+        store.removeRoute(route);
+    }
+
+    // Storage service building in-memory maps which complete every operation
+    // at once and, as the only instance, never send events.
+    private static class LocalStorageService extends StorageServiceAdapter {
+        @Override
+        public <K, V> ConsistentMapBuilder<K, V> consistentMapBuilder() {
+            return new ConsistentMapBuilder<K, V>() {
+                @Override
+                public ConsistentMap<K, V> build() {
+                    return buildAsyncMap().asConsistentMap();
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public AsyncConsistentMap<K, V> buildAsyncMap() {
+                    Map<Object, Versioned<Object>> map = new ConcurrentHashMap<>();
+                    AtomicLong version = new AtomicLong();
+                    return (AsyncConsistentMap<K, V>) Proxy.newProxyInstance(
+                            AsyncConsistentMap.class.getClassLoader(),
+                            new Class<?>[]{AsyncConsistentMap.class},
+                            (proxy, method, args) -> {
+                                switch (method.getName()) {
+                                    case "name":
+                                        return name();
+                                    case "putAndGet":
+                                        Versioned<Object> value =
+                                                new Versioned<>(args[1], version.incrementAndGet());
+                                        map.put(args[0], value);
+                                        return CompletableFuture.completedFuture(value);
+                                    case "remove":
+                                        return CompletableFuture.completedFuture(map.remove(args[0]));
+                                    case "get":
+                                        return CompletableFuture.completedFuture(map.get(args[0]));
+                                    case "values":
+                                        return CompletableFuture.completedFuture(
+                                                new ArrayList<>(map.values()));
+                                    case "entrySet":
+                                        return CompletableFuture.completedFuture(Collections.emptySet());
+                                    case "addListener":
+                                    case "removeListener":
+                                        return CompletableFuture.completedFuture(null);
+                                    default:
+                                        throw new UnsupportedOperationException(method.getName());
+                                }
+                            });
+                }
+            };
+        }
+    }
+}
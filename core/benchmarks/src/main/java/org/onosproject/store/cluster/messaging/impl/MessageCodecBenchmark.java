@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.cluster.messaging.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.onlab.packet.IpAddress;
+import org.onosproject.core.HybridLogicalTime;
+import org.onosproject.store.cluster.messaging.Endpoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the encoding and decoding of inter-node messages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    private static final int PREAMBLE = 0x1234abcd;
+
+    @Param({"64", "1024", "65536"})
+    public int payloadSize;
+
+    private EmbeddedChannel encoder;
+    private EmbeddedChannel decoder;
+    private InternalMessage message;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        message = new InternalMessage(PREAMBLE, new HybridLogicalTime(1, 0), 1,
+                                      new Endpoint(IpAddress.valueOf("10.0.0.1"), 9876),
+                                      "onos-benchmark-message", new byte[payloadSize]);
+        encoder = new EmbeddedChannel(new MessageEncoder(PREAMBLE));
+        decoder = new EmbeddedChannel(new MessageDecoder());
+
+        encoder.writeOutbound(message);
+        ByteBuf frame = Unpooled.buffer();
+        Object out;
+        while ((out = encoder.readOutbound()) != null) {
+            frame.writeBytes((ByteBuf) out);
+            ReferenceCountUtil.release(out);
+        }
+        encoded = new byte[frame.readableBytes()];
+        frame.readBytes(encoded);
+        frame.release();
+    }
+
+    @TearDown
+    public void tearDown() {
+        encoder.finishAndReleaseAll();
+        decoder.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int encode() {
+        encoder.writeOutbound(message);
+        int written = 0;
+        Object out;
+        while ((out = encoder.readOutbound()) != null) {
+            written += ((ByteBuf) out).readableBytes();
+            ReferenceCountUtil.release(out);
+        }
+        return written;
+    }
+
+    @Benchmark
+    public Object decode() {
+        decoder.writeInbound(Unpooled.wrappedBuffer(encoded));
+        return decoder.readInbound();
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import org.onlab.packet.MacAddress;
+import org.onosproject.cfg.ComponentConfigAdapter;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.core.IdGenerator;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.MastershipRole;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DeviceServiceAdapter;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRuleEvent;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.flow.ReplicaInfo;
+import org.onosproject.store.flow.ReplicaInfoEventListener;
+import org.onosproject.store.flow.ReplicaInfoService;
+import org.onosproject.store.persistence.PersistenceServiceAdapter;
+import org.onosproject.store.service.TestStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.onosproject.net.flow.FlowEntry.FlowEntryState.ADDED;
+
+/**
+ * Benchmarks of the flow rule store operations on the master of a device.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistributedFlowRuleStoreBenchmark {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:0000000000000001");
+    private static final NodeId LOCAL = new NodeId("local");
+
+    @Param({"100", "10000"})
+    public int flowCount;
+
+    private DistributedFlowRuleStore store;
+    private List<FlowEntry> entries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        store = new DistributedFlowRuleStore();
+        store.clusterService = new ClusterServiceAdapter();
+        store.mastershipService = new LocalMastershipService();
+        store.coreService = new LocalCoreService();
+        store.configService = new ComponentConfigAdapter();
+        store.storageService = new TestStorageService();
+        store.clusterCommunicator = new ClusterCommunicationServiceAdapter();
+        store.persistenceService = new PersistenceServiceAdapter();
+        store.deviceService = new DeviceServiceAdapter();
+        store.replicaInfoManager = new LocalReplicaInfoService();
+        store.activate(null);
+
+        ImmutableList.Builder<FlowEntry> builder = ImmutableList.builder();
+        for (int i = 0; i < flowCount; i++) {
+            FlowRule rule = rule(i);
+            store.storeFlowRule(rule);
+            FlowEntry entry = new DefaultFlowEntry(rule, ADDED, 1, 10, 1000);
+            store.addOrUpdateFlowRule(entry);
+            builder.add(entry);
+        }
+        entries = builder.build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.deactivate(null);
+    }
+
+    private static FlowRule rule(int i) {
+        return DefaultFlowRule.builder()
+                .forDevice(DID)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchInPort(PortNumber.portNumber(1 + i % 48))
+                                      .matchEthDst(MacAddress.valueOf(i))
+                                      .build())
+                .withTreatment(DefaultTrafficTreatment.builder()
+                                       .setOutput(PortNumber.portNumber(1 + (i + 1) % 48))
+                                       .build())
+                .withPriority(40000)
+                .fromApp(new DefaultApplicationId(1, "org.onosproject.benchmark"))
+                .makePermanent()
+                .build();
+    }
+
+    private FlowEntry nextEntry() {
+        next = (next + 1) % entries.size();
+        return entries.get(next);
+    }
+
+    @Benchmark
+    public FlowRuleEvent updateFlowEntry() {
+        return store.addOrUpdateFlowRule(nextEntry());
+    }
+
+    @Benchmark
+    public FlowEntry getFlowEntry() {
+        return store.getFlowEntry(nextEntry());
+    }
+
+    @Benchmark
+    public int getFlowEntries() {
+        return Iterables.size(store.getFlowEntries(DID));
+    }
+
+    @Benchmark
+    public FlowRuleEvent removeAndRestoreFlowEntry() {
+        FlowEntry entry = nextEntry();
+        FlowRuleEvent event = store.removeFlowRule(entry);
+        store.storeFlowRule(entry);
+        store.addOrUpdateFlowRule(entry);
+        return event;
+    }
+
+    // Mastership service making the local node master of all devices.
+    private static class LocalMastershipService extends MastershipServiceAdapter {
+        @Override
+        public NodeId getMasterFor(DeviceId deviceId) {
+            return LOCAL;
+        }
+
+        @Override
+        public MastershipRole getLocalRole(DeviceId deviceId) {
+            return MastershipRole.MASTER;
+        }
+    }
+
+    // Core service handing out sequential identifiers.
+    private static class LocalCoreService extends CoreServiceAdapter {
+        @Override
+        public IdGenerator getIdGenerator(String topic) {
+            AtomicLong id = new AtomicLong();
+            return id::incrementAndGet;
+        }
+    }
+
+    // Replica info service without any backup nodes.
+    private static class LocalReplicaInfoService implements ReplicaInfoService {
+        @Override
+        public ReplicaInfo getReplicaInfoFor(DeviceId deviceId) {
+            return new ReplicaInfo(LOCAL, ImmutableList.of());
+        }
+
+        @Override
+        public void addListener(ReplicaInfoEventListener listener) {
+        }
+
+        @Override
+        public void removeListener(ReplicaInfoEventListener listener) {
+        }
+    }
+}
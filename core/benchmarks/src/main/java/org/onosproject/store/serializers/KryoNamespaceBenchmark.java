@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import org.onlab.util.KryoNamespace;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.provider.ProviderId;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IpPrefix;
+import org.onlab.packet.MacAddress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the serialization of common API objects with the
+ * {@link KryoNamespaces#API} namespace.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KryoNamespaceBenchmark {
+
+    private static final ProviderId PID = new ProviderId("of", "benchmark");
+
+    @Param({"deviceId", "link", "flowRule", "flowEntry"})
+    public String object;
+
+    private KryoNamespace namespace;
+    private Object value;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        namespace = KryoNamespaces.API;
+        value = sample(object);
+        bytes = namespace.serialize(value);
+    }
+
+    private static Object sample(String object) {
+        DeviceId deviceId = DeviceId.deviceId("of:0000000000000001");
+        switch (object) {
+            case "deviceId":
+                return deviceId;
+            case "link":
+                return DefaultLink.builder().providerId(PID)
+                        .src(new ConnectPoint(deviceId, PortNumber.portNumber(1)))
+                        .dst(new ConnectPoint(DeviceId.deviceId("of:0000000000000002"),
+                                              PortNumber.portNumber(2)))
+                        .type(Link.Type.DIRECT).build();
+            case "flowRule":
+                return flowRule(deviceId);
+            case "flowEntry":
+                return new DefaultFlowEntry(flowRule(deviceId), FlowEntry.FlowEntryState.ADDED,
+                                            10, 1000, 100000);
+            default:
+                throw new IllegalArgumentException("Unknown object " + object);
+        }
+    }
+
+    private static FlowRule flowRule(DeviceId deviceId) {
+        return DefaultFlowRule.builder()
+                .forDevice(deviceId)
+                .fromApp(new DefaultApplicationId(1, "org.onosproject.benchmark"))
+                .withPriority(40000)
+                .makePermanent()
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchInPort(PortNumber.portNumber(1))
+                                      .matchEthType(Ethernet.TYPE_IPV4)
+                                      .matchEthDst(MacAddress.valueOf("00:00:00:00:00:02"))
+                                      .matchIPDst(IpPrefix.valueOf("10.0.0.0/24"))
+                                      .build())
+                .withTreatment(DefaultTrafficTreatment.builder()
+                                       .setOutput(PortNumber.portNumber(2))
+                                       .build())
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return namespace.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return namespace.deserialize(bytes);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.common;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.onlab.graph.DijkstraGraphSearch;
+import org.onlab.graph.GraphPathSearch.Result;
+import org.onlab.graph.Weight;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.Link;
+import org.onosproject.net.topology.LinkWeigher;
+import org.onosproject.net.topology.TopologyEdge;
+import org.onosproject.net.topology.TopologyGraph;
+import org.onosproject.net.topology.TopologyVertex;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shortest-path tree spanning a topology cluster from its root, along which
+ * the broadcast points of the cluster lie.
+ * <p>
+ * The tree of a cluster only depends on the viable edges between the cluster
+ * vertexes, so it remains valid across topology changes that neither remove
+ * one of its edges nor add an edge shortening the distance to a vertex.
+ * </p>
+ */
+final class BroadcastTree {
+
+    private static final DijkstraGraphSearch<TopologyVertex, TopologyEdge> DIJKSTRA =
+            new DijkstraGraphSearch<>();
+
+    private final TopologyVertex root;
+    private final Set<TopologyVertex> vertexes;
+    private final Map<TopologyVertex, TopologyEdge> parents;
+    private final Map<TopologyVertex, Weight> costs;
+    private final Set<ConnectPoint> points;
+
+    private BroadcastTree(TopologyVertex root, Set<TopologyVertex> vertexes,
+                          Map<TopologyVertex, TopologyEdge> parents,
+                          Map<TopologyVertex, Weight> costs) {
+        this.root = root;
+        this.vertexes = vertexes;
+        this.parents = parents;
+        this.costs = costs;
+        ImmutableSet.Builder<ConnectPoint> builder = ImmutableSet.builder();
+        for (TopologyEdge edge : parents.values()) {
+            Link link = edge.link();
+            builder.add(link.src());
+            builder.add(link.dst());
+        }
+        this.points = builder.build();
+    }
+
+    /**
+     * Computes the broadcast tree of a cluster.
+     *
+     * @param graph    topology graph
+     * @param root     cluster root
+     * @param vertexes cluster vertexes
+     * @param weigher  link weigher
+     * @return broadcast tree
+     */
+    static BroadcastTree compute(TopologyGraph graph, TopologyVertex root,
+                                 Set<TopologyVertex> vertexes, LinkWeigher weigher) {
+        Result<TopologyVertex, TopologyEdge> result =
+                DIJKSTRA.search(graph, root, null, weigher, 1);
+        ImmutableMap.Builder<TopologyVertex, TopologyEdge> parents = ImmutableMap.builder();
+        ImmutableMap.Builder<TopologyVertex, Weight> costs = ImmutableMap.builder();
+        for (Map.Entry<TopologyVertex, Set<TopologyEdge>> entry : result.parents().entrySet()) {
+            TopologyVertex vertex = entry.getKey();
+
+            // Ignore any parents that lead outside the cluster or any
+            // back-link sets that are empty.
+            if (!vertexes.contains(vertex) || entry.getValue().isEmpty()) {
+                continue;
+            }
+
+            // Use the first back-link to join the vertex to the tree.
+            parents.put(vertex, entry.getValue().iterator().next());
+        }
+        for (TopologyVertex vertex : vertexes) {
+            Weight cost = result.costs().get(vertex);
+            if (cost != null) {
+                costs.put(vertex, cost);
+            }
+        }
+        return new BroadcastTree(root, vertexes, parents.build(), costs.build());
+    }
+
+    /**
+     * Indicates whether the tree is still a shortest-path tree of the given
+     * cluster after the specified topology changes.
+     *
+     * @param root     cluster root
+     * @param vertexes cluster vertexes
+     * @param delta    topology changes
+     * @param weigher  link weigher
+     * @return true if the tree can be reused
+     */
+    boolean survives(TopologyVertex root, Set<TopologyVertex> vertexes,
+                     TopologyDelta delta, LinkWeigher weigher) {
+        if (!this.root.equals(root) || !this.vertexes.equals(vertexes)) {
+            return false;
+        }
+        for (TopologyEdge edge : delta.removedViableEdges()) {
+            if (edge.equals(parents.get(edge.dst()))) {
+                return false;
+            }
+        }
+        for (TopologyEdge edge : delta.addedViableEdges()) {
+            Weight srcCost = costs.get(edge.src());
+            Weight dstCost = costs.get(edge.dst());
+            if (srcCost != null && dstCost != null &&
+                    srcCost.merge(weigher.weight(edge)).compareTo(dstCost) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the root of the tree.
+     *
+     * @return cluster root
+     */
+    TopologyVertex root() {
+        return root;
+    }
+
+    /**
+     * Returns the connection points of the tree links.
+     *
+     * @return broadcast points
+     */
+    Set<ConnectPoint> points() {
+        return points;
+    }
+}
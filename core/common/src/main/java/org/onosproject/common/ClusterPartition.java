@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.common;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onlab.graph.TarjanGraphSearch.SccResult;
+import org.onosproject.net.topology.TopologyEdge;
+import org.onosproject.net.topology.TopologyGraph;
+import org.onosproject.net.topology.TopologyVertex;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Partition of a topology graph into strongly connected clusters.
+ * <p>
+ * A partition is either produced by a full cluster search or derived from
+ * the partition of the previous topology graph. The derivation only proves
+ * that the changed edges neither split nor merge any of the previous
+ * clusters; whenever that cannot be shown within the search budget, it gives
+ * up so that the caller falls back to a full search.
+ * </p>
+ */
+final class ClusterPartition {
+
+    private final List<Set<TopologyVertex>> clusterVertexes;
+    private final List<Set<TopologyEdge>> clusterEdges;
+
+    private ClusterPartition(List<Set<TopologyVertex>> clusterVertexes,
+                             List<Set<TopologyEdge>> clusterEdges) {
+        this.clusterVertexes = clusterVertexes;
+        this.clusterEdges = clusterEdges;
+    }
+
+    /**
+     * Creates a partition from the results of a full cluster search.
+     *
+     * @param result cluster search result
+     * @return cluster partition
+     */
+    static ClusterPartition of(SccResult<TopologyVertex, TopologyEdge> result) {
+        return new ClusterPartition(result.clusterVertexes(), result.clusterEdges());
+    }
+
+    /**
+     * Derives the partition of a graph from the partition of its previous
+     * version.
+     *
+     * @param previous partition of the previous graph
+     * @param graph    current graph
+     * @param delta    differences between the previous and current graphs
+     * @param budget   maximum number of vertexes visited while verifying the
+     *                 reachability of changed edges
+     * @return partition of the current graph; null if it could not be derived
+     */
+    static ClusterPartition derive(ClusterPartition previous, TopologyGraph graph,
+                                   TopologyDelta delta, int budget) {
+        Map<TopologyVertex, Integer> index = Maps.newHashMap();
+        List<Set<TopologyVertex>> vertexes = Lists.newArrayList(previous.clusterVertexes);
+        for (int i = 0; i < vertexes.size(); i++) {
+            for (TopologyVertex vertex : vertexes.get(i)) {
+                index.put(vertex, i);
+            }
+        }
+
+        // Only removing a vertex that forms a cluster on its own cannot split it
+        Set<Integer> removed = Sets.newHashSet();
+        for (TopologyVertex vertex : delta.removedVertexes()) {
+            int i = index.get(vertex);
+            if (vertexes.get(i).size() > 1) {
+                return null;
+            }
+            removed.add(i);
+        }
+
+        // A cluster survives the removal of its own edges as long as the
+        // source of every removed edge still reaches its destination
+        int[] remaining = {budget};
+        for (TopologyEdge edge : delta.removedViableEdges()) {
+            Integer i = index.get(edge.src());
+            if (i == null || removed.contains(i) || !i.equals(index.get(edge.dst()))) {
+                continue;
+            }
+            if (!reaches(graph, edge.src(), edge.dst(), vertexes.get(i), remaining)) {
+                return null;
+            }
+        }
+
+        for (TopologyVertex vertex : delta.addedVertexes()) {
+            index.put(vertex, vertexes.size());
+            vertexes.add(ImmutableSet.of(vertex));
+        }
+
+        // An edge added between two clusters merges them only if it closes a cycle
+        for (TopologyEdge edge : delta.addedViableEdges()) {
+            if (!index.get(edge.src()).equals(index.get(edge.dst())) &&
+                    (reaches(graph, edge.dst(), edge.src(), null, remaining) || remaining[0] < 0)) {
+                return null;
+            }
+        }
+
+        ImmutableList.Builder<Set<TopologyVertex>> clusterVertexes = ImmutableList.builder();
+        ImmutableList.Builder<Set<TopologyEdge>> clusterEdges = ImmutableList.builder();
+        for (int i = 0; i < vertexes.size(); i++) {
+            if (removed.contains(i)) {
+                continue;
+            }
+            clusterVertexes.add(vertexes.get(i));
+            clusterEdges.add(findClusterEdges(graph, vertexes.get(i)));
+        }
+        return new ClusterPartition(clusterVertexes.build(), clusterEdges.build());
+    }
+
+    // Indicates whether the source reaches the destination over viable edges,
+    // optionally without leaving the given vertexes.
+    private static boolean reaches(TopologyGraph graph, TopologyVertex src, TopologyVertex dst,
+                                   Set<TopologyVertex> within, int[] remaining) {
+        Set<TopologyVertex> visited = Sets.newHashSet(src);
+        Queue<TopologyVertex> queue = new ArrayDeque<>();
+        queue.add(src);
+        while (!queue.isEmpty()) {
+            TopologyVertex vertex = queue.poll();
+            if (--remaining[0] < 0) {
+                return false;
+            }
+            for (TopologyEdge edge : graph.getEdgesFrom(vertex)) {
+                TopologyVertex next = edge.dst();
+                if (!TopologyDelta.isViable(edge) || (within != null && !within.contains(next))) {
+                    continue;
+                }
+                if (next.equals(dst)) {
+                    return true;
+                }
+                if (visited.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        return false;
+    }
+
+    // Finds all edges linking the vertexes of a cluster.
+    private static Set<TopologyEdge> findClusterEdges(TopologyGraph graph, Set<TopologyVertex> vertexes) {
+        Set<TopologyEdge> edges = Sets.newHashSet();
+        for (TopologyVertex vertex : vertexes) {
+            for (TopologyEdge edge : graph.getEdgesFrom(vertex)) {
+                if (vertexes.contains(edge.dst())) {
+                    edges.add(edge);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(edges);
+    }
+
+    /**
+     * Returns the number of clusters.
+     *
+     * @return number of clusters
+     */
+    int clusterCount() {
+        return clusterVertexes.size();
+    }
+
+    /**
+     * Returns the vertexes of each cluster.
+     *
+     * @return list of cluster vertex sets
+     */
+    List<Set<TopologyVertex>> clusterVertexes() {
+        return clusterVertexes;
+    }
+
+    /**
+     * Returns the edges linking the vertexes of each cluster.
+     *
+     * @return list of cluster edge sets
+     */
+    List<Set<TopologyEdge>> clusterEdges() {
+        return clusterEdges;
+    }
+}
@@ -18,10 +18,15 @@ package org.onosproject.common;
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSetMultimap.Builder;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.onlab.graph.DefaultEdgeWeigher;
 import org.onlab.graph.DijkstraGraphSearch;
 import org.onlab.graph.DisjointPathPair;
@@ -31,7 +36,6 @@ import org.onlab.graph.ScalarWeight;
 import org.onlab.graph.SrlgGraphSearch;
 import org.onlab.graph.SuurballeGraphSearch;
 import org.onlab.graph.TarjanGraphSearch;
-import org.onlab.graph.TarjanGraphSearch.SccResult;
 import org.onlab.graph.Weight;
 import org.onosproject.net.AbstractModel;
 import org.onosproject.net.ConnectPoint;
@@ -60,6 +64,7 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -87,8 +92,16 @@ public class DefaultTopology extends AbstractModel implements Topology {
     private static final SuurballeGraphSearch<TopologyVertex, TopologyEdge> SUURBALLE =
             new SuurballeGraphSearch<>();
 
+    private static final int DEFAULT_PATH_CACHE_SIZE = 1024;
+
+    // Largest share of the graph elements which may change for the clusters,
+    // broadcast sets and infrastructure points to be derived incrementally
+    private static final int INCREMENTAL_CHANGE_RATIO = 8;
+
     private static LinkWeigher defaultLinkWeigher = null;
     private static GraphPathSearch<TopologyVertex, TopologyEdge> defaultGraphPathSearch = null;
+    private static int defaultPathCacheSize = DEFAULT_PATH_CACHE_SIZE;
+    private static boolean pathTreesEnabled = false;
 
     private final long time;
     private final long creationTime;
@@ -97,12 +110,16 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     private final LinkWeigher hopCountWeigher;
 
-    private final Supplier<SccResult<TopologyVertex, TopologyEdge>> clusterResults;
+    private final Supplier<ClusterPartition> clusterResults;
     private final Supplier<ImmutableMap<ClusterId, TopologyCluster>> clusters;
     private final Supplier<ImmutableSet<ConnectPoint>> infrastructurePoints;
+    private final Supplier<ImmutableList<BroadcastTree>> broadcastTrees;
     private final Supplier<ImmutableSetMultimap<ClusterId, ConnectPoint>> broadcastSets;
     private final Function<ConnectPoint, Boolean> broadcastFunction;
     private final Supplier<ClusterIndexes> clusterIndexes;
+    private final int pathCacheSize;
+    private final Supplier<Cache<PathKey, Set<Path>>> pathCache;
+    private final Supplier<Cache<PathKey, ImmutableSetMultimap<DeviceId, Path>>> pathTrees;
 
     /**
      * Sets the default link-weight to be used when computing paths. If null is
@@ -128,6 +145,31 @@ public class DefaultTopology extends AbstractModel implements Topology {
         defaultGraphPathSearch = graphPathSearch;
     }
 
+    /**
+     * Sets the maximum number of path search results cached by each topology
+     * created afterwards. Results are cached per source, destination and
+     * link weigher instance; zero disables the cache.
+     *
+     * @param pathCacheSize maximum number of cached path search results
+     */
+    public static void setDefaultPathCacheSize(int pathCacheSize) {
+        log.info("Setting new default path cache size to {}", pathCacheSize);
+        defaultPathCacheSize = Math.max(0, pathCacheSize);
+    }
+
+    /**
+     * Enables or disables the computation of single-source shortest-path
+     * trees. When enabled, the first request for all shortest paths from a
+     * source device computes the paths to every destination at once, so that
+     * later requests from the same source and with the same link weigher are
+     * served by a map lookup.
+     *
+     * @param enabled true to compute shortest-path trees
+     */
+    public static void setPathTreesEnabled(boolean enabled) {
+        log.info("Setting shortest-path trees enabled to {}", enabled);
+        pathTreesEnabled = enabled;
+    }
 
     /**
      * Creates a topology descriptor attributed to the specified provider.
@@ -138,6 +180,30 @@ public class DefaultTopology extends AbstractModel implements Topology {
      */
     public DefaultTopology(ProviderId providerId, GraphDescription description,
                            Function<ConnectPoint, Boolean> broadcastFunction) {
+        this(providerId, description, broadcastFunction, null);
+    }
+
+    /**
+     * Creates a topology descriptor attributed to the specified provider,
+     * deriving its clusters, broadcast sets and infrastructure points from
+     * those of the previous topology.
+     * <p>
+     * Only the clusters touched by the changes between the two topologies
+     * are searched and only the broadcast trees they invalidate are rebuilt;
+     * if the changes affect a large part of the topology, everything is
+     * recomputed instead. Unlike the other constructors, this one computes
+     * the topology data eagerly so that no reference to the previous
+     * topology is retained.
+     * </p>
+     *
+     * @param providerId        identity of the provider
+     * @param description       data describing the new topology
+     * @param broadcastFunction broadcast point function
+     * @param previous          previous topology; null to compute from scratch
+     */
+    public DefaultTopology(ProviderId providerId, GraphDescription description,
+                           Function<ConnectPoint, Boolean> broadcastFunction,
+                           DefaultTopology previous) {
         super(providerId);
         this.broadcastFunction = broadcastFunction;
         this.time = description.timestamp();
@@ -146,15 +212,40 @@ public class DefaultTopology extends AbstractModel implements Topology {
         // Build the graph
         this.graph = new DefaultTopologyGraph(description.vertexes(),
                 description.edges());
+        this.hopCountWeigher = adapt(new HopCountLinkWeight(graph.getVertexes().size()));
 
-        this.clusterResults = Suppliers.memoize(this::searchForClusters);
+        TopologyDelta delta = previous != null ? new TopologyDelta(previous.graph, graph) : null;
+        if (delta == null || isLarge(delta)) {
+            this.clusterResults = Suppliers.memoize(this::searchForClusters);
+        } else {
+            ClusterPartition partition = ClusterPartition.derive(
+                    previous.clusterResults.get(), graph, delta, graph.getVertexes().size() / 2);
+            if (partition == null) {
+                log.debug("Unable to derive topology clusters incrementally; searching all clusters");
+            }
+            this.clusterResults = Suppliers.ofInstance(partition != null ? partition : searchForClusters());
+        }
         this.clusters = Suppliers.memoize(this::buildTopologyClusters);
 
         this.clusterIndexes = Suppliers.memoize(this::buildIndexes);
 
-        this.hopCountWeigher = adapt(new HopCountLinkWeight(graph.getVertexes().size()));
+        if (delta == null) {
+            this.broadcastTrees = Suppliers.memoize(this::buildBroadcastTrees);
+            this.infrastructurePoints = Suppliers.memoize(this::findInfrastructurePoints);
+        } else {
+            this.broadcastTrees = Suppliers.ofInstance(
+                    deriveBroadcastTrees(previous.broadcastTrees.get(), delta));
+            this.infrastructurePoints = Suppliers.ofInstance(isLarge(delta) ?
+                    findInfrastructurePoints() :
+                    deriveInfrastructurePoints(previous.infrastructurePoints.get(), delta));
+        }
         this.broadcastSets = Suppliers.memoize(this::buildBroadcastSets);
-        this.infrastructurePoints = Suppliers.memoize(this::findInfrastructurePoints);
+
+        this.pathCacheSize = defaultPathCacheSize;
+        this.pathCache = Suppliers.memoize(
+                () -> CacheBuilder.newBuilder().maximumSize(pathCacheSize).build());
+        this.pathTrees = Suppliers.memoize(
+                () -> CacheBuilder.newBuilder().maximumSize(Math.max(1, deviceCount())).build());
         this.computeCost = Math.max(0, System.nanoTime() - time);
     }
 
@@ -377,8 +468,30 @@ public class DefaultTopology extends AbstractModel implements Topology {
             return ImmutableSet.of();
         }
 
+        GraphPathSearch<TopologyVertex, TopologyEdge> search = graphPathSearch();
+        if (pathTreesEnabled && maxPaths == ALL_PATHS && search == DIJKSTRA) {
+            return pathTree(srcV, weigher).get(dst);
+        }
+        if (pathCacheSize == 0) {
+            return searchPaths(search, srcV, dstV, weigher, maxPaths);
+        }
+
+        // The topology is immutable, so results only depend on the weigher
+        PathKey key = new PathKey(src, dst, weigher, search, maxPaths);
+        Set<Path> paths = pathCache.get().getIfPresent(key);
+        if (paths == null) {
+            paths = searchPaths(search, srcV, dstV, weigher, maxPaths);
+            pathCache.get().put(key, paths);
+        }
+        return paths;
+    }
+
+    // Searches for the paths between source and destination vertexes.
+    private Set<Path> searchPaths(GraphPathSearch<TopologyVertex, TopologyEdge> search,
+                                  TopologyVertex srcV, TopologyVertex dstV,
+                                  LinkWeigher weigher, int maxPaths) {
         GraphPathSearch.Result<TopologyVertex, TopologyEdge> result =
-                graphPathSearch().search(graph, srcV, dstV, weigher, maxPaths);
+                search.search(graph, srcV, dstV, weigher, maxPaths);
         ImmutableSet.Builder<Path> builder = ImmutableSet.builder();
         for (org.onlab.graph.Path<TopologyVertex, TopologyEdge> path : result.paths()) {
             builder.add(networkPath(path));
@@ -386,6 +499,25 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return builder.build();
     }
 
+    // Returns the shortest paths from the source vertex to every other
+    // vertex, indexed by destination device; computed on first use.
+    private ImmutableSetMultimap<DeviceId, Path> pathTree(TopologyVertex srcV,
+                                                          LinkWeigher weigher) {
+        PathKey key = new PathKey(srcV.deviceId(), null, weigher, DIJKSTRA, ALL_PATHS);
+        ImmutableSetMultimap<DeviceId, Path> tree = pathTrees.get().getIfPresent(key);
+        if (tree == null) {
+            Result<TopologyVertex, TopologyEdge> result =
+                    DIJKSTRA.search(graph, srcV, null, weigher, ALL_PATHS);
+            ImmutableSetMultimap.Builder<DeviceId, Path> builder = ImmutableSetMultimap.builder();
+            for (org.onlab.graph.Path<TopologyVertex, TopologyEdge> path : result.paths()) {
+                builder.put(path.dst().deviceId(), networkPath(path));
+            }
+            tree = builder.build();
+            pathTrees.get().put(key, tree);
+        }
+        return tree;
+    }
+
     /**
      * /**
      * Returns the set of pre-computed shortest disjoint path pairs between
@@ -539,17 +671,24 @@ public class DefaultTopology extends AbstractModel implements Topology {
                 (DefaultPath) networkPath(path.secondary()));
     }
 
+    // Indicates whether the changes affect too large a part of the graph to
+    // derive the topology data incrementally.
+    private boolean isLarge(TopologyDelta delta) {
+        int elements = graph.getVertexes().size() + graph.getEdges().size();
+        return delta.size() * INCREMENTAL_CHANGE_RATIO > elements;
+    }
+
     // Searches for SCC clusters in the network topology graph using Tarjan
     // algorithm.
-    private SccResult<TopologyVertex, TopologyEdge> searchForClusters() {
-        return TARJAN.search(graph, new NoIndirectLinksWeigher());
+    private ClusterPartition searchForClusters() {
+        return ClusterPartition.of(TARJAN.search(graph, new NoIndirectLinksWeigher()));
     }
 
     // Builds the topology clusters and returns the id-cluster bindings.
     private ImmutableMap<ClusterId, TopologyCluster> buildTopologyClusters() {
         ImmutableMap.Builder<ClusterId, TopologyCluster> clusterBuilder =
                 ImmutableMap.builder();
-        SccResult<TopologyVertex, TopologyEdge> results = clusterResults.get();
+        ClusterPartition results = clusterResults.get();
 
         // Extract both vertexes and edges from the results; the lists form
         // pairs along the same index.
@@ -587,40 +726,76 @@ public class DefaultTopology extends AbstractModel implements Topology {
     // Processes a map of broadcast sets for each cluster.
     private ImmutableSetMultimap<ClusterId, ConnectPoint> buildBroadcastSets() {
         Builder<ClusterId, ConnectPoint> builder = ImmutableSetMultimap.builder();
+        List<BroadcastTree> trees = broadcastTrees.get();
         for (TopologyCluster cluster : clusters.get().values()) {
-            addClusterBroadcastSet(cluster, builder);
+            builder.putAll(cluster.id(), trees.get(cluster.id().index()).points());
         }
         return builder.build();
     }
 
-    // Finds all broadcast points for the cluster. These are those connection
-    // points which lie along the shortest paths between the cluster root and
-    // all other devices within the cluster.
-    private void addClusterBroadcastSet(TopologyCluster cluster,
-                                        Builder<ClusterId, ConnectPoint> builder) {
-        // Use the graph root search results to build the broadcast set.
-        Result<TopologyVertex, TopologyEdge> result =
-                DIJKSTRA.search(graph, cluster.root(), null, hopCountWeigher, 1);
-        for (Map.Entry<TopologyVertex, Set<TopologyEdge>> entry :
-                result.parents().entrySet()) {
-            TopologyVertex vertex = entry.getKey();
-
-            // Ignore any parents that lead outside the cluster.
-            if (clustersByDevice().get(vertex.deviceId()) != cluster) {
-                continue;
+    // Computes the broadcast tree of each cluster. Broadcast points are
+    // those connection points which lie along the shortest paths between the
+    // cluster root and all other devices within the cluster.
+    private ImmutableList<BroadcastTree> buildBroadcastTrees() {
+        return deriveBroadcastTrees(ImmutableList.of(), null);
+    }
+
+    // Reuses the broadcast trees of the previous topology which remain valid
+    // despite the changes and computes the others.
+    private ImmutableList<BroadcastTree> deriveBroadcastTrees(List<BroadcastTree> previousTrees,
+                                                              TopologyDelta delta) {
+        Map<TopologyVertex, BroadcastTree> treesByRoot = Maps.newHashMap();
+        previousTrees.forEach(tree -> treesByRoot.put(tree.root(), tree));
+
+        ImmutableList.Builder<BroadcastTree> builder = ImmutableList.builder();
+        ClusterPartition results = clusterResults.get();
+        for (int i = 0, n = results.clusterCount(); i < n; i++) {
+            TopologyVertex root = clusters.get().get(ClusterId.clusterId(i)).root();
+            Set<TopologyVertex> vertexes = results.clusterVertexes().get(i);
+            BroadcastTree tree = treesByRoot.get(root);
+            if (tree == null || !tree.survives(root, vertexes, delta, hopCountWeigher)) {
+                tree = BroadcastTree.compute(graph, root, vertexes, hopCountWeigher);
             }
+            builder.add(tree);
+        }
+        return builder.build();
+    }
 
-            // Ignore any back-link sets that are empty.
-            Set<TopologyEdge> parents = entry.getValue();
-            if (parents.isEmpty()) {
-                continue;
+    // Updates the infrastructure link end-points of the previous topology
+    // with the changed links.
+    private ImmutableSet<ConnectPoint> deriveInfrastructurePoints(Set<ConnectPoint> previousPoints,
+                                                                  TopologyDelta delta) {
+        Set<ConnectPoint> points = Sets.newHashSet(previousPoints);
+        for (TopologyEdge edge : delta.removedEdges()) {
+            if (edge.link().type() != Type.EDGE) {
+                points.remove(edge.link().src());
+                points.remove(edge.link().dst());
+            }
+        }
+        // Restore the end-points still shared with other links.
+        for (TopologyEdge edge : delta.removedEdges()) {
+            if (edge.link().type() != Type.EDGE) {
+                restoreInfrastructurePoint(points, edge.link().src());
+                restoreInfrastructurePoint(points, edge.link().dst());
+            }
+        }
+        for (TopologyEdge edge : delta.addedEdges()) {
+            if (edge.link().type() != Type.EDGE) {
+                points.add(edge.link().src());
+                points.add(edge.link().dst());
             }
+        }
+        return ImmutableSet.copyOf(points);
+    }
 
-            // Use the first back-link source and destinations to add to the
-            // broadcast set.
-            Link link = parents.iterator().next().link();
-            builder.put(cluster.id(), link.src());
-            builder.put(cluster.id(), link.dst());
+    private void restoreInfrastructurePoint(Set<ConnectPoint> points, ConnectPoint point) {
+        TopologyVertex vertex = new DefaultTopologyVertex(point.deviceId());
+        boolean used = graph.getEdgesFrom(vertex).stream()
+                .anyMatch(e -> e.link().type() != Type.EDGE && e.link().src().equals(point)) ||
+                graph.getEdgesTo(vertex).stream()
+                        .anyMatch(e -> e.link().type() != Type.EDGE && e.link().dst().equals(point));
+        if (used) {
+            points.add(point);
         }
     }
 
@@ -692,6 +867,46 @@ public class DefaultTopology extends AbstractModel implements Topology {
         }
     }
 
+    // Path search cache key; link weighers and searches are compared by
+    // identity as they are not expected to implement equality.
+    private static final class PathKey {
+        private final DeviceId src;
+        private final DeviceId dst;
+        private final LinkWeigher weigher;
+        private final GraphPathSearch<TopologyVertex, TopologyEdge> search;
+        private final int maxPaths;
+
+        private PathKey(DeviceId src, DeviceId dst, LinkWeigher weigher,
+                        GraphPathSearch<TopologyVertex, TopologyEdge> search,
+                        int maxPaths) {
+            this.src = src;
+            this.dst = dst;
+            this.weigher = weigher;
+            this.search = search;
+            this.maxPaths = maxPaths;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(src, dst, System.identityHashCode(weigher),
+                                System.identityHashCode(search), maxPaths);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PathKey)) {
+                return false;
+            }
+            PathKey that = (PathKey) obj;
+            return Objects.equals(src, that.src) && Objects.equals(dst, that.dst)
+                    && weigher == that.weigher && search == that.search
+                    && maxPaths == that.maxPaths;
+        }
+    }
+
     static final class ClusterIndexes {
         final ImmutableMap<DeviceId, TopologyCluster> clustersByDevice;
         final ImmutableSetMultimap<TopologyCluster, DeviceId> devicesByCluster;
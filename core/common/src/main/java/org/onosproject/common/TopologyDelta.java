@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.common;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.onosproject.net.topology.TopologyEdge;
+import org.onosproject.net.topology.TopologyGraph;
+import org.onosproject.net.topology.TopologyVertex;
+
+import java.util.Set;
+
+import static org.onosproject.net.Link.State.INACTIVE;
+import static org.onosproject.net.Link.Type.INDIRECT;
+
+/**
+ * Differences between two successive topology graphs.
+ * <p>
+ * Edges are compared using link equality, which disregards the link state,
+ * so a change in the viability of an edge for cluster search is tracked
+ * separately by the viable edge differences.
+ * </p>
+ */
+final class TopologyDelta {
+
+    private final Set<TopologyVertex> addedVertexes;
+    private final Set<TopologyVertex> removedVertexes;
+    private final Set<TopologyEdge> addedEdges;
+    private final Set<TopologyEdge> removedEdges;
+    private final Set<TopologyEdge> addedViableEdges;
+    private final Set<TopologyEdge> removedViableEdges;
+
+    /**
+     * Computes the differences between the specified graphs.
+     *
+     * @param previous previous topology graph
+     * @param current  current topology graph
+     */
+    TopologyDelta(TopologyGraph previous, TopologyGraph current) {
+        this.addedVertexes = difference(current.getVertexes(), previous.getVertexes());
+        this.removedVertexes = difference(previous.getVertexes(), current.getVertexes());
+        this.addedEdges = difference(current.getEdges(), previous.getEdges());
+        this.removedEdges = difference(previous.getEdges(), current.getEdges());
+        Set<TopologyEdge> previousViable = Sets.filter(previous.getEdges(), TopologyDelta::isViable);
+        Set<TopologyEdge> currentViable = Sets.filter(current.getEdges(), TopologyDelta::isViable);
+        this.addedViableEdges = difference(currentViable, previousViable);
+        this.removedViableEdges = difference(previousViable, currentViable);
+    }
+
+    private static <T> Set<T> difference(Set<T> a, Set<T> b) {
+        return ImmutableSet.copyOf(Sets.difference(a, b));
+    }
+
+    /**
+     * Indicates whether the edge may be traversed by cluster search; this
+     * mirrors the weigher used to search for clusters.
+     *
+     * @param edge topology edge
+     * @return true if the edge is active and not indirect
+     */
+    static boolean isViable(TopologyEdge edge) {
+        return edge.link().state() != INACTIVE && edge.link().type() != INDIRECT;
+    }
+
+    /**
+     * Returns the number of changed vertexes and edges.
+     *
+     * @return size of the delta
+     */
+    int size() {
+        return addedVertexes.size() + removedVertexes.size() +
+                Math.max(addedEdges.size(), addedViableEdges.size()) +
+                Math.max(removedEdges.size(), removedViableEdges.size());
+    }
+
+    /**
+     * Returns the vertexes present only in the current graph.
+     *
+     * @return set of vertexes
+     */
+    Set<TopologyVertex> addedVertexes() {
+        return addedVertexes;
+    }
+
+    /**
+     * Returns the vertexes present only in the previous graph.
+     *
+     * @return set of vertexes
+     */
+    Set<TopologyVertex> removedVertexes() {
+        return removedVertexes;
+    }
+
+    /**
+     * Returns the edges present only in the current graph.
+     *
+     * @return set of edges
+     */
+    Set<TopologyEdge> addedEdges() {
+        return addedEdges;
+    }
+
+    /**
+     * Returns the edges present only in the previous graph.
+     *
+     * @return set of edges
+     */
+    Set<TopologyEdge> removedEdges() {
+        return removedEdges;
+    }
+
+    /**
+     * Returns the edges viable only in the current graph.
+     *
+     * @return set of edges
+     */
+    Set<TopologyEdge> addedViableEdges() {
+        return addedViableEdges;
+    }
+
+    /**
+     * Returns the edges viable only in the previous graph.
+     *
+     * @return set of edges
+     */
+    Set<TopologyEdge> removedViableEdges() {
+        return removedViableEdges;
+    }
+}
@@ -40,6 +40,7 @@ public class MeteringAgent {
     private MetricsFeature metricsFeature;
     private final Map<String, Timer> perObjOpTimers = Maps.newConcurrentMap();
     private final Map<String, Timer> perOpTimers = Maps.newConcurrentMap();
+    private final Map<String, Counter> perObjCounters = Maps.newConcurrentMap();
     private Timer perPrimitiveTimer;
     private Timer perObjTimer;
     private MetricsFeature wildcard;
@@ -89,6 +90,19 @@ public class MeteringAgent {
         return new Context(currTimer.time(), op);
     }
 
+    /**
+     * Records an occurrence of a given event, e.g. a cache hit.
+     *
+     * @param event event being counted
+     */
+    public void count(String event) {
+        if (!activated) {
+            return;
+        }
+        perObjCounters.computeIfAbsent(event, counter ->
+                metricsService.createCounter(metricsComponent, metricsFeature, event)).inc();
+    }
+
     /**
      * Timer.Context with a specific operation.
      */
@@ -15,6 +15,8 @@
  */
 package org.onosproject.common;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import org.junit.Before;
 import org.junit.Test;
 import org.onlab.graph.DefaultEdgeWeigher;
@@ -40,6 +42,7 @@ import org.onosproject.net.topology.TopologyEdge;
 import org.onosproject.net.topology.TopologyVertex;
 
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.google.common.collect.ImmutableSet.of;
 import static org.junit.Assert.*;
@@ -123,6 +126,124 @@ public class DefaultTopologyTest {
         assertEquals("incorrect path count", 1, paths.size());
     }
 
+    @Test
+    public void cachedPaths() {
+        Set<Path> paths = dt.getPaths(D1, D3, WEIGHER);
+        assertSame("paths should be cached", paths, dt.getPaths(D1, D3, WEIGHER));
+        assertNotSame("paths should be cached per weigher",
+                      paths, dt.getPaths(D1, D3, new TestLinkWeigher()));
+        assertEquals("incorrect path count", 1, dt.getPaths(D1, D3, new TestLinkWeigher()).size());
+    }
+
+    @Test
+    public void pathTrees() {
+        DefaultTopology.setPathTreesEnabled(true);
+        try {
+            assertEquals("incorrect path count", 1, dt.getPaths(D1, D2).size());
+            assertEquals("incorrect path count", 2, dt.getPaths(D1, D3).size());
+            assertTrue("no paths expected", dt.getPaths(D1, D5).isEmpty());
+            assertTrue("no paths expected", dt.getPaths(D1, D1).isEmpty());
+            assertEquals("incorrect path count", 1, dt.getPaths(D1, D3, WEIGHER).size());
+            assertEquals("incorrect path", 2, dt.getPaths(D1, D3, WEIGHER)
+                    .iterator().next().links().size());
+        } finally {
+            DefaultTopology.setPathTreesEnabled(false);
+        }
+    }
+
+    @Test
+    public void incrementalRecomputation() {
+        Set<Device> devices = ringDevices(8);
+        Set<Link> links = ringLinks(8);
+        DefaultTopology previous = topology(devices, links, null);
+
+        // Removing one direction of a ring link keeps the ring connected
+        Set<Link> fewerLinks = Sets.difference(links, of(link("1", 1, "2", 2))).immutableCopy();
+        previous = assertIncremental(devices, fewerLinks, previous);
+        assertEquals("incorrect cluster count", 1, previous.clusterCount());
+
+        // A new device linked in one direction only forms its own cluster
+        Set<Device> moreDevices = Sets.union(devices, of(device("9"))).immutableCopy();
+        Set<Link> moreLinks = Sets.union(fewerLinks, of(link("9", 1, "3", 3))).immutableCopy();
+        previous = assertIncremental(moreDevices, moreLinks, previous);
+        assertEquals("incorrect cluster count", 2, previous.clusterCount());
+
+        // Linking it back merges the two clusters
+        Set<Link> mergingLinks = Sets.union(moreLinks, of(link("3", 3, "9", 1))).immutableCopy();
+        previous = assertIncremental(moreDevices, mergingLinks, previous);
+        assertEquals("incorrect cluster count", 1, previous.clusterCount());
+
+        // Removing the other direction of the ring link leaves a line
+        Set<Link> lineLinks = Sets.difference(mergingLinks, of(link("2", 2, "1", 1))).immutableCopy();
+        previous = assertIncremental(moreDevices, lineLinks, previous);
+        assertEquals("incorrect cluster count", 1, previous.clusterCount());
+
+        // Unlinking the new device splits it off again
+        Set<Link> splitLinks = Sets.difference(lineLinks, of(link("3", 3, "9", 1))).immutableCopy();
+        previous = assertIncremental(moreDevices, splitLinks, previous);
+        assertEquals("incorrect cluster count", 2, previous.clusterCount());
+
+        // Removing the new device altogether
+        previous = assertIncremental(devices, Sets.difference(splitLinks, of(link("9", 1, "3", 3)))
+                .immutableCopy(), previous);
+        assertEquals("incorrect cluster count", 1, previous.clusterCount());
+    }
+
+    // Creates a topology incrementally from the previous one and checks it
+    // against the same topology computed from scratch.
+    private DefaultTopology assertIncremental(Set<Device> devices, Set<Link> links,
+                                              DefaultTopology previous) {
+        DefaultTopology incremental = topology(devices, links, previous);
+        DefaultTopology full = topology(devices, links, null);
+        assertEquals("incorrect cluster count", full.clusterCount(), incremental.clusterCount());
+        for (TopologyCluster cluster : full.getClusters()) {
+            TopologyCluster other = incremental.getCluster(cluster.root().deviceId());
+            assertEquals("incorrect cluster root", cluster.root(), other.root());
+            assertEquals("incorrect cluster devices",
+                         full.getClusterDevices(cluster), incremental.getClusterDevices(other));
+            assertEquals("incorrect cluster links",
+                         full.getClusterLinks(cluster), incremental.getClusterLinks(other));
+            assertEquals("incorrect broadcast set size",
+                         full.broadcastSetSize(cluster.id()), incremental.broadcastSetSize(other.id()));
+        }
+        for (Link link : Sets.union(links, previous.getGraph().getEdges().stream()
+                .map(TopologyEdge::link).collect(Collectors.toSet()))) {
+            for (ConnectPoint point : of(link.src(), link.dst())) {
+                assertEquals("incorrect infrastructure point",
+                             full.isInfrastructure(point), incremental.isInfrastructure(point));
+            }
+        }
+        return incremental;
+    }
+
+    private static DefaultTopology topology(Set<Device> devices, Set<Link> links,
+                                            DefaultTopology previous) {
+        GraphDescription description = new DefaultGraphDescription(System.nanoTime(),
+                                                                   System.currentTimeMillis(),
+                                                                   devices, links);
+        return new DefaultTopology(PID, description, null, previous);
+    }
+
+    // Creates devices 1 to n.
+    private static Set<Device> ringDevices(int n) {
+        ImmutableSet.Builder<Device> builder = ImmutableSet.builder();
+        for (int i = 1; i <= n; i++) {
+            builder.add(device(String.valueOf(i)));
+        }
+        return builder.build();
+    }
+
+    // Links devices 1 to n into a bidirectional ring.
+    private static Set<Link> ringLinks(int n) {
+        ImmutableSet.Builder<Link> builder = ImmutableSet.builder();
+        for (int i = 1; i <= n; i++) {
+            String next = String.valueOf(i % n + 1);
+            builder.add(link(String.valueOf(i), 1, next, 2));
+            builder.add(link(next, 2, String.valueOf(i), 1));
+        }
+        return builder.build();
+    }
+
     @Test
     public void pointRelated() {
         assertTrue("should be infrastructure point",
@@ -21,6 +21,7 @@ import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.SettableFuture;
 
@@ -31,6 +32,7 @@ import org.apache.felix.scr.annotations.Modified;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Service;
 import org.onlab.util.Tools;
+import org.onosproject.core.ApplicationId;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.flow.CompletedBatchOperation;
 import org.onosproject.net.flow.DefaultFlowEntry;
@@ -64,6 +66,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 import static org.onosproject.net.flow.FlowRuleEvent.Type.RULE_REMOVED;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -88,6 +91,9 @@ public class SimpleFlowRuleStore
     private final ConcurrentMap<DeviceId, List<TableStatisticsEntry>>
             deviceTableStats = new ConcurrentHashMap<>();
 
+    // current round of reconciliation of each device
+    private final ConcurrentMap<DeviceId, Long> generations = new ConcurrentHashMap<>();
+
     private final AtomicInteger localBatchIdGen = new AtomicInteger();
 
     private static final int DEFAULT_PENDING_FUTURE_TIMEOUT_MINUTES = 5;
@@ -207,6 +213,49 @@ public class SimpleFlowRuleStore
                 .transformAndConcat(Collections::unmodifiableList);
     }
 
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesById(ApplicationId appId) {
+        return getFlowEntries(flowId -> (flowId.value() >>> 48) == (appId.id() & 0xffff));
+    }
+
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByGroupId(ApplicationId appId, short groupId) {
+        long prefix = ((appId.id() & 0xffffL) << 16) | (groupId & 0xffff);
+        return getFlowEntries(flowId -> (flowId.value() >>> 32) == prefix);
+    }
+
+    @Override
+    public long nextReconcileGeneration(DeviceId deviceId) {
+        return generations.merge(deviceId, 1L, Long::sum);
+    }
+
+    @Override
+    public FlowEntry markFlowEntry(FlowRule rule, long generation) {
+        for (StoredFlowEntry fe : getFlowEntries(rule.deviceId(), rule.id())) {
+            if (fe.equals(rule)) {
+                if (fe.seenGeneration() < generation) {
+                    fe.setSeenGeneration(generation);
+                }
+                return fe;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Iterable<FlowEntry> getUnmarkedFlowEntries(DeviceId deviceId, long generation) {
+        return FluentIterable.from(getFlowTable(deviceId).values())
+                .transformAndConcat(Collections::unmodifiableList)
+                .filter(fe -> fe.seenGeneration() < generation)
+                .filter(FlowEntry.class);
+    }
+
+    private Iterable<FlowEntry> getFlowEntries(Predicate<FlowId> filter) {
+        return FluentIterable.from(flowEntries.values())
+                .transformAndConcat(table -> Maps.filterKeys(table, filter::test).values())
+                .transformAndConcat(Collections::unmodifiableList);
+    }
+
     @Override
     public void storeFlowRule(FlowRule rule) {
         storeFlowRuleInternal(rule);
@@ -214,6 +263,7 @@ public class SimpleFlowRuleStore
 
     private void storeFlowRuleInternal(FlowRule rule) {
         StoredFlowEntry f = new DefaultFlowEntry(rule);
+        f.setSeenGeneration(generations.getOrDefault(rule.deviceId(), 0L));
         final DeviceId did = f.deviceId();
         final FlowId fid = f.id();
         List<StoredFlowEntry> existing = getFlowEntries(did, fid);
@@ -313,11 +363,13 @@ public class SimpleFlowRuleStore
     @Override
     public void purgeFlowRule(DeviceId deviceId) {
         flowEntries.remove(deviceId);
+        generations.remove(deviceId);
     }
 
     @Override
     public void purgeFlowRules() {
         flowEntries.clear();
+        generations.clear();
     }
 
     @Override
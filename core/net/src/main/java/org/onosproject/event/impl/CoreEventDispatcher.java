@@ -15,20 +15,37 @@
  */
 package org.onosproject.event.impl;
 
+import java.util.Dictionary;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjLongConsumer;
 
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.SharedExecutors;
+import org.onlab.util.Tools;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.DefaultEventSinkRegistry;
 import org.onosproject.event.Event;
@@ -40,9 +57,14 @@ import org.onosproject.net.host.HostEvent;
 import org.onosproject.net.intent.IntentEvent;
 import org.onosproject.net.link.LinkEvent;
 import org.onosproject.net.topology.TopologyEvent;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
@@ -55,6 +77,14 @@ import static org.onosproject.security.AppPermission.Type.EVENT_WRITE;
 import static org.slf4j.LoggerFactory.getLogger;
 /**
  * Simple implementation of an event dispatching service.
+ * <p>
+ * By default, events are dispatched by one loop per group of event classes.
+ * When configured with a number of dispatch shards, events are instead spread
+ * across that many loops by a key, such as the device or host they pertain
+ * to, so that the events of a given key are still delivered in order while
+ * the events of distinct keys are delivered in parallel. Sinks, and the
+ * listeners they notify, must then tolerate concurrent delivery.
+ * </p>
  */
 @Component(immediate = true)
 @Service
@@ -63,31 +93,47 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
     private final Logger log = getLogger(getClass());
 
+    private static final String COMPONENT = "EventDispatcher";
+    private static final String LISTENERS = "listeners";
 
-    private DispatchLoop topologyDispatcher = new DispatchLoop("topology");
-    private DispatchLoop programmingDispatcher = new DispatchLoop("programming");
-    private DispatchLoop defaultDispatcher = new DispatchLoop("default");
+    private static final int DEFAULT_DISPATCH_SHARDS = 0;
+    private static final int DEFAULT_QUEUE_CAPACITY = 0;
+    private static final boolean DEFAULT_LISTENER_LATENCY = false;
 
-    private Map<Class, DispatchLoop> dispatcherMap =
-            new ImmutableMap.Builder<Class, DispatchLoop>()
-                .put(TopologyEvent.class, topologyDispatcher)
-                .put(DeviceEvent.class, topologyDispatcher)
-                .put(LinkEvent.class, topologyDispatcher)
-                .put(HostEvent.class, topologyDispatcher)
-                .put(FlowRuleEvent.class, programmingDispatcher)
-                .put(IntentEvent.class, programmingDispatcher)
-                .build();
+    @Property(name = "dispatchShards", intValue = DEFAULT_DISPATCH_SHARDS,
+            label = "Number of event dispatch loops sharding events by subject; " +
+                    "0 dispatches each group of event classes on its own loop")
+    private int dispatchShards = DEFAULT_DISPATCH_SHARDS;
 
-    private Set<DispatchLoop> dispatchers =
-            new ImmutableSet.Builder<DispatchLoop>()
-                .addAll(dispatcherMap.values())
-                .add(defaultDispatcher)
-                .build();
+    @Property(name = "queueCapacity", intValue = DEFAULT_QUEUE_CAPACITY,
+            label = "Maximum number of events queued per dispatch loop " +
+                    "before posting blocks; 0 for no limit")
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    @Property(name = "listenerLatencyEnabled", boolValue = DEFAULT_LISTENER_LATENCY,
+            label = "Enable timing of the event processing of each listener")
+    private boolean listenerLatencyEnabled = DEFAULT_LISTENER_LATENCY;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
+    private MetricsComponent metricsComponent;
+    private MetricsFeature listenersFeature;
+    private final Map<Class<?>, Timer> listenerTimers = new ConcurrentHashMap<>();
+    private final ObjLongConsumer<Object> listenerLatency = this::recordLatency;
+
+    private volatile Dispatchers dispatchers = Dispatchers.NONE;
 
     // Default number of millis a sink can take to process an event.
     private static final long DEFAULT_EXECUTE_MS = 5_000; // ms
     private static final long WATCHDOG_MS = 250; // ms
 
+    // Maximum number of millis a post waits for room in a full queue.
+    private static final long MAX_POST_WAIT_MS = 1_000; // ms
+
+    // Maximum number of millis new loops wait for the retired ones to drain.
+    private static final long MAX_RETIREMENT_WAIT_MS = 10_000; // ms
+
     @SuppressWarnings("unchecked")
     private static final Event KILL_PILL = new AbstractEvent(null, 0) {
     };
@@ -95,38 +141,151 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
     private long maxProcessMillis = DEFAULT_EXECUTE_MS;
 
     private DispatchLoop getDispatcher(Event event) {
-        DispatchLoop dispatcher = dispatcherMap.get(event.getClass());
-        if (dispatcher == null) {
-            dispatcher = defaultDispatcher;
-        }
-        return dispatcher;
+        return dispatchers.select(event);
     }
 
     @Override
     public void post(Event event) {
-
-        if (!getDispatcher(event).add(event)) {
+        DispatchLoop dispatcher = getDispatcher(event);
+        if (dispatcher == null || !dispatcher.add(event)) {
             log.error("Unable to post event {}", event);
         }
     }
 
     @Activate
-    public void activate() {
-
-        if (maxProcessMillis != 0) {
-            dispatchers.forEach(DispatchLoop::startWatchdog);
-        }
+    public void activate(ComponentContext context) {
+        metricsComponent = metricsService.registerComponent(COMPONENT);
+        listenersFeature = metricsComponent.registerFeature(LISTENERS);
+        readComponentConfiguration(context);
+        reconfigure();
 
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
-        dispatchers.forEach(DispatchLoop::stop);
+        Dispatchers old = dispatchers;
+        dispatchers = Dispatchers.NONE;
+        old.all.forEach(DispatchLoop::removeMetrics);
+        old.all.forEach(DispatchLoop::shutdown);
+        listenerTimers.keySet().forEach(cls -> metricsService.removeMetric(
+                metricsComponent, listenersFeature, cls.getName()));
+        listenerTimers.clear();
 
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        int oldShards = dispatchShards;
+        int oldCapacity = queueCapacity;
+        readComponentConfiguration(context);
+        if (oldShards != dispatchShards || oldCapacity != queueCapacity) {
+            reconfigure();
+        }
+    }
+
+    /**
+     * Extracts properties from the component configuration context.
+     *
+     * @param context the component context
+     */
+    private void readComponentConfiguration(ComponentContext context) {
+        Dictionary<?, ?> properties = context != null ? context.getProperties() : null;
+        if (properties == null) {
+            return;
+        }
+
+        Integer intValue = Tools.getIntegerProperty(properties, "dispatchShards");
+        if (intValue != null && intValue >= 0) {
+            dispatchShards = intValue;
+        }
+
+        intValue = Tools.getIntegerProperty(properties, "queueCapacity");
+        if (intValue != null && intValue >= 0) {
+            queueCapacity = intValue;
+        }
+
+        Boolean flag = Tools.isPropertyEnabled(properties, "listenerLatencyEnabled");
+        if (flag != null) {
+            listenerLatencyEnabled = flag;
+        }
+
+        log.info("Settings: dispatchShards={}, queueCapacity={}, listenerLatencyEnabled={}",
+                 dispatchShards, queueCapacity, listenerLatencyEnabled);
+    }
+
+    // Replaces the dispatch loops by ones matching the current configuration.
+    // The retired loops drain their queues before the new ones dispatch any
+    // event, which they queue without bound in the meantime.
+    private synchronized void reconfigure() {
+        Dispatchers old = dispatchers;
+        // loop names are reused, so the metrics of the old loops go first
+        old.all.forEach(DispatchLoop::removeMetrics);
+        Dispatchers created = dispatchShards > 0 ? shardedDispatchers() : classDispatchers();
+        List<CompletableFuture<Void>> retirements = ImmutableList.copyOf(
+                old.all.stream().map(DispatchLoop::retire).iterator());
+        created.all.forEach(loop -> loop.awaitRetirements(retirements));
+        dispatchers = created;
+        created.all.forEach(DispatchLoop::start);
+    }
+
+    private Dispatchers classDispatchers() {
+        DispatchLoop topologyDispatcher = new DispatchLoop("topology");
+        DispatchLoop programmingDispatcher = new DispatchLoop("programming");
+        DispatchLoop defaultDispatcher = new DispatchLoop("default");
+        Map<Class, DispatchLoop> dispatcherMap =
+                new ImmutableMap.Builder<Class, DispatchLoop>()
+                    .put(TopologyEvent.class, topologyDispatcher)
+                    .put(DeviceEvent.class, topologyDispatcher)
+                    .put(LinkEvent.class, topologyDispatcher)
+                    .put(HostEvent.class, topologyDispatcher)
+                    .put(FlowRuleEvent.class, programmingDispatcher)
+                    .put(IntentEvent.class, programmingDispatcher)
+                    .build();
+        return new Dispatchers(dispatcherMap, defaultDispatcher, ImmutableList.of());
+    }
+
+    private Dispatchers shardedDispatchers() {
+        ImmutableList.Builder<DispatchLoop> shards = ImmutableList.builder();
+        for (int i = 0; i < dispatchShards; i++) {
+            shards.add(new DispatchLoop("shard-" + i));
+        }
+        return new Dispatchers(ImmutableMap.of(), null, shards.build());
+    }
+
+    /**
+     * Returns the key of the events that must be delivered in order with the
+     * given one. Device and link events are ordered per device, so that the
+     * events of a device and of the links originating from it are not
+     * reordered; host, flow rule and intent events per host, device and
+     * intent respectively; and all other events per event class.
+     *
+     * @param event event to be dispatched
+     * @return ordering key
+     */
+    static Object shardKey(Event event) {
+        if (event instanceof DeviceEvent) {
+            return ((DeviceEvent) event).subject().id();
+        } else if (event instanceof LinkEvent) {
+            return ((LinkEvent) event).subject().src().deviceId();
+        } else if (event instanceof HostEvent) {
+            return ((HostEvent) event).subject().id();
+        } else if (event instanceof FlowRuleEvent) {
+            return ((FlowRuleEvent) event).subject().deviceId();
+        } else if (event instanceof IntentEvent) {
+            return ((IntentEvent) event).subject().key();
+        }
+        return event.getClass();
+    }
+
+    // Records the time a listener took to process an event.
+    private void recordLatency(Object listener, long nanos) {
+        Timer timer = listenerTimers.computeIfAbsent(listener.getClass(),
+                cls -> metricsService.createTimer(metricsComponent, listenersFeature, cls.getName()));
+        timer.update(nanos, TimeUnit.NANOSECONDS);
+    }
+
     @Override
     public void setDispatchTimeLimit(long millis) {
         checkPermission(EVENT_WRITE);
@@ -136,9 +295,9 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         maxProcessMillis = millis;
 
         if (millis == 0 && oldMillis != 0) {
-            dispatchers.forEach(DispatchLoop::stopWatchdog);
+            dispatchers.all.forEach(DispatchLoop::stopWatchdog);
         } else if (millis != 0 && oldMillis == 0) {
-            dispatchers.forEach(DispatchLoop::startWatchdog);
+            dispatchers.all.forEach(DispatchLoop::startWatchdog);
         }
     }
 
@@ -148,17 +307,67 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         return maxProcessMillis;
     }
 
+    // Dispatch loops in use and the means to select one for an event.
+    private static final class Dispatchers {
+        private static final Dispatchers NONE =
+                new Dispatchers(ImmutableMap.of(), null, ImmutableList.of());
+
+        private final Map<Class, DispatchLoop> dispatcherMap;
+        private final DispatchLoop defaultDispatcher;
+        private final List<DispatchLoop> shards;
+        private final Set<DispatchLoop> all;
+
+        private Dispatchers(Map<Class, DispatchLoop> dispatcherMap,
+                            DispatchLoop defaultDispatcher,
+                            List<DispatchLoop> shards) {
+            this.dispatcherMap = dispatcherMap;
+            this.defaultDispatcher = defaultDispatcher;
+            this.shards = shards;
+            ImmutableSet.Builder<DispatchLoop> builder = ImmutableSet.builder();
+            builder.addAll(dispatcherMap.values()).addAll(shards);
+            if (defaultDispatcher != null) {
+                builder.add(defaultDispatcher);
+            }
+            this.all = builder.build();
+        }
+
+        private DispatchLoop select(Event event) {
+            if (!shards.isEmpty()) {
+                int hash = shardKey(event).hashCode();
+                return shards.get(Math.floorMod(hash ^ (hash >>> 16), shards.size()));
+            }
+            DispatchLoop dispatcher = dispatcherMap.get(event.getClass());
+            if (dispatcher == null) {
+                dispatcher = defaultDispatcher;
+            }
+            return dispatcher;
+        }
+    }
+
     // Auxiliary event dispatching loop that feeds off the events queue.
     private class DispatchLoop implements Runnable {
         private final String name;
         private volatile boolean stopped;
+        private volatile boolean retiring;
+        private volatile boolean retired;
+        private final CompletableFuture<Void> retirement = new CompletableFuture<>();
+        private volatile List<CompletableFuture<Void>> awaitedRetirements = ImmutableList.of();
         private volatile EventSink lastSink;
+        private volatile Thread dispatchThread;
         // Means to detect long-running sinks
         private final Stopwatch stopwatch = Stopwatch.createUnstarted();
         private TimerTask watchdog;
         private volatile Future<?> dispatchFuture;
         private final BlockingQueue<Event> eventsQueue;
+        // Room left in the queue, if bounded; events queued while awaiting
+        // the retired loops take none
+        private final Semaphore room;
+        private final AtomicInteger unboundedEvents = new AtomicInteger();
         private final ExecutorService executor;
+        // Means to observe the backlog and the back-pressure applied to posts
+        private final MetricsFeature feature;
+        private final Counter blockedPosts;
+        private final Counter droppedEvents;
 
         DispatchLoop(String name) {
             this.name = name;
@@ -166,16 +375,88 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
                     groupedThreads("onos/event",
                     "dispatch-" + name + "%d", log));
             eventsQueue = new LinkedBlockingQueue<>();
+            room = queueCapacity > 0 ? new Semaphore(queueCapacity) : null;
+            feature = metricsComponent.registerFeature(name);
+            metricsService.registerMetric(metricsComponent, feature, "queueSize",
+                                          (Gauge<Integer>) eventsQueue::size);
+            blockedPosts = metricsService.createCounter(metricsComponent, feature, "blockedPosts");
+            droppedEvents = metricsService.createCounter(metricsComponent, feature, "droppedEvents");
+        }
+
+        void start() {
             dispatchFuture = executor.submit(this);
+            if (maxProcessMillis != 0) {
+                startWatchdog();
+            }
         }
 
         public boolean add(Event event) {
-            return eventsQueue.add(event);
+            if (room == null) {
+                eventsQueue.add(event);
+            } else if (!awaitedRetirements.isEmpty()) {
+                unboundedEvents.incrementAndGet();
+                eventsQueue.add(event);
+            } else if (room.tryAcquire() || acquireBlocking()) {
+                eventsQueue.add(event);
+            } else {
+                droppedEvents.inc();
+                return false;
+            }
+            if (retired && eventsQueue.remove(event)) {
+                // the loop was retired concurrently; pass the event on
+                post(event);
+            }
+            return true;
+        }
+
+        // Waits for room in the full queue unless invoked by the loop itself
+        private boolean acquireBlocking() {
+            blockedPosts.inc();
+            if (Thread.currentThread() == dispatchThread) {
+                return false;
+            }
+            try {
+                return room.tryAcquire(MAX_POST_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        // Frees the room taken by a dequeued event
+        private void dequeued() {
+            if (room != null && unboundedEvents.getAndUpdate(n -> n > 0 ? n - 1 : 0) == 0) {
+                room.release();
+            }
+        }
+
+        // Makes the loop wait for the given loops to drain before dispatching
+        void awaitRetirements(List<CompletableFuture<Void>> retirements) {
+            awaitedRetirements = retirements;
+        }
+
+        // Blocks until the retired loops have drained their queues
+        private void waitForRetirements() {
+            try {
+                CompletableFuture.allOf(awaitedRetirements.toArray(new CompletableFuture[0]))
+                        .get(MAX_RETIREMENT_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Retired dispatch loops still busy; dispatch loop {} proceeding", name);
+            } catch (ExecutionException e) {
+                log.warn("Unable to wait for retired dispatch loops", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            awaitedRetirements = ImmutableList.of();
         }
 
         @Override
         public void run() {
             stopped = false;
+            dispatchThread = Thread.currentThread();
+            if (!awaitedRetirements.isEmpty()) {
+                waitForRetirements();
+            }
             log.info("Dispatch loop initiated");
             while (!stopped) {
                 try {
@@ -184,6 +465,7 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
                     if (event == KILL_PILL) {
                         break;
                     }
+                    dequeued();
                     process(event);
                 } catch (InterruptedException e) {
                     log.warn("Dispatch loop interrupted");
@@ -191,9 +473,29 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
                     log.warn("Error encountered while dispatching event:", e);
                 }
             }
+            if (retiring) {
+                drain();
+            }
             log.info("Dispatch loop terminated");
         }
 
+        // Dispatches the events left in the queue; those posted afterwards
+        // are passed on to the current loops by their producers
+        private void drain() {
+            retired = true;
+            Event event;
+            while ((event = eventsQueue.poll()) != null) {
+                if (event != KILL_PILL) {
+                    try {
+                        process(event);
+                    } catch (Exception | Error e) {
+                        log.warn("Error encountered while dispatching event:", e);
+                    }
+                }
+            }
+            retirement.complete(null);
+        }
+
         // Locate the sink for the event class and use it to process the event
         @SuppressWarnings("unchecked")
         private void process(Event event) {
@@ -201,7 +503,11 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
             if (sink != null) {
                 lastSink = sink;
                 stopwatch.start();
-                sink.process(event);
+                if (listenerLatencyEnabled) {
+                    sink.process(event, listenerLatency);
+                } else {
+                    sink.process(event);
+                }
                 stopwatch.reset();
             } else {
                 log.warn("No sink registered for event class {}",
@@ -212,7 +518,28 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         void stop() {
             stopped = true;
             stopWatchdog();
-            add(KILL_PILL);
+            eventsQueue.offer(KILL_PILL);
+        }
+
+        // Stops the loop once it dispatched the events queued so far
+        void shutdown() {
+            stopWatchdog();
+            eventsQueue.add(KILL_PILL);
+            executor.shutdown();
+        }
+
+        // Stops the loop once it drained its queue, including the events
+        // posted after the kill-pill; returns a future completed then
+        CompletableFuture<Void> retire() {
+            retiring = true;
+            shutdown();
+            return retirement;
+        }
+
+        void removeMetrics() {
+            metricsService.removeMetric(metricsComponent, feature, "queueSize");
+            metricsService.removeMetric(metricsComponent, feature, "blockedPosts");
+            metricsService.removeMetric(metricsComponent, feature, "droppedEvents");
         }
 
         // Monitors event sinks to make sure none take too long to execute.
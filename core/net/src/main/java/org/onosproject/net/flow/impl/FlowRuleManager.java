@@ -15,12 +15,14 @@
  */
 package org.onosproject.net.flow.impl;
 
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.EvictingQueue;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Sets;
+import com.google.common.collect.Queues;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
@@ -29,13 +31,17 @@ import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
 import org.onosproject.core.IdGenerator;
+import org.onosproject.mastership.MastershipEvent;
+import org.onosproject.mastership.MastershipListener;
 import org.onosproject.mastership.MastershipService;
-import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceListener;
@@ -72,10 +78,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -114,12 +123,16 @@ public class FlowRuleManager
     private boolean purgeOnDisconnection = false;
 
     private static final int DEFAULT_POLL_FREQUENCY = 30;
+    // Rounds fed with segments are given up if the last one is this late
+    private static final long RECONCILE_ROUND_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAX_RETIRED_REPLIES = 16;
     @Property(name = "fallbackFlowPollFrequency", intValue = DEFAULT_POLL_FREQUENCY,
             label = "Frequency (in seconds) for polling flow statistics via fallback provider")
     private int fallbackFlowPollFrequency = DEFAULT_POLL_FREQUENCY;
 
     private final FlowRuleStoreDelegate delegate = new InternalStoreDelegate();
     private final DeviceListener deviceListener = new InternalDeviceListener();
+    private final MastershipListener mastershipListener = new InternalMastershipListener();
 
     private final FlowRuleDriverProvider driverProvider = new FlowRuleDriverProvider();
 
@@ -148,12 +161,28 @@ public class FlowRuleManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ComponentConfigService cfgService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
+    private MetricsComponent metricsComponent;
+    private MetricsFeature reconcileFeature;
+    private final Map<DeviceId, Timer> reconcileTimers = Maps.newConcurrentMap();
+    // Rounds of reconciliation fed with segments of flow metrics
+    private final Map<DeviceId, ReconcileRound> reconcileRounds = Maps.newConcurrentMap();
+    // Latest replies whose rounds were superseded or ended, per device
+    private final Map<DeviceId, Queue<Long>> retiredReplies = Maps.newConcurrentMap();
+
     @Activate
     public void activate(ComponentContext context) {
+        if (metricsService != null) {
+            metricsComponent = metricsService.registerComponent("FlowRuleManager");
+            reconcileFeature = metricsComponent.registerFeature("flowReconcile");
+        }
         modified(context);
         store.setDelegate(delegate);
         eventDispatcher.addSink(FlowRuleEvent.class, listenerRegistry);
         deviceService.addListener(deviceListener);
+        mastershipService.addListener(mastershipListener);
         cfgService.registerProperties(getClass());
         idGenerator = coreService.getIdGenerator(FLOW_OP_TOPIC);
         log.info("Started");
@@ -162,11 +191,13 @@ public class FlowRuleManager
     @Deactivate
     public void deactivate() {
         deviceService.removeListener(deviceListener);
+        mastershipService.removeListener(mastershipListener);
         cfgService.unregisterProperties(getClass(), false);
         deviceInstallers.shutdownNow();
         operationsService.shutdownNow();
         store.unsetDelegate(delegate);
         eventDispatcher.removeSink(FlowRuleEvent.class);
+        reconcileTimers.keySet().forEach(this::removeReconcileTimer);
         log.info("Stopped");
     }
 
@@ -221,6 +252,63 @@ public class FlowRuleManager
         }
     }
 
+    // Times the reconciliation of the flow table of a device with the flow
+    // statistics it reports
+    private Timer reconcileTimer(DeviceId deviceId) {
+        return reconcileTimers.computeIfAbsent(deviceId, id ->
+                metricsService.createTimer(metricsComponent, reconcileFeature, id.toString()));
+    }
+
+    private void removeReconcileTimer(DeviceId deviceId) {
+        if (reconcileTimers.remove(deviceId) != null) {
+            metricsService.removeMetric(metricsComponent, reconcileFeature, deviceId.toString());
+        }
+    }
+
+    // Remembers that the segments of a reply no longer feed a round
+    private void retireReply(DeviceId deviceId, long replyId) {
+        retiredReplies.computeIfAbsent(deviceId, id -> Queues.synchronizedQueue(
+                EvictingQueue.create(MAX_RETIRED_REPLIES))).add(replyId);
+    }
+
+    private boolean isRetiredReply(DeviceId deviceId, long replyId) {
+        Queue<Long> replies = retiredReplies.get(deviceId);
+        return replies != null && replies.contains(replyId);
+    }
+
+    // Ends a round, dropping the later segments of its reply
+    private void endRound(DeviceId deviceId, ReconcileRound round) {
+        if (reconcileRounds.remove(deviceId, round)) {
+            retireReply(deviceId, round.replyId);
+        }
+    }
+
+    // Round of reconciliation in progress with a device
+    private final class ReconcileRound {
+        private final long generation;
+        private final long replyId;
+        private final long started = System.currentTimeMillis();
+        private final Timer.Context timer;
+        // set once the flow table is not to be swept at the end of the round
+        private volatile boolean abandoned;
+
+        private ReconcileRound(DeviceId deviceId, long replyId) {
+            timer = metricsService == null ? null : reconcileTimer(deviceId).time();
+            generation = store.nextReconcileGeneration(deviceId);
+            this.replyId = replyId;
+        }
+
+        private boolean isExpired(long now) {
+            return now - started > RECONCILE_ROUND_TIMEOUT_MILLIS;
+        }
+
+        private void finish() {
+            if (timer != null) {
+                timer.stop();
+            }
+        }
+    }
+
     @Override
     public int getFlowRuleCount() {
         checkPermission(FLOWRULE_READ);
@@ -272,46 +360,21 @@ public class FlowRuleManager
     public Iterable<FlowRule> getFlowRulesById(ApplicationId id) {
         checkPermission(FLOWRULE_READ);
 
-        Set<FlowRule> flowEntries = Sets.newHashSet();
-        for (Device d : deviceService.getDevices()) {
-            for (FlowEntry flowEntry : store.getFlowEntries(d.id())) {
-                if (flowEntry.appId() == id.id()) {
-                    flowEntries.add(flowEntry);
-                }
-            }
-        }
-        return flowEntries;
+        return Iterables.filter(store.getFlowEntriesById(id), FlowRule.class);
     }
 
     @Override
     public Iterable<FlowEntry> getFlowEntriesById(ApplicationId id) {
         checkPermission(FLOWRULE_READ);
 
-        Set<FlowEntry> flowEntries = Sets.newHashSet();
-        for (Device d : deviceService.getDevices()) {
-            for (FlowEntry flowEntry : store.getFlowEntries(d.id())) {
-                if (flowEntry.appId() == id.id()) {
-                    flowEntries.add(flowEntry);
-                }
-            }
-        }
-        return flowEntries;
+        return store.getFlowEntriesById(id);
     }
 
     @Override
     public Iterable<FlowRule> getFlowRulesByGroupId(ApplicationId appId, short groupId) {
         checkPermission(FLOWRULE_READ);
 
-        Set<FlowRule> matches = Sets.newHashSet();
-        long toLookUp = ((long) appId.id() << 16) | groupId;
-        for (Device d : deviceService.getDevices()) {
-            for (FlowEntry flowEntry : store.getFlowEntries(d.id())) {
-                if ((flowEntry.id().value() >>> 32) == toLookUp) {
-                    matches.add(flowEntry);
-                }
-            }
-        }
-        return matches;
+        return Iterables.filter(store.getFlowEntriesByGroupId(appId, groupId), FlowRule.class);
     }
 
     @Override
@@ -436,11 +499,11 @@ public class FlowRuleManager
             log.debug("Flow {} is on switch but not in store.", flowRule);
         }
 
-        private void flowAdded(FlowEntry flowEntry) {
+        private void flowAdded(FlowEntry flowEntry, FlowEntry storedEntry) {
             checkNotNull(flowEntry, FLOW_RULE_NULL);
             checkValidity();
 
-            if (checkRuleLiveness(flowEntry, store.getFlowEntry(flowEntry))) {
+            if (checkRuleLiveness(flowEntry, storedEntry)) {
                 FlowRuleEvent event = store.addOrUpdateFlowRule(flowEntry);
                 if (event == null) {
                     log.debug("No flow store event generated.");
@@ -497,26 +560,92 @@ public class FlowRuleManager
 
         @Override
         public void pushFlowMetrics(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
-            pushFlowMetricsInternal(deviceId, flowEntries, true);
+            pushFlowMetricsInternal(deviceId, flowEntries);
         }
 
         @Override
         public void pushFlowMetricsWithoutFlowMissing(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
-            pushFlowMetricsInternal(deviceId, flowEntries, false);
+            // DO NOT reinstall; without a sweep, no round is needed either
+            markFlowEntries(flowEntries, null);
+        }
+
+        @Override
+        public void pushFlowMetricsSegment(DeviceId deviceId, Iterable<FlowEntry> flowEntries,
+                                           long replyId, boolean last) {
+            long now = System.currentTimeMillis();
+            ReconcileRound current = reconcileRounds.get(deviceId);
+            if (current == null || current.replyId != replyId) {
+                // rounds left unfinished by their devices time out
+                reconcileRounds.forEach((id, r) -> {
+                    if (r.isExpired(now)) {
+                        endRound(id, r);
+                    }
+                });
+            }
+            AtomicBoolean stale = new AtomicBoolean();
+            ReconcileRound round = reconcileRounds.compute(deviceId, (id, r) -> {
+                if (r != null && r.replyId == replyId) {
+                    return r;
+                }
+                if (isRetiredReply(id, replyId)) {
+                    stale.set(true);
+                    return r;
+                }
+                if (r != null) {
+                    retireReply(id, r.replyId);
+                }
+                return new ReconcileRound(id, replyId);
+            });
+            if (stale.get()) {
+                // a late segment of a superseded or ended reply; sweeping
+                // after it would reinstall the flows reported elsewhere
+                markFlowEntries(flowEntries, null);
+                return;
+            }
+            if (round.abandoned || round.isExpired(now)) {
+                // the rest of the reply is processed without flow missing
+                round.abandoned = true;
+                markFlowEntries(flowEntries, null);
+                if (last) {
+                    endRound(deviceId, round);
+                    log.debug("Abandoned reconciliation with {}", deviceId);
+                }
+                return;
+            }
+            markFlowEntries(flowEntries, round);
+            if (last) {
+                endRound(deviceId, round);
+                try {
+                    sweepFlowEntries(deviceId, round.generation);
+                } finally {
+                    round.finish();
+                }
+            }
         }
 
-        private void pushFlowMetricsInternal(DeviceId deviceId, Iterable<FlowEntry> flowEntries,
-                                             boolean useMissingFlow) {
-            Map<FlowEntry, FlowEntry> storedRules = Maps.newHashMap();
-            store.getFlowEntries(deviceId).forEach(f -> storedRules.put(f, f));
+        private void pushFlowMetricsInternal(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
+            // stored entries are marked as seen in place, in a new round of
+            // reconciliation, so that the missing ones are found in one sweep
+            ReconcileRound round = new ReconcileRound(deviceId, 0);
+            try {
+                markFlowEntries(flowEntries, round);
+                sweepFlowEntries(deviceId, round.generation);
+            } finally {
+                round.finish();
+            }
+        }
 
+        // Processes the flow entries reported by a device, marking the stored
+        // ones as seen in the given round, if any
+        private void markFlowEntries(Iterable<FlowEntry> flowEntries, ReconcileRound round) {
             for (FlowEntry rule : flowEntries) {
                 try {
-                    FlowEntry storedRule = storedRules.remove(rule);
+                    FlowEntry storedRule = round == null ? store.getFlowEntry(rule)
+                            : store.markFlowEntry(rule, round.generation);
                     if (storedRule != null) {
                         if (storedRule.exactMatch(rule)) {
                             // we both have the rule, let's update some info then.
-                            flowAdded(rule);
+                            flowAdded(rule, storedRule);
                         } else {
                             // the two rules are not an exact match - remove the
                             // switch's rule and install our rule
@@ -533,17 +662,16 @@ public class FlowRuleManager
                     log.debug("Can't process added or extra rule {}", e.getMessage());
                 }
             }
+        }
 
-            // DO NOT reinstall
-            if (useMissingFlow) {
-                for (FlowEntry rule : storedRules.keySet()) {
-                    try {
-                        // there are rules in the store that aren't on the switch
-                        log.debug("Adding rule in store, but not on switch {}", rule);
-                        flowMissing(rule);
-                    } catch (Exception e) {
-                        log.debug("Can't add missing flow rule:", e);
-                    }
+        private void sweepFlowEntries(DeviceId deviceId, long generation) {
+            for (FlowEntry rule : store.getUnmarkedFlowEntries(deviceId, generation)) {
+                try {
+                    // there are rules in the store that aren't on the switch
+                    log.debug("Adding rule in store, but not on switch {}", rule);
+                    flowMissing(rule);
+                } catch (Exception e) {
+                    log.debug("Can't add missing flow rule:", e);
                 }
             }
         }
@@ -707,11 +835,17 @@ public class FlowRuleManager
     private class InternalDeviceListener implements DeviceListener {
         @Override
         public void event(DeviceEvent event) {
+            DeviceId deviceId = event.subject().id();
             switch (event.type()) {
                 case DEVICE_REMOVED:
+                    removeReconcileTimer(deviceId);
+                    // fall through
                 case DEVICE_AVAILABILITY_CHANGED:
-                    DeviceId deviceId = event.subject().id();
                     if (!deviceService.isAvailable(deviceId)) {
+                        // segments of an interrupted round are not to be swept
+                        reconcileRounds.remove(deviceId);
+                        // the reply ids start over with the next connection
+                        retiredReplies.remove(deviceId);
                         if (purgeOnDisconnection) {
                             store.purgeFlowRule(deviceId);
                         }
@@ -722,4 +856,15 @@ public class FlowRuleManager
             }
         }
     }
+
+    private class InternalMastershipListener implements MastershipListener {
+        @Override
+        public void event(MastershipEvent event) {
+            ReconcileRound round = reconcileRounds.get(event.subject());
+            if (round != null && !mastershipService.isLocalMaster(event.subject())) {
+                // the new master reconciles the flow table from now on
+                round.abandoned = true;
+            }
+        }
+    }
 }
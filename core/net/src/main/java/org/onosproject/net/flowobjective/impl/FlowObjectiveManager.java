@@ -28,6 +28,8 @@ import org.apache.felix.scr.annotations.Service;
 import org.onlab.osgi.DefaultServiceDirectory;
 import org.onlab.osgi.ServiceDirectory;
 import org.onlab.util.ItemNotFoundException;
+import org.onlab.util.PredictableExecutor;
+import org.onlab.util.PredictableExecutor.PickyRunnable;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
@@ -57,16 +59,20 @@ import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
-import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.FLOWRULE_WRITE;
@@ -82,15 +88,17 @@ public class FlowObjectiveManager implements FlowObjectiveService {
     public static final long INSTALL_RETRY_INTERVAL = 1000; // ms
 
     private static final String WORKER_PATTERN = "objective-installer-%d";
+    private static final String RETRY_PATTERN = "objective-retry-%d";
     private static final String GROUP_THREAD_NAME = "onos/objective-installer";
     private static final String NUM_THREAD = "numThreads";
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
-    private static final int DEFAULT_NUM_THREADS = 1;
+    private static final int DEFAULT_NUM_THREADS = 4;
     @Property(name = NUM_THREAD,
              intValue = DEFAULT_NUM_THREADS,
-             label = "Number of worker threads")
+             label = "Number of worker threads; objectives of a device " +
+                     "are always installed in order by the same worker")
     private int numThreads = DEFAULT_NUM_THREADS;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
@@ -139,13 +147,24 @@ public class FlowObjectiveManager implements FlowObjectiveService {
     // for debugging purposes
     private Map<Integer, DeviceId> nextToDevice = Maps.newConcurrentMap();
 
-    private ExecutorService executorService;
+    // Objectives are dispatched to the workers by device, so that those of
+    // one device are installed in order while devices proceed in parallel.
+    private PredictableExecutor executorService;
+    private ScheduledExecutorService retryExecutor;
+
+    // Objectives held back, by device, behind one awaiting a retry; they are
+    // installed in order once that one is installed or has failed.
+    private final Map<DeviceId, Queue<ObjectiveInstaller>> heldObjectives = Maps.newConcurrentMap();
+    // Objectives whose installation is scheduled to be retried
+    private final Set<Objective> retriedObjectives = Sets.newConcurrentHashSet();
 
     @Activate
     protected void activate() {
         cfgService.registerProperties(getClass());
-        executorService = newFixedThreadPool(numThreads,
-                                             groupedThreads(GROUP_THREAD_NAME, WORKER_PATTERN, log));
+        executorService = new PredictableExecutor(numThreads,
+                                                  groupedThreads(GROUP_THREAD_NAME, WORKER_PATTERN, log));
+        retryExecutor = newSingleThreadScheduledExecutor(
+                groupedThreads(GROUP_THREAD_NAME, RETRY_PATTERN, log));
         flowObjectiveStore.setDelegate(delegate);
         deviceService.addListener(deviceListener);
         log.info("Started");
@@ -156,13 +175,30 @@ public class FlowObjectiveManager implements FlowObjectiveService {
         cfgService.unregisterProperties(getClass(), false);
         flowObjectiveStore.unsetDelegate(delegate);
         deviceService.removeListener(deviceListener);
+        retryExecutor.shutdownNow();
         executorService.shutdown();
         pipeliners.clear();
         driverHandlers.clear();
         nextToDevice.clear();
+        // objectives awaiting a pipeliner are failed rather than dropped
+        retriedObjectives.forEach(objective -> {
+            if (retriedObjectives.remove(objective)) {
+                fail(objective, ObjectiveError.NOPIPELINER);
+            }
+        });
+        heldObjectives.keySet().forEach(deviceId -> {
+            Queue<ObjectiveInstaller> held = heldObjectives.remove(deviceId);
+            if (held != null) {
+                held.forEach(installer -> fail(installer.objective, ObjectiveError.NOPIPELINER));
+            }
+        });
         log.info("Stopped");
     }
 
+    private static void fail(Objective objective, ObjectiveError error) {
+        objective.context().ifPresent(c -> c.onError(objective, error));
+    }
+
     @Modified
     protected void modified(ComponentContext context) {
         String propertyValue =
@@ -171,9 +207,9 @@ public class FlowObjectiveManager implements FlowObjectiveService {
 
         if (newNumThreads != numThreads && newNumThreads > 0) {
             numThreads = newNumThreads;
-            ExecutorService oldWorkerExecutor = executorService;
-            executorService = newFixedThreadPool(numThreads,
-                                                 groupedThreads(GROUP_THREAD_NAME, WORKER_PATTERN, log));
+            PredictableExecutor oldWorkerExecutor = executorService;
+            executorService = new PredictableExecutor(numThreads,
+                                                      groupedThreads(GROUP_THREAD_NAME, WORKER_PATTERN, log));
             if (oldWorkerExecutor != null) {
                 oldWorkerExecutor.shutdown();
             }
@@ -185,8 +221,14 @@ public class FlowObjectiveManager implements FlowObjectiveService {
      * Task that passes the flow objective down to the driver. The task will
      * make a few attempts to find the appropriate driver, then eventually give
      * up and report an error if no suitable driver could be found.
+     * <p>
+     * The task is always run by the worker of its device; retries are
+     * scheduled rather than waited for, so that they do not hold up the
+     * objectives of other devices. The later objectives of the same device
+     * are held back until the retried one is installed or has failed.
+     * </p>
      */
-    private class ObjectiveInstaller implements Runnable {
+    private class ObjectiveInstaller implements PickyRunnable {
         private final DeviceId deviceId;
         private final Objective objective;
 
@@ -204,6 +246,35 @@ public class FlowObjectiveManager implements FlowObjectiveService {
 
         @Override
         public void run() {
+            if (numAttempts == 1 && hold()) {
+                return;
+            }
+            // objectives may also be held behind a retry that could not be
+            // scheduled, as the manager is shutting down
+            if (install() && (numAttempts > 1 || retryExecutor.isShutdown())) {
+                release();
+            }
+        }
+
+        // Queues this objective behind the one of its device awaiting a retry, if any.
+        private boolean hold() {
+            return heldObjectives.computeIfPresent(deviceId, (id, held) -> {
+                held.add(this);
+                return held;
+            }) != null;
+        }
+
+        // Installs the objectives held back behind this one, in order; those
+        // following one that needs a retry in turn are held back again.
+        private void release() {
+            Queue<ObjectiveInstaller> held = heldObjectives.remove(deviceId);
+            while (held != null && !held.isEmpty()) {
+                held.poll().run();
+            }
+        }
+
+        // Returns false when another attempt has been scheduled.
+        private boolean install() {
             try {
                 Pipeliner pipeliner = getDevicePipeliner(deviceId);
 
@@ -216,19 +287,40 @@ public class FlowObjectiveManager implements FlowObjectiveService {
                         pipeliner.filter((FilteringObjective) objective);
                     }
                     //Attempts to check if pipeliner is null for retry attempts
-                } else if (numAttempts < INSTALL_RETRY_ATTEMPTS) {
-                    Thread.sleep(INSTALL_RETRY_INTERVAL);
-                    executorService.execute(new ObjectiveInstaller(deviceId, objective, numAttempts + 1));
+                } else if (numAttempts < INSTALL_RETRY_ATTEMPTS && scheduleRetry()) {
+                    return false;
                 } else {
                     // Otherwise we've tried a few times and failed, report an
                     // error back to the user.
-                    objective.context().ifPresent(
-                            c -> c.onError(objective, ObjectiveError.NOPIPELINER));
+                    fail(objective, ObjectiveError.NOPIPELINER);
                 }
                 //Excpetion thrown
             } catch (Exception e) {
                 log.warn("Exception while installing flow objective", e);
             }
+            return true;
+        }
+
+        // Returns false when the manager is shutting down.
+        private boolean scheduleRetry() {
+            heldObjectives.putIfAbsent(deviceId, new ArrayDeque<>());
+            retriedObjectives.add(objective);
+            try {
+                retryExecutor.schedule(() -> {
+                    if (retriedObjectives.remove(objective)) {
+                        executorService.execute(new ObjectiveInstaller(deviceId, objective, numAttempts + 1));
+                    }
+                }, INSTALL_RETRY_INTERVAL, MILLISECONDS);
+                return true;
+            } catch (RejectedExecutionException e) {
+                retriedObjectives.remove(objective);
+                return false;
+            }
+        }
+
+        @Override
+        public int hint() {
+            return deviceId.hashCode();
         }
     }
 
@@ -468,8 +560,8 @@ public class FlowObjectiveManager implements FlowObjectiveService {
 
                 log.debug("Processing {} pending forwarding objectives for nextId {}",
                          pending.size(), event.subject());
-                pending.forEach(p -> getDevicePipeliner(p.deviceId())
-                                .forward(p.forwardingObjective()));
+                pending.forEach(p -> executorService.execute(
+                        new ObjectiveInstaller(p.deviceId(), p.forwardingObjective())));
             }
         }
     }
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPacket;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.IPv6;
+import org.onlab.packet.TCP;
+import org.onlab.packet.TpPort;
+import org.onlab.packet.UDP;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.EthTypeCriterion;
+import org.onosproject.net.flow.criteria.IPProtocolCriterion;
+import org.onosproject.net.flow.criteria.TcpPortCriterion;
+import org.onosproject.net.flow.criteria.UdpPortCriterion;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Filter of the inbound packets a packet processor is interested in,
+ * compiled from the traffic selector given at its registration.
+ * <p>
+ * Only the ethernet type, IP protocol and TCP/UDP port criteria are
+ * supported; the transport port criteria imply the matching IP protocol.
+ * </p>
+ */
+final class PacketFilter {
+
+    /**
+     * Filter accepting all packets.
+     */
+    static final PacketFilter ANY = new PacketFilter(null, null, -1, 0, -1, 0);
+
+    private static final int PORT_MASK = 0xffff;
+
+    private final Short ethType;
+    private final Short ipProto;
+    private final int srcPort;
+    private final int srcMask;
+    private final int dstPort;
+    private final int dstMask;
+
+    private PacketFilter(Short ethType, Short ipProto,
+                         int srcPort, int srcMask, int dstPort, int dstMask) {
+        this.ethType = ethType;
+        this.ipProto = ipProto;
+        this.srcPort = srcPort;
+        this.srcMask = srcMask;
+        this.dstPort = dstPort;
+        this.dstMask = dstMask;
+    }
+
+    /**
+     * Compiles the filter of a traffic selector.
+     *
+     * @param selector traffic selector
+     * @return packet filter
+     * @throws IllegalArgumentException if the selector uses unsupported
+     *                                  or conflicting criteria
+     */
+    static PacketFilter of(TrafficSelector selector) {
+        Short ethType = null;
+        Short ipProto = null;
+        int srcPort = -1;
+        int srcMask = 0;
+        int dstPort = -1;
+        int dstMask = 0;
+        for (Criterion criterion : selector.criteria()) {
+            switch (criterion.type()) {
+                case ETH_TYPE:
+                    ethType = ((EthTypeCriterion) criterion).ethType().toShort();
+                    break;
+                case IP_PROTO:
+                    ipProto = merge(ipProto, ((IPProtocolCriterion) criterion).protocol());
+                    break;
+                case TCP_SRC:
+                case TCP_SRC_MASKED:
+                    ipProto = merge(ipProto, IPv4.PROTOCOL_TCP);
+                    srcPort = ((TcpPortCriterion) criterion).tcpPort().toInt();
+                    srcMask = mask(((TcpPortCriterion) criterion).mask());
+                    break;
+                case TCP_DST:
+                case TCP_DST_MASKED:
+                    ipProto = merge(ipProto, IPv4.PROTOCOL_TCP);
+                    dstPort = ((TcpPortCriterion) criterion).tcpPort().toInt();
+                    dstMask = mask(((TcpPortCriterion) criterion).mask());
+                    break;
+                case UDP_SRC:
+                case UDP_SRC_MASKED:
+                    ipProto = merge(ipProto, IPv4.PROTOCOL_UDP);
+                    srcPort = ((UdpPortCriterion) criterion).udpPort().toInt();
+                    srcMask = mask(((UdpPortCriterion) criterion).mask());
+                    break;
+                case UDP_DST:
+                case UDP_DST_MASKED:
+                    ipProto = merge(ipProto, IPv4.PROTOCOL_UDP);
+                    dstPort = ((UdpPortCriterion) criterion).udpPort().toInt();
+                    dstMask = mask(((UdpPortCriterion) criterion).mask());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported packet processor criterion " + criterion);
+            }
+        }
+        if (ethType == null && ipProto == null) {
+            return ANY;
+        }
+        return new PacketFilter(ethType, ipProto, srcPort, srcMask, dstPort, dstMask);
+    }
+
+    private static Short merge(Short current, short protocol) {
+        checkArgument(current == null || current == protocol,
+                      "Conflicting IP protocol criteria %s and %s", current, protocol);
+        return protocol;
+    }
+
+    private static int mask(TpPort mask) {
+        return mask != null ? mask.toInt() : PORT_MASK;
+    }
+
+    /**
+     * Returns the ethernet type of the accepted packets.
+     *
+     * @return ethernet type; null for any
+     */
+    Short ethType() {
+        return ethType;
+    }
+
+    /**
+     * Returns the IP protocol of the accepted packets.
+     *
+     * @return IP protocol; null for any
+     */
+    Short ipProto() {
+        return ipProto;
+    }
+
+    /**
+     * Indicates whether the filter accepts all packets.
+     *
+     * @return true if the filter accepts all packets
+     */
+    boolean isAny() {
+        return this == ANY;
+    }
+
+    /**
+     * Indicates whether the transport ports of a packet are accepted; the
+     * ethernet type and IP protocol are assumed to have been matched by the
+     * processor index already.
+     *
+     * @param eth parsed packet
+     * @return true if the packet ports are accepted
+     */
+    boolean matchesPorts(Ethernet eth) {
+        if (srcPort < 0 && dstPort < 0) {
+            return true;
+        }
+        IPacket transport = eth.getPayload() != null ? eth.getPayload().getPayload() : null;
+        int src;
+        int dst;
+        if (transport instanceof TCP) {
+            src = ((TCP) transport).getSourcePort();
+            dst = ((TCP) transport).getDestinationPort();
+        } else if (transport instanceof UDP) {
+            src = ((UDP) transport).getSourcePort();
+            dst = ((UDP) transport).getDestinationPort();
+        } else {
+            return false;
+        }
+        return (srcPort < 0 || (src & srcMask) == (srcPort & srcMask)) &&
+                (dstPort < 0 || (dst & dstMask) == (dstPort & dstMask));
+    }
+
+    /**
+     * Returns the IP protocol of a packet.
+     *
+     * @param eth parsed packet
+     * @return IP protocol; -1 if the packet is not an IP packet
+     */
+    static short ipProto(Ethernet eth) {
+        IPacket payload = eth.getPayload();
+        if (payload instanceof IPv4) {
+            return (short) (((IPv4) payload).getProtocol() & 0xff);
+        } else if (payload instanceof IPv6) {
+            return (short) (((IPv6) payload).getNextHeader() & 0xff);
+        }
+        return -1;
+    }
+}
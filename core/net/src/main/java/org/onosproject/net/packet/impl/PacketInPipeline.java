@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import com.codahale.metrics.Counter;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.packet.PacketContext;
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Pipeline handing inbound packets over from the threads of the packet
+ * providers to a pool of workers, through a bounded queue per device.
+ * <p>
+ * The packets received from a device are processed one at a time, in the
+ * order they were received, while the packets of distinct devices are
+ * processed in parallel. Once the queue of a device is full, its packets
+ * are dropped until the workers catch up, so that a burst of packets from
+ * one device neither holds up the provider threads nor starves the other
+ * devices.
+ * </p>
+ */
+final class PacketInPipeline {
+
+    // Number of packets of a device processed before yielding to other devices
+    private static final int BATCH_SIZE = 64;
+
+    private final Logger log = getLogger(getClass());
+
+    private final ExecutorService workers;
+    private final int queueSize;
+    private final Consumer<PacketContext> processor;
+    private final Counter dropped;
+    private final Counter overloads;
+    private final Map<DeviceId, DeviceQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new packet-in pipeline.
+     *
+     * @param workers   executor of the workers processing the packets
+     * @param queueSize maximum number of packets queued per device
+     * @param processor processor of the packets
+     * @param dropped   counter of the packets dropped
+     * @param overloads counter of the times a device queue filled up
+     */
+    PacketInPipeline(ExecutorService workers, int queueSize,
+                     Consumer<PacketContext> processor,
+                     Counter dropped, Counter overloads) {
+        checkArgument(queueSize > 0, "Queue size must be positive");
+        this.workers = workers;
+        this.queueSize = queueSize;
+        this.processor = processor;
+        this.dropped = dropped;
+        this.overloads = overloads;
+    }
+
+    /**
+     * Queues a packet for processing.
+     *
+     * @param context packet context
+     * @return true if queued; false if dropped
+     */
+    boolean submit(PacketContext context) {
+        ConnectPoint receivedFrom = context.inPacket().receivedFrom();
+        DeviceId deviceId = receivedFrom != null ? receivedFrom.deviceId() : DeviceId.NONE;
+        return queues.computeIfAbsent(deviceId, DeviceQueue::new).offer(context);
+    }
+
+    /**
+     * Returns the number of packets awaiting processing.
+     *
+     * @return number of queued packets
+     */
+    int pending() {
+        int pending = 0;
+        for (DeviceQueue queue : queues.values()) {
+            pending += queue.size.get();
+        }
+        return pending;
+    }
+
+    /**
+     * Forgets the queue of a device, unless packets are still queued in it.
+     *
+     * @param deviceId device identifier
+     */
+    void purge(DeviceId deviceId) {
+        queues.computeIfPresent(deviceId, (id, queue) -> queue.size.get() > 0 ? queue : null);
+    }
+
+    /**
+     * Stops accepting work; the packets already queued are still processed.
+     */
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    // Queue of the packets of a device, drained by one worker at a time.
+    private final class DeviceQueue implements Runnable {
+        private final DeviceId deviceId;
+        private final Queue<PacketContext> packets = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean overloaded;
+
+        private DeviceQueue(DeviceId deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        private boolean offer(PacketContext context) {
+            if (size.incrementAndGet() > queueSize) {
+                size.decrementAndGet();
+                dropped.inc();
+                if (!overloaded) {
+                    overloaded = true;
+                    overloads.inc();
+                    log.warn("Packet-in queue of {} is full; dropping packets", deviceId);
+                }
+                return false;
+            }
+            packets.add(context);
+            schedule();
+            return true;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    workers.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // the pipeline is shutting down; finish the work here
+                    run();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int limit = workers.isShutdown() ? Integer.MAX_VALUE : BATCH_SIZE;
+            try {
+                for (int i = 0; i < limit; i++) {
+                    PacketContext context = packets.poll();
+                    if (context == null) {
+                        break;
+                    }
+                    size.decrementAndGet();
+                    processor.accept(context);
+                }
+            } finally {
+                // a failing packet must not leave the rest of the queue stranded
+                if (size.get() == 0) {
+                    overloaded = false;
+                }
+                scheduled.set(false);
+                if (!packets.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
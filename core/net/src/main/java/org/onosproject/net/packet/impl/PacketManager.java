@@ -15,14 +15,24 @@
  */
 package org.onosproject.net.packet.impl;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onlab.packet.Ethernet;
+import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.core.ApplicationId;
@@ -57,12 +67,15 @@ import org.onosproject.net.packet.PacketStore;
 import org.onosproject.net.packet.PacketStoreDelegate;
 import org.onosproject.net.provider.AbstractProviderRegistry;
 import org.onosproject.net.provider.AbstractProviderService;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
+import java.util.Dictionary;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onlab.util.Tools.groupedThreads;
@@ -88,6 +101,19 @@ public class PacketManager
     private static final String ERROR_NULL_APP_ID = "Application ID cannot be null";
     private static final String ERROR_NULL_DEVICE_ID = "Device ID cannot be null";
 
+    private static final int DEFAULT_PACKET_IN_WORKERS = 4;
+    private static final int DEFAULT_PACKET_IN_QUEUE_SIZE = 1024;
+
+    @Property(name = "packetInWorkers", intValue = DEFAULT_PACKET_IN_WORKERS,
+            label = "Number of threads processing inbound packets; " +
+                    "0 processes them on the threads of the packet providers")
+    private int packetInWorkers = DEFAULT_PACKET_IN_WORKERS;
+
+    @Property(name = "packetInQueueSize", intValue = DEFAULT_PACKET_IN_QUEUE_SIZE,
+            label = "Maximum number of inbound packets queued per device " +
+                    "before further packets are dropped")
+    private int packetInQueueSize = DEFAULT_PACKET_IN_QUEUE_SIZE;
+
     private final PacketStoreDelegate delegate = new InternalStoreDelegate();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
@@ -105,11 +131,26 @@ public class PacketManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected FlowObjectiveService objectiveService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected ComponentConfigService cfgService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
     private ExecutorService eventHandlingExecutor;
 
+    private volatile PacketInPipeline packetInPipeline;
+    private MetricsComponent metricsComponent;
+    private MetricsFeature packetInFeature;
+    private Counter processedPackets;
+    private Counter droppedPackets;
+    private Counter packetInOverloads;
+
     private final DeviceListener deviceListener = new InternalDeviceListener();
 
     private final List<ProcessorEntry> processors = Lists.newCopyOnWriteArrayList();
+    private volatile PacketProcessorIndex<ProcessorEntry> processorIndex =
+            PacketProcessorIndex.compile(ImmutableList.of(), ProcessorEntry::filter);
 
     private final  PacketDriverProvider defaultProvider = new PacketDriverProvider();
 
@@ -117,7 +158,16 @@ public class PacketManager
     private NodeId localNodeId;
 
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
+        metricsComponent = metricsService.registerComponent("PacketManager");
+        packetInFeature = metricsComponent.registerFeature("packetIn");
+        processedPackets = metricsService.createCounter(metricsComponent, packetInFeature, "processed");
+        droppedPackets = metricsService.createCounter(metricsComponent, packetInFeature, "dropped");
+        packetInOverloads = metricsService.createCounter(metricsComponent, packetInFeature, "overloads");
+        metricsService.registerMetric(metricsComponent, packetInFeature, "queued",
+                                      (Gauge<Integer>) this::queuedPackets);
+        modified(context);
         eventHandlingExecutor = Executors.newSingleThreadExecutor(
                 groupedThreads("onos/net/packet", "event-handler", log));
         localNodeId = clusterService.getLocalNode().id();
@@ -134,9 +184,58 @@ public class PacketManager
         store.unsetDelegate(delegate);
         deviceService.removeListener(deviceListener);
         eventHandlingExecutor.shutdown();
+        cfgService.unregisterProperties(getClass(), false);
+        PacketInPipeline pipeline = packetInPipeline;
+        packetInPipeline = null;
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+        metricsService.removeMetric(metricsComponent, packetInFeature, "processed");
+        metricsService.removeMetric(metricsComponent, packetInFeature, "dropped");
+        metricsService.removeMetric(metricsComponent, packetInFeature, "overloads");
+        metricsService.removeMetric(metricsComponent, packetInFeature, "queued");
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        Dictionary<?, ?> properties = context != null ? context.getProperties() : null;
+        boolean changed = false;
+        if (properties != null) {
+            Integer newWorkers = Tools.getIntegerProperty(properties, "packetInWorkers");
+            if (newWorkers != null && newWorkers >= 0 && newWorkers != packetInWorkers) {
+                packetInWorkers = newWorkers;
+                changed = true;
+            }
+            Integer newQueueSize = Tools.getIntegerProperty(properties, "packetInQueueSize");
+            if (newQueueSize != null && newQueueSize > 0 && newQueueSize != packetInQueueSize) {
+                packetInQueueSize = newQueueSize;
+                changed = true;
+            }
+        }
+        // the pipeline is only replaced when its settings change
+        if (!changed && (packetInPipeline != null || packetInWorkers == 0)) {
+            return;
+        }
+
+        PacketInPipeline old = packetInPipeline;
+        packetInPipeline = packetInWorkers > 0 ?
+                new PacketInPipeline(Executors.newFixedThreadPool(
+                        packetInWorkers, groupedThreads("onos/net/packet", "packet-in-%d", log)),
+                                     packetInQueueSize, this::processPacket,
+                                     droppedPackets, packetInOverloads) : null;
+        if (old != null) {
+            old.shutdown();
+        }
+        log.info("Settings: packetInWorkers={}, packetInQueueSize={}",
+                 packetInWorkers, packetInQueueSize);
+    }
+
+    private int queuedPackets() {
+        PacketInPipeline pipeline = packetInPipeline;
+        return pipeline != null ? pipeline.pending() : 0;
+    }
+
     @Override
     protected PacketProvider defaultProvider() {
         return defaultProvider;
@@ -146,20 +245,31 @@ public class PacketManager
     public void addProcessor(PacketProcessor processor, int priority) {
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, ERROR_NULL_PROCESSOR);
-        ProcessorEntry entry = new ProcessorEntry(processor, priority);
+        addProcessor(new ProcessorEntry(processor, priority, PacketFilter.ANY));
+    }
+
+    @Override
+    public void addProcessor(PacketProcessor processor, int priority, TrafficSelector selector) {
+        checkPermission(PACKET_EVENT);
+        checkNotNull(processor, ERROR_NULL_PROCESSOR);
+        checkNotNull(selector, ERROR_NULL_SELECTOR);
+        addProcessor(new ProcessorEntry(processor, priority, PacketFilter.of(selector)));
+    }
 
+    private synchronized void addProcessor(ProcessorEntry entry) {
         // Insert the new processor according to its priority.
         int i = 0;
         for (; i < processors.size(); i++) {
-            if (priority < processors.get(i).priority()) {
+            if (entry.priority() < processors.get(i).priority()) {
                 break;
             }
         }
         processors.add(i, entry);
+        processorIndex = PacketProcessorIndex.compile(processors, ProcessorEntry::filter);
     }
 
     @Override
-    public void removeProcessor(PacketProcessor processor) {
+    public synchronized void removeProcessor(PacketProcessor processor) {
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, ERROR_NULL_PROCESSOR);
 
@@ -170,6 +280,7 @@ public class PacketManager
                 break;
             }
         }
+        processorIndex = PacketProcessorIndex.compile(processors, ProcessorEntry::filter);
     }
 
     @Override
@@ -372,20 +483,34 @@ public class PacketManager
 
         @Override
         public void processPacket(PacketContext context) {
-            // TODO filter packets sent to processors based on registrations
-            for (ProcessorEntry entry : processors) {
-                try {
-                    long start = System.nanoTime();
-                    entry.processor().process(context);
-                    entry.addNanos(System.nanoTime() - start);
-                } catch (Exception e) {
-                    log.warn("Packet processor {} threw an exception", entry.processor(), e);
-                }
+            PacketInPipeline pipeline = packetInPipeline;
+            if (pipeline != null) {
+                pipeline.submit(context);
+            } else {
+                PacketManager.this.processPacket(context);
             }
         }
 
     }
 
+    // Hands the packet to the relevant processors in the order of their priorities.
+    private void processPacket(PacketContext context) {
+        Ethernet eth = context.inPacket().parsed();
+        for (ProcessorEntry entry : processorIndex.candidates(eth)) {
+            if (!entry.filter().isAny() && !entry.filter().matchesPorts(eth)) {
+                continue;
+            }
+            try {
+                long start = System.nanoTime();
+                entry.processor().process(context);
+                entry.addNanos(System.nanoTime() - start);
+            } catch (Exception e) {
+                log.warn("Packet processor {} threw an exception", entry.processor(), e);
+            }
+        }
+        processedPackets.inc();
+    }
+
 
     /**
      * Internal callback from the packet store.
@@ -435,6 +560,12 @@ public class PacketManager
                                 pushRulesToDevice(device);
                             }
                             break;
+                        case DEVICE_REMOVED:
+                            PacketInPipeline pipeline = packetInPipeline;
+                            if (pipeline != null) {
+                                pipeline.purge(device.id());
+                            }
+                            break;
                         default:
                             break;
                     }
@@ -451,12 +582,15 @@ public class PacketManager
     private class ProcessorEntry implements PacketProcessorEntry {
         private final PacketProcessor processor;
         private final int priority;
-        private long invocations = 0;
-        private long nanos = 0;
+        private final PacketFilter filter;
+        // Updated concurrently by the packet-in workers
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
 
-        public ProcessorEntry(PacketProcessor processor, int priority) {
+        public ProcessorEntry(PacketProcessor processor, int priority, PacketFilter filter) {
             this.processor = processor;
             this.priority = priority;
+            this.filter = filter;
         }
 
         @Override
@@ -471,22 +605,27 @@ public class PacketManager
 
         @Override
         public long invocations() {
-            return invocations;
+            return invocations.sum();
         }
 
         @Override
         public long totalNanos() {
-            return nanos;
+            return nanos.sum();
         }
 
         @Override
         public long averageNanos() {
-            return invocations > 0 ? nanos / invocations : 0;
+            long count = invocations.sum();
+            return count > 0 ? nanos.sum() / count : 0;
+        }
+
+        PacketFilter filter() {
+            return filter;
         }
 
         void addNanos(long nanos) {
-            this.nanos += nanos;
-            this.invocations++;
+            this.nanos.add(nanos);
+            this.invocations.increment();
         }
     }
 }
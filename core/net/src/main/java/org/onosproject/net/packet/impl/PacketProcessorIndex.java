@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import org.onlab.packet.Ethernet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Immutable classification index selecting the packet processors that may
+ * be interested in an inbound packet.
+ * <p>
+ * The processors are classified by the ethernet type and the IP protocol of
+ * their filters, so that a packet only needs two lookups to find the
+ * processors it is relevant to. The processors of every class are listed in
+ * the original order of the processors, i.e. by priority. The transport
+ * ports of the filters are not indexed and remain to be matched.
+ * </p>
+ *
+ * @param <T> type of processor entries
+ */
+final class PacketProcessorIndex<T> {
+
+    private final List<T> anyEthType;
+    private final Map<Short, Bucket<T>> byEthType;
+
+    private PacketProcessorIndex(List<T> anyEthType, Map<Short, Bucket<T>> byEthType) {
+        this.anyEthType = anyEthType;
+        this.byEthType = byEthType;
+    }
+
+    /**
+     * Compiles the index of the given processor entries.
+     *
+     * @param entries processor entries in the order of their priorities
+     * @param filter  function returning the filter of an entry
+     * @param <T>     type of processor entries
+     * @return processor index
+     */
+    static <T> PacketProcessorIndex<T> compile(List<T> entries, Function<T, PacketFilter> filter) {
+        Set<Short> ethTypes = Sets.newHashSet();
+        Set<Short> ipProtos = Sets.newHashSet();
+        for (T entry : entries) {
+            PacketFilter f = filter.apply(entry);
+            if (f.ethType() != null) {
+                ethTypes.add(f.ethType());
+            }
+            if (f.ipProto() != null) {
+                ipProtos.add(f.ipProto());
+                if (f.ethType() == null) {
+                    ethTypes.add(Ethernet.TYPE_IPV4);
+                    ethTypes.add(Ethernet.TYPE_IPV6);
+                }
+            }
+        }
+
+        ImmutableMap.Builder<Short, Bucket<T>> byEthType = ImmutableMap.builder();
+        for (Short ethType : ethTypes) {
+            Predicate<PacketFilter> ofEthType = f -> f.ethType() == null || f.ethType().equals(ethType);
+            ImmutableMap.Builder<Short, List<T>> byIpProto = ImmutableMap.builder();
+            if (isIp(ethType)) {
+                for (Short ipProto : ipProtos) {
+                    byIpProto.put(ipProto, select(entries, filter, ofEthType.and(
+                            f -> f.ipProto() == null || f.ipProto().equals(ipProto))));
+                }
+            }
+            List<T> anyIpProto = select(entries, filter, ofEthType.and(f -> f.ipProto() == null));
+            byEthType.put(ethType, new Bucket<>(anyIpProto, byIpProto.build()));
+        }
+        List<T> anyEthType = select(entries, filter, f -> f.ethType() == null && f.ipProto() == null);
+        return new PacketProcessorIndex<>(anyEthType, byEthType.build());
+    }
+
+    private static boolean isIp(short ethType) {
+        return ethType == Ethernet.TYPE_IPV4 || ethType == Ethernet.TYPE_IPV6;
+    }
+
+    private static <T> List<T> select(List<T> entries, Function<T, PacketFilter> filter,
+                                      Predicate<PacketFilter> predicate) {
+        ImmutableList.Builder<T> selected = ImmutableList.builder();
+        for (T entry : entries) {
+            if (predicate.test(filter.apply(entry))) {
+                selected.add(entry);
+            }
+        }
+        return selected.build();
+    }
+
+    /**
+     * Returns the processor entries that may be interested in a packet.
+     *
+     * @param eth parsed packet; null if the packet could not be parsed
+     * @return processor entries in the order of their priorities
+     */
+    List<T> candidates(Ethernet eth) {
+        Bucket<T> bucket = eth != null ? byEthType.get(eth.getEtherType()) : null;
+        if (bucket == null) {
+            return anyEthType;
+        }
+        if (!bucket.byIpProto.isEmpty()) {
+            List<T> entries = bucket.byIpProto.get(PacketFilter.ipProto(eth));
+            if (entries != null) {
+                return entries;
+            }
+        }
+        return bucket.anyIpProto;
+    }
+
+    // Processor entries of an ethernet type.
+    private static final class Bucket<T> {
+        private final List<T> anyIpProto;
+        private final Map<Short, List<T>> byIpProto;
+
+        private Bucket(List<T> anyIpProto, Map<Short, List<T>> byIpProto) {
+            this.anyIpProto = anyIpProto;
+            this.byIpProto = byIpProto;
+        }
+    }
+}
@@ -99,6 +99,14 @@ public final class ResourceManager extends AbstractListenerManager<ResourceEvent
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public boolean allocate(List<ResourceAllocation> allocations) {
+        checkPermission(RESOURCE_WRITE);
+        checkNotNull(allocations);
+
+        return store.allocate(allocations);
+    }
+
     @Override
     public boolean release(List<ResourceAllocation> allocations) {
         checkPermission(RESOURCE_WRITE);
@@ -18,16 +18,25 @@ package org.onosproject.event.impl;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.metrics.MetricsManager;
+import org.onlab.osgi.ComponentContextAdapter;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.EventSink;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.link.LinkEvent;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.device;
+import static org.onosproject.net.NetTestTools.link;
 
 /**
  * Test of the event dispatcher mechanism.
@@ -40,7 +49,8 @@ public class CoreEventDispatcherTest {
 
     @Before
     public void setUp() {
-        dispatcher.activate();
+        dispatcher.metricsService = new MetricsManager();
+        dispatcher.activate(null);
         dispatcher.addSink(Prickle.class, prickleSink);
         dispatcher.addSink(Goo.class, gooSink);
     }
@@ -88,6 +98,82 @@ public class CoreEventDispatcherTest {
         assertTrue(takesTooLong.interrupted);
     }
 
+    @Test
+    public void postSharded() throws Exception {
+        dispatcher.modified(new TestContext(4, 0));
+        String[] subjects = new String[100];
+        prickleSink.latch = new CountDownLatch(subjects.length);
+        for (int i = 0; i < subjects.length; i++) {
+            subjects[i] = "p" + i;
+            dispatcher.post(new Prickle(subjects[i]));
+        }
+        prickleSink.latch.await(1000, TimeUnit.MILLISECONDS);
+        validate(prickleSink, subjects);
+    }
+
+    @Test
+    public void postBoundedWhileReconfiguring() throws Exception {
+        String[] subjects = new String[200];
+        prickleSink.latch = new CountDownLatch(subjects.length);
+        for (int i = 0; i < subjects.length; i++) {
+            subjects[i] = "p" + i;
+            dispatcher.post(new Prickle(subjects[i]));
+            if (i == subjects.length / 2) {
+                // events still queued are dispatched by the retired loops first
+                dispatcher.modified(new TestContext(2, 8));
+            }
+        }
+        assertTrue(prickleSink.latch.await(5, TimeUnit.SECONDS));
+        validate(prickleSink, subjects);
+    }
+
+    @Test
+    public void postWhileRetiredLoopsDrain() throws Exception {
+        dispatcher.modified(new TestContext(0, 8));
+        String[] subjects = new String[100];
+        prickleSink.latch = new CountDownLatch(subjects.length);
+        prickleSink.gate = new CountDownLatch(1);
+        subjects[0] = "p0";
+        dispatcher.post(new Prickle(subjects[0]));
+
+        // the new loops queue events without bound until the old ones drain
+        dispatcher.modified(new TestContext(2, 8));
+        long start = System.currentTimeMillis();
+        for (int i = 1; i < subjects.length; i++) {
+            subjects[i] = "p" + i;
+            dispatcher.post(new Prickle(subjects[i]));
+        }
+        assertTrue("posts blocked", System.currentTimeMillis() - start < 1000);
+        prickleSink.gate.countDown();
+
+        assertTrue(prickleSink.latch.await(5, TimeUnit.SECONDS));
+        validate(prickleSink, subjects);
+    }
+
+    @Test
+    public void shardKeys() {
+        assertEquals(CoreEventDispatcher.shardKey(
+                             new DeviceEvent(DeviceEvent.Type.DEVICE_ADDED, device("1"))),
+                     CoreEventDispatcher.shardKey(
+                             new LinkEvent(LinkEvent.Type.LINK_ADDED, link("1", 1, "2", 1))));
+        assertEquals(Prickle.class, CoreEventDispatcher.shardKey(new Prickle("yo")));
+    }
+
+    // Component context carrying the dispatch loop settings.
+    private static class TestContext extends ComponentContextAdapter {
+        private final Hashtable<String, Object> properties = new Hashtable<>();
+
+        TestContext(int dispatchShards, int queueCapacity) {
+            properties.put("dispatchShards", String.valueOf(dispatchShards));
+            properties.put("queueCapacity", String.valueOf(queueCapacity));
+        }
+
+        @Override
+        public Dictionary getProperties() {
+            return properties;
+        }
+    }
+
     private void validate(Sink sink, String... strings) {
         int i = 0;
         assertEquals("incorrect event count", strings.length, sink.subjects.size());
@@ -117,10 +203,18 @@ public class CoreEventDispatcherTest {
     }
 
     private static class Sink {
-        final List<String> subjects = new ArrayList<>();
+        final List<String> subjects = Collections.synchronizedList(new ArrayList<>());
         CountDownLatch latch;
+        CountDownLatch gate;
 
         protected void process(String subject) {
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
             subjects.add(subject);
             latch.countDown();
         }
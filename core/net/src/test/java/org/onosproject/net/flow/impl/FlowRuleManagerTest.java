@@ -15,8 +15,10 @@
  */
 package org.onosproject.net.flow.impl;
 
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -25,12 +27,15 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.onlab.junit.TestTools;
+import org.onlab.metrics.MetricsManager;
 import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.common.event.impl.TestEventDispatcher;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreServiceAdapter;
 import org.onosproject.core.DefaultApplicationId;
 import org.onosproject.core.IdGenerator;
+import org.onosproject.mastership.MastershipEvent;
+import org.onosproject.mastership.MastershipListener;
 import org.onosproject.mastership.MastershipServiceAdapter;
 import org.onosproject.net.AnnotationKeys;
 import org.onosproject.net.DefaultAnnotations;
@@ -130,6 +135,7 @@ public class FlowRuleManagerTest {
         mgr.operationsService = MoreExecutors.newDirectExecutorService();
         mgr.deviceInstallers = MoreExecutors.newDirectExecutorService();
         mgr.cfgService = new ComponentConfigAdapter();
+        mgr.metricsService = new MetricsManager();
         service = mgr;
         registry = mgr;
 
@@ -229,6 +235,40 @@ public class FlowRuleManagerTest {
         validateEvents(RULE_UPDATED, RULE_UPDATED);
     }
 
+    @Test
+    public void reconcileTimings() {
+        FlowRule f1 = addFlowRule(1);
+        providerService.pushFlowMetrics(DID, ImmutableList.of(new DefaultFlowEntry(f1)));
+        providerService.pushFlowMetrics(DID, ImmutableList.of(new DefaultFlowEntry(f1)));
+
+        Map<String, Timer> timers = mgr.metricsService.getTimers((name, metric) -> name.endsWith(DID.toString()));
+        assertEquals("one timer per device", 1, timers.size());
+        assertEquals("two rounds timed", 2, timers.values().iterator().next().getCount());
+    }
+
+    @Test
+    public void flowMetricsWithoutFlowMissing() {
+        FlowRule f1 = addFlowRule(1);
+        addFlowRule(2);
+        providerService.pushFlowMetricsWithoutFlowMissing(DID, ImmutableList.of(new DefaultFlowEntry(f1)));
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED, RULE_ADDED);
+
+        assertEquals("no round started", 1, mgr.store.nextReconcileGeneration(DID));
+        assertTrue("no round timed", mgr.metricsService.getTimers(
+                (name, metric) -> name.endsWith(DID.toString())).isEmpty());
+    }
+
+    @Test
+    public void lateMarkKeepsLaterRound() {
+        FlowRule f1 = addFlowRule(1);
+        long earlier = mgr.store.nextReconcileGeneration(DID);
+        long later = mgr.store.nextReconcileGeneration(DID);
+        mgr.store.markFlowEntry(f1, later);
+        mgr.store.markFlowEntry(f1, earlier);
+        assertTrue("entry seen in the later round",
+                   Iterables.isEmpty(mgr.store.getUnmarkedFlowEntries(DID, later)));
+    }
+
     private boolean validateState(Map<FlowRule, FlowEntryState> expected) {
         Map<FlowRule, FlowEntryState> expectedToCheck = new HashMap<>(expected);
         Iterable<FlowEntry> rules = service.getFlowEntries(DID);
@@ -361,6 +401,112 @@ public class FlowRuleManagerTest {
                        RULE_ADDED, RULE_ADDED);
     }
 
+    @Test
+    public void flowMetricsSegments() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+        FlowRule f3 = flowRule(3, 3);
+
+        mgr.applyFlowRules(f1, f2, f3);
+
+        FlowEntry fe1 = new DefaultFlowEntry(f1);
+        FlowEntry fe2 = new DefaultFlowEntry(f2);
+
+        providerService.pushFlowMetricsSegment(DID, Lists.newArrayList(fe1), 1, false);
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED, RULE_ADD_REQUESTED,
+                       RULE_ADDED);
+
+        providerService.pushFlowMetricsSegment(DID, Lists.newArrayList(fe2), 1, true);
+        assertTrue("Entries should be added.",
+                   validateState(ImmutableMap.of(
+                           f1, FlowEntryState.ADDED,
+                           f2, FlowEntryState.ADDED,
+                           f3, FlowEntryState.PENDING_ADD)));
+        validateEvents(RULE_ADDED);
+
+        Map<String, Timer> timers = mgr.metricsService.getTimers((name, metric) -> name.endsWith(DID.toString()));
+        assertEquals("one round timed", 1, timers.values().iterator().next().getCount());
+    }
+
+    @Test
+    public void flowMetricsSegmentsOfNewReply() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+
+        mgr.applyFlowRules(f1, f2);
+
+        providerService.pushFlowMetricsSegment(DID, Lists.newArrayList(new DefaultFlowEntry(f1)), 1, false);
+        // the first reply is abandoned by the device
+        providerService.pushFlowMetricsSegment(DID, Lists.newArrayList(new DefaultFlowEntry(f2)), 2, true);
+        assertTrue("Entry missing from the new reply should be reinstalled.",
+                   validateState(ImmutableMap.of(
+                           f1, FlowEntryState.PENDING_ADD,
+                           f2, FlowEntryState.ADDED)));
+    }
+
+    @Test
+    public void flowMetricsSegmentsOfSupersededReply() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+        FlowRule f3 = flowRule(3, 3);
+
+        mgr.applyFlowRules(f1, f2, f3);
+
+        providerService.pushFlowMetricsSegment(DID, Lists.newArrayList(new DefaultFlowEntry(f1)), 7, false);
+        providerService.pushFlowMetricsSegment(DID, Lists.newArrayList(
+                new DefaultFlowEntry(f1), new DefaultFlowEntry(f2), new DefaultFlowEntry(f3)), 8, true);
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED, RULE_ADD_REQUESTED,
+                       RULE_ADDED, RULE_UPDATED, RULE_ADDED, RULE_ADDED);
+
+        // the stale tail of the superseded reply starts no round of its own
+        providerService.pushFlowMetricsSegment(DID, Lists.newArrayList(new DefaultFlowEntry(f2)), 7, true);
+        assertTrue("Entries missing from the stale tail should not be reinstalled.",
+                   validateState(ImmutableMap.of(
+                           f1, FlowEntryState.ADDED,
+                           f2, FlowEntryState.ADDED,
+                           f3, FlowEntryState.ADDED)));
+        validateEvents(RULE_UPDATED);
+
+        // nor does a late segment of the completed reply
+        providerService.pushFlowMetricsSegment(DID, Lists.newArrayList(new DefaultFlowEntry(f3)), 8, true);
+        assertTrue("Entries missing from the late segment should not be reinstalled.",
+                   validateState(ImmutableMap.of(
+                           f1, FlowEntryState.ADDED,
+                           f2, FlowEntryState.ADDED,
+                           f3, FlowEntryState.ADDED)));
+        validateEvents(RULE_UPDATED);
+    }
+
+    @Test
+    public void flowMetricsSegmentsOnMastershipLoss() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+        FlowRule f3 = flowRule(3, 3);
+
+        mgr.applyFlowRules(f1, f2, f3);
+
+        providerService.pushFlowMetricsSegment(DID, Lists.newArrayList(new DefaultFlowEntry(f1)), 1, false);
+        TestMastershipService mastershipService = (TestMastershipService) mgr.mastershipService;
+        mastershipService.setRole(DID, MastershipRole.STANDBY);
+        mastershipService.setRole(DID, MastershipRole.MASTER);
+        providerService.pushFlowMetricsSegment(DID, Lists.newArrayList(new DefaultFlowEntry(f2)), 1, true);
+        assertTrue("Entries should be updated, without any sweep.",
+                   validateState(ImmutableMap.of(
+                           f1, FlowEntryState.ADDED,
+                           f2, FlowEntryState.ADDED,
+                           f3, FlowEntryState.PENDING_ADD)));
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED, RULE_ADD_REQUESTED,
+                       RULE_ADDED, RULE_ADDED);
+
+        // the next reply is reconciled again
+        providerService.pushFlowMetricsSegment(DID, Lists.newArrayList(new DefaultFlowEntry(f2)), 2, true);
+        assertTrue("Entry missing from the reply should be reinstalled.",
+                   validateState(ImmutableMap.of(
+                           f1, FlowEntryState.PENDING_ADD,
+                           f2, FlowEntryState.ADDED,
+                           f3, FlowEntryState.PENDING_ADD)));
+    }
+
     @Test
     public void extraneousFlow() {
         FlowRule f1 = flowRule(1, 1);
@@ -418,6 +564,18 @@ public class FlowRuleManagerTest {
                    Lists.newLinkedList(mgr.getFlowRulesById(appId)).size() == 2);
     }
 
+    @Test
+    public void getByGroupId() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+        mgr.applyFlowRules(f1, f2);
+
+        assertTrue("should have two rules",
+                   Lists.newLinkedList(mgr.getFlowRulesByGroupId(appId, (short) 0)).size() == 2);
+        assertTrue("should have no rules",
+                   Lists.newLinkedList(mgr.getFlowRulesByGroupId(appId, (short) 1)).isEmpty());
+    }
+
     @Test
     public void removeByAppId() {
         FlowRule f1 = flowRule(1, 1);
@@ -690,9 +848,22 @@ public class FlowRuleManagerTest {
     }
 
     private class TestMastershipService extends MastershipServiceAdapter {
+        private MastershipRole role = MastershipRole.MASTER;
+        private MastershipListener listener;
+
         @Override
         public MastershipRole getLocalRole(DeviceId deviceId) {
-            return MastershipRole.MASTER;
+            return role;
+        }
+
+        @Override
+        public void addListener(MastershipListener listener) {
+            this.listener = listener;
+        }
+
+        void setRole(DeviceId deviceId, MastershipRole role) {
+            this.role = role;
+            listener.event(new MastershipEvent(MastershipEvent.Type.MASTER_CHANGED, deviceId, null));
         }
     }
 
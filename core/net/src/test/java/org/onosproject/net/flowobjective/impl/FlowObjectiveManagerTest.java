@@ -16,13 +16,24 @@
 package org.onosproject.net.flowobjective.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.onlab.junit.TestUtils;
 import org.onlab.packet.ChassisId;
+import org.onlab.util.ItemNotFoundException;
 import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.net.DefaultAnnotations;
 import org.onosproject.net.DefaultDevice;
@@ -58,10 +69,14 @@ import org.onosproject.net.flowobjective.FilteringObjective;
 import org.onosproject.net.flowobjective.FlowObjectiveStoreDelegate;
 import org.onosproject.net.flowobjective.ForwardingObjective;
 import org.onosproject.net.flowobjective.NextObjective;
+import org.onosproject.net.flowobjective.Objective;
+import org.onosproject.net.flowobjective.ObjectiveContext;
+import org.onosproject.net.flowobjective.ObjectiveError;
 import org.onosproject.net.flowobjective.ObjectiveEvent;
 import org.onosproject.net.intent.TestTools;
 
 import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
@@ -89,6 +104,11 @@ public class FlowObjectiveManagerTest {
     List<String> filteringObjectives;
     List<String> forwardingObjectives;
     List<String> nextObjectives;
+    List<String> installed;
+
+    // devices for which no driver can be found
+    Set<DeviceId> unboundDevices = Sets.newConcurrentHashSet();
+    AtomicInteger unboundLookups = new AtomicInteger();
 
     private class TestDeviceService extends DeviceServiceAdapter {
 
@@ -163,22 +183,33 @@ public class FlowObjectiveManagerTest {
         @Override
         public void filter(FilteringObjective filterObjective) {
             filteringObjectives.add(deviceId.toString());
+            install(filterObjective);
         }
 
         @Override
         public void forward(ForwardingObjective forwardObjective) {
             forwardingObjectives.add(deviceId.toString());
+            install(forwardObjective);
         }
 
         @Override
         public void next(NextObjective nextObjective) {
             nextObjectives.add(deviceId.toString());
+            install(nextObjective);
+        }
+
+        private void install(Objective objective) {
+            installed.add(deviceId + "/" + objective.id());
         }
     }
 
     private class TestDriverService extends DriverServiceAdapter {
         @Override
         public DriverHandler createHandler(DeviceId deviceId, String... credentials) {
+            if (unboundDevices.contains(deviceId)) {
+                unboundLookups.incrementAndGet();
+                throw new ItemNotFoundException("No driver for " + deviceId);
+            }
             Driver driver = new TestDriver();
             return new DefaultDriverHandler(new DefaultDriverData(driver, id1));
         }
@@ -196,9 +227,10 @@ public class FlowObjectiveManagerTest {
         manager.driverService = new TestDriverService();
         manager.cfgService = new TestComponentConfigService();
 
-        filteringObjectives = new ArrayList<>();
-        forwardingObjectives = new ArrayList<>();
-        nextObjectives = new ArrayList<>();
+        filteringObjectives = Collections.synchronizedList(new ArrayList<>());
+        forwardingObjectives = Collections.synchronizedList(new ArrayList<>());
+        nextObjectives = Collections.synchronizedList(new ArrayList<>());
+        installed = Collections.synchronizedList(new ArrayList<>());
         manager.activate();
     }
 
@@ -378,4 +410,137 @@ public class FlowObjectiveManagerTest {
         assertThat(filteringObjectives, hasSize(0));
         assertThat(nextObjectives, hasSize(0));
     }
+
+    /**
+     * Tests that the objectives of each device are installed in the order
+     * they were submitted.
+     */
+    @Test
+    public void objectivesInstalledInOrderPerDevice() {
+        List<String> expected1 = new ArrayList<>();
+        List<String> expected2 = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            NextObjective next1 = nextObjective(i);
+            manager.next(id1, next1);
+            expected1.add(id1 + "/" + next1.id());
+
+            ForwardingObjective forward2 = forwardingObjective(i);
+            manager.forward(id2, forward2);
+            expected2.add(id2 + "/" + forward2.id());
+        }
+
+        TestTools.assertAfter(RETRY_MS, () -> assertThat(installed, hasSize(400)));
+        assertThat(installedOn(id1), is(expected1));
+        assertThat(installedOn(id2), is(expected2));
+    }
+
+    /**
+     * Tests that an objective waiting for the driver of its device to be
+     * found does not hold up the objectives of other devices.
+     */
+    @Test
+    public void retryDoesNotBlockOtherDevices() {
+        unboundDevices.add(id1);
+        manager.forward(id1, forwardingObjective(1));
+        manager.forward(id2, forwardingObjective(2));
+
+        TestTools.assertAfter(RETRY_MS, () ->
+                assertThat(forwardingObjectives, hasItem("of:d2")));
+        assertThat(forwardingObjectives, hasSize(1));
+
+        // the driver shows up before the next attempt
+        unboundDevices.remove(id1);
+        TestTools.assertAfter((int) FlowObjectiveManager.INSTALL_RETRY_INTERVAL + RETRY_MS, () ->
+                assertThat(forwardingObjectives, hasSize(2)));
+        assertThat(forwardingObjectives, hasItem("of:d1"));
+    }
+
+    /**
+     * Tests that the objectives of a device submitted while an earlier one
+     * awaits a retry are installed after it.
+     */
+    @Test
+    public void retryKeepsOrderWithinDevice() {
+        unboundDevices.add(id1);
+        ForwardingObjective first = forwardingObjective(1);
+        manager.forward(id1, first);
+        TestTools.assertAfter(RETRY_MS, () -> assertThat(unboundLookups.get(), is(1)));
+
+        // the driver shows up while the first objective awaits its retry
+        unboundDevices.remove(id1);
+        ForwardingObjective second = forwardingObjective(2);
+        NextObjective third = nextObjective(3);
+        manager.forward(id1, second);
+        manager.next(id1, third);
+
+        TestTools.assertAfter((int) FlowObjectiveManager.INSTALL_RETRY_INTERVAL + RETRY_MS, () ->
+                assertThat(installed, hasSize(3)));
+        assertThat(installedOn(id1), is(ImmutableList.of(id1 + "/" + first.id(),
+                                                          id1 + "/" + second.id(),
+                                                          id1 + "/" + third.id())));
+    }
+
+    /**
+     * Tests that the objectives awaiting a retry, or held behind one, are
+     * reported as failed once the manager is deactivated.
+     */
+    @Test
+    public void deactivateFailsWaitingObjectives() {
+        Map<Objective, ObjectiveError> errors = Maps.newConcurrentMap();
+        ObjectiveContext context = new ObjectiveContext() {
+            @Override
+            public void onError(Objective objective, ObjectiveError error) {
+                errors.put(objective, error);
+            }
+        };
+        unboundDevices.add(id1);
+        ForwardingObjective first = forwardingObjectiveBuilder(1).add(context);
+        manager.forward(id1, first);
+        TestTools.assertAfter(RETRY_MS, () -> assertThat(unboundLookups.get(), is(1)));
+        ForwardingObjective second = forwardingObjectiveBuilder(2).add(context);
+        NextObjective third = nextObjectiveBuilder(3).add(context);
+        manager.forward(id1, second);
+        manager.next(id1, third);
+
+        manager.deactivate();
+        TestTools.assertAfter(RETRY_MS, () -> assertThat(errors, is(ImmutableMap.of(
+                first, ObjectiveError.NOPIPELINER,
+                second, ObjectiveError.NOPIPELINER,
+                third, ObjectiveError.NOPIPELINER))));
+        assertThat(installed, hasSize(0));
+    }
+
+    private List<String> installedOn(DeviceId deviceId) {
+        synchronized (installed) {
+            return installed.stream()
+                    .filter(s -> s.startsWith(deviceId + "/"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static ForwardingObjective forwardingObjective(int priority) {
+        return forwardingObjectiveBuilder(priority).add();
+    }
+
+    private static ForwardingObjective.Builder forwardingObjectiveBuilder(int priority) {
+        return DefaultForwardingObjective.builder()
+                .fromApp(NetTestTools.APP_ID)
+                .withFlag(ForwardingObjective.Flag.SPECIFIC)
+                .withSelector(DefaultTrafficSelector.emptySelector())
+                .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .withPriority(priority)
+                .makePermanent();
+    }
+
+    private static NextObjective nextObjective(int id) {
+        return nextObjectiveBuilder(id).add();
+    }
+
+    private static NextObjective.Builder nextObjectiveBuilder(int id) {
+        return DefaultNextObjective.builder()
+                .withId(id)
+                .withType(NextObjective.Type.SIMPLE)
+                .fromApp(NetTestTools.APP_ID)
+                .addTreatment(DefaultTrafficTreatment.emptyTreatment());
+    }
 }
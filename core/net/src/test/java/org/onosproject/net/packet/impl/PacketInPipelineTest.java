@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import com.codahale.metrics.Counter;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimaps;
+import org.junit.After;
+import org.junit.Test;
+import org.onlab.packet.Ethernet;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.packet.DefaultInboundPacket;
+import org.onosproject.net.packet.DefaultPacketContext;
+import org.onosproject.net.packet.PacketContext;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Unit tests for the packet-in pipeline.
+ */
+public class PacketInPipelineTest {
+
+    private final Counter dropped = new Counter();
+    private final Counter overloads = new Counter();
+    private final ExecutorService workers = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        workers.shutdownNow();
+    }
+
+    private PacketInPipeline pipeline(int queueSize, Consumer<PacketContext> processor) {
+        return new PacketInPipeline(workers, queueSize, processor, dropped, overloads);
+    }
+
+    @Test
+    public void perDeviceOrder() throws Exception {
+        ListMultimap<String, Long> received =
+                Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
+        CountDownLatch latch = new CountDownLatch(400);
+        PacketInPipeline pipeline = pipeline(1000, context -> {
+            received.put(context.inPacket().receivedFrom().deviceId().toString(), context.time());
+            latch.countDown();
+        });
+        for (long i = 0; i < 100; i++) {
+            for (int d = 0; d < 4; d++) {
+                assertTrue(pipeline.submit(packet(String.valueOf(d), i)));
+            }
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (String device : received.keySet()) {
+            List<Long> times = received.get(device);
+            assertEquals(100, times.size());
+            for (int i = 0; i < times.size(); i++) {
+                assertEquals(i, (long) times.get(i));
+            }
+        }
+        assertEquals(0, dropped.getCount());
+    }
+
+    @Test
+    public void overload() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        PacketInPipeline pipeline = pipeline(2, context -> {
+            blocked.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(pipeline.submit(packet("1", 0)));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        assertTrue(pipeline.submit(packet("1", 1)));
+        assertTrue(pipeline.submit(packet("1", 2)));
+        assertFalse(pipeline.submit(packet("1", 3)));
+        assertFalse(pipeline.submit(packet("1", 4)));
+        assertEquals(2, dropped.getCount());
+        assertEquals(1, overloads.getCount());
+
+        // other devices are unaffected
+        assertTrue(pipeline.submit(packet("2", 0)));
+        released.countDown();
+    }
+
+    @Test
+    public void failingProcessor() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch processed = new CountDownLatch(10);
+        PacketInPipeline pipeline = pipeline(100, context -> {
+            if (context.time() == 0) {
+                blocked.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("processor failure");
+            }
+            processed.countDown();
+        });
+        assertTrue(pipeline.submit(packet("1", 0)));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (long i = 1; i < 10; i++) {
+            assertTrue(pipeline.submit(packet("1", i)));
+        }
+        released.countDown();
+
+        // the packets queued behind the failure and the later ones are processed
+        assertTrue(pipeline.submit(packet("1", 10)));
+        assertTrue(processed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, pipeline.pending());
+    }
+
+    private static PacketContext packet(String device, long time) {
+        DefaultInboundPacket inPkt = new DefaultInboundPacket(
+                new ConnectPoint(did(device), PortNumber.portNumber(1)),
+                new Ethernet(), ByteBuffer.allocate(0));
+        return new DefaultPacketContext(time, inPkt, null, false) {
+            @Override
+            public void send() {
+            }
+        };
+    }
+}
@@ -20,6 +20,10 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.junit.TestUtils;
+import org.onlab.metrics.MetricsManager;
+import org.onlab.osgi.ComponentContextAdapter;
+import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.cluster.ClusterServiceAdapter;
 import org.onosproject.common.event.impl.TestEventDispatcher;
 import org.onosproject.core.CoreServiceAdapter;
@@ -44,9 +48,16 @@ import org.onosproject.net.provider.TestProvider;
 import org.onosproject.store.trivial.SimplePacketStore;
 
 import java.nio.ByteBuffer;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.onosproject.net.NetTestTools.injectEventDispatcher;
 
 /**
@@ -82,8 +93,10 @@ public class PacketManagerTest {
         mgr.deviceService = new TestDeviceService();
         mgr.deviceService = new TestDeviceService();
         mgr.coreService = new TestCoreService();
+        mgr.cfgService = new ComponentConfigAdapter();
+        mgr.metricsService = new MetricsManager();
         providerRegistry = mgr;
-        mgr.activate();
+        mgr.activate(null);
         driverService = new TestDriverManager();
         driverService.addDriver(new DefaultDriver("foo", ImmutableList.of(), "", "", "",
                                                   ImmutableMap.of(PacketProgrammable.class,
@@ -102,6 +115,44 @@ public class PacketManagerTest {
         assertEquals("Packet not emitted correctly", packet, emittedPacket);
     }
 
+    /**
+     * Tests that the packet-in pipeline is only replaced when its settings
+     * change.
+     */
+    @Test
+    public void pipelineReplacedOnChange() throws Exception {
+        Object pipeline = TestUtils.getField(mgr, "packetInPipeline");
+        mgr.modified(new TestComponentContext(ImmutableMap.of("packetInWorkers", "4",
+                                                              "packetInQueueSize", "1024")));
+        assertSame(pipeline, TestUtils.getField(mgr, "packetInPipeline"));
+
+        mgr.modified(new TestComponentContext(ImmutableMap.of("packetInQueueSize", "2048")));
+        assertNotSame(pipeline, TestUtils.getField(mgr, "packetInPipeline"));
+    }
+
+    /**
+     * Tests that all the metrics of the manager are removed on deactivation.
+     */
+    @Test
+    public void metricsRemovedOnDeactivate() {
+        assertFalse(mgr.metricsService.getMetrics().isEmpty());
+        mgr.deactivate();
+        assertTrue(mgr.metricsService.getMetrics().isEmpty());
+    }
+
+    private static class TestComponentContext extends ComponentContextAdapter {
+        private final Hashtable<String, Object> properties = new Hashtable<>();
+
+        TestComponentContext(Map<String, String> properties) {
+            this.properties.putAll(properties);
+        }
+
+        @Override
+        public Dictionary getProperties() {
+            return properties;
+        }
+    }
+
     private static class TestDeviceService extends DeviceServiceAdapter {
         @Override
         public int getDeviceCount() {
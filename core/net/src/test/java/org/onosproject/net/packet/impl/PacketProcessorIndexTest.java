@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.onlab.packet.ARP;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.TCP;
+import org.onlab.packet.TpPort;
+import org.onlab.packet.UDP;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.TrafficSelector;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the packet processor classification index.
+ */
+public class PacketProcessorIndexTest {
+
+    private static final TrafficSelector ALL = DefaultTrafficSelector.emptySelector();
+    private static final TrafficSelector ARPS =
+            DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_ARP).build();
+    private static final TrafficSelector IPV4 =
+            DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_IPV4).build();
+    private static final TrafficSelector UDP_DHCP =
+            DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_IPV4)
+                    .matchIPProtocol(IPv4.PROTOCOL_UDP)
+                    .matchUdpDst(TpPort.tpPort(UDP.DHCP_SERVER_PORT)).build();
+    private static final TrafficSelector TCP_ANY_IP =
+            DefaultTrafficSelector.builder().matchIPProtocol(IPv4.PROTOCOL_TCP).build();
+
+    // processors in the order of their priorities
+    private static final Map<String, PacketFilter> FILTERS = ImmutableMap.of(
+            "all", PacketFilter.of(ALL),
+            "arp", PacketFilter.of(ARPS),
+            "ipv4", PacketFilter.of(IPV4),
+            "dhcp", PacketFilter.of(UDP_DHCP),
+            "tcp", PacketFilter.of(TCP_ANY_IP));
+
+    private final PacketProcessorIndex<String> index =
+            PacketProcessorIndex.compile(ImmutableList.copyOf(FILTERS.keySet()), FILTERS::get);
+
+    private List<String> dispatch(Ethernet eth) {
+        return index.candidates(eth).stream()
+                .filter(name -> FILTERS.get(name).matchesPorts(eth))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void byEthType() {
+        Ethernet arp = new Ethernet().setEtherType(Ethernet.TYPE_ARP);
+        arp.setPayload(new ARP());
+        assertEquals(ImmutableList.of("all", "arp"), dispatch(arp));
+
+        Ethernet lldp = new Ethernet().setEtherType(Ethernet.TYPE_LLDP);
+        assertEquals(ImmutableList.of("all"), dispatch(lldp));
+        assertEquals(ImmutableList.of("all"), dispatch(null));
+    }
+
+    @Test
+    public void byIpProtocolAndPorts() {
+        assertEquals(ImmutableList.of("all", "ipv4", "dhcp"),
+                     dispatch(udp(UDP.DHCP_CLIENT_PORT, UDP.DHCP_SERVER_PORT)));
+        assertEquals(ImmutableList.of("all", "ipv4"), dispatch(udp(1000, 2000)));
+
+        IPv4 ip = new IPv4();
+        ip.setProtocol(IPv4.PROTOCOL_TCP);
+        ip.setPayload(new TCP());
+        Ethernet tcp = new Ethernet().setEtherType(Ethernet.TYPE_IPV4);
+        tcp.setPayload(ip);
+        assertEquals(ImmutableList.of("all", "ipv4", "tcp"), dispatch(tcp));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedCriterion() {
+        PacketFilter.of(DefaultTrafficSelector.builder().matchVlanId(VlanId.vlanId((short) 1)).build());
+    }
+
+    private static Ethernet udp(int srcPort, int dstPort) {
+        UDP udp = new UDP();
+        udp.setSourcePort(srcPort);
+        udp.setDestinationPort(dstPort);
+        IPv4 ip = new IPv4();
+        ip.setProtocol(IPv4.PROTOCOL_UDP);
+        ip.setPayload(udp);
+        Ethernet eth = new Ethernet().setEtherType(Ethernet.TYPE_IPV4);
+        eth.setPayload(ip);
+        return eth;
+    }
+}
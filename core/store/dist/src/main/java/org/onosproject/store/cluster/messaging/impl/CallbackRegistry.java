@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.cluster.messaging.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import com.google.common.collect.Lists;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Registry of callbacks awaiting a reply, expired by a hashed timing wheel.
+ * <p>
+ * Callbacks are kept in a number of independent map stripes selected by
+ * message id, and every callback is also queued in the wheel slot of the
+ * tick at which it times out. Slots are assigned by the thread advancing
+ * the wheel, relative to its cursor, so that a callback registered while
+ * the wheel advances never lands in a slot the cursor just passed.
+ * Registering and completing a callback are constant time operations that
+ * never lock the registry as a whole; a completed callback is simply
+ * skipped when its wheel slot is visited.
+ * Whichever of the reply and the timeout first removes the callback from
+ * its stripe gets to complete it.
+ * </p>
+ *
+ * @param <V> callback type
+ */
+final class CallbackRegistry<V> {
+
+    private final long tickNanos;
+    private final int wheelMask;
+    private final int stripeMask;
+    private final Map<Long, Entry<V>>[] stripes;
+    private final Queue<Entry<V>>[] wheel;
+    // callbacks registered since the wheel last advanced, not yet in a slot
+    private final Queue<Entry<V>> registrations = new ConcurrentLinkedQueue<>();
+    private final Consumer<V> timeoutHandler;
+    private final LongSupplier clock;
+    private final long startNanos;
+    private long currentTick;
+
+    /**
+     * Creates a new callback registry.
+     *
+     * @param tickMillis     duration of a wheel tick in milliseconds
+     * @param wheelSize      number of wheel slots; must be a power of two
+     * @param stripeCount    number of map stripes; must be a power of two
+     * @param timeoutHandler handler invoked with the callbacks that timed out
+     */
+    CallbackRegistry(long tickMillis, int wheelSize, int stripeCount, Consumer<V> timeoutHandler) {
+        this(tickMillis, wheelSize, stripeCount, timeoutHandler, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    CallbackRegistry(long tickMillis, int wheelSize, int stripeCount,
+                     Consumer<V> timeoutHandler, LongSupplier clock) {
+        checkArgument(tickMillis > 0, "Tick duration must be positive");
+        checkArgument(Integer.bitCount(wheelSize) == 1, "Wheel size must be a power of two");
+        checkArgument(Integer.bitCount(stripeCount) == 1, "Stripe count must be a power of two");
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.wheelMask = wheelSize - 1;
+        this.stripeMask = stripeCount - 1;
+        this.timeoutHandler = timeoutHandler;
+        this.clock = clock;
+        this.startNanos = clock.getAsLong();
+        this.stripes = new Map[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.wheel = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Registers a callback awaiting the reply to a message.
+     *
+     * @param id            message id
+     * @param callback      callback
+     * @param timeoutMillis time in milliseconds after which the callback times out
+     */
+    void register(long id, V callback, long timeoutMillis) {
+        long elapsed = clock.getAsLong() - startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Entry<V> entry = new Entry<>(id, callback, (elapsed + tickNanos - 1) / tickNanos);
+        stripe(id).put(id, entry);
+        registrations.add(entry);
+    }
+
+    /**
+     * Removes the callback awaiting the reply to a message.
+     *
+     * @param id message id
+     * @return callback, or null if it already completed or timed out
+     */
+    V remove(long id) {
+        Entry<V> entry = stripe(id).remove(id);
+        return entry != null ? entry.callback : null;
+    }
+
+    /**
+     * Returns the number of callbacks awaiting a reply.
+     *
+     * @return number of pending callbacks
+     */
+    int size() {
+        int size = 0;
+        for (Map<Long, Entry<V>> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * Advances the wheel to the current time, timing out the callbacks whose
+     * deadline passed.
+     * <p>
+     * Must not be invoked concurrently; it is meant to be run periodically by
+     * a single scheduled task.
+     * </p>
+     */
+    void advance() {
+        long now = (clock.getAsLong() - startNanos) / tickNanos;
+        Entry<V> entry;
+        while ((entry = registrations.poll()) != null) {
+            if (stripe(entry.id).get(entry.id) == entry) {
+                // never into a slot the cursor has already passed
+                wheel[(int) (Math.max(entry.deadline, currentTick + 1) & wheelMask)].add(entry);
+            }
+        }
+        // once behind by a full rotation, visiting every slot once is enough
+        long tick = Math.max(currentTick, now - wheelMask - 1);
+        while (tick < now) {
+            tick++;
+            expire(wheel[(int) (tick & wheelMask)], now);
+        }
+        currentTick = Math.max(currentTick, now);
+    }
+
+    private void expire(Queue<Entry<V>> slot, long now) {
+        List<Entry<V>> pending = Lists.newArrayList();
+        Entry<V> entry;
+        while ((entry = slot.poll()) != null) {
+            Map<Long, Entry<V>> stripe = stripe(entry.id);
+            if (entry.deadline > now) {
+                // due in a later rotation of the wheel, unless already completed
+                if (stripe.get(entry.id) == entry) {
+                    pending.add(entry);
+                }
+            } else if (stripe.remove(entry.id, entry)) {
+                timeoutHandler.accept(entry.callback);
+            }
+        }
+        slot.addAll(pending);
+    }
+
+    private Map<Long, Entry<V>> stripe(long id) {
+        return stripes[(int) (id ^ (id >>> 32)) & stripeMask];
+    }
+
+    private static final class Entry<V> {
+        private final long id;
+        private final V callback;
+        private final long deadline;
+
+        private Entry(long id, V callback, long deadline) {
+            this.id = id;
+            this.callback = callback;
+            this.deadline = deadline;
+        }
+    }
+}
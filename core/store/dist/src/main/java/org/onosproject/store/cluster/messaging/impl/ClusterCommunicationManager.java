@@ -319,7 +319,7 @@ public class ClusterCommunicationManager
         @Override
         public CompletableFuture<byte[]> apply(Endpoint sender, byte[] bytes) {
             return handler.apply(timeFunction(decoder, subjectMeteringAgent, DESERIALIZING).
-                    apply(ClusterMessage.fromBytes(bytes).payload())).
+                    apply(ClusterMessage.payloadOf(bytes))).
                     thenApply(m -> timeFunction(encoder, subjectMeteringAgent, SERIALIZING).apply(m));
         }
     }
@@ -336,7 +336,7 @@ public class ClusterCommunicationManager
         @Override
         public void accept(Endpoint sender, byte[] bytes) {
             consumer.accept(timeFunction(decoder, subjectMeteringAgent, DESERIALIZING).
-                    apply(ClusterMessage.fromBytes(bytes).payload()));
+                    apply(ClusterMessage.payloadOf(bytes)));
         }
     }
 }
@@ -17,9 +17,10 @@ package org.onosproject.store.cluster.messaging.impl;
 
 import com.google.common.base.Charsets;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.IpAddress.Version;
 import org.onosproject.store.cluster.messaging.Endpoint;
@@ -27,15 +28,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Encode InternalMessage out into a byte buffer.
+ * <p>
+ * Only the message header is written into a newly allocated buffer; the
+ * payload is passed down the pipeline as a buffer wrapping the payload
+ * array, so it is not copied by the encoder.
  */
 @Sharable
-public class MessageEncoder extends MessageToByteEncoder<Object> {
-// Effectively MessageToByteEncoder<InternalMessage>,
+public class MessageEncoder extends MessageToMessageEncoder<Object> {
+// Effectively MessageToMessageEncoder<InternalMessage>,
 // had to specify <Object> to avoid Class Loader not being able to find some classes.
 
+    // preamble, logical time, logical counter, message id, ip version,
+    // sender port, type length, status and payload length
+    private static final int FIXED_HEADER_LENGTH = 4 + 8 + 8 + 8 + 1 + 4 + 4 + 4 + 4;
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final int preamble;
@@ -50,10 +60,18 @@ public class MessageEncoder extends MessageToByteEncoder<Object> {
     protected void encode(
             ChannelHandlerContext context,
             Object rawMessage,
-            ByteBuf out) throws Exception {
+            List<Object> outs) throws Exception {
 
         InternalMessage message = (InternalMessage) rawMessage;
 
+        Endpoint sender = message.sender();
+        IpAddress senderIp = sender.host();
+        byte[] senderIpBytes = senderIp.toOctets();
+        byte[] messageTypeBytes = message.type().getBytes(Charsets.UTF_8);
+
+        ByteBuf out = context.alloc().ioBuffer(
+                FIXED_HEADER_LENGTH + senderIpBytes.length + messageTypeBytes.length);
+
         out.writeInt(this.preamble);
 
         // write time
@@ -63,21 +81,16 @@ public class MessageEncoder extends MessageToByteEncoder<Object> {
         // write message id
         out.writeLong(message.id());
 
-        Endpoint sender = message.sender();
-
-        IpAddress senderIp = sender.host();
         if (senderIp.version() == Version.INET) {
             out.writeByte(0);
         } else {
             out.writeByte(1);
         }
-        out.writeBytes(senderIp.toOctets());
+        out.writeBytes(senderIpBytes);
 
         // write sender port
         out.writeInt(sender.port());
 
-        byte[] messageTypeBytes = message.type().getBytes(Charsets.UTF_8);
-
         // write length of message type
         out.writeInt(messageTypeBytes.length);
 
@@ -91,9 +104,12 @@ public class MessageEncoder extends MessageToByteEncoder<Object> {
 
         // write payload length
         out.writeInt(payload.length);
+        outs.add(out);
 
-        // write payload.
-        out.writeBytes(payload);
+        // write payload without copying it
+        if (payload.length > 0) {
+            outs.add(Unpooled.wrappedBuffer(payload));
+        }
     }
 
     @Override
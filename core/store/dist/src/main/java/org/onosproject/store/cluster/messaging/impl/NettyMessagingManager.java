@@ -16,10 +16,6 @@
 package org.onosproject.store.cluster.messaging.impl;
 
 import com.google.common.base.Strings;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalListener;
-import com.google.common.cache.RemovalNotification;
 import com.google.common.util.concurrent.MoreExecutors;
 
 import io.netty.bootstrap.Bootstrap;
@@ -42,6 +38,7 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.Future;
 import org.apache.commons.pool.KeyedPoolableObjectFactory;
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.apache.felix.scr.annotations.Activate;
@@ -69,6 +66,7 @@ import javax.net.ssl.TrustManagerFactory;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.security.KeyStore;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -95,7 +93,12 @@ import static org.onosproject.security.AppPermission.Type.CLUSTER_WRITE;
 public class NettyMessagingManager implements MessagingService {
 
     private static final int REPLY_TIME_OUT_MILLIS = 250;
+    private static final int CALLBACK_TICK_MILLIS = 10;
+    private static final int CALLBACK_WHEEL_SIZE = 512;
+    private static final int CALLBACK_STRIPES = 32;
     private static final short MIN_KS_LENGTH = 6;
+    private static final int DEFAULT_WRITE_BATCH_MAX_BYTES = 64 * 1024;
+    private static final int DEFAULT_WRITE_BATCH_MAX_DELAY_MICROS = 0;
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -109,17 +112,9 @@ public class NettyMessagingManager implements MessagingService {
     private final AtomicBoolean started = new AtomicBoolean(false);
     private final Map<String, Consumer<InternalMessage>> handlers = new ConcurrentHashMap<>();
     private final AtomicLong messageIdGenerator = new AtomicLong(0);
-    private final Cache<Long, Callback> callbacks = CacheBuilder.newBuilder()
-            .expireAfterWrite(REPLY_TIME_OUT_MILLIS, TimeUnit.MILLISECONDS)
-            .removalListener(new RemovalListener<Long, Callback>() {
-                @Override
-                public void onRemoval(RemovalNotification<Long, Callback> entry) {
-                    if (entry.wasEvicted()) {
-                        entry.getValue().completeExceptionally(new TimeoutException("Timedout waiting for reply"));
-                    }
-                }
-            })
-            .build();
+    private final CallbackRegistry<Callback> callbacks = new CallbackRegistry<>(
+            CALLBACK_TICK_MILLIS, CALLBACK_WHEEL_SIZE, CALLBACK_STRIPES,
+            callback -> callback.completeExceptionally(new TimeoutException("Timedout waiting for reply")));
 
     private final GenericKeyedObjectPool<Endpoint, Connection> channels
             = new GenericKeyedObjectPool<>(new OnosCommunicationChannelFactory());
@@ -137,6 +132,11 @@ public class NettyMessagingManager implements MessagingService {
     protected char[] ksPwd;
     protected char[] tsPwd;
 
+    // payload bytes written to a connection before it is flushed; 0 flushes every message
+    protected int writeBatchMaxBytes = DEFAULT_WRITE_BATCH_MAX_BYTES;
+    // delay before batched writes are flushed; 0 flushes once queued writes are drained
+    protected int writeBatchMaxDelayMicros = DEFAULT_WRITE_BATCH_MAX_DELAY_MICROS;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ClusterMetadataService clusterMetadataService;
 
@@ -144,6 +144,7 @@ public class NettyMessagingManager implements MessagingService {
     public void activate() throws Exception {
         ControllerNode localNode = clusterMetadataService.getLocalNode();
         getTlsParameters();
+        getWriteBatchParameters();
 
         if (started.get()) {
             log.warn("Already running at local endpoint: {}", localEp);
@@ -159,7 +160,7 @@ public class NettyMessagingManager implements MessagingService {
         initEventLoopGroup();
         startAcceptingConnections();
         started.set(true);
-        serverGroup.scheduleWithFixedDelay(callbacks::cleanUp, 0, REPLY_TIME_OUT_MILLIS, TimeUnit.MILLISECONDS);
+        serverGroup.scheduleWithFixedDelay(callbacks::advance, 0, CALLBACK_TICK_MILLIS, TimeUnit.MILLISECONDS);
         log.info("Started");
     }
 
@@ -201,6 +202,18 @@ public class NettyMessagingManager implements MessagingService {
             }
         }
     }
+
+    private void getWriteBatchParameters() {
+        String tempString = System.getProperty("nettyWriteBatchMaxBytes");
+        writeBatchMaxBytes = Strings.isNullOrEmpty(tempString) ?
+                DEFAULT_WRITE_BATCH_MAX_BYTES : Integer.parseInt(tempString);
+        tempString = System.getProperty("nettyWriteBatchMaxDelayMicros");
+        writeBatchMaxDelayMicros = Strings.isNullOrEmpty(tempString) ?
+                DEFAULT_WRITE_BATCH_MAX_DELAY_MICROS : Integer.parseInt(tempString);
+        log.info("nettyWriteBatchMaxBytes = {}, nettyWriteBatchMaxDelayMicros = {}",
+                 writeBatchMaxBytes, writeBatchMaxDelayMicros);
+    }
+
     private void initEventLoopGroup() {
         // try Epoll first and if that does work, use nio.
         try {
@@ -268,10 +281,17 @@ public class NettyMessagingManager implements MessagingService {
     @Override
     public CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload, Executor executor) {
         checkPermission(CLUSTER_WRITE);
+        return sendAndReceive(ep, type, payload, Duration.ofMillis(REPLY_TIME_OUT_MILLIS), executor);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload,
+                                                    Duration timeout, Executor executor) {
+        checkPermission(CLUSTER_WRITE);
         CompletableFuture<byte[]> response = new CompletableFuture<>();
         Callback callback = new Callback(response, executor);
-        Long messageId = messageIdGenerator.incrementAndGet();
-        callbacks.put(messageId, callback);
+        long messageId = messageIdGenerator.incrementAndGet();
+        callbacks.register(messageId, callback, timeout.toMillis());
         InternalMessage message = new InternalMessage(preamble,
                                                       clockService.timeNow(),
                                                       messageId,
@@ -280,7 +300,7 @@ public class NettyMessagingManager implements MessagingService {
                                                       payload);
         return sendAsync(ep, message).whenComplete((r, e) -> {
             if (e != null) {
-                callbacks.invalidate(messageId);
+                callbacks.remove(messageId);
             }
         }).thenComposeAsync(v -> response, executor);
     }
@@ -535,26 +555,21 @@ public class NettyMessagingManager implements MessagingService {
         clockService.recordEventTime(message.time());
         String type = message.type();
         if (REPLY_MESSAGE_TYPE.equals(type)) {
-            try {
-                Callback callback =
-                        callbacks.getIfPresent(message.id());
-                if (callback != null) {
-                    if (message.status() == Status.OK) {
-                        callback.complete(message.payload());
-                    } else if (message.status() == Status.ERROR_NO_HANDLER) {
-                        callback.completeExceptionally(new MessagingException.NoRemoteHandler());
-                    } else if (message.status() == Status.ERROR_HANDLER_EXCEPTION) {
-                        callback.completeExceptionally(new MessagingException.RemoteHandlerFailure());
-                    } else if (message.status() == Status.PROTOCOL_EXCEPTION) {
-                        callback.completeExceptionally(new MessagingException.ProtocolException());
-                    }
-                } else {
-                    log.debug("Received a reply for message id:[{}]. "
-                                     + " from {}. But was unable to locate the"
-                                     + " request handle", message.id(), message.sender());
+            Callback callback = callbacks.remove(message.id());
+            if (callback != null) {
+                if (message.status() == Status.OK) {
+                    callback.complete(message.payload());
+                } else if (message.status() == Status.ERROR_NO_HANDLER) {
+                    callback.completeExceptionally(new MessagingException.NoRemoteHandler());
+                } else if (message.status() == Status.ERROR_HANDLER_EXCEPTION) {
+                    callback.completeExceptionally(new MessagingException.RemoteHandlerFailure());
+                } else if (message.status() == Status.PROTOCOL_EXCEPTION) {
+                    callback.completeExceptionally(new MessagingException.ProtocolException());
                 }
-            } finally {
-                callbacks.invalidate(message.id());
+            } else {
+                log.debug("Received a reply for message id:[{}]. "
+                                 + " from {}. But was unable to locate the"
+                                 + " request handle", message.id(), message.sender());
             }
             return;
         }
@@ -602,6 +617,10 @@ public class NettyMessagingManager implements MessagingService {
     private final class Connection {
         private final CompletableFuture<Channel> internalFuture;
 
+        // write batching state; only accessed from the channel's event loop
+        private int pendingBytes = 0;
+        private boolean flushScheduled = false;
+
         public Connection(CompletableFuture<Channel> internalFuture) {
             this.internalFuture = internalFuture;
         }
@@ -613,22 +632,52 @@ public class NettyMessagingManager implements MessagingService {
          * @param future a future that is completed normally or exceptionally if
          *               message sending succeeds or fails respectively
          */
-        public void send(Object message, CompletableFuture<Void> future) {
+        public void send(InternalMessage message, CompletableFuture<Void> future) {
             internalFuture.whenComplete((channel, throwable) -> {
-                if (throwable == null) {
-                    channel.writeAndFlush(message).addListener(channelFuture -> {
-                        if (!channelFuture.isSuccess()) {
-                            future.completeExceptionally(channelFuture.cause());
-                        } else {
-                            future.complete(null);
-                        }
-                    });
-                } else {
+                if (throwable != null) {
                     future.completeExceptionally(throwable);
+                } else if (writeBatchMaxBytes <= 0) {
+                    channel.writeAndFlush(message).addListener(channelFuture -> complete(channelFuture, future));
+                } else {
+                    channel.eventLoop().execute(() -> write(channel, message, future));
                 }
             });
         }
 
+        /**
+         * Writes a message without flushing it, and flushes the channel once
+         * enough payload bytes are pending or the flush delay has elapsed.
+         */
+        private void write(Channel channel, InternalMessage message, CompletableFuture<Void> future) {
+            channel.write(message).addListener(channelFuture -> complete(channelFuture, future));
+            pendingBytes += message.payload().length;
+            if (pendingBytes >= writeBatchMaxBytes) {
+                flush(channel);
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                if (writeBatchMaxDelayMicros > 0) {
+                    channel.eventLoop().schedule(() -> flush(channel), writeBatchMaxDelayMicros, TimeUnit.MICROSECONDS);
+                } else {
+                    // runs after the writes already queued on the event loop
+                    channel.eventLoop().execute(() -> flush(channel));
+                }
+            }
+        }
+
+        private void flush(Channel channel) {
+            pendingBytes = 0;
+            flushScheduled = false;
+            channel.flush();
+        }
+
+        private void complete(Future<?> channelFuture, CompletableFuture<Void> future) {
+            if (!channelFuture.isSuccess()) {
+                future.completeExceptionally(channelFuture.cause());
+            } else {
+                future.complete(null);
+            }
+        }
+
         /**
          * Destroys a channel by closing its channel (if it exists) and
          * cancelling its future.
@@ -22,6 +22,7 @@ package org.onosproject.store.flow.impl;
  import java.util.Map;
  import java.util.Objects;
  import java.util.Set;
+ import java.util.concurrent.CompletableFuture;
  import java.util.concurrent.ExecutorService;
  import java.util.concurrent.Executors;
  import java.util.concurrent.ScheduledExecutorService;
@@ -29,6 +30,9 @@ package org.onosproject.store.flow.impl;
  import java.util.concurrent.TimeUnit;
  import java.util.concurrent.atomic.AtomicInteger;
  import java.util.concurrent.atomic.AtomicReference;
+ import java.util.function.Consumer;
+ import java.util.function.Function;
+ import java.util.function.Predicate;
  import java.util.stream.Collectors;
 
  import org.apache.felix.scr.annotations.Activate;
@@ -43,7 +47,9 @@ package org.onosproject.store.flow.impl;
  import org.onlab.util.Tools;
  import org.onosproject.cfg.ComponentConfigService;
  import org.onosproject.cluster.ClusterService;
+ import org.onosproject.cluster.ControllerNode;
  import org.onosproject.cluster.NodeId;
+ import org.onosproject.core.ApplicationId;
  import org.onosproject.core.CoreService;
  import org.onosproject.core.IdGenerator;
  import org.onosproject.mastership.MastershipService;
@@ -72,6 +78,7 @@ package org.onosproject.store.flow.impl;
  import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
  import org.onosproject.store.cluster.messaging.ClusterMessage;
  import org.onosproject.store.cluster.messaging.ClusterMessageHandler;
+ import org.onosproject.store.cluster.messaging.MessageSubject;
  import org.onosproject.store.flow.ReplicaInfoEvent;
  import org.onosproject.store.flow.ReplicaInfoEventListener;
  import org.onosproject.store.flow.ReplicaInfoService;
@@ -86,8 +93,10 @@ package org.onosproject.store.flow.impl;
  import org.osgi.service.component.ComponentContext;
  import org.slf4j.Logger;
 
+ import com.google.common.collect.FluentIterable;
  import com.google.common.collect.ImmutableList;
  import com.google.common.collect.Iterables;
+ import com.google.common.collect.Lists;
  import com.google.common.collect.Maps;
  import com.google.common.collect.Sets;
  import com.google.common.util.concurrent.Futures;
@@ -99,8 +108,11 @@ package org.onosproject.store.flow.impl;
  import static org.onosproject.store.flow.ReplicaInfoEvent.Type.MASTER_CHANGED;
  import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.APPLY_BATCH_FLOWS;
  import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.FLOW_TABLE_BACKUP;
+ import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.FLOW_TABLE_BACKUP_DELTA;
+ import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.GET_APP_FLOW_ENTRIES;
  import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.GET_DEVICE_FLOW_ENTRIES;
  import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.GET_FLOW_ENTRY;
+ import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.GET_GROUP_FLOW_ENTRIES;
  import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.REMOTE_APPLY_COMPLETED;
  import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.REMOVE_FLOW_ENTRY;
  import static org.slf4j.LoggerFactory.getLogger;
@@ -121,9 +133,14 @@ public class DistributedFlowRuleStore
     private static final int DEFAULT_MAX_BACKUP_COUNT = 2;
     private static final boolean DEFAULT_PERSISTENCE_ENABLED = false;
     private static final int DEFAULT_BACKUP_PERIOD_MILLIS = 2000;
+    private static final boolean DEFAULT_DELTA_BACKUP_ENABLED = true;
     private static final long FLOW_RULE_STORE_TIMEOUT_MILLIS = 5000;
     // number of devices whose flow entries will be backed up in one communication round
     private static final int FLOW_TABLE_BACKUP_BATCH_SIZE = 1;
+    // number of device deltas that will be backed up in one communication round
+    private static final int FLOW_TABLE_DELTA_BATCH_SIZE = 100;
+    // max number of changes retained per device before backups fall back to a snapshot
+    private static final int FLOW_TABLE_CHANGE_LOG_MAX_SIZE = 100000;
 
     @Property(name = "msgHandlerPoolSize", intValue = MESSAGE_HANDLER_THREAD_POOL_SIZE,
             label = "Number of threads in the message handler pool")
@@ -144,6 +161,10 @@ public class DistributedFlowRuleStore
             label = "Max number of backup copies for each device")
     private volatile int backupCount = DEFAULT_MAX_BACKUP_COUNT;
 
+    @Property(name = "deltaBackupEnabled", boolValue = DEFAULT_DELTA_BACKUP_ENABLED,
+            label = "Indicates whether backups carry only the flow table changes since the last backup")
+    private volatile boolean deltaBackupEnabled = DEFAULT_DELTA_BACKUP_ENABLED;
+
     private InternalFlowTable flowTable = new InternalFlowTable();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
@@ -185,7 +206,11 @@ public class DistributedFlowRuleStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected StorageService storageService;
 
-    protected final Serializer serializer = Serializer.using(KryoNamespaces.API);
+    protected final Serializer serializer = Serializer.using(KryoNamespace.newBuilder()
+            .register(KryoNamespaces.API)
+            .nextId(KryoNamespaces.BEGIN_USER_CUSTOM_ID)
+            .register(FlowTableDelta.class)
+            .build("DistributedFlowRuleStore"));
 
     protected final KryoNamespace.Builder serializerBuilder = KryoNamespace.newBuilder()
             .register(KryoNamespaces.API)
@@ -261,6 +286,7 @@ public class DistributedFlowRuleStore
         boolean newBackupEnabled;
         int newBackupPeriod;
         int newBackupCount;
+        boolean newDeltaBackupEnabled;
         try {
             String s = get(properties, "msgHandlerPoolSize");
             newPoolSize = isNullOrEmpty(s) ? msgHandlerPoolSize : Integer.parseInt(s.trim());
@@ -273,16 +299,22 @@ public class DistributedFlowRuleStore
 
             s = get(properties, "backupCount");
             newBackupCount = isNullOrEmpty(s) ? backupCount : Integer.parseInt(s.trim());
+
+            s = get(properties, "deltaBackupEnabled");
+            newDeltaBackupEnabled = isNullOrEmpty(s) ? deltaBackupEnabled : Boolean.parseBoolean(s.trim());
         } catch (NumberFormatException | ClassCastException e) {
             newPoolSize = MESSAGE_HANDLER_THREAD_POOL_SIZE;
             newBackupEnabled = DEFAULT_BACKUP_ENABLED;
             newBackupPeriod = DEFAULT_BACKUP_PERIOD_MILLIS;
             newBackupCount = DEFAULT_MAX_BACKUP_COUNT;
+            newDeltaBackupEnabled = DEFAULT_DELTA_BACKUP_ENABLED;
         }
 
         boolean restartBackupTask = false;
         if (newBackupEnabled != backupEnabled) {
             backupEnabled = newBackupEnabled;
+            // change logs are neither kept nor acknowledged while backups are off
+            flowTable.resetBackups();
             if (!backupEnabled) {
                 replicaInfoManager.removeListener(flowTable);
                 if (backupTask != null) {
@@ -322,6 +354,11 @@ public class DistributedFlowRuleStore
         if (backupCount != newBackupCount) {
             backupCount = newBackupCount;
         }
+        if (deltaBackupEnabled != newDeltaBackupEnabled) {
+            deltaBackupEnabled = newDeltaBackupEnabled;
+            // backup nodes are brought up to date by a snapshot in either mode
+            flowTable.resetBackups();
+        }
         logConfig("Reconfigured");
     }
 
@@ -334,24 +371,36 @@ public class DistributedFlowRuleStore
                 GET_FLOW_ENTRY, serializer::decode, flowTable::getFlowEntry, serializer::encode, executor);
         clusterCommunicator.addSubscriber(
                 GET_DEVICE_FLOW_ENTRIES, serializer::decode, flowTable::getFlowEntries, serializer::encode, executor);
+        clusterCommunicator.<Short, List<FlowEntry>>addSubscriber(
+                GET_APP_FLOW_ENTRIES, serializer::decode, flowTable::getAppFlowEntries, serializer::encode, executor);
+        clusterCommunicator.<Integer, List<FlowEntry>>addSubscriber(
+                GET_GROUP_FLOW_ENTRIES, serializer::decode, flowTable::getGroupFlowEntries,
+                serializer::encode, executor);
         clusterCommunicator.addSubscriber(
                 REMOVE_FLOW_ENTRY, serializer::decode, this::removeFlowRuleInternal, serializer::encode, executor);
         clusterCommunicator.addSubscriber(
                 FLOW_TABLE_BACKUP, serializer::decode, flowTable::onBackupReceipt, serializer::encode, executor);
+        clusterCommunicator.addSubscriber(
+                FLOW_TABLE_BACKUP_DELTA, serializer::decode, flowTable::onBackupDeltaReceipt,
+                serializer::encode, executor);
     }
 
     private void unregisterMessageHandlers() {
         clusterCommunicator.removeSubscriber(REMOVE_FLOW_ENTRY);
         clusterCommunicator.removeSubscriber(GET_DEVICE_FLOW_ENTRIES);
+        clusterCommunicator.removeSubscriber(GET_APP_FLOW_ENTRIES);
+        clusterCommunicator.removeSubscriber(GET_GROUP_FLOW_ENTRIES);
         clusterCommunicator.removeSubscriber(GET_FLOW_ENTRY);
         clusterCommunicator.removeSubscriber(APPLY_BATCH_FLOWS);
         clusterCommunicator.removeSubscriber(REMOTE_APPLY_COMPLETED);
         clusterCommunicator.removeSubscriber(FLOW_TABLE_BACKUP);
+        clusterCommunicator.removeSubscriber(FLOW_TABLE_BACKUP_DELTA);
     }
 
     private void logConfig(String prefix) {
-        log.info("{} with msgHandlerPoolSize = {}; backupEnabled = {}, backupPeriod = {}, backupCount = {}",
-                 prefix, msgHandlerPoolSize, backupEnabled, backupPeriod, backupCount);
+        log.info("{} with msgHandlerPoolSize = {}; backupEnabled = {}, backupPeriod = {}, backupCount = {}, "
+                         + "deltaBackupEnabled = {}",
+                 prefix, msgHandlerPoolSize, backupEnabled, backupPeriod, backupCount, deltaBackupEnabled);
     }
 
     // This is not a efficient operation on a distributed sharded
@@ -416,6 +465,65 @@ public class DistributedFlowRuleStore
                                Collections.emptyList());
     }
 
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesById(ApplicationId appId) {
+        return getFlowEntries(GET_APP_FLOW_ENTRIES, appId.id(), flowTable::getAppFlowEntries);
+    }
+
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByGroupId(ApplicationId appId, short groupId) {
+        int prefix = (appId.id() << 16) | (groupId & 0xffff);
+        return getFlowEntries(GET_GROUP_FLOW_ENTRIES, prefix, flowTable::getGroupFlowEntries);
+    }
+
+    @Override
+    public long nextReconcileGeneration(DeviceId deviceId) {
+        return flowTable.nextReconcileGeneration(deviceId);
+    }
+
+    @Override
+    public FlowEntry markFlowEntry(FlowRule rule, long generation) {
+        if (mastershipService.isLocalMaster(rule.deviceId())) {
+            return flowTable.markFlowEntry(rule, generation);
+        }
+        // only the master keeps track of the entries seen on the device
+        return getFlowEntry(rule);
+    }
+
+    @Override
+    public Iterable<FlowEntry> getUnmarkedFlowEntries(DeviceId deviceId, long generation) {
+        if (mastershipService.isLocalMaster(deviceId)) {
+            return flowTable.getUnmarkedFlowEntries(deviceId, generation);
+        }
+        log.debug("Not reconciling flow table of {}; the node is not the master", deviceId);
+        return Collections.emptyList();
+    }
+
+    /**
+     * Queries the flow tables of all the nodes at once, each answering for
+     * the devices it masters from its application index. The entries of
+     * the local node come first, and those of each other node follow as
+     * its response is needed, so that iteration does not wait for all
+     * the responses.
+     */
+    private <Q> Iterable<FlowEntry> getFlowEntries(MessageSubject subject, Q query,
+                                                   Function<Q, List<FlowEntry>> localQuery) {
+        List<CompletableFuture<List<FlowEntry>>> responses = Lists.newArrayList();
+        for (ControllerNode node : clusterService.getNodes()) {
+            if (!node.id().equals(local) && clusterService.getState(node.id()).isActive()) {
+                responses.add(clusterCommunicator.sendAndReceive(query, subject,
+                                                                 serializer::encode,
+                                                                 serializer::decode,
+                                                                 node.id()));
+            }
+        }
+        Iterable<List<FlowEntry>> remoteEntries = Iterables.transform(responses, response ->
+                Tools.futureGetOrElse(response, FLOW_RULE_STORE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS,
+                                      Collections.emptyList()));
+        return Iterables.unmodifiableIterable(
+                Iterables.concat(localQuery.apply(query), Iterables.concat(remoteEntries)));
+    }
+
     @Override
     public void storeFlowRule(FlowRule rule) {
         storeBatch(new FlowRuleBatchOperation(
@@ -509,6 +617,7 @@ public class DistributedFlowRuleStore
                             if (entry != null) {
                                 //FIXME modification of "stored" flow entry outside of flow table
                                 entry.setState(FlowEntryState.PENDING_REMOVE);
+                                flowTable.markUpdated(entry);
                                 log.debug("Setting state of rule to pending remove: {}", entry);
                                 return op;
                             }
@@ -541,6 +650,7 @@ public class DistributedFlowRuleStore
             if (stored != null &&
                     stored.state() != FlowEntryState.PENDING_ADD) {
                 stored.setState(FlowEntryState.PENDING_ADD);
+                flowTable.markUpdated(stored);
                 return new FlowRuleEvent(Type.RULE_UPDATED, rule);
             }
         }
@@ -571,6 +681,7 @@ public class DistributedFlowRuleStore
             stored.setLastSeen();
             if (stored.state() == FlowEntryState.PENDING_ADD) {
                 stored.setState(FlowEntryState.ADDED);
+                flowTable.markUpdated(stored);
                 return new FlowRuleEvent(Type.RULE_ADDED, rule);
             }
             return new FlowRuleEvent(Type.RULE_UPDATED, rule);
@@ -700,9 +811,22 @@ public class DistributedFlowRuleStore
         private final Map<DeviceId, Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>>
                 flowEntries = Maps.newConcurrentMap();
 
+        // flow ids of the flow tables by application id, then by device
+        private final Map<Short, Map<DeviceId, Set<FlowId>>> appIndex = Maps.newConcurrentMap();
+
+        // current round of reconciliation of each device with its flow table
+        private final Map<DeviceId, Long> generations = Maps.newConcurrentMap();
+
         private final Map<BackupOperation, Long> lastBackupTimes = Maps.newConcurrentMap();
         private final Map<DeviceId, Long> lastUpdateTimes = Maps.newConcurrentMap();
 
+        // delta backup state of devices mastered locally
+        private final Map<DeviceId, FlowTableChangeLog> changeLogs = Maps.newConcurrentMap();
+        private final Map<BackupOperation, Long> backedUpSequences = Maps.newConcurrentMap();
+        private final Set<BackupOperation> inFlightBackups = Sets.newConcurrentHashSet();
+        // delta backup state of devices backed up locally, keyed by the sending master
+        private final Map<BackupOperation, Long> receivedSequences = Maps.newConcurrentMap();
+
         @Override
         public void event(ReplicaInfoEvent event) {
             eventHandler.execute(() -> handleEvent(event));
@@ -715,6 +839,8 @@ public class DistributedFlowRuleStore
             }
             if (event.type() == MASTER_CHANGED) {
                 lastUpdateTimes.put(deviceId, System.currentTimeMillis());
+                // backup nodes may hold another master's copy; start over from a snapshot
+                backedUpSequences.keySet().removeIf(op -> op.deviceId.equals(deviceId));
             }
             backupSenderExecutor.schedule(this::backup, 0, TimeUnit.SECONDS);
         }
@@ -766,21 +892,26 @@ public class DistributedFlowRuleStore
          */
         private Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> getFlowTable(DeviceId deviceId) {
             if (persistenceEnabled) {
-                return flowEntries.computeIfAbsent(deviceId, id -> persistenceService
-                        .<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>persistentMapBuilder()
-                        .withName("FlowTable:" + deviceId.toString())
-                        .withSerializer(new Serializer() {
-                            @Override
-                            public <T> byte[] encode(T object) {
-                                return serializer.encode(object);
-                            }
-
-                            @Override
-                            public <T> T decode(byte[] bytes) {
-                                return serializer.decode(bytes);
-                            }
-                        })
-                        .build());
+                return flowEntries.computeIfAbsent(deviceId, id -> {
+                    Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> table = persistenceService
+                            .<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>persistentMapBuilder()
+                            .withName("FlowTable:" + deviceId.toString())
+                            .withSerializer(new Serializer() {
+                                @Override
+                                public <T> byte[] encode(T object) {
+                                    return serializer.encode(object);
+                                }
+
+                                @Override
+                                public <T> T decode(byte[] bytes) {
+                                    return serializer.decode(bytes);
+                                }
+                            })
+                            .build();
+                    // index the flows restored from disk
+                    table.keySet().forEach(flowId -> index(id, flowId));
+                    return table;
+                });
             } else {
                 return flowEntries.computeIfAbsent(deviceId, id -> Maps.newConcurrentMap());
             }
@@ -789,21 +920,7 @@ public class DistributedFlowRuleStore
         private Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> getFlowTableCopy(DeviceId deviceId) {
             Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> copy = Maps.newHashMap();
             if (persistenceEnabled) {
-                return flowEntries.computeIfAbsent(deviceId, id -> persistenceService
-                        .<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>persistentMapBuilder()
-                        .withName("FlowTable:" + deviceId.toString())
-                        .withSerializer(new Serializer() {
-                            @Override
-                            public <T> byte[] encode(T object) {
-                                return serializer.encode(object);
-                            }
-
-                            @Override
-                            public <T> T decode(byte[] bytes) {
-                                return serializer.decode(bytes);
-                            }
-                        })
-                        .build());
+                return getFlowTable(deviceId);
             } else {
                 flowEntries.computeIfAbsent(deviceId, id -> Maps.newConcurrentMap()).forEach((k, v) -> {
                     copy.put(k, Maps.newHashMap(v));
@@ -812,12 +929,129 @@ public class DistributedFlowRuleStore
             }
         }
 
-        private Map<StoredFlowEntry, StoredFlowEntry> getFlowEntriesInternal(DeviceId deviceId, FlowId flowId) {
-            return getFlowTable(deviceId).computeIfAbsent(flowId, id -> Maps.newConcurrentMap());
+        /**
+         * Updates the entries of a flow id in the flow table of a device,
+         * dropping the flow id from the table and the index once it has no
+         * entries left.
+         *
+         * @param deviceId identifier of the device
+         * @param flowId   flow id
+         * @param update   update of the entries
+         */
+        private void updateFlowEntries(DeviceId deviceId, FlowId flowId,
+                                       Consumer<Map<StoredFlowEntry, StoredFlowEntry>> update) {
+            getFlowTable(deviceId).compute(flowId, (id, flows) -> {
+                Map<StoredFlowEntry, StoredFlowEntry> updated = flows != null ? flows : Maps.newConcurrentMap();
+                update.accept(updated);
+                if (updated.isEmpty()) {
+                    if (flows != null) {
+                        unindex(deviceId, id);
+                    }
+                    return null;
+                }
+                if (flows == null) {
+                    index(deviceId, id);
+                }
+                return updated;
+            });
+        }
+
+        private void index(DeviceId deviceId, FlowId flowId) {
+            appIndex.compute(appId(flowId), (appId, devices) -> {
+                Map<DeviceId, Set<FlowId>> updated = devices != null ? devices : Maps.newConcurrentMap();
+                updated.computeIfAbsent(deviceId, id -> Sets.newConcurrentHashSet()).add(flowId);
+                return updated;
+            });
+        }
+
+        private void unindex(DeviceId deviceId, FlowId flowId) {
+            appIndex.computeIfPresent(appId(flowId), (appId, devices) -> {
+                devices.computeIfPresent(deviceId, (id, flowIds) -> {
+                    flowIds.remove(flowId);
+                    return flowIds.isEmpty() ? null : flowIds;
+                });
+                return devices.isEmpty() ? null : devices;
+            });
+        }
+
+        private void unindex(DeviceId deviceId) {
+            appIndex.keySet().forEach(appId -> appIndex.computeIfPresent(appId, (id, devices) -> {
+                devices.remove(deviceId);
+                return devices.isEmpty() ? null : devices;
+            }));
+        }
+
+        private short appId(FlowId flowId) {
+            return (short) (flowId.value() >>> 48);
+        }
+
+        /**
+         * Returns the flow entries of an application in the tables of the
+         * devices mastered locally.
+         *
+         * @param appId application id
+         * @return flow entries
+         */
+        public List<FlowEntry> getAppFlowEntries(short appId) {
+            return getIndexedFlowEntries(appId, flowId -> true);
+        }
+
+        /**
+         * Returns the flow entries of a group of flows of an application in
+         * the tables of the devices mastered locally.
+         *
+         * @param prefix application id and group id, as in the upper half
+         *               of their flow ids
+         * @return flow entries
+         */
+        public List<FlowEntry> getGroupFlowEntries(int prefix) {
+            return getIndexedFlowEntries((short) (prefix >>> 16),
+                                         flowId -> (int) (flowId.value() >>> 32) == prefix);
+        }
+
+        private List<FlowEntry> getIndexedFlowEntries(short appId, Predicate<FlowId> filter) {
+            List<FlowEntry> entries = Lists.newArrayList();
+            appIndex.getOrDefault(appId, Collections.emptyMap()).forEach((deviceId, flowIds) -> {
+                Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> table = flowEntries.get(deviceId);
+                if (table == null || !mastershipService.isLocalMaster(deviceId)) {
+                    return;
+                }
+                flowIds.stream()
+                        .filter(filter)
+                        .map(table::get)
+                        .filter(Objects::nonNull)
+                        .forEach(flows -> entries.addAll(flows.values()));
+            });
+            return entries;
+        }
+
+        public long nextReconcileGeneration(DeviceId deviceId) {
+            return generations.merge(deviceId, 1L, Long::sum);
+        }
+
+        public StoredFlowEntry markFlowEntry(FlowRule rule, long generation) {
+            StoredFlowEntry stored = getFlowEntryInternal(rule);
+            // a late report of an earlier round does not unmark the entry
+            if (stored != null && stored.seenGeneration() < generation) {
+                stored.setSeenGeneration(generation);
+            }
+            return stored;
+        }
+
+        public Iterable<FlowEntry> getUnmarkedFlowEntries(DeviceId deviceId, long generation) {
+            Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> table = flowEntries.get(deviceId);
+            if (table == null) {
+                return Collections.emptyList();
+            }
+            return FluentIterable.from(table.values())
+                    .transformAndConcat(Map::values)
+                    .filter(entry -> entry.seenGeneration() < generation)
+                    .filter(FlowEntry.class);
         }
 
         private StoredFlowEntry getFlowEntryInternal(FlowRule rule) {
-            return getFlowEntriesInternal(rule.deviceId(), rule.id()).get(rule);
+            Map<StoredFlowEntry, StoredFlowEntry> flows = getFlowTable(rule.deviceId()).get(rule.id());
+            return flows != null ? flows.get(rule) : null;
         }
 
         private Set<FlowEntry> getFlowEntriesInternal(DeviceId deviceId) {
@@ -835,18 +1069,53 @@ public class DistributedFlowRuleStore
         }
 
         public void add(FlowEntry rule) {
-            getFlowEntriesInternal(rule.deviceId(), rule.id())
+            // entries stored during a round of reconciliation are not missing
+            ((StoredFlowEntry) rule).setSeenGeneration(generations.getOrDefault(rule.deviceId(), 0L));
+            updateFlowEntries(rule.deviceId(), rule.id(), flows -> flows
                     .compute((StoredFlowEntry) rule, (k, stored) -> {
                         //TODO compare stored and rule timestamps
                         //TODO the key is not updated
                         return (StoredFlowEntry) rule;
-                    });
+                    }));
+            recordChange(rule.deviceId(), changeLog -> changeLog.recordUpdate((StoredFlowEntry) rule));
             lastUpdateTimes.put(rule.deviceId(), System.currentTimeMillis());
         }
 
+        /**
+         * Records a change of state of a stored flow entry so that it is
+         * carried by the next delta backup.
+         *
+         * @param entry updated flow entry
+         */
+        public void markUpdated(StoredFlowEntry entry) {
+            recordChange(entry.deviceId(), changeLog -> changeLog.recordUpdate(entry));
+            lastUpdateTimes.put(entry.deviceId(), System.currentTimeMillis());
+        }
+
+        private void recordChange(DeviceId deviceId, Consumer<FlowTableChangeLog> change) {
+            if (backupEnabled && deltaBackupEnabled) {
+                change.accept(getChangeLog(deviceId));
+            }
+        }
+
+        private FlowTableChangeLog getChangeLog(DeviceId deviceId) {
+            return changeLogs.computeIfAbsent(deviceId, id -> new FlowTableChangeLog(FLOW_TABLE_CHANGE_LOG_MAX_SIZE));
+        }
+
+        /**
+         * Discards all backup bookkeeping so that every backup node receives
+         * a snapshot in the next backup round.
+         */
+        public void resetBackups() {
+            lastBackupTimes.clear();
+            changeLogs.clear();
+            backedUpSequences.clear();
+            receivedSequences.clear();
+        }
+
         public FlowEntry remove(DeviceId deviceId, FlowEntry rule) {
             final AtomicReference<FlowEntry> removedRule = new AtomicReference<>();
-            getFlowEntriesInternal(rule.deviceId(), rule.id())
+            updateFlowEntries(rule.deviceId(), rule.id(), flows -> flows
                 .computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
                     if (rule instanceof DefaultFlowEntry) {
                         DefaultFlowEntry toRemove = (DefaultFlowEntry) rule;
@@ -862,9 +1131,10 @@ public class DistributedFlowRuleStore
                     }
                     removedRule.set(stored);
                     return null;
-                });
+                }));
 
             if (removedRule.get() != null) {
+                recordChange(deviceId, changeLog -> changeLog.recordRemoval((StoredFlowEntry) removedRule.get()));
                 lastUpdateTimes.put(deviceId, System.currentTimeMillis());
                 return removedRule.get();
             } else {
@@ -874,10 +1144,20 @@ public class DistributedFlowRuleStore
 
         public void purgeFlowRule(DeviceId deviceId) {
             flowEntries.remove(deviceId);
+            unindex(deviceId);
+            generations.remove(deviceId);
+            changeLogs.remove(deviceId);
+            backedUpSequences.keySet().removeIf(op -> op.deviceId.equals(deviceId));
+            receivedSequences.keySet().removeIf(op -> op.deviceId.equals(deviceId));
         }
 
         public void purgeFlowRules() {
             flowEntries.clear();
+            appIndex.clear();
+            generations.clear();
+            changeLogs.clear();
+            backedUpSequences.clear();
+            receivedSequences.clear();
         }
 
         private List<NodeId> getBackupNodes(DeviceId deviceId) {
@@ -891,6 +1171,10 @@ public class DistributedFlowRuleStore
             if (!backupEnabled) {
                 return;
             }
+            if (deltaBackupEnabled) {
+                backupDeltas();
+                return;
+            }
             try {
                 // compute a mapping from node to the set of devices whose flow entries it should backup
                 Map<NodeId, Set<DeviceId>> devicesToBackupByNode = Maps.newHashMap();
@@ -911,6 +1195,137 @@ public class DistributedFlowRuleStore
             }
         }
 
+        private void backupDeltas() {
+            try {
+                // compute a mapping from node to the deltas or snapshots it should receive
+                Map<NodeId, List<FlowTableDelta>> deltasByNode = Maps.newHashMap();
+                Map<NodeId, List<DeviceId>> snapshotsByNode = Maps.newHashMap();
+                flowEntries.keySet().forEach(deviceId -> {
+                    if (!lastUpdateTimes.containsKey(deviceId)) {
+                        return;
+                    }
+                    FlowTableChangeLog changeLog = getChangeLog(deviceId);
+                    long sequence = changeLog.sequence();
+                    getBackupNodes(deviceId).forEach(backupNode -> {
+                        BackupOperation op = new BackupOperation(backupNode, deviceId);
+                        if (inFlightBackups.contains(op)) {
+                            return;
+                        }
+                        Long backedUpSequence = backedUpSequences.get(op);
+                        if (backedUpSequence != null && backedUpSequence >= sequence) {
+                            return;
+                        }
+                        FlowTableDelta delta = backedUpSequence == null ? null :
+                                changeLog.deltaSince(backedUpSequence, deviceId, local);
+                        if (delta != null) {
+                            deltasByNode.computeIfAbsent(backupNode, nodeId -> Lists.newArrayList()).add(delta);
+                        } else {
+                            snapshotsByNode.computeIfAbsent(backupNode, nodeId -> Lists.newArrayList()).add(deviceId);
+                        }
+                        inFlightBackups.add(op);
+                    });
+                });
+                deltasByNode.forEach((nodeId, deltas) ->
+                        Iterables.partition(deltas, FLOW_TABLE_DELTA_BATCH_SIZE)
+                                 .forEach(batch -> backupFlowTableDeltas(nodeId, batch)));
+                snapshotsByNode.forEach((nodeId, deviceIds) ->
+                        deviceIds.forEach(deviceId -> backupFlowTableDeltas(
+                                nodeId, ImmutableList.of(getFlowTableSnapshot(deviceId)))));
+            } catch (Exception e) {
+                log.error("Backup failed.", e);
+            }
+        }
+
+        private FlowTableDelta getFlowTableSnapshot(DeviceId deviceId) {
+            // read the sequence first; changes racing with the copy are resent by the next delta
+            long sequence = getChangeLog(deviceId).sequence();
+            List<StoredFlowEntry> entries = getFlowTable(deviceId).values().stream()
+                    .flatMap(m -> m.values().stream())
+                    .collect(Collectors.toList());
+            return FlowTableDelta.snapshot(deviceId, local, sequence, entries);
+        }
+
+        private void backupFlowTableDeltas(NodeId nodeId, List<FlowTableDelta> deltas) {
+            log.debug("Sending flow table deltas {} to {} for backup.", deltas, nodeId);
+            clusterCommunicator.<List<FlowTableDelta>, Set<DeviceId>>
+                    sendAndReceive(deltas,
+                                   FLOW_TABLE_BACKUP_DELTA,
+                                   serializer::encode,
+                                   serializer::decode,
+                                   nodeId)
+                    .whenComplete((backedupDevices, error) -> {
+                        boolean gapReported = false;
+                        for (FlowTableDelta delta : deltas) {
+                            BackupOperation op = new BackupOperation(nodeId, delta.deviceId());
+                            if (error != null) {
+                                log.warn("Failed to backup device: {}. Reason: {}, Node: {}",
+                                         delta.deviceId(), error.getMessage(), nodeId);
+                            } else if (backedupDevices.contains(delta.deviceId())) {
+                                backedUpSequences.put(op, delta.sequence());
+                                pruneChangeLog(delta.deviceId());
+                            } else {
+                                log.debug("Backup of device {} rejected by {}; falling back to a snapshot",
+                                          delta.deviceId(), nodeId);
+                                backedUpSequences.remove(op);
+                                gapReported |= !delta.isSnapshot();
+                            }
+                            inFlightBackups.remove(op);
+                        }
+                        if (gapReported) {
+                            backupSenderExecutor.execute(this::backup);
+                        }
+                    });
+        }
+
+        private void pruneChangeLog(DeviceId deviceId) {
+            FlowTableChangeLog changeLog = changeLogs.get(deviceId);
+            if (changeLog == null) {
+                return;
+            }
+            // changes acknowledged by every backup node are no longer needed
+            getBackupNodes(deviceId).stream()
+                    .map(nodeId -> backedUpSequences.get(new BackupOperation(nodeId, deviceId)))
+                    .filter(Objects::nonNull)
+                    .mapToLong(Long::longValue)
+                    .min()
+                    .ifPresent(changeLog::prune);
+        }
+
+        private Set<DeviceId> onBackupDeltaReceipt(List<FlowTableDelta> deltas) {
+            log.debug("Received flow table deltas {} to backup", deltas);
+            Set<DeviceId> backedupDevices = Sets.newHashSet();
+            try {
+                deltas.forEach(delta -> {
+                    DeviceId deviceId = delta.deviceId();
+                    // Only process those devices are that not managed by the local node.
+                    if (Objects.equals(local, mastershipService.getMasterFor(deviceId))) {
+                        return;
+                    }
+                    BackupOperation op = new BackupOperation(delta.origin(), deviceId);
+                    Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> backupFlowTable = getFlowTable(deviceId);
+                    if (delta.isSnapshot()) {
+                        receivedSequences.keySet().removeIf(other -> other.deviceId.equals(deviceId));
+                        backupFlowTable.clear();
+                        unindex(deviceId);
+                    } else if (!Objects.equals(receivedSequences.get(op), delta.baseSequence())) {
+                        // gap in the received sequence; the sender falls back to a snapshot
+                        return;
+                    }
+                    delta.removed().forEach(entry -> updateFlowEntries(deviceId, entry.id(),
+                                                                       entries -> entries.remove(entry)));
+                    delta.updated().forEach(entry -> updateFlowEntries(deviceId, entry.id(), entries -> {
+                        entries.remove(entry);
+                        entries.put(entry, entry);
+                    }));
+                    receivedSequences.put(op, delta.sequence());
+                    backedupDevices.add(deviceId);
+                });
+            } catch (Exception e) {
+                log.warn("Failure processing backup request", e);
+            }
+            return backedupDevices;
+        }
+
         private Set<DeviceId> onBackupReceipt(Map<DeviceId,
                 Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>> flowTables) {
             log.debug("Received flowEntries for {} to backup", flowTables.keySet());
@@ -922,7 +1337,10 @@ public class DistributedFlowRuleStore
                         Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> backupFlowTable =
                                 getFlowTable(deviceId);
                         backupFlowTable.clear();
+                        unindex(deviceId);
                         backupFlowTable.putAll(deviceFlowTable);
+                        deviceFlowTable.keySet().forEach(flowId -> index(deviceId, flowId));
+                        receivedSequences.keySet().removeIf(op -> op.deviceId.equals(deviceId));
                         backedupDevices.add(deviceId);
                     }
                 });
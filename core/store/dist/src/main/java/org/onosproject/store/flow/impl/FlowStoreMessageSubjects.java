@@ -32,6 +32,12 @@ public final class FlowStoreMessageSubjects {
     public static final MessageSubject GET_DEVICE_FLOW_ENTRIES
         = new MessageSubject("peer-forward-get-device-flow-entries");
 
+    public static final MessageSubject GET_APP_FLOW_ENTRIES
+        = new MessageSubject("peer-forward-get-app-flow-entries");
+
+    public static final MessageSubject GET_GROUP_FLOW_ENTRIES
+        = new MessageSubject("peer-forward-get-group-flow-entries");
+
     public static final MessageSubject REMOVE_FLOW_ENTRY
         = new MessageSubject("peer-forward-remove-flow-entry");
 
@@ -40,4 +46,7 @@ public final class FlowStoreMessageSubjects {
 
     public static final MessageSubject FLOW_TABLE_BACKUP
         = new MessageSubject("peer-flow-table-backup");
+
+    public static final MessageSubject FLOW_TABLE_BACKUP_DELTA
+        = new MessageSubject("peer-flow-table-backup-delta");
 }
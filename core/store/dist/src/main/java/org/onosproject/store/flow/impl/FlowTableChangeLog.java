@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.List;
+import java.util.Map;
+
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Sequenced log of the changes made to the flow table of a single device.
+ * <p>
+ * Only the latest change of each flow entry is retained, so the log never
+ * holds more entries than the flow table plus the entries removed since the
+ * log was last pruned.
+ */
+final class FlowTableChangeLog {
+
+    private final int maxSize;
+    private final Map<StoredFlowEntry, Change> changes = Maps.newHashMap();
+    private long sequence = 0;
+    private long prunedSequence = 0;
+
+    /**
+     * Creates a change log retaining at most the given number of changes.
+     *
+     * @param maxSize maximum number of changes retained before the log is truncated
+     */
+    FlowTableChangeLog(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the sequence of the latest recorded change.
+     *
+     * @return current sequence
+     */
+    synchronized long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the number of changes currently retained.
+     *
+     * @return number of changes
+     */
+    synchronized int size() {
+        return changes.size();
+    }
+
+    /**
+     * Records the addition or update of a flow entry.
+     *
+     * @param entry added or updated flow entry
+     */
+    synchronized void recordUpdate(StoredFlowEntry entry) {
+        record(entry, false);
+    }
+
+    /**
+     * Records the removal of a flow entry.
+     *
+     * @param entry removed flow entry
+     */
+    synchronized void recordRemoval(StoredFlowEntry entry) {
+        record(entry, true);
+    }
+
+    private void record(StoredFlowEntry entry, boolean removed) {
+        // re-insert so the key tracks the latest instance of the entry
+        changes.remove(entry);
+        changes.put(entry, new Change(++sequence, entry, removed));
+        if (changes.size() > maxSize) {
+            truncate();
+        }
+    }
+
+    /**
+     * Returns the changes made after the given sequence.
+     *
+     * @param baseSequence sequence already held by the backup node
+     * @param deviceId     device identifier
+     * @param origin       local node identifier
+     * @return flow table delta, or null if changes made after the base
+     * sequence are no longer retained
+     */
+    synchronized FlowTableDelta deltaSince(long baseSequence, DeviceId deviceId, NodeId origin) {
+        if (baseSequence < prunedSequence || baseSequence > sequence) {
+            return null;
+        }
+        List<StoredFlowEntry> updated = Lists.newArrayList();
+        List<StoredFlowEntry> removed = Lists.newArrayList();
+        changes.values().stream()
+                .filter(change -> change.sequence > baseSequence)
+                .forEach(change -> (change.removed ? removed : updated).add(change.entry));
+        return FlowTableDelta.delta(deviceId, origin, baseSequence, sequence, updated, removed);
+    }
+
+    /**
+     * Discards the changes made up to and including the given sequence.
+     *
+     * @param upToSequence sequence acknowledged by every backup node
+     */
+    synchronized void prune(long upToSequence) {
+        if (upToSequence <= prunedSequence) {
+            return;
+        }
+        changes.values().removeIf(change -> change.sequence <= upToSequence);
+        prunedSequence = Math.min(upToSequence, sequence);
+    }
+
+    /**
+     * Discards all retained changes; backup nodes fall back to a snapshot.
+     */
+    synchronized void truncate() {
+        changes.clear();
+        prunedSequence = sequence;
+    }
+
+    private static final class Change {
+        private final long sequence;
+        private final StoredFlowEntry entry;
+        private final boolean removed;
+
+        private Change(long sequence, StoredFlowEntry entry, boolean removed) {
+            this.sequence = sequence;
+            this.entry = entry;
+            this.removed = removed;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.List;
+
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import com.google.common.collect.ImmutableList;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Incremental flow table backup message exchanged between the master of a
+ * device and its backup nodes.
+ * <p>
+ * A delta carries the flow entries that were added, updated or removed on the
+ * master between {@link #baseSequence()} and {@link #sequence()}. A delta with
+ * {@link #isSnapshot()} set instead carries the complete flow table and
+ * replaces whatever the backup node held for the device.
+ */
+public final class FlowTableDelta {
+
+    /**
+     * Base sequence used by snapshots.
+     */
+    public static final long NO_SEQUENCE = -1;
+
+    private final DeviceId deviceId;
+    private final NodeId origin;
+    private final long baseSequence;
+    private final long sequence;
+    private final List<StoredFlowEntry> updated;
+    private final List<StoredFlowEntry> removed;
+
+    private FlowTableDelta(DeviceId deviceId, NodeId origin, long baseSequence, long sequence,
+                           List<StoredFlowEntry> updated, List<StoredFlowEntry> removed) {
+        this.deviceId = deviceId;
+        this.origin = origin;
+        this.baseSequence = baseSequence;
+        this.sequence = sequence;
+        this.updated = updated;
+        this.removed = removed;
+    }
+
+    /**
+     * Creates a delta carrying the changes made after the given base sequence.
+     *
+     * @param deviceId     device identifier
+     * @param origin       node that produced the delta
+     * @param baseSequence sequence the backup node must hold to apply the delta
+     * @param sequence     sequence the backup node holds once the delta is applied
+     * @param updated      flow entries added or updated since the base sequence
+     * @param removed      flow entries removed since the base sequence
+     * @return flow table delta
+     */
+    public static FlowTableDelta delta(DeviceId deviceId, NodeId origin, long baseSequence, long sequence,
+                                       List<StoredFlowEntry> updated, List<StoredFlowEntry> removed) {
+        return new FlowTableDelta(deviceId, origin, baseSequence, sequence,
+                                  ImmutableList.copyOf(updated), ImmutableList.copyOf(removed));
+    }
+
+    /**
+     * Creates a snapshot carrying the complete flow table of a device.
+     *
+     * @param deviceId device identifier
+     * @param origin   node that produced the snapshot
+     * @param sequence sequence the backup node holds once the snapshot is applied
+     * @param entries  all flow entries of the device
+     * @return flow table snapshot
+     */
+    public static FlowTableDelta snapshot(DeviceId deviceId, NodeId origin, long sequence,
+                                          List<StoredFlowEntry> entries) {
+        return new FlowTableDelta(deviceId, origin, NO_SEQUENCE, sequence,
+                                  ImmutableList.copyOf(entries), ImmutableList.of());
+    }
+
+    /**
+     * Returns the device whose flow table this delta applies to.
+     *
+     * @return device identifier
+     */
+    public DeviceId deviceId() {
+        return deviceId;
+    }
+
+    /**
+     * Returns the node that produced this delta.
+     *
+     * @return node identifier
+     */
+    public NodeId origin() {
+        return origin;
+    }
+
+    /**
+     * Returns the sequence the backup node must hold to apply this delta.
+     *
+     * @return base sequence, or {@link #NO_SEQUENCE} for snapshots
+     */
+    public long baseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * Returns the sequence the backup node holds once this delta is applied.
+     *
+     * @return sequence
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns whether this delta is a complete snapshot of the flow table.
+     *
+     * @return true for snapshots
+     */
+    public boolean isSnapshot() {
+        return baseSequence == NO_SEQUENCE;
+    }
+
+    /**
+     * Returns the flow entries added or updated by this delta.
+     *
+     * @return updated flow entries
+     */
+    public List<StoredFlowEntry> updated() {
+        return updated;
+    }
+
+    /**
+     * Returns the flow entries removed by this delta.
+     *
+     * @return removed flow entries
+     */
+    public List<StoredFlowEntry> removed() {
+        return removed;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("deviceId", deviceId)
+                .add("origin", origin)
+                .add("baseSequence", baseSequence)
+                .add("sequence", sequence)
+                .add("updated", updated.size())
+                .add("removed", removed.size())
+                .toString();
+    }
+}
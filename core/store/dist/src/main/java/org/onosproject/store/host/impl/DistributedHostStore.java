@@ -50,13 +50,12 @@ import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.StorageService;
 import org.slf4j.Logger;
 
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -73,6 +72,10 @@ public class DistributedHostStore
     extends AbstractStore<HostEvent, HostStoreDelegate>
     implements HostStore {
 
+    // How long host lookups may be served from the local replica of the hosts
+    // while this node is disconnected from the hosts map
+    private static final long REPLICA_MAX_STALENESS_SECONDS = 5;
+
     private final Logger log = getLogger(getClass());
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
@@ -81,6 +84,13 @@ public class DistributedHostStore
     private ConsistentMap<HostId, DefaultHost> hostsConsistentMap;
     private Map<HostId, DefaultHost> hosts;
 
+    // Local secondary indexes of the hosts, maintained from the map events
+    private final HostIndex<IpAddress> hostsByIp = new HostIndex<>();
+    private final HostIndex<MacAddress> hostsByMac = new HostIndex<>();
+    private final HostIndex<VlanId> hostsByVlan = new HostIndex<>();
+    private final HostIndex<ConnectPoint> hostsByLocation = new HostIndex<>();
+    private final HostIndex<DeviceId> hostsByDevice = new HostIndex<>();
+
     private MapEventListener<HostId, DefaultHost> hostLocationTracker =
             new HostLocationTracker();
 
@@ -91,14 +101,14 @@ public class DistributedHostStore
 
         hostsConsistentMap = storageService.<HostId, DefaultHost>consistentMapBuilder()
                 .withName("onos-hosts")
-                .withRelaxedReadConsistency()
+                .withLocalReplica(REPLICA_MAX_STALENESS_SECONDS, TimeUnit.SECONDS)
                 .withSerializer(Serializer.using(hostSerializer.build()))
                 .build();
 
         hosts = hostsConsistentMap.asJavaMap();
 
-
         hostsConsistentMap.addListener(hostLocationTracker);
+        hosts.values().forEach(this::indexHost);
 
         log.info("Started");
     }
@@ -106,6 +116,11 @@ public class DistributedHostStore
     @Deactivate
     public void deactivate() {
         hostsConsistentMap.removeListener(hostLocationTracker);
+        hostsByIp.clear();
+        hostsByMac.clear();
+        hostsByVlan.clear();
+        hostsByLocation.clear();
+        hostsByDevice.clear();
 
         log.info("Stopped");
     }
@@ -238,7 +253,10 @@ public class DistributedHostStore
 
     @Override
     public Iterable<Host> getHosts() {
-        return ImmutableSet.copyOf(hosts.values());
+        // pages through the map rather than fetching it in one response
+        ImmutableSet.Builder<Host> builder = ImmutableSet.builder();
+        hostsConsistentMap.iterator().forEachRemaining(entry -> builder.add(entry.getValue().value()));
+        return builder.build();
     }
 
     @Override
@@ -248,39 +266,74 @@ public class DistributedHostStore
 
     @Override
     public Set<Host> getHosts(VlanId vlanId) {
-        return filter(hosts.values(), host -> Objects.equals(host.vlan(), vlanId));
+        return hostsByVlan.get(vlanId);
     }
 
     @Override
     public Set<Host> getHosts(MacAddress mac) {
-        return filter(hosts.values(), host -> Objects.equals(host.mac(), mac));
+        return hostsByMac.get(mac);
     }
 
     @Override
     public Set<Host> getHosts(IpAddress ip) {
-        return filter(hosts.values(), host -> host.ipAddresses().contains(ip));
+        return hostsByIp.get(ip);
     }
 
     @Override
     public Set<Host> getConnectedHosts(ConnectPoint connectPoint) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().location().equals(connectPoint))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        return hostsByLocation.get(connectPoint);
     }
 
     @Override
     public Set<Host> getConnectedHosts(DeviceId deviceId) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().location().deviceId().equals(deviceId))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        return hostsByDevice.get(deviceId);
+    }
+
+    // Adds a host to the secondary indexes, replacing any previous entries
+    // of a host with the same identifier under the same keys.
+    private void indexHost(Host host) {
+        host.ipAddresses().forEach(ip -> hostsByIp.add(ip, host));
+        hostsByMac.add(host.mac(), host);
+        hostsByVlan.add(host.vlan(), host);
+        hostsByLocation.add(host.location(), host);
+        hostsByDevice.add(host.location().deviceId(), host);
+    }
+
+    private void unindexHost(Host host) {
+        host.ipAddresses().forEach(ip -> hostsByIp.remove(ip, host.id()));
+        hostsByMac.remove(host.mac(), host.id());
+        hostsByVlan.remove(host.vlan(), host.id());
+        hostsByLocation.remove(host.location(), host.id());
+        hostsByDevice.remove(host.location().deviceId(), host.id());
     }
 
-    private Set<Host> filter(Collection<DefaultHost> collection, Predicate<DefaultHost> predicate) {
-        return collection.stream().filter(predicate).collect(Collectors.toSet());
+    /**
+     * Local index of hosts by one of their attributes.
+     *
+     * @param <K> type of the indexed attribute
+     */
+    private static final class HostIndex<K> {
+        private final Map<K, Map<HostId, Host>> index = new ConcurrentHashMap<>();
+
+        private void add(K key, Host host) {
+            index.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(host.id(), host);
+        }
+
+        private void remove(K key, HostId hostId) {
+            index.computeIfPresent(key, (k, hosts) -> {
+                hosts.remove(hostId);
+                return hosts.isEmpty() ? null : hosts;
+            });
+        }
+
+        private Set<Host> get(K key) {
+            Map<HostId, Host> hosts = index.get(key);
+            return hosts == null ? ImmutableSet.of() : ImmutableSet.copyOf(hosts.values());
+        }
+
+        private void clear() {
+            index.clear();
+        }
     }
 
     private class HostLocationTracker implements MapEventListener<HostId, DefaultHost> {
@@ -290,11 +343,14 @@ public class DistributedHostStore
             switch (event.type()) {
                 case INSERT:
                     host = checkNotNull(event.newValue().value());
+                    indexHost(host);
                     notifyDelegate(new HostEvent(HOST_ADDED, host));
                     break;
                 case UPDATE:
                     host = checkNotNull(event.newValue().value());
                     Host prevHost = checkNotNull(event.oldValue().value());
+                    unindexHost(prevHost);
+                    indexHost(host);
                     if (!Objects.equals(prevHost.location(), host.location())) {
                         notifyDelegate(new HostEvent(HOST_MOVED, host, prevHost));
                     } else if (!Objects.equals(prevHost, host)) {
@@ -303,6 +359,7 @@ public class DistributedHostStore
                     break;
                 case REMOVE:
                     host = checkNotNull(event.oldValue().value());
+                    unindexHost(host);
                     notifyDelegate(new HostEvent(HOST_REMOVED, host));
                     break;
                 default:
@@ -134,12 +134,23 @@ class ConsistentContinuousResourceSubStore {
                 });
     }
 
-    Stream<ContinuousResource> getResources(ResourceConsumerId consumerId) {
-        return consumers.values().stream()
-                .flatMap(x -> x.value().allocations().stream())
+    // computational complexity: O(n) where n is the number of the existing allocations for the resource
+    Stream<ContinuousResource> getResources(ContinuousResourceId resource, ResourceConsumerId consumerId) {
+        Versioned<ContinuousResourceAllocation> allocations = consumers.get(resource);
+        if (allocations == null) {
+            return Stream.of();
+        }
+
+        return allocations.value().allocations().stream()
                 .filter(x -> x.consumerId().equals(consumerId))
                 // this cast is safe because this class stores
                 // continuous resource allocations only
                 .map(x -> (ContinuousResource) x.resource());
     }
+
+    // computational complexity: O(n) where n is the number of the existing allocations
+    Stream<ResourceAllocation> getResourceAllocations() {
+        return consumers.values().stream()
+                .flatMap(x -> x.value().allocations().stream());
+    }
 }
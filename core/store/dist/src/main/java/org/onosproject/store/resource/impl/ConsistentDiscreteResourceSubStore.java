@@ -29,7 +29,6 @@ import org.onosproject.store.service.TransactionContext;
 import org.onosproject.store.service.Versioned;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -101,10 +100,9 @@ class ConsistentDiscreteResourceSubStore {
                 .filter(x -> consumers.containsKey(x.id()));
     }
 
-    Stream<DiscreteResource> getResources(ResourceConsumerId consumerId) {
+    // computational complexity: O(n) where n is the number of the allocated discrete resources
+    Stream<ResourceAllocation> getResourceAllocations() {
         return consumers.entrySet().stream()
-                .filter(x -> x.getValue().value().equals(consumerId))
-                .map(Map.Entry::getKey)
-                .map(x -> Resources.discrete(x).resource());
+                .map(x -> new ResourceAllocation(Resources.discrete(x.getKey()).resource(), x.getValue().value()));
     }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.net.resource.ResourceAllocation;
+import org.onosproject.net.resource.ResourceConsumerId;
+import org.onosproject.net.resource.ResourceId;
+import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.StorageService;
+import org.onosproject.store.service.TransactionContext;
+import org.onosproject.store.service.Versioned;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.onosproject.store.resource.impl.ConsistentResourceStore.SERIALIZER;
+
+/**
+ * Index of the IDs of the resources allocated to each consumer, updated in
+ * the same transactions as the allocations themselves.
+ */
+class ConsistentResourceConsumerIndex {
+    private ConsistentMap<ResourceConsumerId, Set<ResourceId>> index;
+
+    ConsistentResourceConsumerIndex(StorageService service) {
+        this.index = service.<ResourceConsumerId, Set<ResourceId>>consistentMapBuilder()
+                .withName(MapNames.CONSUMER_INDEX_MAP)
+                .withSerializer(SERIALIZER)
+                .build();
+    }
+
+    /**
+     * Builds the index from the given allocations unless it has entries
+     * already, as is the case when the allocations were made by a version
+     * that did not maintain it. Entries indexed concurrently are merged.
+     *
+     * @param allocations existing resource allocations
+     */
+    void backfill(Stream<ResourceAllocation> allocations) {
+        if (!index.isEmpty()) {
+            return;
+        }
+
+        Map<ResourceConsumerId, Set<ResourceId>> ids = allocations.collect(
+                Collectors.groupingBy(ResourceAllocation::consumerId,
+                        Collectors.mapping(x -> x.resource().id(),
+                                Collectors.toCollection(LinkedHashSet::new))));
+        ids.forEach((consumerId, resourceIds) -> index.compute(consumerId, (k, oldIds) -> {
+            if (oldIds == null) {
+                return resourceIds;
+            }
+            Set<ResourceId> newIds = new LinkedHashSet<>(oldIds);
+            newIds.addAll(resourceIds);
+            return newIds;
+        }));
+    }
+
+    TransactionalResourceConsumerIndex transactional(TransactionContext tx) {
+        return new TransactionalResourceConsumerIndex(tx);
+    }
+
+    // computational complexity: O(1)
+    Set<ResourceId> getResourceIds(ResourceConsumerId consumerId) {
+        Versioned<Set<ResourceId>> ids = index.get(consumerId);
+        if (ids == null) {
+            return ImmutableSet.of();
+        }
+
+        return ids.value();
+    }
+}
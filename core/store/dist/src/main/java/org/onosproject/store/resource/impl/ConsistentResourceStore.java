@@ -46,6 +46,7 @@ import org.onosproject.store.service.TransactionContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -90,11 +91,15 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
 
     private ConsistentDiscreteResourceSubStore discreteStore;
     private ConsistentContinuousResourceSubStore continuousStore;
+    private ConsistentResourceConsumerIndex consumerIndex;
 
     @Activate
     public void activate() {
         discreteStore = new ConsistentDiscreteResourceSubStore(service);
         continuousStore = new ConsistentContinuousResourceSubStore(service);
+        consumerIndex = new ConsistentResourceConsumerIndex(service);
+        consumerIndex.backfill(Stream.concat(discreteStore.getResourceAllocations(),
+                                             continuousStore.getResourceAllocations()));
 
         log.info("Started");
     }
@@ -215,22 +220,41 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         checkNotNull(resources);
         checkNotNull(consumer);
 
+        return allocate(resources.stream()
+                .map(x -> new ResourceAllocation(x, consumer))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public boolean allocate(List<ResourceAllocation> allocations) {
+        checkNotNull(allocations);
+
         TransactionContext tx = service.transactionContextBuilder().build();
         tx.begin();
 
         TransactionalDiscreteResourceSubStore discreteTxStore = discreteStore.transactional(tx);
         TransactionalContinuousResourceSubStore continuousTxStore = continuousStore.transactional(tx);
-        for (Resource resource : resources) {
+        TransactionalResourceConsumerIndex indexTx = consumerIndex.transactional(tx);
+        // the resource IDs to be indexed are grouped by consumer to update the index once per consumer
+        Map<ResourceConsumerId, List<ResourceId>> allocated = new LinkedHashMap<>();
+        for (ResourceAllocation allocation : allocations) {
+            Resource resource = allocation.resource();
+            ResourceConsumerId consumerId = allocation.consumerId();
+
             if (resource instanceof DiscreteResource) {
-                if (!discreteTxStore.allocate(consumer.consumerId(), (DiscreteResource) resource)) {
+                if (!discreteTxStore.allocate(consumerId, (DiscreteResource) resource)) {
                     return abortTransaction(tx);
                 }
             } else if (resource instanceof ContinuousResource) {
-                if (!continuousTxStore.allocate(consumer.consumerId(), (ContinuousResource) resource)) {
+                if (!continuousTxStore.allocate(consumerId, (ContinuousResource) resource)) {
                     return abortTransaction(tx);
                 }
+            } else {
+                continue;
             }
+            allocated.computeIfAbsent(consumerId, x -> new ArrayList<>()).add(resource.id());
         }
+        allocated.forEach(indexTx::add);
 
         return tx.commit().join() == CommitStatus.SUCCESS;
     }
@@ -244,6 +268,8 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
 
         TransactionalDiscreteResourceSubStore discreteTxStore = discreteStore.transactional(tx);
         TransactionalContinuousResourceSubStore continuousTxStore = continuousStore.transactional(tx);
+        TransactionalResourceConsumerIndex indexTx = consumerIndex.transactional(tx);
+        Map<ResourceConsumerId, List<ResourceId>> released = new LinkedHashMap<>();
         for (ResourceAllocation allocation : allocations) {
             Resource resource = allocation.resource();
             ResourceConsumerId consumerId = allocation.consumerId();
@@ -253,11 +279,20 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
                     return abortTransaction(tx);
                 }
             } else if (resource instanceof ContinuousResource) {
-                if (!continuousTxStore.release((ContinuousResource) resource, consumerId)) {
+                ContinuousResource continuous = (ContinuousResource) resource;
+                if (!continuousTxStore.release(continuous, consumerId)) {
                     return abortTransaction(tx);
                 }
+                // the consumer may still hold other allocations of the same resource
+                if (continuousTxStore.isAllocatedTo(continuous.id(), consumerId)) {
+                    continue;
+                }
+            } else {
+                continue;
             }
+            released.computeIfAbsent(consumerId, x -> new ArrayList<>()).add(resource.id());
         }
+        released.forEach(indexTx::remove);
 
         return tx.commit().join() == CommitStatus.SUCCESS;
     }
@@ -278,18 +313,23 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         }
     }
 
-    // computational complexity: O(n + m) where n is the number of entries in discreteConsumers
-    // and m is the number of allocations for all continuous resources
+    // computational complexity: O(n + m) where n is the number of the resources allocated to the consumer
+    // and m is the number of allocations for the continuous ones among them
     @Override
     public Collection<Resource> getResources(ResourceConsumer consumer) {
         checkNotNull(consumer);
 
-        // NOTE: getting all entries may become performance bottleneck
-        // TODO: revisit for better backend data structure
-        Stream<DiscreteResource> discrete = discreteStore.getResources(consumer.consumerId());
-        Stream<ContinuousResource> continuous = continuousStore.getResources(consumer.consumerId());
-
-        return Stream.concat(discrete, continuous).collect(Collectors.toList());
+        ResourceConsumerId consumerId = consumer.consumerId();
+        List<Resource> resources = new ArrayList<>();
+        for (ResourceId id : consumerIndex.getResourceIds(consumerId)) {
+            // avoid access to consistent map in the case of discrete resource
+            if (id instanceof DiscreteResourceId) {
+                resources.add(Resources.discrete((DiscreteResourceId) id).resource());
+            } else {
+                continuousStore.getResources((ContinuousResourceId) id, consumerId).forEach(resources::add);
+            }
+        }
+        return resources;
     }
 
     // computational complexity: O(1)
@@ -20,6 +20,7 @@ final class MapNames {
     static final String DISCRETE_CHILD_MAP = "onos-resource-discrete-children";
     static final String CONTINUOUS_CONSUMER_MAP = "onos-continuous-consumers";
     static final String CONTINUOUS_CHILD_MAP = "onos-resource-continuous-children";
+    static final String CONSUMER_INDEX_MAP = "onos-resource-consumer-index";
 
     // prohibit contruction
     private MapNames() {}
@@ -159,6 +159,13 @@ class TransactionalContinuousResourceSubStore {
         return consumers.replace(original.id(), oldValue, newValue);
     }
 
+    // computational complexity: O(n) where n is the number of the existing allocations for the resource
+    boolean isAllocatedTo(ContinuousResourceId id, ResourceConsumerId consumerId) {
+        ContinuousResourceAllocation allocations = consumers.get(id);
+        return allocations != null && allocations.allocations().stream()
+                .anyMatch(x -> x.consumerId().equals(consumerId));
+    }
+
     boolean release(ContinuousResource resource, ResourceConsumerId consumerId) {
         ContinuousResourceAllocation oldAllocation = consumers.get(resource.id());
         ContinuousResourceAllocation newAllocation = oldAllocation.release(resource, consumerId);
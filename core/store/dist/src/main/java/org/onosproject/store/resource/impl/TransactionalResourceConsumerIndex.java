@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import org.onosproject.net.resource.ResourceConsumerId;
+import org.onosproject.net.resource.ResourceId;
+import org.onosproject.store.service.TransactionContext;
+import org.onosproject.store.service.TransactionalMap;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.onosproject.store.resource.impl.ConsistentResourceStore.SERIALIZER;
+
+class TransactionalResourceConsumerIndex {
+    private final TransactionalMap<ResourceConsumerId, Set<ResourceId>> index;
+
+    TransactionalResourceConsumerIndex(TransactionContext tx) {
+        this.index = tx.getTransactionalMap(MapNames.CONSUMER_INDEX_MAP, SERIALIZER);
+    }
+
+    // computational complexity: O(n + m) where n is the number of the resources already
+    // allocated to the consumer and m is the number of the specified resources
+    void add(ResourceConsumerId consumerId, Collection<ResourceId> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        Set<ResourceId> oldIds = index.get(consumerId);
+        // never modify the value in place as it may be cached by the transactional map
+        Set<ResourceId> newIds = oldIds == null ? new LinkedHashSet<>() : new LinkedHashSet<>(oldIds);
+        if (newIds.addAll(ids)) {
+            index.put(consumerId, newIds);
+        }
+    }
+
+    // computational complexity: O(n + m) where n is the number of the resources already
+    // allocated to the consumer and m is the number of the specified resources
+    void remove(ResourceConsumerId consumerId, Collection<ResourceId> ids) {
+        Set<ResourceId> oldIds = index.get(consumerId);
+        if (oldIds == null || ids.isEmpty()) {
+            return;
+        }
+
+        Set<ResourceId> newIds = new LinkedHashSet<>(oldIds);
+        if (!newIds.removeAll(ids)) {
+            return;
+        }
+        if (newIds.isEmpty()) {
+            index.remove(consumerId);
+        } else {
+            index.put(consumerId, newIds);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
 import org.onlab.graph.GraphPathSearch;
 import org.onlab.util.KryoNamespace;
+import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.common.DefaultTopology;
 import org.onosproject.event.Event;
@@ -92,7 +93,8 @@ public class DistributedTopologyStore
 
     private final Logger log = getLogger(getClass());
 
-    private static final String FORMAT = "Settings: linkWeightFunction={}";
+    private static final String FORMAT = "Settings: linkWeightFunction={}, "
+            + "pathCacheSize={}, pathTreesEnabled={}";
 
     private volatile DefaultTopology current =
             new DefaultTopology(ProviderId.NONE,
@@ -124,6 +126,16 @@ public class DistributedTopologyStore
             label = "Default link-weight function: hopCount, linkMetric, geoDistance")
     private String linkWeightFunction = DEFAULT_LINK_WEIGHT_FUNCTION;
 
+    private static final int DEFAULT_PATH_CACHE_SIZE = 1024;
+    @Property(name = "pathCacheSize", intValue = DEFAULT_PATH_CACHE_SIZE,
+            label = "Maximum number of path search results cached per topology; 0 disables the cache")
+    private int pathCacheSize = DEFAULT_PATH_CACHE_SIZE;
+
+    private static final boolean DEFAULT_PATH_TREES_ENABLED = false;
+    @Property(name = "pathTreesEnabled", boolValue = DEFAULT_PATH_TREES_ENABLED,
+            label = "Compute single-source shortest-path trees on first use of each source device")
+    private boolean pathTreesEnabled = DEFAULT_PATH_TREES_ENABLED;
+
     // Cluster root to broadcast points bindings to allow convergence to
     // a shared broadcast tree; node that is the master of the cluster root
     // is the primary.
@@ -169,7 +181,19 @@ public class DistributedTopologyStore
                             new GeoDistanceLinkWeight(deviceService) : null;
             setDefaultLinkWeight(weight);
         }
-        log.info(FORMAT, linkWeightFunction);
+
+        Integer newPathCacheSize = Tools.getIntegerProperty(properties, "pathCacheSize");
+        if (newPathCacheSize != null && newPathCacheSize != pathCacheSize) {
+            pathCacheSize = newPathCacheSize;
+            DefaultTopology.setDefaultPathCacheSize(pathCacheSize);
+        }
+
+        Boolean newPathTreesEnabled = Tools.isPropertyEnabled(properties, "pathTreesEnabled");
+        if (newPathTreesEnabled != null && newPathTreesEnabled != pathTreesEnabled) {
+            pathTreesEnabled = newPathTreesEnabled;
+            DefaultTopology.setPathTreesEnabled(pathTreesEnabled);
+        }
+        log.info(FORMAT, linkWeightFunction, pathCacheSize, pathTreesEnabled);
     }
 
     @Override
@@ -291,9 +315,10 @@ public class DistributedTopologyStore
     public TopologyEvent updateTopology(ProviderId providerId,
                                         GraphDescription graphDescription,
                                         List<Event> reasons) {
-        // Have the default topology construct self from the description data.
+        // Have the default topology construct self from the description data,
+        // reusing whatever it can from the current topology.
         DefaultTopology newTopology =
-                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint);
+                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint, current);
         updateBroadcastPoints(newTopology);
 
         // Promote the new topology to current and return a ready-to-send event.
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.cluster.messaging.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the timing wheel callback registry.
+ */
+public class CallbackRegistryTest {
+
+    private static final int TICK_MILLIS = 10;
+    private static final int WHEEL_SIZE = 8;
+
+    private final List<String> timedOut = Lists.newArrayList();
+    private long nanos;
+    private CallbackRegistry<String> registry;
+
+    @Before
+    public void setUp() {
+        nanos = 0;
+        registry = new CallbackRegistry<>(TICK_MILLIS, WHEEL_SIZE, 4, timedOut::add, () -> nanos);
+    }
+
+    private void elapse(long millis) {
+        nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        registry.advance();
+    }
+
+    @Test
+    public void testRemove() {
+        registry.register(1, "a", 50);
+        assertEquals(1, registry.size());
+        assertEquals("a", registry.remove(1));
+        assertNull(registry.remove(1));
+        elapse(100);
+        assertTrue(timedOut.isEmpty());
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testPerCallTimeout() {
+        registry.register(1, "short", 20);
+        registry.register(2, "long", 50);
+        elapse(10);
+        assertTrue(timedOut.isEmpty());
+        elapse(10);
+        assertEquals(ImmutableList.of("short"), timedOut);
+        elapse(20);
+        assertEquals(ImmutableList.of("short"), timedOut);
+        elapse(10);
+        assertEquals(ImmutableList.of("short", "long"), timedOut);
+        assertNull(registry.remove(2));
+    }
+
+    @Test
+    public void testTimeoutBeyondOneRotation() {
+        registry.register(1, "a", TICK_MILLIS * WHEEL_SIZE * 2 + 5);
+        elapse(TICK_MILLIS * WHEEL_SIZE);
+        elapse(TICK_MILLIS * WHEEL_SIZE);
+        assertTrue(timedOut.isEmpty());
+        elapse(TICK_MILLIS);
+        assertEquals(ImmutableList.of("a"), timedOut);
+    }
+
+    @Test
+    public void testDeadlinePassedByCursor() {
+        elapse(TICK_MILLIS * 5);
+        // as read by a thread registering while the wheel advanced past it
+        nanos -= TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS * 5);
+        registry.register(1, "a", TICK_MILLIS);
+        nanos += TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS * 5);
+        elapse(TICK_MILLIS);
+        assertEquals(ImmutableList.of("a"), timedOut);
+    }
+
+    @Test
+    public void testDelayedAdvance() {
+        for (int i = 0; i < 20; i++) {
+            registry.register(i, "c" + i, i * TICK_MILLIS);
+        }
+        elapse(TICK_MILLIS * WHEEL_SIZE * 10);
+        assertEquals(20, timedOut.size());
+        assertEquals(0, registry.size());
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.junit.TestUtils;
+import org.onlab.packet.IpAddress;
+import org.onosproject.cfg.ComponentConfigAdapter;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.ControllerNode;
+import org.onosproject.cluster.DefaultControllerNode;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.core.IdGenerator;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.MastershipRole;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.flow.ReplicaInfo;
+import org.onosproject.store.flow.ReplicaInfoEventListener;
+import org.onosproject.store.flow.ReplicaInfoService;
+import org.onosproject.store.service.TestStorageService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.emptyIterable;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.onlab.junit.TestTools.assertAfter;
+import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.FLOW_TABLE_BACKUP_DELTA;
+import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.GET_APP_FLOW_ENTRIES;
+import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.GET_DEVICE_FLOW_ENTRIES;
+
+/**
+ * Tests of the application index and of the delta backups of the
+ * distributed flow rule store.
+ */
+public class DistributedFlowRuleStoreTest {
+
+    private static final NodeId LOCAL = new NodeId("local");
+    private static final NodeId REMOTE = new NodeId("remote");
+    private static final DeviceId DID1 = DeviceId.deviceId("of:1");
+    private static final DeviceId DID2 = DeviceId.deviceId("of:2");
+    private static final ApplicationId APP1 = new DefaultApplicationId(1, "app1");
+    private static final ApplicationId APP2 = new DefaultApplicationId(2, "app2");
+    private static final int TIMEOUT_MS = 5000;
+
+    private final TestMastershipService mastershipService = new TestMastershipService();
+    private final TestClusterService clusterService = new TestClusterService();
+    private final TestClusterCommunicationService clusterCommunicator = new TestClusterCommunicationService();
+    private DistributedFlowRuleStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new DistributedFlowRuleStore();
+        store.mastershipService = mastershipService;
+        store.clusterService = clusterService;
+        store.clusterCommunicator = clusterCommunicator;
+        store.coreService = new TestCoreService();
+        store.configService = new ComponentConfigAdapter();
+        store.storageService = new TestStorageService();
+        store.replicaInfoManager = new TestReplicaInfoService();
+        // backups are run by the tests themselves, without a backup task
+        TestUtils.setField(store, "backupEnabled", false);
+        store.activate(null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TestUtils.setField(store, "backupEnabled", false);
+        store.deactivate(null);
+    }
+
+    private FlowRule flowRule(ApplicationId appId, DeviceId deviceId, int port) {
+        return DefaultFlowRule.builder()
+                .forDevice(deviceId)
+                .withSelector(DefaultTrafficSelector.builder().matchInPort(PortNumber.portNumber(port)).build())
+                .withPriority(10)
+                .fromApp(appId)
+                .makePermanent()
+                .build();
+    }
+
+    private Map<?, ?> appIndex() throws Exception {
+        return TestUtils.getField(TestUtils.getField(store, "flowTable"), "appIndex");
+    }
+
+    /**
+     * Tests that the flow entries of an application are found through the
+     * index in the tables of the devices mastered locally.
+     */
+    @Test
+    public void appEntriesFromIndex() {
+        FlowRule rule1 = flowRule(APP1, DID1, 1);
+        FlowRule rule2 = flowRule(APP1, DID2, 2);
+        FlowRule rule3 = flowRule(APP2, DID1, 3);
+        store.storeFlowRule(rule1);
+        store.storeFlowRule(rule2);
+        store.storeFlowRule(rule3);
+
+        assertThat(store.getFlowEntriesById(APP1), containsInAnyOrder(
+                new DefaultFlowEntry(rule1), new DefaultFlowEntry(rule2)));
+        assertThat(store.getFlowEntriesById(APP2), containsInAnyOrder(new DefaultFlowEntry(rule3)));
+
+        // entries of devices mastered elsewhere are answered by their master
+        mastershipService.masters.put(DID2, REMOTE);
+        assertThat(store.getFlowEntriesById(APP1), containsInAnyOrder(new DefaultFlowEntry(rule1)));
+    }
+
+    /**
+     * Tests that removed flow entries are dropped from the index.
+     */
+    @Test
+    public void removalPrunesIndex() throws Exception {
+        FlowRule rule1 = flowRule(APP1, DID1, 1);
+        FlowRule rule2 = flowRule(APP1, DID2, 2);
+        store.storeFlowRule(rule1);
+        store.storeFlowRule(rule2);
+
+        store.removeFlowRule(new DefaultFlowEntry(rule1));
+        assertThat(store.getFlowEntriesById(APP1), containsInAnyOrder(new DefaultFlowEntry(rule2)));
+        assertThat(appIndex().size(), is(1));
+
+        store.removeFlowRule(new DefaultFlowEntry(rule2));
+        assertThat(store.getFlowEntriesById(APP1), is(emptyIterable()));
+        assertThat(appIndex().isEmpty(), is(true));
+
+        // looking up absent entries does not index them
+        assertThat(store.getFlowEntry(rule1), is(nullValue()));
+        assertThat(appIndex().isEmpty(), is(true));
+    }
+
+    /**
+     * Tests that the entries of an application are gathered from the
+     * active nodes of the cluster along with the local ones.
+     */
+    @Test
+    public void appEntriesFromCluster() {
+        FlowRule local = flowRule(APP1, DID1, 1);
+        FlowRule remote = flowRule(APP1, DID2, 2);
+        store.storeFlowRule(local);
+        clusterCommunicator.responses.put(REMOTE, CompletableFuture.completedFuture(
+                ImmutableList.of(new DefaultFlowEntry(remote))));
+
+        assertThat(store.getFlowEntriesById(APP1), containsInAnyOrder(
+                new DefaultFlowEntry(local), new DefaultFlowEntry(remote)));
+        assertThat(clusterCommunicator.queries, containsInAnyOrder(REMOTE));
+
+        // inactive nodes are not queried
+        clusterCommunicator.queries.clear();
+        clusterService.states.put(REMOTE, ControllerNode.State.INACTIVE);
+        assertThat(store.getFlowEntriesById(APP1), containsInAnyOrder(new DefaultFlowEntry(local)));
+        assertThat(clusterCommunicator.queries, is(empty()));
+
+        // failed queries contribute no entries
+        clusterService.states.put(REMOTE, ControllerNode.State.ACTIVE);
+        CompletableFuture<List<FlowEntry>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("unreachable"));
+        clusterCommunicator.responses.put(REMOTE, failed);
+        assertThat(store.getFlowEntriesById(APP1), containsInAnyOrder(new DefaultFlowEntry(local)));
+    }
+
+    /**
+     * Tests that the query of another node is answered from the local index.
+     */
+    @Test
+    public void appEntriesForRemoteQuery() {
+        FlowRule rule = flowRule(APP1, DID1, 1);
+        store.storeFlowRule(rule);
+
+        Function<Short, List<FlowEntry>> handler = clusterCommunicator.handler(GET_APP_FLOW_ENTRIES);
+        assertThat(handler.apply(APP1.id()), containsInAnyOrder(new DefaultFlowEntry(rule)));
+        assertThat(handler.apply(APP2.id()), is(empty()));
+    }
+
+    private StoredFlowEntry flowEntry(FlowRule rule) {
+        return new DefaultFlowEntry(rule);
+    }
+
+    private Set<DeviceId> receiveBackup(FlowTableDelta delta) {
+        Function<List<FlowTableDelta>, Set<DeviceId>> handler = clusterCommunicator.handler(FLOW_TABLE_BACKUP_DELTA);
+        return handler.apply(ImmutableList.of(delta));
+    }
+
+    private Set<FlowEntry> backupTable(DeviceId deviceId) {
+        Function<DeviceId, Set<FlowEntry>> handler = clusterCommunicator.handler(GET_DEVICE_FLOW_ENTRIES);
+        return handler.apply(deviceId);
+    }
+
+    /**
+     * Tests that a delta following the sequence held by the backup node is
+     * applied to the backup table.
+     */
+    @Test
+    public void backupDeltaApplied() {
+        mastershipService.masters.put(DID2, REMOTE);
+        StoredFlowEntry entry1 = flowEntry(flowRule(APP1, DID2, 1));
+        StoredFlowEntry entry2 = flowEntry(flowRule(APP1, DID2, 2));
+
+        assertThat(receiveBackup(FlowTableDelta.snapshot(DID2, REMOTE, 1, ImmutableList.of(entry1))),
+                   is(ImmutableSet.of(DID2)));
+        assertThat(receiveBackup(FlowTableDelta.delta(DID2, REMOTE, 1, 3, ImmutableList.of(entry2),
+                                                      ImmutableList.of(entry1))),
+                   is(ImmutableSet.of(DID2)));
+        assertThat(backupTable(DID2), containsInAnyOrder(entry2));
+    }
+
+    /**
+     * Tests that a delta not following the sequence held by the backup node
+     * is rejected, leaving the backup table as is.
+     */
+    @Test
+    public void backupDeltaGapRejected() {
+        mastershipService.masters.put(DID2, REMOTE);
+        StoredFlowEntry entry1 = flowEntry(flowRule(APP1, DID2, 1));
+        StoredFlowEntry entry2 = flowEntry(flowRule(APP1, DID2, 2));
+        receiveBackup(FlowTableDelta.snapshot(DID2, REMOTE, 1, ImmutableList.of(entry1)));
+
+        assertThat(receiveBackup(FlowTableDelta.delta(DID2, REMOTE, 2, 3, ImmutableList.of(entry2),
+                                                      ImmutableList.of())),
+                   is(empty()));
+        assertThat(backupTable(DID2), containsInAnyOrder(entry1));
+
+        // nor are the deltas of devices mastered locally applied
+        assertThat(receiveBackup(FlowTableDelta.snapshot(DID1, REMOTE, 1, ImmutableList.of(entry1))),
+                   is(empty()));
+    }
+
+    /**
+     * Tests that a snapshot replaces the backup table, whatever the sequence
+     * held by the backup node, and that the deltas following it apply.
+     */
+    @Test
+    public void backupSnapshotReplacesTable() {
+        mastershipService.masters.put(DID2, REMOTE);
+        StoredFlowEntry entry1 = flowEntry(flowRule(APP1, DID2, 1));
+        StoredFlowEntry entry2 = flowEntry(flowRule(APP1, DID2, 2));
+        StoredFlowEntry entry3 = flowEntry(flowRule(APP2, DID2, 3));
+        receiveBackup(FlowTableDelta.snapshot(DID2, REMOTE, 4, ImmutableList.of(entry1, entry2)));
+
+        assertThat(receiveBackup(FlowTableDelta.snapshot(DID2, REMOTE, 1, ImmutableList.of(entry3))),
+                   is(ImmutableSet.of(DID2)));
+        assertThat(backupTable(DID2), containsInAnyOrder(entry3));
+        assertThat(receiveBackup(FlowTableDelta.delta(DID2, REMOTE, 1, 2, ImmutableList.of(entry1),
+                                                      ImmutableList.of())),
+                   is(ImmutableSet.of(DID2)));
+        assertThat(backupTable(DID2), containsInAnyOrder(entry1, entry3));
+    }
+
+    /**
+     * Tests that the master sends the changes acknowledged by none of the
+     * backups as deltas, and falls back to a snapshot on a sequence gap.
+     */
+    @Test
+    public void backupDeltasSent() throws Exception {
+        TestUtils.setField(store, "backupEnabled", true);
+        Object flowTable = TestUtils.getField(store, "flowTable");
+        FlowRule rule1 = flowRule(APP1, DID1, 1);
+        FlowRule rule2 = flowRule(APP1, DID1, 2);
+        FlowRule rule3 = flowRule(APP1, DID1, 3);
+        clusterCommunicator.responses.put(REMOTE, CompletableFuture.completedFuture(ImmutableSet.of(DID1)));
+
+        store.storeFlowRule(rule1);
+        TestUtils.callMethod(flowTable, "backup", new Class<?>[]{});
+        FlowTableDelta snapshot = clusterCommunicator.backup(0);
+        assertThat(snapshot.isSnapshot(), is(true));
+        assertThat(snapshot.updated(), containsInAnyOrder(flowEntry(rule1)));
+
+        store.storeFlowRule(rule2);
+        TestUtils.callMethod(flowTable, "backup", new Class<?>[]{});
+        FlowTableDelta delta = clusterCommunicator.backup(1);
+        assertThat(delta.isSnapshot(), is(false));
+        assertThat(delta.baseSequence(), is(snapshot.sequence()));
+        assertThat(delta.updated(), containsInAnyOrder(flowEntry(rule2)));
+
+        // the backup node reports a gap in the sequence
+        clusterCommunicator.responses.put(REMOTE, CompletableFuture.completedFuture(ImmutableSet.of()));
+        store.storeFlowRule(rule3);
+        TestUtils.callMethod(flowTable, "backup", new Class<?>[]{});
+        assertThat(clusterCommunicator.backup(2).isSnapshot(), is(false));
+        assertAfter(TIMEOUT_MS, () -> assertThat(clusterCommunicator.backups.size(), is(4)));
+        FlowTableDelta fallback = clusterCommunicator.backup(3);
+        assertThat(fallback.isSnapshot(), is(true));
+        assertThat(fallback.updated(), containsInAnyOrder(flowEntry(rule1), flowEntry(rule2), flowEntry(rule3)));
+    }
+
+    // Replica info of a cluster in which the remote node backs up all devices.
+    private static class TestReplicaInfoService implements ReplicaInfoService {
+        @Override
+        public ReplicaInfo getReplicaInfoFor(DeviceId deviceId) {
+            return new ReplicaInfo(LOCAL, ImmutableList.of(REMOTE));
+        }
+
+        @Override
+        public void addListener(ReplicaInfoEventListener listener) {
+        }
+
+        @Override
+        public void removeListener(ReplicaInfoEventListener listener) {
+        }
+    }
+
+    // Mastership service with the local node mastering all devices by default.
+    private static class TestMastershipService extends MastershipServiceAdapter {
+        private final Map<DeviceId, NodeId> masters = Maps.newConcurrentMap();
+
+        @Override
+        public NodeId getMasterFor(DeviceId deviceId) {
+            return masters.getOrDefault(deviceId, LOCAL);
+        }
+
+        @Override
+        public MastershipRole getLocalRole(DeviceId deviceId) {
+            return LOCAL.equals(getMasterFor(deviceId)) ? MastershipRole.MASTER : MastershipRole.STANDBY;
+        }
+    }
+
+    // Cluster of the local node and a remote one.
+    private static class TestClusterService extends ClusterServiceAdapter {
+        private final Map<NodeId, ControllerNode.State> states = Maps.newConcurrentMap();
+
+        @Override
+        public ControllerNode getLocalNode() {
+            return new DefaultControllerNode(LOCAL, IpAddress.valueOf("127.0.0.1"));
+        }
+
+        @Override
+        public Set<ControllerNode> getNodes() {
+            return ImmutableSet.of(getLocalNode(), new DefaultControllerNode(REMOTE, IpAddress.valueOf("127.0.0.2")));
+        }
+
+        @Override
+        public ControllerNode.State getState(NodeId nodeId) {
+            return states.getOrDefault(nodeId, ControllerNode.State.ACTIVE);
+        }
+    }
+
+    // Cluster communication answering queries with canned responses.
+    private static class TestClusterCommunicationService extends ClusterCommunicationServiceAdapter {
+        private final Map<NodeId, CompletableFuture<?>> responses = Maps.newConcurrentMap();
+        private final List<NodeId> queries = new CopyOnWriteArrayList<>();
+        private final Map<MessageSubject, Function<?, ?>> handlers = Maps.newConcurrentMap();
+        private final List<FlowTableDelta> backups = new CopyOnWriteArrayList<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <M, R> CompletableFuture<R> sendAndReceive(M message, MessageSubject subject,
+                                                          Function<M, byte[]> encoder,
+                                                          Function<byte[], R> decoder, NodeId toNodeId) {
+            queries.add(toNodeId);
+            if (FLOW_TABLE_BACKUP_DELTA.equals(subject)) {
+                backups.addAll((List<FlowTableDelta>) message);
+            }
+            return (CompletableFuture<R>) responses.getOrDefault(
+                    toNodeId, CompletableFuture.completedFuture(ImmutableList.of()));
+        }
+
+        @Override
+        public <M, R> void addSubscriber(MessageSubject subject,
+                                         Function<byte[], M> decoder, Function<M, R> handler,
+                                         Function<R, byte[]> encoder, Executor executor) {
+            handlers.put(subject, handler);
+        }
+
+        @SuppressWarnings("unchecked")
+        <M, R> Function<M, R> handler(MessageSubject subject) {
+            return (Function<M, R>) handlers.get(subject);
+        }
+
+        FlowTableDelta backup(int index) {
+            return backups.get(index);
+        }
+    }
+
+    // Core service handing out sequential ids.
+    private static class TestCoreService extends CoreServiceAdapter {
+        private final AtomicLong ids = new AtomicLong();
+
+        @Override
+        public IdGenerator getIdGenerator(String topic) {
+            return ids::incrementAndGet;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.MacAddress;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the flow table change log used by delta backups.
+ */
+public class FlowTableChangeLogTest {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:1");
+    private static final NodeId NID = new NodeId("foo");
+
+    private FlowTableChangeLog changeLog;
+
+    @Before
+    public void setUp() {
+        changeLog = new FlowTableChangeLog(3);
+    }
+
+    private static StoredFlowEntry entry(long mac) {
+        return new DefaultFlowEntry(DefaultFlowRule.builder()
+                .forDevice(DID)
+                .fromApp(new DefaultApplicationId(1, "foo"))
+                .withPriority(10)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchEthDst(MacAddress.valueOf(mac)).build())
+                .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .makePermanent()
+                .build());
+    }
+
+    @Test
+    public void testDeltaSince() {
+        StoredFlowEntry e1 = entry(1);
+        StoredFlowEntry e2 = entry(2);
+        changeLog.recordUpdate(e1);
+        changeLog.recordUpdate(e2);
+        changeLog.recordRemoval(e1);
+        assertEquals(3, changeLog.sequence());
+        assertEquals(2, changeLog.size());
+
+        FlowTableDelta delta = changeLog.deltaSince(0, DID, NID);
+        assertEquals(0, delta.baseSequence());
+        assertEquals(3, delta.sequence());
+        assertEquals(1, delta.updated().size());
+        assertEquals(e2, delta.updated().get(0));
+        assertEquals(1, delta.removed().size());
+        assertEquals(e1, delta.removed().get(0));
+
+        delta = changeLog.deltaSince(2, DID, NID);
+        assertTrue(delta.updated().isEmpty());
+        assertEquals(1, delta.removed().size());
+
+        assertTrue(changeLog.deltaSince(3, DID, NID).removed().isEmpty());
+        assertNull(changeLog.deltaSince(4, DID, NID));
+    }
+
+    @Test
+    public void testPrune() {
+        changeLog.recordUpdate(entry(1));
+        changeLog.recordUpdate(entry(2));
+        changeLog.prune(1);
+        assertEquals(1, changeLog.size());
+        assertNull(changeLog.deltaSince(0, DID, NID));
+        assertEquals(1, changeLog.deltaSince(1, DID, NID).updated().size());
+    }
+
+    @Test
+    public void testTruncate() {
+        changeLog.recordUpdate(entry(1));
+        changeLog.recordUpdate(entry(2));
+        changeLog.recordUpdate(entry(3));
+        changeLog.recordUpdate(entry(4));
+        assertEquals(0, changeLog.size());
+        assertNull(changeLog.deltaSince(3, DID, NID));
+        assertEquals(0, changeLog.deltaSince(4, DID, NID).updated().size());
+    }
+
+    @Test
+    public void testSnapshot() {
+        FlowTableDelta snapshot = FlowTableDelta.snapshot(DID, NID, 5, ImmutableList.of(entry(1)));
+        assertTrue(snapshot.isSnapshot());
+        assertEquals(5, snapshot.sequence());
+        assertEquals(1, snapshot.updated().size());
+    }
+}
@@ -15,14 +15,19 @@
  */
 package org.onosproject.store.host.impl;
 
+import com.google.common.collect.ImmutableSet;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.Host;
 import org.onosproject.net.HostId;
 import org.onosproject.net.HostLocation;
+import org.onosproject.net.PortNumber;
 import org.onosproject.net.host.DefaultHostDescription;
 import org.onosproject.net.host.HostDescription;
 import org.onosproject.net.provider.ProviderId;
@@ -32,6 +37,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
 /**
@@ -46,6 +52,14 @@ public class DistributedHostStoreTest {
     private static final IpAddress IP1 = IpAddress.valueOf("10.2.0.2");
     private static final IpAddress IP2 = IpAddress.valueOf("10.2.0.3");
 
+    private static final HostId HOSTID2 =
+            HostId.hostId(MacAddress.valueOf("2b:2b:2b:2b:2b:2b"), VlanId.vlanId((short) 10));
+
+    private static final DeviceId DID1 = DeviceId.deviceId("of:1");
+    private static final DeviceId DID2 = DeviceId.deviceId("of:2");
+    private static final HostLocation LOC1 = new HostLocation(DID1, PortNumber.portNumber(1), 0);
+    private static final HostLocation LOC2 = new HostLocation(DID2, PortNumber.portNumber(2), 0);
+
     private static final ProviderId PID = new ProviderId("of", "foo");
 
     @Before
@@ -82,4 +96,43 @@ public class DistributedHostStoreTest {
         assertTrue(host.ipAddresses().contains(IP2));
     }
 
+    /**
+     * Tests that the host lookups follow the hosts as they are added,
+     * moved, updated and removed.
+     */
+    @Test
+    public void testHostLookups() {
+        ecXHostStore.createOrUpdateHost(PID, HOSTID,
+                new DefaultHostDescription(HOSTID.mac(), HOSTID.vlanId(), LOC1,
+                                           ImmutableSet.of(IP1)), false);
+        ecXHostStore.createOrUpdateHost(PID, HOSTID2,
+                new DefaultHostDescription(HOSTID2.mac(), HOSTID2.vlanId(), LOC1,
+                                           ImmutableSet.of(IP2)), false);
+        Host host1 = ecXHostStore.getHost(HOSTID);
+        Host host2 = ecXHostStore.getHost(HOSTID2);
+
+        assertEquals(ImmutableSet.of(host1), ecXHostStore.getHosts(IP1));
+        assertEquals(ImmutableSet.of(host2), ecXHostStore.getHosts(HOSTID2.mac()));
+        assertEquals(ImmutableSet.of(host1), ecXHostStore.getHosts(VlanId.NONE));
+        assertEquals(ImmutableSet.of(host1, host2), ecXHostStore.getConnectedHosts(LOC1));
+        assertEquals(ImmutableSet.of(host1, host2), ecXHostStore.getConnectedHosts(DID1));
+
+        // move the first host and give it the second address
+        ecXHostStore.createOrUpdateHost(PID, HOSTID,
+                new DefaultHostDescription(HOSTID.mac(), HOSTID.vlanId(), LOC2,
+                                           ImmutableSet.of(IP2)), true);
+        host1 = ecXHostStore.getHost(HOSTID);
+
+        assertTrue(ecXHostStore.getHosts(IP1).isEmpty());
+        assertEquals(ImmutableSet.of(host1, host2), ecXHostStore.getHosts(IP2));
+        assertEquals(ImmutableSet.of(host2), ecXHostStore.getConnectedHosts(new ConnectPoint(DID1,
+                                                                            PortNumber.portNumber(1))));
+        assertEquals(ImmutableSet.of(host1), ecXHostStore.getConnectedHosts(DID2));
+
+        ecXHostStore.removeHost(HOSTID2);
+        assertEquals(ImmutableSet.of(host1), ecXHostStore.getHosts(IP2));
+        assertTrue(ecXHostStore.getHosts(HOSTID2.mac()).isEmpty());
+        assertTrue(ecXHostStore.getHosts(HOSTID2.vlanId()).isEmpty());
+        assertTrue(ecXHostStore.getConnectedHosts(DID1).isEmpty());
+    }
 }
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.util.Bandwidth;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.intent.IntentId;
+import org.onosproject.net.resource.ContinuousResource;
+import org.onosproject.net.resource.DiscreteResource;
+import org.onosproject.net.resource.ResourceAllocation;
+import org.onosproject.net.resource.Resources;
+import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.CommitStatus;
+import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.ConsistentMapBuilder;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.TestConsistentMap;
+import org.onosproject.store.service.TestStorageService;
+import org.onosproject.store.service.TransactionContext;
+import org.onosproject.store.service.TransactionContextBuilder;
+import org.onosproject.store.service.TransactionalMap;
+import org.onosproject.store.service.Versioned;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests of the consistent resource store.
+ */
+public class ConsistentResourceStoreTest {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:1");
+    private static final DiscreteResource DEVICE = Resources.discrete(DID).resource();
+    private static final DiscreteResource PORT1 = Resources.discrete(DID, PortNumber.portNumber(1)).resource();
+    private static final DiscreteResource PORT2 = Resources.discrete(DID, PortNumber.portNumber(2)).resource();
+    private static final ContinuousResource BANDWIDTH =
+            Resources.continuous(DID, PortNumber.portNumber(1), Bandwidth.class).resource(1000);
+    private static final IntentId CONSUMER1 = IntentId.valueOf(1);
+    private static final IntentId CONSUMER2 = IntentId.valueOf(2);
+
+    private TestResourceStorageService storage;
+    private ConsistentResourceStore store;
+
+    @Before
+    public void setUp() {
+        storage = new TestResourceStorageService();
+        store = newStore();
+        assertThat(store.register(ImmutableList.of(DEVICE)), is(true));
+        assertThat(store.register(ImmutableList.of(PORT1, PORT2)), is(true));
+        assertThat(store.register(ImmutableList.of(BANDWIDTH)), is(true));
+    }
+
+    private ConsistentResourceStore newStore() {
+        ConsistentResourceStore newStore = new ConsistentResourceStore();
+        newStore.service = storage;
+        newStore.activate();
+        return newStore;
+    }
+
+    /**
+     * Tests that the allocations of several consumers made at once are
+     * indexed by consumer.
+     */
+    @Test
+    public void allocateForSeveralConsumers() {
+        ContinuousResource half = BANDWIDTH.parent().get().child(Bandwidth.class, 500);
+        assertThat(store.allocate(ImmutableList.of(new ResourceAllocation(PORT1, CONSUMER1),
+                                                   new ResourceAllocation(half, CONSUMER1),
+                                                   new ResourceAllocation(PORT2, CONSUMER2))),
+                   is(true));
+
+        assertThat(store.getResources(CONSUMER1), containsInAnyOrder(PORT1, half));
+        assertThat(store.getResources(CONSUMER2), containsInAnyOrder(PORT2));
+        assertThat(store.isAvailable(PORT1), is(false));
+        assertThat(store.isAvailable(PORT2), is(false));
+    }
+
+    /**
+     * Tests that a batch of allocations fails as a whole, without leaving
+     * any allocation or index entry behind.
+     */
+    @Test
+    public void allocateAllOrNothing() {
+        assertThat(store.allocate(ImmutableList.of(new ResourceAllocation(PORT1, CONSUMER1),
+                                                   new ResourceAllocation(PORT2, CONSUMER1),
+                                                   new ResourceAllocation(PORT2, CONSUMER2))),
+                   is(false));
+
+        assertThat(store.getResources(CONSUMER1), is(empty()));
+        assertThat(store.getResources(CONSUMER2), is(empty()));
+        assertThat(store.isAvailable(PORT1), is(true));
+        assertThat(store.isAvailable(PORT2), is(true));
+    }
+
+    /**
+     * Tests that released resources are dropped from the index.
+     */
+    @Test
+    public void releaseUpdatesIndex() {
+        store.allocate(ImmutableList.of(new ResourceAllocation(PORT1, CONSUMER1),
+                                        new ResourceAllocation(PORT2, CONSUMER1)));
+
+        assertThat(store.release(ImmutableList.of(new ResourceAllocation(PORT1, CONSUMER1))), is(true));
+        assertThat(store.getResources(CONSUMER1), containsInAnyOrder(PORT2));
+
+        assertThat(store.release(ImmutableList.of(new ResourceAllocation(PORT2, CONSUMER1))), is(true));
+        assertThat(store.getResources(CONSUMER1), is(empty()));
+        assertThat(storage.map(MapNames.CONSUMER_INDEX_MAP).isEmpty(), is(true));
+    }
+
+    /**
+     * Tests that the index is rebuilt on activation from allocations made
+     * without it.
+     */
+    @Test
+    public void indexBackfilled() {
+        store.allocate(ImmutableList.of(new ResourceAllocation(PORT1, CONSUMER1),
+                                        new ResourceAllocation(BANDWIDTH, CONSUMER1),
+                                        new ResourceAllocation(PORT2, CONSUMER2)));
+        // as left by a version without the index
+        ConsistentMap<Object, Object> index = storage.map(MapNames.CONSUMER_INDEX_MAP);
+        ImmutableList.copyOf(index.keySet()).forEach(index::remove);
+        assertThat(store.getResources(CONSUMER1), is(empty()));
+
+        ConsistentResourceStore restarted = newStore();
+        assertThat(restarted.getResources(CONSUMER1), containsInAnyOrder(PORT1, BANDWIDTH));
+        assertThat(restarted.getResources(CONSUMER2), containsInAnyOrder(PORT2));
+    }
+
+    // Storage service sharing its maps by name and supporting transactions.
+    private static class TestResourceStorageService extends TestStorageService {
+        private final Map<String, ConsistentMap<?, ?>> maps = new HashMap<>();
+
+        @SuppressWarnings("unchecked")
+        <K, V> ConsistentMap<K, V> map(String name) {
+            return (ConsistentMap<K, V>) maps.computeIfAbsent(
+                    name, n -> (ConsistentMap<?, ?>) TestConsistentMap.builder().withName(n).build());
+        }
+
+        @Override
+        public <K, V> ConsistentMapBuilder<K, V> consistentMapBuilder() {
+            return new ConsistentMapBuilder<K, V>() {
+                @Override
+                public ConsistentMap<K, V> build() {
+                    return map(name());
+                }
+
+                @Override
+                public AsyncConsistentMap<K, V> buildAsyncMap() {
+                    throw new UnsupportedOperationException("buildAsyncMap");
+                }
+            };
+        }
+
+        @Override
+        public TransactionContextBuilder transactionContextBuilder() {
+            return new TransactionContextBuilder() {
+                @Override
+                public TransactionContext build() {
+                    return new TestTransactionContext(TestResourceStorageService.this);
+                }
+            };
+        }
+    }
+
+    // Transaction buffering its updates until committed.
+    private static class TestTransactionContext implements TransactionContext {
+        private final TestResourceStorageService storage;
+        private final Map<String, TestTransactionalMap<?, ?>> txMaps = new HashMap<>();
+        private boolean open;
+
+        TestTransactionContext(TestResourceStorageService storage) {
+            this.storage = storage;
+        }
+
+        @Override
+        public String name() {
+            return "test";
+        }
+
+        @Override
+        public TransactionId transactionId() {
+            return TransactionId.from("test");
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void begin() {
+            open = true;
+        }
+
+        @Override
+        public CompletableFuture<CommitStatus> commit() {
+            txMaps.values().forEach(TestTransactionalMap::commit);
+            open = false;
+            return CompletableFuture.completedFuture(CommitStatus.SUCCESS);
+        }
+
+        @Override
+        public void abort() {
+            txMaps.clear();
+            open = false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <K, V> TransactionalMap<K, V> getTransactionalMap(String mapName, Serializer serializer) {
+            return (TransactionalMap<K, V>) txMaps.computeIfAbsent(
+                    mapName, n -> new TestTransactionalMap<>(storage.<K, V>map(n)));
+        }
+    }
+
+    // Transactional view of a map, reading its own updates.
+    private static class TestTransactionalMap<K, V> implements TransactionalMap<K, V> {
+        private final ConsistentMap<K, V> map;
+        private final Map<K, Optional<V>> updates = new HashMap<>();
+
+        TestTransactionalMap(ConsistentMap<K, V> map) {
+            this.map = map;
+        }
+
+        void commit() {
+            updates.forEach((key, value) -> {
+                if (value.isPresent()) {
+                    map.put(key, value.get());
+                } else {
+                    map.remove(key);
+                }
+            });
+        }
+
+        @Override
+        public V get(K key) {
+            Optional<V> update = updates.get(key);
+            if (update != null) {
+                return update.orElse(null);
+            }
+            return Versioned.valueOrNull(map.get(key));
+        }
+
+        @Override
+        public boolean containsKey(K key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            V old = get(key);
+            updates.put(key, Optional.of(value));
+            return old;
+        }
+
+        @Override
+        public V remove(K key) {
+            V old = get(key);
+            updates.put(key, Optional.empty());
+            return old;
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            V old = get(key);
+            if (old == null) {
+                updates.put(key, Optional.of(value));
+            }
+            return old;
+        }
+
+        @Override
+        public boolean remove(K key, V value) {
+            if (!value.equals(get(key))) {
+                return false;
+            }
+            updates.put(key, Optional.empty());
+            return true;
+        }
+
+        @Override
+        public boolean replace(K key, V oldValue, V newValue) {
+            if (!oldValue.equals(get(key))) {
+                return false;
+            }
+            updates.put(key, Optional.of(newValue));
+            return true;
+        }
+    }
+}
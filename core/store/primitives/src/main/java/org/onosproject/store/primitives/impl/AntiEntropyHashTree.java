@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Hash tree summarizing the contents of an eventually consistent map for
+ * anti-entropy exchanges.
+ * <p>
+ * Keys are spread across a fixed number of leaf buckets by the hash of their
+ * serialized form. The hash of a bucket is the XOR of the hashes of its
+ * entries, which lets writes update the tree in constant time, and the hash
+ * of an inner node is the XOR of the hashes of its children. Two replicas
+ * holding the same entries therefore have identical trees, and the buckets
+ * in which they differ can be located by comparing the trees top-down.
+ * </p>
+ *
+ * @param <K> key type
+ */
+final class AntiEntropyHashTree<K> {
+
+    /**
+     * Number of children of each inner node.
+     */
+    static final int FANOUT = 16;
+
+    /**
+     * Level of the leaf buckets; the root is at level zero.
+     */
+    static final int DEPTH = 3;
+
+    /**
+     * Number of leaf buckets.
+     */
+    static final int BUCKETS = 1 << (4 * DEPTH);
+
+    private static final HashFunction BUCKET_HASH = Hashing.murmur3_32();
+    private static final HashFunction ENTRY_HASH = Hashing.murmur3_128();
+
+    private final Function<Object, byte[]> encoder;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final Set<K>[] bucketKeys;
+
+    /**
+     * Creates a new hash tree.
+     *
+     * @param encoder function used to serialize keys and timestamps; it must
+     *                produce the same bytes on every instance
+     */
+    @SuppressWarnings("unchecked")
+    AntiEntropyHashTree(Function<Object, byte[]> encoder) {
+        this.encoder = encoder;
+        this.bucketKeys = new Set[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketKeys[i] = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    /**
+     * Records that the value mapped to a key changed.
+     *
+     * @param key      key
+     * @param oldValue previous value, or null if the key was absent
+     * @param newValue new value, or null if the key was purged
+     */
+    void update(K key, MapValue<?> oldValue, MapValue<?> newValue) {
+        if (oldValue == newValue) {
+            return;
+        }
+        byte[] keyBytes = encoder.apply(key);
+        int bucket = bucket(keyBytes);
+        buckets.accumulateAndGet(bucket, hash(keyBytes, oldValue) ^ hash(keyBytes, newValue), (a, b) -> a ^ b);
+        if (newValue == null) {
+            bucketKeys[bucket].remove(key);
+        } else if (oldValue == null) {
+            bucketKeys[bucket].add(key);
+        }
+    }
+
+    /**
+     * Returns the hashes of the given nodes of a tree level.
+     *
+     * @param level   tree level
+     * @param indices indices of the nodes within the level
+     * @return node hashes, in the order of the indices
+     */
+    long[] hashes(int level, int[] indices) {
+        int span = span(level);
+        long[] hashes = new long[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            long hash = 0;
+            for (int bucket = indices[i] * span; bucket < (indices[i] + 1) * span; bucket++) {
+                hash ^= buckets.get(bucket);
+            }
+            hashes[i] = hash;
+        }
+        return hashes;
+    }
+
+    /**
+     * Returns the nodes among the given ones whose local hash differs from
+     * the supplied hash.
+     *
+     * @param level   tree level
+     * @param indices indices of the nodes within the level
+     * @param hashes  remote hashes of the nodes
+     * @return indices of the differing nodes
+     */
+    int[] diff(int level, int[] indices, long[] hashes) {
+        long[] localHashes = hashes(level, indices);
+        int[] differing = new int[indices.length];
+        int count = 0;
+        for (int i = 0; i < indices.length; i++) {
+            if (localHashes[i] != hashes[i]) {
+                differing[count++] = indices[i];
+            }
+        }
+        int[] result = new int[count];
+        System.arraycopy(differing, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Returns the children of the given nodes.
+     *
+     * @param indices indices of the nodes within their level
+     * @return indices of the children within the next level
+     */
+    int[] children(int[] indices) {
+        int[] children = new int[indices.length * FANOUT];
+        for (int i = 0; i < indices.length; i++) {
+            for (int j = 0; j < FANOUT; j++) {
+                children[i * FANOUT + j] = indices[i] * FANOUT + j;
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Returns the keys held in the given leaf buckets.
+     *
+     * @param bucketIndices leaf bucket indices
+     * @return keys in the buckets
+     */
+    Set<K> keys(Collection<Integer> bucketIndices) {
+        ImmutableSet.Builder<K> keys = ImmutableSet.builder();
+        bucketIndices.forEach(bucket -> keys.addAll(bucketKeys[bucket]));
+        return keys.build();
+    }
+
+    /**
+     * Returns the leaf bucket of a key.
+     *
+     * @param key key
+     * @return bucket index
+     */
+    int bucket(K key) {
+        return bucket(encoder.apply(key));
+    }
+
+    private int bucket(byte[] keyBytes) {
+        return BUCKET_HASH.hashBytes(keyBytes).asInt() & (BUCKETS - 1);
+    }
+
+    private long hash(byte[] keyBytes, MapValue<?> value) {
+        if (value == null) {
+            return 0;
+        }
+        return ENTRY_HASH.newHasher()
+                .putBytes(keyBytes)
+                .putBytes(encoder.apply(value.timestamp()))
+                .putBoolean(value.isTombstone())
+                .hash()
+                .asLong();
+    }
+
+    private static int span(int level) {
+        return 1 << (4 * (DEPTH - level));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import com.google.common.base.MoreObjects;
+
+import org.onosproject.cluster.NodeId;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Anti-entropy advertisement carrying the hashes of some nodes of one level
+ * of an eventually consistent map's hash tree.
+ */
+public class AntiEntropyTreeAdvertisement {
+
+    private final NodeId sender;
+    private final int level;
+    private final int[] indices;
+    private final long[] hashes;
+
+    /**
+     * Creates a new hash tree advertisement message.
+     *
+     * @param sender  the sender's node ID
+     * @param level   hash tree level of the advertised nodes
+     * @param indices indices of the advertised nodes within the level
+     * @param hashes  hashes of the advertised nodes
+     */
+    public AntiEntropyTreeAdvertisement(NodeId sender, int level, int[] indices, long[] hashes) {
+        checkArgument(indices.length == hashes.length, "Each advertised node must have a hash");
+        this.sender = checkNotNull(sender);
+        this.level = level;
+        this.indices = indices;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Returns the sender's node ID.
+     *
+     * @return the sender's node ID
+     */
+    public NodeId sender() {
+        return sender;
+    }
+
+    /**
+     * Returns the hash tree level of the advertised nodes.
+     *
+     * @return tree level
+     */
+    public int level() {
+        return level;
+    }
+
+    /**
+     * Returns the indices of the advertised nodes within their level.
+     *
+     * @return node indices
+     */
+    public int[] indices() {
+        return indices;
+    }
+
+    /**
+     * Returns the hashes of the advertised nodes.
+     *
+     * @return node hashes, in the order of the indices
+     */
+    public long[] hashes() {
+        return hashes;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("sender", sender)
+                .add("level", level)
+                .add("totalNodes", indices.length)
+                .toString();
+    }
+}
@@ -17,11 +17,13 @@ package org.onosproject.store.primitives.impl;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
+import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.service.AsyncConsistentMap;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.Versioned;
@@ -187,4 +189,10 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
                     }
                 });
     }
+
+    @Override
+    public CompletableFuture<Boolean> updateAll(List<MapUpdate<K, V>> updates) {
+        return super.updateAll(updates)
+                .whenComplete((r, e) -> updates.forEach(update -> cache.invalidate(update.key())));
+    }
 }
@@ -42,7 +42,11 @@ public class DefaultConsistentMapBuilder<K, V> extends ConsistentMapBuilder<K, V
     @Override
     public AsyncConsistentMap<K, V> buildAsyncMap() {
         AsyncConsistentMap<K, V> map = primitiveCreator.newAsyncConsistentMap(name(), serializer());
-        map = relaxedReadConsistency() ? DistributedPrimitives.newCachingMap(map) : map;
+        if (localReplica()) {
+            map = DistributedPrimitives.newLocalReplicaMap(map, maxReplicaStalenessMillis(), meteringEnabled());
+        } else if (relaxedReadConsistency()) {
+            map = DistributedPrimitives.newCachingMap(map);
+        }
         map = readOnly() ? DistributedPrimitives.newUnmodifiableMap(map) : map;
         return meteringEnabled() ? DistributedPrimitives.newMeteredMap(map) : map;
     }
@@ -19,6 +19,7 @@ package org.onosproject.store.primitives.impl;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
@@ -29,8 +30,10 @@ import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import org.onosproject.core.ApplicationId;
+import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.MapTransaction;
 import org.onosproject.store.service.Versioned;
@@ -124,6 +127,11 @@ public class DelegatingAsyncConsistentMap<K, V> implements AsyncConsistentMap<K,
         return delegateMap.entrySet();
     }
 
+    @Override
+    public CompletableFuture<AsyncIterator<Entry<K, Versioned<V>>>> iterator() {
+        return delegateMap.iterator();
+    }
+
     @Override
     public CompletableFuture<Versioned<V>> putIfAbsent(K key, V value) {
         return delegateMap.putIfAbsent(key, value);
@@ -154,6 +162,11 @@ public class DelegatingAsyncConsistentMap<K, V> implements AsyncConsistentMap<K,
         return delegateMap.replace(key, oldVersion, newValue);
     }
 
+    @Override
+    public CompletableFuture<Boolean> updateAll(List<MapUpdate<K, V>> updates) {
+        return delegateMap.updateAll(updates);
+    }
+
     @Override
     public CompletableFuture<Void> addListener(MapEventListener<K, V> listener, Executor executor) {
         return delegateMap.addListener(listener, executor);
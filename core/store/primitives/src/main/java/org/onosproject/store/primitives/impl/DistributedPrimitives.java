@@ -65,6 +65,23 @@ public final class DistributedPrimitives {
         return new CachingAsyncConsistentMap<>(map);
     }
 
+    /**
+     * Creates an instance of {@code AsyncConsistentMap} that serves reads from a local replica.
+     *
+     * @param map backing map
+     * @param maxStalenessMillis how long the replica may serve reads after the backing map
+     *                           is suspended, in milliseconds
+     * @param meteringEnabled whether to record replica hits and misses
+     * @return replicated map
+     * @param <K> map key type
+     * @param <V> map value type
+     */
+    public static <K, V> AsyncConsistentMap<K, V> newLocalReplicaMap(AsyncConsistentMap<K, V> map,
+                                                                     long maxStalenessMillis,
+                                                                     boolean meteringEnabled) {
+        return new LocalReplicaAsyncConsistentMap<>(map, maxStalenessMillis, meteringEnabled);
+    }
+
     /**
      * Creates an instance of {@code AsyncConsistentMap} that disallows updates.
      *
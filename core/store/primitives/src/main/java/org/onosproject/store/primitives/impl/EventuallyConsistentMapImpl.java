@@ -17,10 +17,11 @@ package org.onosproject.store.primitives.impl;
 
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import org.apache.commons.lang3.tuple.Pair;
 import org.onlab.util.AbstractAccumulator;
 import org.onlab.util.KryoNamespace;
@@ -79,6 +80,7 @@ public class EventuallyConsistentMapImpl<K, V>
     private static final Logger log = LoggerFactory.getLogger(EventuallyConsistentMapImpl.class);
 
     private final Map<K, MapValue<V>> items;
+    private final AntiEntropyHashTree<K> hashTree;
 
     private final ClusterService clusterService;
     private final ClusterCommunicationService clusterCommunicator;
@@ -90,6 +92,7 @@ public class EventuallyConsistentMapImpl<K, V>
 
     private final MessageSubject updateMessageSubject;
     private final MessageSubject antiEntropyAdvertisementSubject;
+    private final MessageSubject antiEntropyTreeAdvertisementSubject;
     private final MessageSubject updateRequestSubject;
 
     private final Set<EventuallyConsistentMapListener<K, V>> listeners
@@ -181,6 +184,8 @@ public class EventuallyConsistentMapImpl<K, V>
         } else {
             items = Maps.newConcurrentMap();
         }
+        hashTree = new AntiEntropyHashTree<>(serializer::encode);
+        items.forEach((key, value) -> hashTree.update(key, null, value));
         senderPending = Maps.newConcurrentMap();
         destroyedMessage = mapName + ERROR_DESTROYED;
 
@@ -242,6 +247,13 @@ public class EventuallyConsistentMapImpl<K, V>
                                           serializer::encode,
                                           this.backgroundExecutor);
 
+        antiEntropyTreeAdvertisementSubject = new MessageSubject("ecm-" + mapName + "-anti-entropy-tree");
+        clusterCommunicator.addSubscriber(antiEntropyTreeAdvertisementSubject,
+                                          serializer::decode,
+                                          this::handleAntiEntropyTreeAdvertisement,
+                                          serializer::encode,
+                                          this.backgroundExecutor);
+
         updateRequestSubject = new MessageSubject("ecm-" + mapName + "-update-request");
         clusterCommunicator.addSubscriber(updateRequestSubject,
                                           serializer::decode,
@@ -273,6 +285,7 @@ public class EventuallyConsistentMapImpl<K, V>
                          .register(LogicalTimestamp.class)
                          .register(WallClockTimestamp.class)
                          .register(AntiEntropyAdvertisement.class)
+                         .register(AntiEntropyTreeAdvertisement.class)
                          .register(AntiEntropyResponse.class)
                          .register(UpdateEntry.class)
                          .register(MapValue.class)
@@ -394,6 +407,7 @@ public class EventuallyConsistentMapImpl<K, V>
             }
             if (updated.get()) {
                 previousValue.set(existing);
+                hashTree.update(k, existing, tombstone.orElse(null));
                 return tombstone.orElse(null);
             } else {
                 return existing;
@@ -422,7 +436,9 @@ public class EventuallyConsistentMapImpl<K, V>
                 updated.set(true);
                 // We return a copy to ensure updates to peers can be serialized.
                 // This prevents replica divergence due to serialization failures.
-                return serializer.copy(newValue);
+                MapValue<V> copy = serializer.copy(newValue);
+                hashTree.update(k, mv, copy);
+                return copy;
             } else {
                 return mv;
             }
@@ -493,6 +509,7 @@ public class EventuallyConsistentMapImpl<K, V>
         items.compute(key, (k, existing) -> {
             if (existing == null || newValue.isNewerThan(existing)) {
                 updated.set(true);
+                hashTree.update(k, existing, newValue);
                 return newValue;
             }
             return existing;
@@ -527,6 +544,7 @@ public class EventuallyConsistentMapImpl<K, V>
         clusterCommunicator.removeSubscriber(updateMessageSubject);
         clusterCommunicator.removeSubscriber(updateRequestSubject);
         clusterCommunicator.removeSubscriber(antiEntropyAdvertisementSubject);
+        clusterCommunicator.removeSubscriber(antiEntropyTreeAdvertisementSubject);
         return CompletableFuture.completedFuture(null);
     }
 
@@ -576,8 +594,36 @@ public class EventuallyConsistentMapImpl<K, V>
     }
 
     private void sendAdvertisementToPeer(NodeId peer) {
-        long adCreationTime = System.currentTimeMillis();
-        AntiEntropyAdvertisement<K> ad = createAdvertisement();
+        // compare hash trees top-down, starting from the root
+        sendTreeAdvertisementToPeer(peer, 0, new int[] {0}, System.currentTimeMillis());
+    }
+
+    private void sendTreeAdvertisementToPeer(NodeId peer, int level, int[] indices, long adCreationTime) {
+        AntiEntropyTreeAdvertisement ad =
+                new AntiEntropyTreeAdvertisement(localNodeId, level, indices, hashTree.hashes(level, indices));
+        clusterCommunicator.<AntiEntropyTreeAdvertisement, int[]>sendAndReceive(ad,
+                antiEntropyTreeAdvertisementSubject,
+                serializer::encode,
+                serializer::decode,
+                peer)
+                .whenComplete((differing, error) -> {
+                    if (error != null) {
+                        log.debug("Failed to send anti-entropy tree advertisement to {}: {}",
+                                peer, error.getMessage());
+                    } else if (differing == null || destroyed) {
+                        log.trace("Anti-entropy tree advertisement for {} ignored by {}", mapName, peer);
+                    } else if (differing.length == 0) {
+                        antiEntropyTimes.put(peer, adCreationTime);
+                    } else if (level < AntiEntropyHashTree.DEPTH) {
+                        sendTreeAdvertisementToPeer(peer, level + 1, hashTree.children(differing), adCreationTime);
+                    } else {
+                        sendAdvertisementToPeer(peer, Ints.asList(differing), adCreationTime);
+                    }
+                });
+    }
+
+    private void sendAdvertisementToPeer(NodeId peer, Collection<Integer> buckets, long adCreationTime) {
+        AntiEntropyAdvertisement<K> ad = createAdvertisement(buckets);
         clusterCommunicator.sendAndReceive(ad,
                 antiEntropyAdvertisementSubject,
                 serializer::encode,
@@ -607,9 +653,29 @@ public class EventuallyConsistentMapImpl<K, V>
                 });
     }
 
-    private AntiEntropyAdvertisement<K> createAdvertisement() {
-        return new AntiEntropyAdvertisement<>(localNodeId,
-                ImmutableMap.copyOf(Maps.transformValues(items, MapValue::digest)));
+    private AntiEntropyAdvertisement<K> createAdvertisement(Collection<Integer> buckets) {
+        Map<K, MapValue.Digest> digest = Maps.newHashMap();
+        hashTree.keys(buckets).forEach(key -> {
+            MapValue<V> value = items.get(key);
+            if (value != null) {
+                digest.put(key, value.digest());
+            }
+        });
+        return new AntiEntropyAdvertisement<>(localNodeId, digest, ImmutableSet.copyOf(buckets));
+    }
+
+    /**
+     * Compares the advertised hash tree nodes with the local ones.
+     *
+     * @param ad hash tree advertisement
+     * @return indices of the advertised nodes whose hashes differ locally,
+     * or null if the advertisement was ignored
+     */
+    private int[] handleAntiEntropyTreeAdvertisement(AntiEntropyTreeAdvertisement ad) {
+        if (destroyed || underHighLoad()) {
+            return null;
+        }
+        return hashTree.diff(ad.level(), ad.indices(), ad.hashes());
     }
 
     private AntiEntropyResponse handleAntiEntropyAdvertisement(AntiEntropyAdvertisement<K> ad) {
@@ -643,7 +709,14 @@ public class EventuallyConsistentMapImpl<K, V>
         Set<K> staleOrMissing = new HashSet<>();
         Set<K> locallyUnknown = new HashSet<>(ad.digest().keySet());
 
-        items.forEach((key, localValue) -> {
+        // only the entries in the advertised buckets are compared
+        Map<K, MapValue<V>> localItems = ad.buckets()
+                .map(buckets -> Maps.asMap(hashTree.keys(buckets), items::get))
+                .orElse(items);
+        localItems.forEach((key, localValue) -> {
+            if (localValue == null) {
+                return;
+            }
             locallyUnknown.remove(key);
             MapValue.Digest remoteValueDigest = ad.digest().get(key);
             if (remoteValueDigest == null || localValue.isNewerThan(remoteValueDigest.timestamp())) {
@@ -706,7 +779,14 @@ public class EventuallyConsistentMapImpl<K, V>
                                           .filter(e -> e.getValue().creationTime() <= currentSafeTombstonePurgeTime)
                                           .collect(Collectors.toList());
         previousTombstonePurgeTime = currentSafeTombstonePurgeTime;
-        tombStonesToDelete.forEach(entry -> items.remove(entry.getKey(), entry.getValue()));
+        tombStonesToDelete.forEach(entry -> items.compute(entry.getKey(), (k, existing) -> {
+            // the tombstone may have been replaced since it was collected
+            if (Objects.equals(existing, entry.getValue())) {
+                hashTree.update(k, existing, null);
+                return null;
+            }
+            return existing;
+        }));
     }
 
     private void processUpdates(Collection<UpdateEntry<K, V>> updates) {
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import static org.onosproject.store.service.DistributedPrimitive.Status.ACTIVE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.onosproject.store.primitives.MapUpdate;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
+import org.onosproject.store.service.CollectionAsyncIterator;
+import org.onosproject.store.service.MapEvent;
+import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.Versioned;
+import org.onosproject.utils.MeteringAgent;
+import org.slf4j.Logger;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * {@code AsyncConsistentMap} that keeps a full replica of the backing map and
+ * serves all read operations from it.
+ * <p>
+ * The replica is loaded when the map is created and kept current by the change
+ * events of the backing map; every change is applied only if it carries a newer
+ * version of the entry than the replica holds, so that the initial load and the
+ * events may interleave freely. Updates go to the backing map; once an update
+ * completes, the entries it changed are read back from the backing map into the
+ * replica, so that the updates made through this map are visible to its reads
+ * right away rather than once their events arrive. The entries changed by a batch
+ * of updates are instead invalidated, and read back only when next read.
+ * <p>
+ * While the backing map is suspended or inactive, reads are served from the replica
+ * for at most the configured staleness bound and then go to the backing map, until
+ * the replica is loaded again once the backing map is back.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class LocalReplicaAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMap<K, V> {
+    private static final String PRIMITIVE_NAME = "consistentMap";
+    private static final String REPLICA_HIT = "replicaHit";
+    private static final String REPLICA_MISS = "replicaMiss";
+
+    private final Logger log = getLogger(getClass());
+
+    private final Map<K, Versioned<V>> replica = Maps.newConcurrentMap();
+    // Latest versions of the entries changed by events while the replica is being
+    // loaded, so that the load does not bring back older versions of them
+    private final Map<K, Long> changedDuringLoad = Maps.newConcurrentMap();
+    // Entries that may be out of date in the replica, by invalidation number
+    private final Map<K, Long> invalidated = Maps.newConcurrentMap();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final long maxStalenessMillis;
+    private final MeteringAgent monitor;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private final MapEventListener<K, V> replicaUpdater = this::update;
+    private final Consumer<Status> statusListener;
+
+    private volatile boolean loaded;
+    private volatile boolean loading;
+    // Whether to load the replica again once the current load completes; guarded by this
+    private boolean reloadPending;
+    // Time at which the backing map was suspended; 0 while the replica is current
+    private volatile long staleSince;
+
+    /**
+     * Creates a map that replicates the given backing map.
+     *
+     * @param backingMap a distributed, strongly consistent map for backing
+     * @param maxStalenessMillis how long the replica may serve reads after the backing
+     *                           map is suspended, in milliseconds
+     * @param meteringEnabled whether to record replica hits and misses with the metrics service
+     */
+    public LocalReplicaAsyncConsistentMap(AsyncConsistentMap<K, V> backingMap,
+                                          long maxStalenessMillis,
+                                          boolean meteringEnabled) {
+        super(backingMap);
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.monitor = new MeteringAgent(PRIMITIVE_NAME, backingMap.name(), meteringEnabled);
+        statusListener = status -> {
+            log.debug("{} status changed to {}", this.name(), status);
+            if (status == ACTIVE) {
+                // events may have been missed while the map was not active
+                if (staleSince != 0) {
+                    load();
+                }
+            } else if (staleSince == 0) {
+                staleSince = System.currentTimeMillis();
+            }
+        };
+        super.addStatusChangeListener(statusListener);
+        super.addListener(replicaUpdater).thenRun(this::load);
+    }
+
+    /**
+     * Returns the number of reads served from the replica.
+     *
+     * @return number of replica hits
+     */
+    public long hitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of reads that had to go to the backing map.
+     *
+     * @return number of replica misses
+     */
+    public long missCount() {
+        return misses.get();
+    }
+
+    @Override
+    public CompletableFuture<Void> destroy() {
+        super.removeStatusChangeListener(statusListener);
+        return super.destroy().thenCompose(v -> removeListener(replicaUpdater));
+    }
+
+    @Override
+    public CompletableFuture<Integer> size() {
+        return isCurrent() ? revalidate().thenApply(v -> replica.size()) : super.size();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isEmpty() {
+        return isCurrent() ? revalidate().thenApply(v -> replica.isEmpty()) : super.isEmpty();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> containsKey(K key) {
+        return isCurrent() ? revalidate(key).thenApply(v -> replica.containsKey(key)) : super.containsKey(key);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> containsValue(V value) {
+        if (isCurrent()) {
+            return revalidate().thenApply(v -> replica.values().stream()
+                    .anyMatch(current -> Objects.deepEquals(current.value(), value)));
+        }
+        return super.containsValue(value);
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> get(K key) {
+        return isCurrent() ? revalidate(key).thenApply(v -> replica.get(key)) : super.get(key);
+    }
+
+    @Override
+    public CompletableFuture<Set<K>> keySet() {
+        if (isCurrent()) {
+            return revalidate().thenApply(v -> ImmutableSet.copyOf(replica.keySet()));
+        }
+        return super.keySet();
+    }
+
+    @Override
+    public CompletableFuture<Collection<Versioned<V>>> values() {
+        if (isCurrent()) {
+            return revalidate().thenApply(v -> ImmutableList.copyOf(replica.values()));
+        }
+        return super.values();
+    }
+
+    @Override
+    public CompletableFuture<Set<Entry<K, Versioned<V>>>> entrySet() {
+        return isCurrent() ? revalidate().thenApply(v -> snapshot()) : super.entrySet();
+    }
+
+    @Override
+    public CompletableFuture<AsyncIterator<Entry<K, Versioned<V>>>> iterator() {
+        if (isCurrent()) {
+            return revalidate().thenApply(v -> new CollectionAsyncIterator<>(snapshot().iterator()));
+        }
+        return super.iterator();
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> computeIf(K key,
+            Predicate<? super V> condition,
+            BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Versioned<V> before = replica.get(key);
+        return super.computeIf(key, condition, remappingFunction)
+                .whenComplete((r, e) -> {
+                    if (r != null) {
+                        replica.compute(key, (k, v) -> newer(r, v) ? r : v);
+                    } else if (e == null) {
+                        // the entry was removed, unless an event changed it in the meantime
+                        replica.computeIfPresent(key, (k, current) -> current == before ? null : current);
+                    }
+                });
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> put(K key, V value) {
+        return refresh(key, super.put(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> putAndGet(K key, V value) {
+        return super.putAndGet(key, value)
+                .whenComplete((r, e) -> {
+                    if (r != null) {
+                        replica.compute(key, (k, v) -> newer(r, v) ? r : v);
+                    }
+                });
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> remove(K key) {
+        return refresh(key, super.remove(key));
+    }
+
+    @Override
+    public CompletableFuture<Void> clear() {
+        return super.clear().thenRun(this::load);
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> putIfAbsent(K key, V value) {
+        return refresh(key, super.putIfAbsent(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> remove(K key, V value) {
+        return refresh(key, super.remove(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> remove(K key, long version) {
+        return refresh(key, super.remove(key, version));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> replace(K key, V value) {
+        return refresh(key, super.replace(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> replace(K key, V oldValue, V newValue) {
+        return refresh(key, super.replace(key, oldValue, newValue));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> replace(K key, long oldVersion, V newValue) {
+        return refresh(key, super.replace(key, oldVersion, newValue));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateAll(List<MapUpdate<K, V>> updates) {
+        return super.updateAll(updates)
+                .whenComplete((r, e) -> {
+                    // a failed batch changes nothing
+                    if (!Boolean.FALSE.equals(r)) {
+                        updates.forEach(update -> invalidated.put(update.key(), invalidations.incrementAndGet()));
+                    }
+                });
+    }
+
+    // Reads the invalidated entries back from the backing map
+    private CompletableFuture<Void> revalidate() {
+        if (invalidated.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.allOf(invalidated.keySet().stream()
+                .map(this::revalidate)
+                .toArray(CompletableFuture[]::new));
+    }
+
+    // Reads the given entry back from the backing map if it was invalidated
+    private CompletableFuture<Void> revalidate(K key) {
+        Long invalidation = invalidated.get(key);
+        if (invalidation == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return readBack(key).thenAccept(read -> {
+            if (read) {
+                invalidated.remove(key, invalidation);
+            }
+        });
+    }
+
+    // Reads an entry back from the backing map once an update of it completes
+    private <T> CompletableFuture<T> refresh(K key, CompletableFuture<T> update) {
+        return update.thenCompose(result -> readBack(key).thenApply(read -> result));
+    }
+
+    // Reads an entry from the backing map into the replica; completes with whether it could be read
+    private CompletableFuture<Boolean> readBack(K key) {
+        Versioned<V> before = replica.get(key);
+        return super.get(key).handle((value, error) -> {
+            if (error != null) {
+                log.debug("Failed to read back {} from {}", key, name(), error);
+                return false;
+            } else if (value != null) {
+                replica.compute(key, (k, current) -> newer(value, current) ? value : current);
+            } else {
+                // unless an event changed the entry in the meantime
+                replica.computeIfPresent(key, (k, current) -> current == before ? null : current);
+            }
+            return true;
+        });
+    }
+
+    // Indicates whether reads can be served from the replica, and counts them
+    private boolean isCurrent() {
+        long since = staleSince;
+        boolean current = loaded && (since == 0 || System.currentTimeMillis() - since <= maxStalenessMillis);
+        if (current) {
+            hits.incrementAndGet();
+            monitor.count(REPLICA_HIT);
+        } else {
+            misses.incrementAndGet();
+            monitor.count(REPLICA_MISS);
+        }
+        return current;
+    }
+
+    private Set<Entry<K, Versioned<V>>> snapshot() {
+        ImmutableSet.Builder<Entry<K, Versioned<V>>> entries = ImmutableSet.builder();
+        replica.forEach((key, value) -> entries.add(Maps.immutableEntry(key, value)));
+        return entries.build();
+    }
+
+    // Applies a change event to the replica
+    private void update(MapEvent<K, V> event) {
+        Versioned<V> newValue = event.newValue();
+        Versioned<V> oldValue = event.oldValue();
+        replica.compute(event.key(), (key, current) -> {
+            if (loading) {
+                long version = newValue != null ? newValue.version() : oldValue.version();
+                changedDuringLoad.merge(key, version, Math::max);
+            }
+            if (newValue != null) {
+                return newer(newValue, current) ? newValue : current;
+            }
+            return current != null && current.version() <= oldValue.version() ? null : current;
+        });
+    }
+
+    // Loads the entries of the backing map into the replica
+    private void load() {
+        synchronized (this) {
+            if (loading) {
+                reloadPending = true;
+                return;
+            }
+            changedDuringLoad.clear();
+            loading = true;
+        }
+        Map<K, Long> invalidatedBefore = ImmutableMap.copyOf(invalidated);
+        super.entrySet().whenComplete((entries, error) -> {
+            if (error == null) {
+                load(entries);
+                invalidatedBefore.forEach(invalidated::remove);
+            } else {
+                log.warn("Failed to load the replica of {}", name(), error);
+            }
+            boolean reload;
+            synchronized (this) {
+                loading = false;
+                changedDuringLoad.clear();
+                reload = reloadPending;
+                reloadPending = false;
+                if (error == null && !reload) {
+                    staleSince = 0;
+                    loaded = true;
+                }
+            }
+            if (reload) {
+                load();
+            }
+        });
+    }
+
+    private void load(Set<Entry<K, Versioned<V>>> entries) {
+        Set<K> keys = Sets.newHashSetWithExpectedSize(entries.size());
+        for (Entry<K, Versioned<V>> entry : entries) {
+            keys.add(entry.getKey());
+            replica.compute(entry.getKey(), (key, current) -> {
+                Long changed = changedDuringLoad.get(key);
+                if (changed != null && changed >= entry.getValue().version()) {
+                    return current;
+                }
+                return newer(entry.getValue(), current) ? entry.getValue() : current;
+            });
+        }
+        // drop the entries removed while the replica was not kept current
+        for (K key : replica.keySet()) {
+            if (!keys.contains(key)) {
+                replica.computeIfPresent(key, (k, current) -> changedDuringLoad.containsKey(k) ? current : null);
+            }
+        }
+    }
+
+    private static <V> boolean newer(Versioned<V> value, Versioned<V> current) {
+        return current == null || value.version() > current.version();
+    }
+}
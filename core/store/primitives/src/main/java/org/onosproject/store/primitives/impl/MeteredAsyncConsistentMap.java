@@ -17,6 +17,7 @@
 package org.onosproject.store.primitives.impl;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -26,6 +27,7 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.AsyncConsistentMap;
 import org.onosproject.store.service.MapEvent;
@@ -62,6 +64,7 @@ public class MeteredAsyncConsistentMap<K, V>  extends DelegatingAsyncConsistentM
     private static final String VALUES = "values";
     private static final String ENTRY_SET = "entrySet";
     private static final String REPLACE = "replace";
+    private static final String UPDATE_ALL = "updateAll";
     private static final String COMPUTE_IF_ABSENT = "computeIfAbsent";
     private static final String PREPARE = "prepare";
     private static final String COMMIT = "commit";
@@ -224,6 +227,13 @@ public class MeteredAsyncConsistentMap<K, V>  extends DelegatingAsyncConsistentM
                     .whenComplete((r, e) -> timer.stop(e));
     }
 
+    @Override
+    public CompletableFuture<Boolean> updateAll(List<MapUpdate<K, V>> updates) {
+        final MeteringAgent.Context timer = monitor.startTimer(UPDATE_ALL);
+        return super.updateAll(updates)
+                    .whenComplete((r, e) -> timer.stop(e));
+    }
+
     @Override
     public CompletableFuture<Void> addListener(MapEventListener<K, V> listener, Executor executor) {
         final MeteringAgent.Context timer = monitor.startTimer(ADD_LISTENER);
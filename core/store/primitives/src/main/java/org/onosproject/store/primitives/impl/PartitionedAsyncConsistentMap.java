@@ -18,9 +18,11 @@ package org.onosproject.store.primitives.impl;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
@@ -36,6 +38,7 @@ import org.onosproject.cluster.PartitionId;
 import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.MapTransaction;
 import org.onosproject.store.service.Versioned;
@@ -149,6 +152,11 @@ public class PartitionedAsyncConsistentMap<K, V> implements AsyncConsistentMap<K
                 ImmutableSet.of());
     }
 
+    @Override
+    public CompletableFuture<AsyncIterator<Entry<K, Versioned<V>>>> iterator() {
+        return CompletableFuture.completedFuture(new PartitionedIterator(ImmutableList.copyOf(getMaps())));
+    }
+
     @Override
     public CompletableFuture<Versioned<V>> putIfAbsent(K key, V value) {
         return getMap(key).putIfAbsent(key, value);
@@ -179,6 +187,19 @@ public class PartitionedAsyncConsistentMap<K, V> implements AsyncConsistentMap<K
         return getMap(key).replace(key, oldVersion, newValue);
     }
 
+    @Override
+    public CompletableFuture<Boolean> updateAll(List<MapUpdate<K, V>> updates) {
+        Map<AsyncConsistentMap<K, V>, List<MapUpdate<K, V>>> updatesPerPartition = Maps.newIdentityHashMap();
+        updates.forEach(update ->
+                updatesPerPartition.computeIfAbsent(getMap(update.key()), m -> Lists.newArrayList()).add(update));
+        return Tools.allOf(updatesPerPartition.entrySet()
+                                              .stream()
+                                              .map(e -> e.getKey().updateAll(e.getValue()))
+                                              .collect(Collectors.toList()),
+                           Boolean::logicalAnd,
+                           true);
+    }
+
     @Override
     public CompletableFuture<Void> addListener(MapEventListener<K, V> listener, Executor executor) {
         return CompletableFuture.allOf(getMaps().stream()
@@ -275,4 +296,48 @@ public class PartitionedAsyncConsistentMap<K, V> implements AsyncConsistentMap<K
     private Collection<AsyncConsistentMap<K, V>> getMaps() {
         return partitions.values();
     }
+
+    /**
+     * Iterator over the entries of all the partitions, one partition after
+     * the other; the iterator of a partition is only opened once the previous
+     * partitions have been exhausted.
+     */
+    private class PartitionedIterator implements AsyncIterator<Entry<K, Versioned<V>>> {
+        private final Iterator<AsyncConsistentMap<K, V>> maps;
+        private AsyncIterator<Entry<K, Versioned<V>>> current;
+
+        PartitionedIterator(List<AsyncConsistentMap<K, V>> maps) {
+            this.maps = maps.iterator();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> hasNext() {
+            if (current == null) {
+                if (!maps.hasNext()) {
+                    return CompletableFuture.completedFuture(false);
+                }
+                return maps.next().iterator().thenCompose(iterator -> {
+                    current = iterator;
+                    return hasNext();
+                });
+            }
+            return current.hasNext().thenCompose(hasNext -> {
+                if (hasNext) {
+                    return CompletableFuture.completedFuture(true);
+                }
+                current = null;
+                return hasNext();
+            });
+        }
+
+        @Override
+        public CompletableFuture<Entry<K, Versioned<V>>> next() {
+            return hasNext().thenCompose(hasNext -> {
+                if (!hasNext) {
+                    return Tools.exceptionalFuture(new NoSuchElementException());
+                }
+                return current.next();
+            });
+        }
+    }
 }
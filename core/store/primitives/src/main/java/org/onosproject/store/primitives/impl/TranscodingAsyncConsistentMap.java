@@ -17,6 +17,7 @@
 package org.onosproject.store.primitives.impl;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -29,8 +30,10 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.onlab.util.Tools;
+import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.MapTransaction;
@@ -178,6 +181,11 @@ public class TranscodingAsyncConsistentMap<K1, V1, K2, V2> implements AsyncConsi
                                           .collect(Collectors.toSet()));
     }
 
+    @Override
+    public CompletableFuture<AsyncIterator<Entry<K1, Versioned<V1>>>> iterator() {
+        return backingMap.iterator().thenApply(TranscodingIterator::new);
+    }
+
     @Override
     public CompletableFuture<Versioned<V1>> putIfAbsent(K1 key, V1 value) {
         try {
@@ -236,6 +244,17 @@ public class TranscodingAsyncConsistentMap<K1, V1, K2, V2> implements AsyncConsi
         }
     }
 
+    @Override
+    public CompletableFuture<Boolean> updateAll(List<MapUpdate<K1, V1>> updates) {
+        try {
+            return backingMap.updateAll(updates.stream()
+                                               .map(update -> update.map(keyEncoder, valueEncoder))
+                                               .collect(Collectors.toList()));
+        } catch (Exception e) {
+            return Tools.exceptionalFuture(e);
+        }
+    }
+
     @Override
     public CompletableFuture<Void> addListener(MapEventListener<K1, V1> listener, Executor executor) {
         synchronized (listeners) {
@@ -314,4 +333,23 @@ public class TranscodingAsyncConsistentMap<K1, V1, K2, V2> implements AsyncConsi
                     event.oldValue() != null ? event.oldValue().map(valueDecoder) : null));
         }
     }
+
+    private class TranscodingIterator implements AsyncIterator<Entry<K1, Versioned<V1>>> {
+        private final AsyncIterator<Entry<K2, Versioned<V2>>> iterator;
+
+        TranscodingIterator(AsyncIterator<Entry<K2, Versioned<V2>>> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public CompletableFuture<Entry<K1, Versioned<V1>>> next() {
+            return iterator.next().thenApply(e -> Maps.immutableEntry(keyDecoder.apply(e.getKey()),
+                                                                      versionedValueTransform.apply(e.getValue())));
+        }
+    }
 }
@@ -16,11 +16,13 @@
 
 package org.onosproject.store.primitives.impl;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
 
 import org.onlab.util.Tools;
+import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.service.AsyncConsistentMap;
 import org.onosproject.store.service.Versioned;
 
@@ -97,4 +99,9 @@ public class UnmodifiableAsyncConsistentMap<K, V> extends DelegatingAsyncConsist
     public CompletableFuture<Boolean> replace(K key, long oldVersion, V newValue) {
         return Tools.exceptionalFuture(new UnsupportedOperationException(ERROR_MSG));
     }
+
+    @Override
+    public CompletableFuture<Boolean> updateAll(List<MapUpdate<K, V>> updates) {
+        return Tools.exceptionalFuture(new UnsupportedOperationException(ERROR_MSG));
+    }
 }
@@ -21,10 +21,13 @@ import io.atomix.resource.ResourceTypeInfo;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -36,10 +39,12 @@ import java.util.function.Predicate;
 
 import org.onlab.util.Match;
 import org.onlab.util.Tools;
+import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Clear;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.ContainsKey;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.ContainsValue;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.EntryPage;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.EntrySet;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Get;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.IsEmpty;
@@ -51,9 +56,11 @@ import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapComman
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.TransactionPrepareAndCommit;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.TransactionRollback;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Unlisten;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.UpdateAll;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.UpdateAndGet;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Values;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.ConsistentMapException;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
@@ -75,6 +82,9 @@ public class AtomixConsistentMap extends AbstractResource<AtomixConsistentMap>
 
     public static final String CHANGE_SUBJECT = "changeEvents";
 
+    // Number of entries fetched at a time by iterators
+    static final int ITERATOR_PAGE_SIZE = 1000;
+
     public AtomixConsistentMap(CopycatClient client, Properties properties) {
         super(client, properties);
     }
@@ -142,6 +152,21 @@ public class AtomixConsistentMap extends AbstractResource<AtomixConsistentMap>
         return client.submit(new EntrySet());
     }
 
+    @Override
+    public CompletableFuture<AsyncIterator<Entry<String, Versioned<byte[]>>>> iterator() {
+        return iterator(ITERATOR_PAGE_SIZE);
+    }
+
+    /**
+     * Returns an iterator over the entries of the map, fetching them in pages of the given size.
+     *
+     * @param pageSize maximum number of entries fetched at a time
+     * @return future for an iterator over the entries of the map
+     */
+    CompletableFuture<AsyncIterator<Entry<String, Versioned<byte[]>>>> iterator(int pageSize) {
+        return CompletableFuture.completedFuture(new EntryIterator(pageSize));
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public CompletableFuture<Versioned<byte[]>> put(String key, byte[] value) {
@@ -213,6 +238,20 @@ public class AtomixConsistentMap extends AbstractResource<AtomixConsistentMap>
                 .thenApply(v -> v.updated());
     }
 
+    @Override
+    public CompletableFuture<Boolean> updateAll(List<MapUpdate<String, byte[]>> updates) {
+        if (updates.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return client.submit(new UpdateAll(updates))
+                .thenCompose(status -> {
+                    if (status == MapEntryUpdateResult.Status.WRITE_LOCK) {
+                        return Tools.exceptionalFuture(new ConsistentMapException.ConcurrentModification());
+                    }
+                    return CompletableFuture.completedFuture(status == MapEntryUpdateResult.Status.OK);
+                });
+    }
+
     @Override
     public CompletableFuture<Void> clear() {
         return client.submit(new Clear())
@@ -326,4 +365,47 @@ public class AtomixConsistentMap extends AbstractResource<AtomixConsistentMap>
     private boolean isListening() {
         return !mapEventListeners.isEmpty();
     }
+
+    /**
+     * Iterator over the map entries, in key order, that fetches the next page
+     * of entries once it has returned the current one.
+     */
+    private class EntryIterator implements AsyncIterator<Entry<String, Versioned<byte[]>>> {
+        private final int pageSize;
+        private Iterator<Entry<String, Versioned<byte[]>>> page = Collections.emptyIterator();
+        private String lastKey;
+        private boolean lastPage;
+
+        EntryIterator(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> hasNext() {
+            if (page.hasNext()) {
+                return CompletableFuture.completedFuture(true);
+            }
+            if (lastPage) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return client.submit(new EntryPage(lastKey, pageSize)).thenApply(entries -> {
+                page = entries.iterator();
+                // a short page is the last one
+                lastPage = entries.size() < pageSize;
+                return page.hasNext();
+            });
+        }
+
+        @Override
+        public CompletableFuture<Entry<String, Versioned<byte[]>>> next() {
+            return hasNext().thenApply(hasNext -> {
+                if (!hasNext) {
+                    throw new NoSuchElementException();
+                }
+                Entry<String, Versioned<byte[]>> entry = page.next();
+                lastKey = entry.getKey();
+                return entry;
+            });
+        }
+    }
 }
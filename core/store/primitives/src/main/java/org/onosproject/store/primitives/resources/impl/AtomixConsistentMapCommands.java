@@ -25,11 +25,14 @@ import io.atomix.catalyst.util.Assert;
 import io.atomix.copycat.Command;
 import io.atomix.copycat.Query;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.onlab.util.Match;
+import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.MapTransaction;
 import org.onosproject.store.service.Versioned;
@@ -440,6 +443,59 @@ public final class AtomixConsistentMapCommands {
         }
     }
 
+    /**
+     * Map batch update command.
+     */
+    @SuppressWarnings("serial")
+    public static class UpdateAll extends MapCommand<MapEntryUpdateResult.Status> {
+        private List<MapUpdate<String, byte[]>> updates;
+
+        public UpdateAll() {
+        }
+
+        public UpdateAll(List<MapUpdate<String, byte[]>> updates) {
+            this.updates = Assert.notNull(updates, "updates");
+        }
+
+        /**
+         * Returns the updates.
+         * @return updates
+         */
+        public List<MapUpdate<String, byte[]>> updates() {
+            return updates;
+        }
+
+        @Override
+        public CompactionMode compaction() {
+            return updates.stream().anyMatch(update -> update.value() == null) ?
+                    CompactionMode.TOMBSTONE : CompactionMode.FULL;
+        }
+
+        @Override
+        public void writeObject(BufferOutput<?> buffer, Serializer serializer) {
+            super.writeObject(buffer, serializer);
+            buffer.writeInt(updates.size());
+            updates.forEach(update -> serializer.writeObject(update, buffer));
+        }
+
+        @Override
+        public void readObject(BufferInput<?> buffer, Serializer serializer) {
+            super.readObject(buffer, serializer);
+            int size = buffer.readInt();
+            updates = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                updates.add(serializer.readObject(buffer));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("updates", updates)
+                    .toString();
+        }
+    }
+
     /**
      * Get query.
      */
@@ -481,6 +537,62 @@ public final class AtomixConsistentMapCommands {
     public static class EntrySet extends MapQuery<Set<Map.Entry<String, Versioned<byte[]>>>> {
     }
 
+    /**
+     * Entry page query; returns, in key order, up to a given number of the
+     * entries whose keys follow the given key.
+     */
+    @SuppressWarnings("serial")
+    public static class EntryPage extends MapQuery<List<Map.Entry<String, Versioned<byte[]>>>> {
+        private String after;
+        private int limit;
+
+        public EntryPage() {
+        }
+
+        public EntryPage(String after, int limit) {
+            this.after = after;
+            this.limit = Assert.arg(limit, limit > 0, "limit must be positive");
+        }
+
+        /**
+         * Returns the key after which the page starts.
+         * @return key; null for the first page
+         */
+        public String after() {
+            return after;
+        }
+
+        /**
+         * Returns the maximum number of entries of the page.
+         * @return maximum number of entries
+         */
+        public int limit() {
+            return limit;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("after", after)
+                    .add("limit", limit)
+                    .toString();
+        }
+
+        @Override
+        public void writeObject(BufferOutput<?> buffer, Serializer serializer) {
+            super.writeObject(buffer, serializer);
+            serializer.writeObject(after, buffer);
+            buffer.writeInt(limit);
+        }
+
+        @Override
+        public void readObject(BufferInput<?> buffer, Serializer serializer) {
+            super.readObject(buffer, serializer);
+            after = serializer.readObject(buffer);
+            limit = buffer.readInt();
+        }
+    }
+
     /**
      * Size query.
      */
@@ -559,6 +671,8 @@ public final class AtomixConsistentMapCommands {
             registry.register(TransactionRollback.class, -774);
             registry.register(TransactionPrepareAndCommit.class, -775);
             registry.register(UpdateAndGet.class, -776);
+            registry.register(EntryPage.class, -777);
+            registry.register(UpdateAll.class, -778);
         }
     }
 }
@@ -29,13 +29,17 @@ import io.atomix.copycat.server.storage.snapshot.SnapshotReader;
 import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
 import io.atomix.resource.ResourceStateMachine;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
@@ -46,6 +50,7 @@ import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Clear;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.ContainsKey;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.ContainsValue;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.EntryPage;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.EntrySet;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Get;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.IsEmpty;
@@ -57,6 +62,7 @@ import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapComman
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.TransactionPrepareAndCommit;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.TransactionRollback;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Unlisten;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.UpdateAll;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.UpdateAndGet;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Values;
 import org.onosproject.store.service.MapEvent;
@@ -76,7 +82,8 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
 
     private final Logger log = getLogger(getClass());
     private final Map<Long, Commit<? extends Listen>> listeners = new HashMap<>();
-    private final Map<String, MapEntryValue> mapEntries = new HashMap<>();
+    // sorted by key, so that the entries can be paged through from any key
+    private final NavigableMap<String, MapEntryValue> mapEntries = new TreeMap<>();
     private final Set<String> preparedKeys = Sets.newHashSet();
     private final Map<TransactionId, Commit<? extends TransactionPrepare>> pendingTransactions = Maps.newHashMap();
     private AtomicLong versionCounter = new AtomicLong(0);
@@ -104,6 +111,7 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         executor.register(ContainsKey.class, this::containsKey);
         executor.register(ContainsValue.class, this::containsValue);
         executor.register(EntrySet.class, this::entrySet);
+        executor.register(EntryPage.class, this::entryPage);
         executor.register(Get.class, this::get);
         executor.register(IsEmpty.class, this::isEmpty);
         executor.register(KeySet.class, this::keySet);
@@ -111,6 +119,7 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         executor.register(Values.class, this::values);
         // Commands
         executor.register(UpdateAndGet.class, this::updateAndGet);
+        executor.register(UpdateAll.class, this::updateAll);
         executor.register(AtomixConsistentMapCommands.Clear.class, this::clear);
         executor.register(TransactionPrepare.class, this::prepare);
         executor.register(TransactionCommit.class, this::commit);
@@ -251,6 +260,30 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         }
     }
 
+    /**
+     * Handles an entry page commit.
+     *
+     * @param commit entryPage commit
+     * @return entries following the given key, in key order
+     */
+    protected List<Map.Entry<String, Versioned<byte[]>>> entryPage(Commit<? extends EntryPage> commit) {
+        try {
+            String after = commit.operation().after();
+            int limit = commit.operation().limit();
+            Map<String, MapEntryValue> entries = after == null ? mapEntries : mapEntries.tailMap(after, false);
+            List<Map.Entry<String, Versioned<byte[]>>> page = new ArrayList<>();
+            for (Map.Entry<String, MapEntryValue> entry : entries.entrySet()) {
+                if (page.size() == limit) {
+                    break;
+                }
+                page.add(Maps.immutableEntry(entry.getKey(), toVersioned(entry.getValue())));
+            }
+            return page;
+        } finally {
+            commit.close();
+        }
+    }
+
     /**
      * Handles a update and get commit.
      *
@@ -295,6 +328,57 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         }
     }
 
+    /**
+     * Handles an update all commit.
+     * <p>
+     * The updates are applied only if none of them is to a key locked by a transaction
+     * and the conditions of all of them hold; the commit is retained until none of the
+     * values it holds remain in the map.
+     *
+     * @param commit updateAll commit
+     * @return update status
+     */
+    protected MapEntryUpdateResult.Status updateAll(Commit<? extends UpdateAll> commit) {
+        try {
+            List<MapUpdate<String, byte[]>> updates = commit.operation().updates();
+            for (MapUpdate<String, byte[]> update : updates) {
+                MapEntryUpdateResult.Status status = validate(update);
+                if (status != MapEntryUpdateResult.Status.OK) {
+                    commit.close();
+                    return status;
+                }
+            }
+            long totalReferencesToCommit = updates.stream()
+                    .filter(update -> update.value() != null)
+                    .count();
+            CountDownCompleter<Commit<? extends UpdateAll>> completer =
+                    new CountDownCompleter<>(commit, totalReferencesToCommit, Commit::close);
+            List<MapEvent<String, byte[]>> eventsToPublish = Lists.newArrayList();
+            for (int i = 0; i < updates.size(); i++) {
+                String key = updates.get(i).key();
+                MapEntryValue previousValue = mapEntries.remove(key);
+                MapEntryValue newValue = null;
+                if (updates.get(i).value() != null) {
+                    newValue = new BatchCommit(i, versionCounter.incrementAndGet(), completer);
+                    mapEntries.put(key, newValue);
+                }
+                if (previousValue != null || newValue != null) {
+                    eventsToPublish.add(new MapEvent<>("", key, toVersioned(newValue), toVersioned(previousValue)));
+                }
+                if (previousValue != null) {
+                    previousValue.discard();
+                }
+            }
+            if (!eventsToPublish.isEmpty()) {
+                publish(eventsToPublish);
+            }
+            return MapEntryUpdateResult.Status.OK;
+        } catch (Exception e) {
+            log.error("State machine operation failed", e);
+            throw Throwables.propagate(e);
+        }
+    }
+
     /**
      * Handles a clear commit.
      *
@@ -519,6 +603,42 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
                 : MapEntryUpdateResult.Status.PRECONDITION_FAILED;
     }
 
+    /**
+     * Computes the update status that would result if the specified batched update were
+     * to be applied to the state machine.
+     *
+     * @param update update
+     * @return status
+     */
+    private MapEntryUpdateResult.Status validate(MapUpdate<String, byte[]> update) {
+        if (preparedKeys.contains(update.key())) {
+            return MapEntryUpdateResult.Status.WRITE_LOCK;
+        }
+        MapEntryValue existingValue = mapEntries.get(update.key());
+        boolean satisfied;
+        switch (update.type()) {
+        case PUT:
+        case REMOVE:
+            satisfied = true;
+            break;
+        case PUT_IF_ABSENT:
+            satisfied = existingValue == null;
+            break;
+        case PUT_IF_VERSION_MATCH:
+        case REMOVE_IF_VERSION_MATCH:
+            satisfied = existingValue != null && existingValue.version() == update.currentVersion();
+            break;
+        case PUT_IF_VALUE_MATCH:
+        case REMOVE_IF_VALUE_MATCH:
+            satisfied = existingValue != null && Arrays.equals(existingValue.value(), update.currentValue());
+            break;
+        default:
+            satisfied = false;
+            break;
+        }
+        return satisfied ? MapEntryUpdateResult.Status.OK : MapEntryUpdateResult.Status.PRECONDITION_FAILED;
+    }
+
     /**
      * Utility for turning a {@code MapEntryValue} to {@code Versioned}.
      * @param value map entry value
@@ -616,6 +736,39 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         }
     }
 
+    /**
+     * A {@code MapEntryValue} that is derived from one of the updates of a
+     * non-transactional batch update.
+     */
+    private class BatchCommit implements MapEntryValue {
+        private final int index;
+        private final long version;
+        private final CountDownCompleter<Commit<? extends UpdateAll>> completer;
+
+        public BatchCommit(int index,
+                           long version,
+                           CountDownCompleter<Commit<? extends UpdateAll>> completer) {
+            this.index = index;
+            this.version = version;
+            this.completer = completer;
+        }
+
+        @Override
+        public byte[] value() {
+            return completer.object().operation().updates().get(index).value();
+        }
+
+        @Override
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public void discard() {
+            completer.countDown();
+        }
+    }
+
     /**
      * A {@code MapEntryValue} that is derived from updates submitted via a
      * transaction.
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.store.LogicalTimestamp;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.serializers.StoreSerializer;
+
+import com.google.common.collect.ImmutableSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for AntiEntropyHashTree.
+ */
+public class AntiEntropyHashTreeTest {
+
+    private final StoreSerializer serializer = StoreSerializer.using(KryoNamespace.newBuilder()
+            .register(KryoNamespaces.BASIC)
+            .register(LogicalTimestamp.class)
+            .build());
+
+    private AntiEntropyHashTree<String> local;
+    private AntiEntropyHashTree<String> remote;
+
+    @Before
+    public void setUp() {
+        local = new AntiEntropyHashTree<>(serializer::encode);
+        remote = new AntiEntropyHashTree<>(serializer::encode);
+    }
+
+    private static MapValue<String> value(String value, long timestamp) {
+        return new MapValue<>(value, new LogicalTimestamp(timestamp));
+    }
+
+    private int[] diffRoot() {
+        int[] root = new int[] {0};
+        return local.diff(0, root, remote.hashes(0, root));
+    }
+
+    @Test
+    public void testEqualTrees() {
+        for (int i = 0; i < 100; i++) {
+            local.update("key" + i, null, value("value" + i, i));
+        }
+        // apply the same entries in a different order and with intermediate values
+        for (int i = 99; i >= 0; i--) {
+            MapValue<String> stale = value("stale" + i, 0);
+            remote.update("key" + i, null, stale);
+            remote.update("key" + i, stale, value("value" + i, i));
+        }
+        assertEquals(0, diffRoot().length);
+    }
+
+    @Test
+    public void testTopDownDiff() {
+        MapValue<String> v1 = value("a", 1);
+        local.update("key1", null, v1);
+        local.update("key2", null, value("b", 1));
+        remote.update("key1", null, v1);
+        remote.update("key2", null, value("b", 2));
+
+        int[] differing = diffRoot();
+        assertArrayEquals(new int[] {0}, differing);
+        for (int level = 1; level <= AntiEntropyHashTree.DEPTH; level++) {
+            int[] children = local.children(differing);
+            differing = local.diff(level, children, remote.hashes(level, children));
+            assertEquals(1, differing.length);
+        }
+        assertEquals(local.bucket("key2"), differing[0]);
+        assertTrue(local.keys(ImmutableSet.of(differing[0])).contains("key2"));
+    }
+
+    @Test
+    public void testRemove() {
+        MapValue<String> v1 = value("a", 1);
+        local.update("key1", null, v1);
+        assertEquals(1, diffRoot().length);
+        local.update("key1", v1, null);
+        assertEquals(0, diffRoot().length);
+        assertTrue(local.keys(ImmutableSet.of(local.bucket("key1"))).isEmpty());
+    }
+}
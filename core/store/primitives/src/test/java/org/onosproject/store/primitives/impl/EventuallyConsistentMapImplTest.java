@@ -25,6 +25,7 @@ import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.reset;
 import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -88,6 +89,8 @@ public class EventuallyConsistentMapImplTest {
             = new MessageSubject("ecm-" + MAP_NAME + "-update");
     private static final MessageSubject ANTI_ENTROPY_MESSAGE_SUBJECT
             = new MessageSubject("ecm-" + MAP_NAME + "-anti-entropy");
+    private static final MessageSubject ANTI_ENTROPY_TREE_MESSAGE_SUBJECT
+            = new MessageSubject("ecm-" + MAP_NAME + "-anti-entropy-tree");
     private static final MessageSubject UPDATE_REQUEST_SUBJECT
             = new MessageSubject("ecm-" + MAP_NAME + "-update-request");
 
@@ -102,6 +105,7 @@ public class EventuallyConsistentMapImplTest {
     private Consumer<Collection<UpdateEntry<String, String>>> updateHandler;
     private Consumer<Collection<UpdateRequest<String>>> requestHandler;
     private Function<AntiEntropyAdvertisement<String>, AntiEntropyResponse> antiEntropyHandler;
+    private Function<AntiEntropyTreeAdvertisement, int[]> antiEntropyTreeHandler;
 
     @Before
     public void setUp() throws Exception {
@@ -125,7 +129,7 @@ public class EventuallyConsistentMapImplTest {
                                                           anyObject(Function.class),
                                                           anyObject(Function.class),
                                                           anyObject(Executor.class));
-        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(2);
         clusterCommunicator.<Object>addSubscriber(anyObject(MessageSubject.class),
                 anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
         expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
@@ -630,11 +634,30 @@ public class EventuallyConsistentMapImplTest {
         return true;
     }
 
+    @Test
+    public void testAntiEntropyTreeAdvertisement() throws Exception {
+        expectPeerMessage(clusterCommunicator);
+
+        int[] root = new int[] {0};
+        NodeId peer = new NodeId("peer");
+        assertEquals(0, antiEntropyTreeHandler.apply(
+                new AntiEntropyTreeAdvertisement(peer, 0, root, new long[] {0})).length);
+
+        ecMap.put(KEY1, VALUE1);
+        assertArrayEquals(root, antiEntropyTreeHandler.apply(
+                new AntiEntropyTreeAdvertisement(peer, 0, root, new long[] {0})));
+
+        ecMap.remove(KEY1);
+        assertArrayEquals(root, antiEntropyTreeHandler.apply(
+                new AntiEntropyTreeAdvertisement(peer, 0, root, new long[] {0})));
+    }
+
     @Test
     public void testDestroy() throws Exception {
         clusterCommunicator.removeSubscriber(UPDATE_MESSAGE_SUBJECT);
         clusterCommunicator.removeSubscriber(UPDATE_REQUEST_SUBJECT);
         clusterCommunicator.removeSubscriber(ANTI_ENTROPY_MESSAGE_SUBJECT);
+        clusterCommunicator.removeSubscriber(ANTI_ENTROPY_TREE_MESSAGE_SUBJECT);
 
         replay(clusterCommunicator);
 
@@ -793,6 +816,8 @@ public class EventuallyConsistentMapImplTest {
                 Function<byte[], M> decoder, Function<M, R> handler, Function<R, byte[]> encoder, Executor executor) {
             if (subject.equals(ANTI_ENTROPY_MESSAGE_SUBJECT)) {
                 antiEntropyHandler = (Function<AntiEntropyAdvertisement<String>, AntiEntropyResponse>) handler;
+            } else if (subject.equals(ANTI_ENTROPY_TREE_MESSAGE_SUBJECT)) {
+                antiEntropyTreeHandler = (Function<AntiEntropyTreeAdvertisement, int[]>) handler;
             } else {
                 throw new RuntimeException("Unexpected message subject " + subject.toString());
             }
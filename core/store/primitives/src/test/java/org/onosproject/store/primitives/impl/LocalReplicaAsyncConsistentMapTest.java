@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import io.atomix.resource.ResourceType;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.onlab.util.Tools;
+import org.onosproject.store.primitives.MapUpdate;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMap;
+import org.onosproject.store.primitives.resources.impl.AtomixTestBase;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.DistributedPrimitive.Status;
+import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.Versioned;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link LocalReplicaAsyncConsistentMap}.
+ */
+public class LocalReplicaAsyncConsistentMapTest extends AtomixTestBase {
+
+    @BeforeClass
+    public static void preTestSetup() throws Throwable {
+        createCopycatServers(3);
+    }
+
+    @AfterClass
+    public static void postTestCleanup() throws Exception {
+        clearTests();
+    }
+
+    @Override
+    protected ResourceType resourceType() {
+        return new ResourceType(AtomixConsistentMap.class);
+    }
+
+    /**
+     * Tests that the replica is loaded and then follows the updates of the backing map.
+     */
+    @Test
+    public void testReplicaReads() throws Throwable {
+        AtomixConsistentMap writer = createAtomixClient().getResource("testReplicaReads",
+                                                                      AtomixConsistentMap.class).join();
+        writer.put("foo", Tools.getBytesUtf8("1")).join();
+        writer.put("bar", Tools.getBytesUtf8("2")).join();
+
+        AtomixConsistentMap backingMap = createAtomixClient().getResource("testReplicaReads",
+                                                                          AtomixConsistentMap.class).join();
+        LocalReplicaAsyncConsistentMap<String, byte[]> map = new LocalReplicaAsyncConsistentMap<>(
+                new DelegatingAsyncConsistentMap<String, byte[]>(backingMap) {
+                    @Override
+                    public String name() {
+                        return "testReplicaReads";
+                    }
+                },
+                10000,
+                false);
+        await(() -> {
+            long hits = map.hitCount();
+            map.size().join();
+            return map.hitCount() > hits;
+        });
+        assertEquals(2, map.size().join().intValue());
+        assertArrayEquals(Tools.getBytesUtf8("1"), map.get("foo").join().value());
+        assertTrue(map.containsKey("bar").join());
+        assertTrue(map.containsValue(Tools.getBytesUtf8("2")).join());
+
+        // updates made elsewhere reach the replica through the map events
+        writer.put("baz", Tools.getBytesUtf8("3")).join();
+        writer.remove("foo").join();
+        await(() -> map.get("baz").join() != null && map.get("foo").join() == null);
+        assertEquals(2, map.keySet().join().size());
+
+        // local updates are read back from the replica
+        Versioned<byte[]> previous = map.get("bar").join();
+        map.put("bar", Tools.getBytesUtf8("4")).join();
+        Versioned<byte[]> bar = map.get("bar").join();
+        assertArrayEquals(Tools.getBytesUtf8("4"), bar.value());
+        assertTrue(bar.version() > previous.version());
+        map.remove("baz").join();
+        assertNull(map.get("baz").join());
+        assertFalse(map.isEmpty().join());
+
+        assertTrue(map.hitCount() > 0);
+    }
+
+    /**
+     * Tests that the replica serves reads for at most the staleness bound once
+     * the backing map is suspended.
+     */
+    @Test
+    public void testStalenessBound() throws Throwable {
+        TestBackingMap backingMap = backingMap("testStalenessBound");
+        backingMap.put("foo", Tools.getBytesUtf8("1")).join();
+        LocalReplicaAsyncConsistentMap<String, byte[]> map = replica(backingMap, 500);
+
+        backingMap.setStatus(Status.SUSPENDED);
+        long misses = map.missCount();
+        assertArrayEquals(Tools.getBytesUtf8("1"), map.get("foo").join().value());
+        assertEquals(misses, map.missCount());
+
+        Thread.sleep(600);
+        assertArrayEquals(Tools.getBytesUtf8("1"), map.get("foo").join().value());
+        assertEquals(misses + 1, map.missCount());
+    }
+
+    /**
+     * Tests that the replica is loaded again once the backing map is back,
+     * bringing in the changes whose events were missed.
+     */
+    @Test
+    public void testReload() throws Throwable {
+        TestBackingMap backingMap = backingMap("testReload");
+        backingMap.put("foo", Tools.getBytesUtf8("1")).join();
+        LocalReplicaAsyncConsistentMap<String, byte[]> map = replica(backingMap, 10000);
+
+        backingMap.setStatus(Status.SUSPENDED);
+        backingMap.eventsDelivered = false;
+        backingMap.put("bar", Tools.getBytesUtf8("2")).join();
+        backingMap.remove("foo").join();
+        // still within the staleness bound
+        assertNull(map.get("bar").join());
+        assertTrue(map.containsKey("foo").join());
+
+        backingMap.eventsDelivered = true;
+        backingMap.setStatus(Status.ACTIVE);
+        await(() -> map.get("bar").join() != null && map.get("foo").join() == null);
+        assertEquals(1, map.size().join().intValue());
+    }
+
+    /**
+     * Tests that the entries updated in a batch and removed by a computation
+     * are read back from the backing map.
+     */
+    @Test
+    public void testBatchAndComputedUpdates() throws Throwable {
+        TestBackingMap backingMap = backingMap("testBatchAndComputedUpdates");
+        backingMap.put("foo", Tools.getBytesUtf8("1")).join();
+        backingMap.put("bar", Tools.getBytesUtf8("2")).join();
+        LocalReplicaAsyncConsistentMap<String, byte[]> map = replica(backingMap, 10000);
+
+        // the replica is brought up to date without the events
+        backingMap.eventsDelivered = false;
+        assertTrue(map.updateAll(ImmutableList.of(
+                MapUpdate.<String, byte[]>newBuilder()
+                        .withType(MapUpdate.Type.PUT).withKey("baz").withValue(Tools.getBytesUtf8("3")).build(),
+                MapUpdate.<String, byte[]>newBuilder()
+                        .withType(MapUpdate.Type.REMOVE).withKey("foo").build())).join());
+        assertEquals(2, map.size().join().intValue());
+        assertArrayEquals(Tools.getBytesUtf8("3"), map.get("baz").join().value());
+        assertNull(map.get("foo").join());
+
+        assertNull(map.computeIf("bar", v -> true, (k, v) -> null).join());
+        assertNull(map.get("bar").join());
+        assertEquals(ImmutableSet.of("baz"), map.keySet().join());
+    }
+
+    private TestBackingMap backingMap(String name) {
+        return new TestBackingMap(name, createAtomixClient().getResource(name, AtomixConsistentMap.class).join());
+    }
+
+    // Creates a replica of the given map and waits for it to be loaded
+    private static LocalReplicaAsyncConsistentMap<String, byte[]> replica(TestBackingMap backingMap,
+                                                                          long maxStalenessMillis)
+            throws InterruptedException {
+        LocalReplicaAsyncConsistentMap<String, byte[]> map =
+                new LocalReplicaAsyncConsistentMap<>(backingMap, maxStalenessMillis, false);
+        await(() -> {
+            long hits = map.hitCount();
+            map.size().join();
+            return map.hitCount() > hits;
+        });
+        return map;
+    }
+
+    // Backing map whose status changes and event deliveries are driven by the test
+    private static class TestBackingMap extends DelegatingAsyncConsistentMap<String, byte[]> {
+        private final String name;
+        private final List<Consumer<Status>> statusListeners = new CopyOnWriteArrayList<>();
+        private final Map<MapEventListener<String, byte[]>, MapEventListener<String, byte[]>> listeners =
+                Maps.newConcurrentMap();
+        volatile boolean eventsDelivered = true;
+
+        TestBackingMap(String name, AsyncConsistentMap<String, byte[]> backingMap) {
+            super(backingMap);
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        void setStatus(Status status) {
+            statusListeners.forEach(listener -> listener.accept(status));
+        }
+
+        @Override
+        public void addStatusChangeListener(Consumer<Status> listener) {
+            statusListeners.add(listener);
+        }
+
+        @Override
+        public void removeStatusChangeListener(Consumer<Status> listener) {
+            statusListeners.remove(listener);
+        }
+
+        @Override
+        public CompletableFuture<Void> addListener(MapEventListener<String, byte[]> listener, Executor executor) {
+            MapEventListener<String, byte[]> gated = event -> {
+                if (eventsDelivered) {
+                    listener.event(event);
+                }
+            };
+            listeners.put(listener, gated);
+            return super.addListener(gated, executor);
+        }
+
+        @Override
+        public CompletableFuture<Void> removeListener(MapEventListener<String, byte[]> listener) {
+            MapEventListener<String, byte[]> gated = listeners.remove(listener);
+            return gated == null ? CompletableFuture.completedFuture(null) : super.removeListener(gated);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("condition not met");
+    }
+}
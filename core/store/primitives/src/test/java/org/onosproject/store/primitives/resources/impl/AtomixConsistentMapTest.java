@@ -16,6 +16,7 @@
 package org.onosproject.store.primitives.resources.impl;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import io.atomix.resource.ResourceType;
 import org.junit.AfterClass;
@@ -24,6 +25,7 @@ import org.junit.Test;
 import org.onlab.util.Tools;
 import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.MapTransaction;
@@ -31,7 +33,11 @@ import org.onosproject.store.service.Versioned;
 
 import java.util.Arrays;
 import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletionException;
@@ -82,6 +88,14 @@ public class AtomixConsistentMapTest extends AtomixTestBase {
         mapComputeOperationTests();
     }
 
+    /**
+     * Tests iterating over the map entries in pages.
+     */
+    @Test
+    public void testMapIterator() throws Throwable {
+        mapIteratorTests();
+    }
+
     /**
      * Tests map event notifications.
      */
@@ -90,6 +104,14 @@ public class AtomixConsistentMapTest extends AtomixTestBase {
         mapListenerTests();
     }
 
+    /**
+     * Tests applying batches of updates.
+     */
+    @Test
+    public void testMapBatchUpdates() throws Throwable {
+        mapBatchUpdateTests();
+    }
+
     /**
      * Tests map transaction commit.
      */
@@ -273,6 +295,100 @@ public class AtomixConsistentMapTest extends AtomixTestBase {
     }
 
 
+    protected void mapBatchUpdateTests() throws Throwable {
+        AtomixConsistentMap map = createAtomixClient().getResource("testMapBatchUpdateMap",
+                                                                   AtomixConsistentMap.class).join();
+
+        Map<String, byte[]> entries = new HashMap<>();
+        entries.put("foo", Tools.getBytesUtf8("1"));
+        entries.put("bar", Tools.getBytesUtf8("2"));
+        entries.put("baz", Tools.getBytesUtf8("3"));
+        map.putAll(entries).join();
+        assertEquals(3, map.size().join().intValue());
+        Versioned<byte[]> foo = map.get("foo").join();
+        assertArrayEquals(Tools.getBytesUtf8("1"), foo.value());
+
+        // a failed condition leaves every key of the batch unchanged
+        List<MapUpdate<String, byte[]>> updates = Arrays.asList(
+                MapUpdate.<String, byte[]>newBuilder()
+                        .withType(MapUpdate.Type.PUT)
+                        .withKey("foo")
+                        .withValue(Tools.getBytesUtf8("4"))
+                        .build(),
+                MapUpdate.<String, byte[]>newBuilder()
+                        .withType(MapUpdate.Type.PUT_IF_ABSENT)
+                        .withKey("bar")
+                        .withValue(Tools.getBytesUtf8("5"))
+                        .build());
+        assertFalse(map.updateAll(updates).join());
+        assertEquals(foo.version(), map.get("foo").join().version());
+        assertArrayEquals(Tools.getBytesUtf8("2"), map.get("bar").join().value());
+
+        updates = Arrays.asList(
+                MapUpdate.<String, byte[]>newBuilder()
+                        .withType(MapUpdate.Type.PUT_IF_VERSION_MATCH)
+                        .withKey("foo")
+                        .withValue(Tools.getBytesUtf8("4"))
+                        .withCurrentVersion(foo.version())
+                        .build(),
+                MapUpdate.<String, byte[]>newBuilder()
+                        .withType(MapUpdate.Type.REMOVE_IF_VALUE_MATCH)
+                        .withKey("bar")
+                        .withCurrentValue(Tools.getBytesUtf8("2"))
+                        .build(),
+                MapUpdate.<String, byte[]>newBuilder()
+                        .withType(MapUpdate.Type.PUT_IF_ABSENT)
+                        .withKey("qux")
+                        .withValue(Tools.getBytesUtf8("5"))
+                        .build());
+        assertTrue(map.updateAll(updates).join());
+        Versioned<byte[]> newFoo = map.get("foo").join();
+        assertArrayEquals(Tools.getBytesUtf8("4"), newFoo.value());
+        assertTrue(newFoo.version() > foo.version());
+        assertNull(map.get("bar").join());
+        assertArrayEquals(Tools.getBytesUtf8("5"), map.get("qux").join().value());
+
+        map.removeAll(Arrays.asList("foo", "baz", "qux", "missing")).join();
+        assertTrue(map.isEmpty().join());
+    }
+
+    protected void mapIteratorTests() throws Throwable {
+        AtomixConsistentMap map = createAtomixClient().getResource("testMapIteratorMap",
+                                                                   AtomixConsistentMap.class).join();
+
+        AsyncIterator<Map.Entry<String, Versioned<byte[]>>> empty = map.iterator(3).join();
+        assertFalse(empty.hasNext().join());
+
+        Set<String> keys = Sets.newHashSet();
+        for (int i = 0; i < 10; i++) {
+            String key = "key" + i;
+            map.put(key, Tools.getBytesUtf8("value" + i)).join();
+            keys.add(key);
+        }
+
+        // entries come in key order, three at a time
+        AsyncIterator<Map.Entry<String, Versioned<byte[]>>> iterator = map.iterator(3).join();
+        List<String> iterated = Lists.newArrayList();
+        while (iterator.hasNext().join()) {
+            Map.Entry<String, Versioned<byte[]>> entry = iterator.next().join();
+            assertArrayEquals(Tools.getBytesUtf8("value" + entry.getKey().substring(3)), entry.getValue().value());
+            iterated.add(entry.getKey());
+            // entries removed from pages not yet fetched are skipped
+            if (entry.getKey().equals("key1")) {
+                map.remove("key7").join();
+                keys.remove("key7");
+            }
+        }
+        assertEquals(keys.stream().sorted().collect(Collectors.toList()), iterated);
+
+        try {
+            iterator.next().join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof NoSuchElementException);
+        }
+    }
+
     protected void mapListenerTests() throws Throwable {
         final byte[] value1 = Tools.getBytesUtf8("value1");
         final byte[] value2 = Tools.getBytesUtf8("value2");
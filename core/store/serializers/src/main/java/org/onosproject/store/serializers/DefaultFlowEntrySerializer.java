@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
+import org.onosproject.net.flow.FlowEntry.FlowLiveType;
+import org.onosproject.net.flow.FlowRule;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Kryo Serializer for {@link DefaultFlowEntry}.
+ * <p>
+ * Entries are written as their rule, in the compact form of
+ * {@link DefaultFlowRuleSerializer}, followed by their state and statistics
+ * as variable length numbers; entries of legacy third party rules are
+ * written with a field serializer.
+ * </p>
+ */
+public final class DefaultFlowEntrySerializer extends Serializer<DefaultFlowEntry> {
+
+    private static final FlowEntryState[] STATES = FlowEntryState.values();
+    private static final FlowLiveType[] LIVE_TYPES = FlowLiveType.values();
+
+    /**
+     * Creates {@link DefaultFlowEntry} serializer instance.
+     */
+    public DefaultFlowEntrySerializer() {
+        // non-null, mutable
+        super(false, false);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, DefaultFlowEntry object) {
+        boolean compact = DefaultFlowRuleSerializer.isCompact(object);
+        output.writeBoolean(compact);
+        if (!compact) {
+            DefaultFlowRuleSerializer.fieldSerializer(kryo, DefaultFlowEntry.class).write(kryo, output, object);
+            return;
+        }
+        DefaultFlowRuleSerializer.writeRule(kryo, output, object);
+        output.writeVarLong(object.lastSeen(), false);
+        output.writeVarInt(object.errType(), false);
+        output.writeVarInt(object.errCode(), false);
+        output.writeVarInt(object.state() == null ? 0 : object.state().ordinal() + 1, true);
+        output.writeVarInt(object.liveType() == null ? 0 : object.liveType().ordinal() + 1, true);
+        output.writeVarLong(object.life(NANOSECONDS), true);
+        output.writeVarLong(object.packets(), true);
+        output.writeVarLong(object.bytes(), true);
+    }
+
+    @Override
+    public DefaultFlowEntry read(Kryo kryo, Input input, Class<DefaultFlowEntry> type) {
+        if (!input.readBoolean()) {
+            return DefaultFlowRuleSerializer.fieldSerializer(kryo, type).read(kryo, input, type);
+        }
+        FlowRule rule = DefaultFlowRuleSerializer.readRule(kryo, input);
+        long created = input.readVarLong(true);
+        long lastSeen = input.readVarLong(false);
+        int errType = input.readVarInt(false);
+        int errCode = input.readVarInt(false);
+        int state = input.readVarInt(true);
+        DefaultFlowEntry entry = DefaultFlowEntry.restore(rule, state == 0 ? null : STATES[state - 1],
+                                                          created, lastSeen, errType, errCode);
+        int liveType = input.readVarInt(true);
+        entry.setLiveType(liveType == 0 ? null : LIVE_TYPES[liveType - 1]);
+        entry.setLife(input.readVarLong(true), NANOSECONDS);
+        entry.setPackets(input.readVarLong(true));
+        entry.setBytes(input.readVarLong(true));
+        return entry;
+    }
+}
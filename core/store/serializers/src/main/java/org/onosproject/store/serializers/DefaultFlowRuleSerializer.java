@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import com.esotericsoftware.kryo.util.ObjectMap;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRule.FlowRemoveReason;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.TrafficTreatment;
+
+/**
+ * Kryo Serializer for {@link DefaultFlowRule}.
+ * <p>
+ * Rules that can be rebuilt through the flow rule builder, which are all
+ * but the legacy third party rules with a group identifier or a payload,
+ * are written field by field with variable length numbers and the device
+ * identifier without its class tag, and keep their creation time. Other
+ * rules are written with a field serializer.
+ * </p>
+ */
+public final class DefaultFlowRuleSerializer extends Serializer<DefaultFlowRule> {
+
+    private static final FlowRemoveReason[] REASONS = FlowRemoveReason.values();
+
+    /**
+     * Creates {@link DefaultFlowRule} serializer instance.
+     */
+    public DefaultFlowRuleSerializer() {
+        // non-null, immutable
+        super(false, true);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, DefaultFlowRule object) {
+        boolean compact = isCompact(object);
+        output.writeBoolean(compact);
+        if (compact) {
+            writeRule(kryo, output, object);
+        } else {
+            fieldSerializer(kryo, DefaultFlowRule.class).write(kryo, output, object);
+        }
+    }
+
+    @Override
+    public DefaultFlowRule read(Kryo kryo, Input input, Class<DefaultFlowRule> type) {
+        if (input.readBoolean()) {
+            FlowRule rule = readRule(kryo, input);
+            return new DefaultFlowRule(rule, input.readVarLong(true));
+        }
+        return fieldSerializer(kryo, type).read(kryo, input, type);
+    }
+
+    /**
+     * Returns the field serializer of the given class for the legacy rules,
+     * created once per Kryo instance and kept in its context.
+     *
+     * @param kryo Kryo instance
+     * @param type class to serialize
+     * @param <T> type to serialize
+     * @return field serializer
+     */
+    @SuppressWarnings("unchecked")
+    static <T> FieldSerializer<T> fieldSerializer(Kryo kryo, Class<T> type) {
+        ObjectMap<Object, Object> context = kryo.getContext();
+        FieldSerializer<T> serializer = (FieldSerializer<T>) context.get(type);
+        if (serializer == null) {
+            serializer = new FieldSerializer<>(kryo, type);
+            context.put(type, serializer);
+        }
+        return serializer;
+    }
+
+    /**
+     * Indicates whether a rule can be written with
+     * {@link #writeRule(Kryo, Output, DefaultFlowRule)}.
+     *
+     * @param rule flow rule
+     * @return true if the rule can be rebuilt from the compact form
+     */
+    static boolean isCompact(DefaultFlowRule rule) {
+        return rule.payLoad() == null
+                && rule.groupId() != null && rule.groupId().id() == 0
+                && rule.deviceId() != null
+                && rule.selector() != null && rule.treatment() != null
+                && rule.priority() >= FlowRule.MIN_PRIORITY
+                && rule.priority() <= FlowRule.MAX_PRIORITY
+                && rule.appId() == (short) (rule.id().value() >>> 48)
+                && (!rule.isPermanent() || rule.timeout() == 0);
+    }
+
+    /**
+     * Writes the compact form of a rule; the creation time of the rule is
+     * written last.
+     *
+     * @param kryo   Kryo instance
+     * @param output output to write to
+     * @param rule   flow rule
+     */
+    static void writeRule(Kryo kryo, Output output, DefaultFlowRule rule) {
+        output.writeLong(rule.id().value());
+        kryo.writeObject(output, rule.deviceId());
+        output.writeVarInt(rule.tableId(), true);
+        output.writeVarInt(rule.priority(), true);
+        kryo.writeClassAndObject(output, rule.selector());
+        kryo.writeClassAndObject(output, rule.treatment());
+        output.writeBoolean(rule.isPermanent());
+        output.writeVarInt(rule.timeout(), true);
+        output.writeVarInt(rule.hardTimeout(), true);
+        output.writeVarInt(rule.reason() == null ? 0 : rule.reason().ordinal() + 1, true);
+        output.writeVarLong(rule.created(), true);
+    }
+
+    /**
+     * Reads the compact form of a rule, up to its creation time.
+     *
+     * @param kryo  Kryo instance
+     * @param input input to read from
+     * @return flow rule to copy along with its creation time
+     */
+    static FlowRule readRule(Kryo kryo, Input input) {
+        FlowRule.Builder builder = DefaultFlowRule.builder()
+                .withCookie(input.readLong())
+                .forDevice(kryo.readObject(input, DeviceId.class))
+                .forTable(input.readVarInt(true))
+                .withPriority(input.readVarInt(true))
+                .withSelector((TrafficSelector) kryo.readClassAndObject(input))
+                .withTreatment((TrafficTreatment) kryo.readClassAndObject(input));
+        boolean permanent = input.readBoolean();
+        int timeout = input.readVarInt(true);
+        builder.withHardTimeout(input.readVarInt(true));
+        if (permanent) {
+            builder.makePermanent();
+        } else {
+            builder.makeTemporary(timeout);
+        }
+        int reason = input.readVarInt(true);
+        builder.withReason(reason == 0 ? null : REASONS[reason - 1]);
+        return builder.build();
+    }
+}
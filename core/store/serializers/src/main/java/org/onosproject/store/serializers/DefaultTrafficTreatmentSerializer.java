@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.TrafficTreatment;
+import org.onosproject.net.flow.instructions.Instruction;
+import org.onosproject.net.flow.instructions.Instructions;
+import org.onosproject.net.meter.MeterId;
+
+import java.util.List;
+
+/**
+ * Kryo Serializer for {@link DefaultTrafficTreatment}.
+ * <p>
+ * Writes a byte of flags for the optional parts of the treatment, the
+ * immediate and deferred instructions preceded by their counts, and the
+ * table transition, metadata and meter as plain numbers. The list of all
+ * instructions is derived from the other two and is not written.
+ * </p>
+ */
+public final class DefaultTrafficTreatmentSerializer extends Serializer<DefaultTrafficTreatment> {
+
+    private static final int CLEAR = 1;
+    private static final int TABLE = 1 << 1;
+    private static final int METADATA = 1 << 2;
+    private static final int METER = 1 << 3;
+
+    /**
+     * Creates {@link DefaultTrafficTreatment} serializer instance.
+     */
+    public DefaultTrafficTreatmentSerializer() {
+        // non-null, immutable
+        super(false, true);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, DefaultTrafficTreatment object) {
+        Instructions.TableTypeTransition table = object.tableTransition();
+        Instructions.MetadataInstruction meta = object.writeMetadata();
+        Instructions.MeterInstruction meter = object.metered();
+        int flags = (object.clearedDeferred() ? CLEAR : 0)
+                | (table != null ? TABLE : 0)
+                | (meta != null ? METADATA : 0)
+                | (meter != null ? METER : 0);
+        output.writeByte(flags);
+        writeInstructions(kryo, output, object.immediate());
+        writeInstructions(kryo, output, object.deferred());
+        if (table != null) {
+            output.writeVarInt(table.tableId(), true);
+        }
+        if (meta != null) {
+            output.writeLong(meta.metadata());
+            output.writeLong(meta.metadataMask());
+        }
+        if (meter != null) {
+            output.writeVarLong(meter.meterId().id(), true);
+        }
+    }
+
+    @Override
+    public DefaultTrafficTreatment read(Kryo kryo, Input input, Class<DefaultTrafficTreatment> type) {
+        int flags = input.readByte();
+        TrafficTreatment.Builder builder = DefaultTrafficTreatment.builder();
+        readInstructions(kryo, input, builder.immediate());
+        readInstructions(kryo, input, builder.deferred());
+        if ((flags & CLEAR) != 0) {
+            builder.wipeDeferred();
+        }
+        if ((flags & TABLE) != 0) {
+            builder.transition(input.readVarInt(true));
+        }
+        if ((flags & METADATA) != 0) {
+            builder.writeMetadata(input.readLong(), input.readLong());
+        }
+        if ((flags & METER) != 0) {
+            builder.meter(MeterId.meterId(input.readVarLong(true)));
+        }
+        return (DefaultTrafficTreatment) builder.build();
+    }
+
+    private static void writeInstructions(Kryo kryo, Output output, List<Instruction> instructions) {
+        output.writeVarInt(instructions.size(), true);
+        for (Instruction instruction : instructions) {
+            kryo.writeClassAndObject(output, instruction);
+        }
+    }
+
+    private static void readInstructions(Kryo kryo, Input input, TrafficTreatment.Builder builder) {
+        int size = input.readVarInt(true);
+        for (int i = 0; i < size; i++) {
+            builder.add((Instruction) kryo.readClassAndObject(input));
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package org.onosproject.store.serializers;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import org.onosproject.net.DeviceId;
 
 import com.esotericsoftware.kryo.Kryo;
@@ -24,9 +27,21 @@ import com.esotericsoftware.kryo.io.Output;
 
 /**
 * Kryo Serializer for {@link DeviceId}.
+* <p>
+* Identifiers read back are interned, so that the many objects referring to
+* the same device, such as its flow entries, share one instance and the URI
+* of the identifier is parsed once.
+* </p>
 */
 public final class DeviceIdSerializer extends Serializer<DeviceId> {
 
+    private static final int MAX_INTERNED = 100_000;
+
+    private static final LoadingCache<String, DeviceId> INTERNED =
+            CacheBuilder.newBuilder()
+                    .maximumSize(MAX_INTERNED)
+                    .build(CacheLoader.from(DeviceId::deviceId));
+
     private static final DeviceIdSerializer INSTANCE = new DeviceIdSerializer();
 
     public static final DeviceIdSerializer deviceIdSerializer() {
@@ -49,6 +64,6 @@ public final class DeviceIdSerializer extends Serializer<DeviceId> {
     @Override
     public DeviceId read(Kryo kryo, Input input, Class<DeviceId> type) {
         final String str = input.readString();
-        return DeviceId.deviceId(str);
+        return INTERNED.getUnchecked(str);
     }
 }
@@ -358,17 +358,21 @@ public final class KryoNamespaces {
                     WorkQueueStats.class,
                     HostId.class,
                     HostDescription.class,
-                    DefaultHostDescription.class,
-                    DefaultFlowEntry.class,
-                    StoredFlowEntry.class,
-                    DefaultFlowRule.class,
+                    DefaultHostDescription.class
+            )
+            .register(new DefaultFlowEntrySerializer(), DefaultFlowEntry.class)
+            .register(StoredFlowEntry.class)
+            .register(new DefaultFlowRuleSerializer(), DefaultFlowRule.class)
+            .register(
                     FlowRule.FlowRemoveReason.class,
                     DefaultPacketRequest.class,
                     PacketPriority.class,
                     FlowEntry.FlowEntryState.class,
                     FlowEntry.FlowLiveType.class,
-                    FlowId.class,
-                    DefaultTrafficSelector.class,
+                    FlowId.class
+            )
+            .register(new DefaultTrafficSelectorSerializer(), DefaultTrafficSelector.class)
+            .register(
                     PortCriterion.class,
                     MetadataCriterion.class,
                     EthCriterion.class,
@@ -404,8 +408,10 @@ public final class KryoNamespaces {
                     ArpHaCriterion.class,
                     ArpPaCriterion.class,
                     Criterion.class,
-                    Criterion.Type.class,
-                    DefaultTrafficTreatment.class,
+                    Criterion.Type.class
+            )
+            .register(new DefaultTrafficTreatmentSerializer(), DefaultTrafficTreatment.class)
+            .register(
                     Instructions.NoActionInstruction.class,
                     Instructions.OutputInstruction.class,
                     Instructions.GroupInstruction.class,
@@ -56,13 +56,18 @@ import org.onosproject.net.OtuSignalType;
 import org.onosproject.net.PortNumber;
 import org.onosproject.net.OduSignalType;
 import org.onosproject.net.SparseAnnotations;
+import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.DefaultFlowRule;
 import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.FlowId;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.FlowRuleBatchEntry;
+import org.onosproject.net.flow.FlowRuleExtPayLoad;
+import org.onosproject.net.flow.TrafficTreatment;
 import org.onosproject.net.intent.IntentId;
+import org.onosproject.net.meter.MeterId;
 import org.onosproject.net.resource.ResourceAllocation;
 import org.onosproject.net.resource.ResourceConsumerId;
 import org.onosproject.net.resource.Resources;
@@ -89,6 +94,7 @@ import java.util.Collections;
 import java.time.Duration;
 
 import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.junit.Assert.*;
 import static org.onosproject.net.DeviceId.deviceId;
 import static org.onosproject.net.PortNumber.portNumber;
@@ -258,6 +264,121 @@ public class KryoSerializerTest {
         testSerializedEquals(entry2);
     }
 
+    @Test
+    public void testTrafficSelector() {
+        testSerializedEquals(DefaultTrafficSelector.emptySelector());
+        testSerializedEquals(DefaultTrafficSelector.builder()
+                                     .matchInPort(P1)
+                                     .matchEthType((short) 0x800)
+                                     .matchVlanId(VLAN1)
+                                     .matchIPDst(IpPrefix.valueOf("10.0.0.0/8"))
+                                     .build());
+    }
+
+    @Test
+    public void testTrafficTreatment() {
+        testSerializedEquals(DefaultTrafficTreatment.emptyTreatment());
+        testSerializedEquals(DefaultTrafficTreatment.builder().setOutput(P2).build());
+
+        TrafficTreatment treatment = DefaultTrafficTreatment.builder()
+                .setVlanId(VLAN1)
+                .setOutput(P1)
+                .deferred()
+                .setEthDst(MacAddress.valueOf("12:34:56:78:90:ab"))
+                .wipeDeferred()
+                .transition(2)
+                .writeMetadata(0x1234L, 0xffffL)
+                .meter(MeterId.meterId(7))
+                .build();
+        testSerializedEquals(treatment);
+        TrafficTreatment copy = serializer.decode(serializer.encode(treatment));
+        assertEquals(treatment.allInstructions(), copy.allInstructions());
+        assertTrue(copy.clearedDeferred());
+        assertEquals(treatment.metered(), copy.metered());
+    }
+
+    @Test
+    public void testFlowRule() {
+        DefaultFlowRule rule = (DefaultFlowRule) DefaultFlowRule.builder()
+                .forDevice(DID1)
+                .forTable(1)
+                .withSelector(DefaultTrafficSelector.builder().matchInPort(P1).build())
+                .withTreatment(DefaultTrafficTreatment.builder().setOutput(P2).build())
+                .withPriority(40000)
+                .fromApp(new DefaultApplicationId(3, "3"))
+                .withHardTimeout(20)
+                .makeTemporary(10)
+                .build();
+        testSerializedEquals(rule);
+        assertFlowRuleEquals(rule, serializer.decode(serializer.encode(rule)));
+
+        DefaultFlowRule permanent = (DefaultFlowRule) DefaultFlowRule.builder()
+                .forDevice(DID2)
+                .withPriority(0)
+                .withCookie(0x1234_0000_0000_0001L)
+                .withHardTimeout(5)
+                .makePermanent()
+                .withReason(FlowRule.FlowRemoveReason.HARD_TIMEOUT)
+                .build();
+        assertFlowRuleEquals(permanent, serializer.decode(serializer.encode(permanent)));
+    }
+
+    @Test
+    public void testLegacyFlowRule() {
+        DefaultFlowRule rule = new DefaultFlowRule(DID1, DefaultTrafficSelector.emptySelector(),
+                                                   DefaultTrafficTreatment.emptyTreatment(), 10,
+                                                   new DefaultApplicationId(1, "1"), new DefaultGroupId(4),
+                                                   0, true, FlowRuleExtPayLoad.flowRuleExtPayLoad(new byte[]{1, 2}));
+        DefaultFlowRule copy = serializer.decode(serializer.encode(rule));
+        assertFlowRuleEquals(rule, copy);
+        assertEquals(rule.payLoad(), copy.payLoad());
+    }
+
+    @Test
+    public void testFlowEntry() {
+        FlowRule rule = DefaultFlowRule.builder()
+                .forDevice(DID1)
+                .withSelector(DefaultTrafficSelector.builder().matchInPort(P1).build())
+                .withPriority(100)
+                .fromApp(new DefaultApplicationId(1, "1"))
+                .makeTemporary(30)
+                .build();
+        DefaultFlowEntry entry = new DefaultFlowEntry(rule, FlowEntry.FlowEntryState.ADDED,
+                                                      12, FlowEntry.FlowLiveType.MID, 1000L, 64_000L);
+        DefaultFlowEntry copy = serializer.decode(serializer.encode(entry));
+        assertFlowEntryEquals(entry, copy);
+
+        DefaultFlowEntry failed = new DefaultFlowEntry(rule, 3, 4);
+        assertFlowEntryEquals(failed, serializer.decode(serializer.encode(failed)));
+    }
+
+    // Flow rules are equal by their match; compares all their attributes
+    private static void assertFlowRuleEquals(DefaultFlowRule expected, DefaultFlowRule actual) {
+        assertEquals(expected, actual);
+        assertEquals(expected.id(), actual.id());
+        assertEquals(expected.appId(), actual.appId());
+        assertEquals(expected.groupId(), actual.groupId());
+        assertEquals(expected.treatment(), actual.treatment());
+        assertEquals(expected.tableId(), actual.tableId());
+        assertEquals(expected.timeout(), actual.timeout());
+        assertEquals(expected.hardTimeout(), actual.hardTimeout());
+        assertEquals(expected.isPermanent(), actual.isPermanent());
+        assertEquals(expected.reason(), actual.reason());
+        assertEquals(expected.created(), actual.created());
+    }
+
+    private static void assertFlowEntryEquals(DefaultFlowEntry expected, DefaultFlowEntry actual) {
+        assertFlowRuleEquals(expected, actual);
+        assertEquals(expected.state(), actual.state());
+        assertEquals(expected.liveType(), actual.liveType());
+        assertEquals(expected.life(NANOSECONDS), actual.life(NANOSECONDS));
+        assertEquals(expected.packets(), actual.packets());
+        assertEquals(expected.bytes(), actual.bytes());
+        assertEquals(expected.lastSeen(), actual.lastSeen());
+        assertEquals(expected.errType(), actual.errType());
+        assertEquals(expected.errCode(), actual.errCode());
+    }
+
     @Test
     public void testIpPrefix() {
         testSerializedEquals(IpPrefix.valueOf("192.168.0.1/24"));
@@ -15,36 +15,95 @@
  */
 
 package org.onosproject.incubator.store.routing.impl;
-//TODO: Need to adopt latest changes to distributed later.
-//TODO: Need to adopt latest changes to distributed later.
-//TODO: Need to adopt latest changes to distributed later.
 
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+import org.onlab.util.IpPrefixTrie;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.incubator.net.routing.IpNextHop;
 import org.onosproject.incubator.net.routing.IpRoute;
 import org.onosproject.incubator.net.routing.NextHop;
 import org.onosproject.incubator.net.routing.NextHopData;
+import org.onosproject.incubator.net.routing.ResolvedRoute;
 import org.onosproject.incubator.net.routing.Route;
 import org.onosproject.incubator.net.routing.RouteEvent;
 import org.onosproject.incubator.net.routing.RouteStore;
 import org.onosproject.incubator.net.routing.RouteStoreDelegate;
 import org.onosproject.incubator.net.routing.RouteTableType;
 import org.onosproject.store.AbstractStore;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.MapEvent;
+import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.StorageService;
+import org.onosproject.store.service.Versioned;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.onlab.util.Tools.groupedThreads;
 
 /**
  * Route store based on distributed storage.
+ * <p>
+ * The IP routes and next hops are kept in consistent maps, which partition
+ * them across the cluster. Every instance follows the updates of the maps
+ * to maintain a local view of the routes, from which the lookups are
+ * served without remote calls, and notifies its delegate of the route
+ * events. The route updates are applied to the local view right away and
+ * written to the maps asynchronously, up to a bounded number of pending
+ * updates, so that bulk loads are not held up by the round trip of every
+ * single update. The view keeps the version of the map entry of each prefix
+ * it reflects, so that map events older than the view are dropped; events
+ * arriving while local updates of a prefix are pending are skipped, and the
+ * prefix is reconciled with the map once they are acknowledged.
+ * </p>
+ * <p>
+ * Only IPv4 and IPv6 routes are supported; EVPN routes are ignored.
+ * </p>
  */
 public class DistributedRouteStore extends AbstractStore<RouteEvent, RouteStoreDelegate>
         implements RouteStore {
     public StorageService storageService;
     private static final Logger log = LoggerFactory.getLogger(DistributedRouteStore.class);
 
+    private static final int MAX_PENDING_UPDATES = 10000;
+    private static final long PENDING_UPDATE_TIMEOUT_SECONDS = 30;
+
+    private static final Serializer SERIALIZER = Serializer.using(
+            KryoNamespace.newBuilder()
+                    .register(KryoNamespaces.API)
+                    .register(IpRoute.class, IpRoute.Source.class, NextHopData.class)
+                    .build("DistributedRouteStore"));
+
+    private final Semaphore pendingUpdates = new Semaphore(MAX_PENDING_UPDATES);
+
+    private Map<RouteTableType, IpRouteTable> routeTables;
+    private AsyncConsistentMap<IpAddress, NextHopData> nextHopsMap;
+    private final Map<IpAddress, NextHopData> nextHops = new ConcurrentHashMap<>();
+    private final MapEventListener<IpAddress, NextHopData> nextHopListener =
+            new InternalNextHopListener();
+
+    private ExecutorService eventExecutor;
+
     /**
      * Constructs a distributed route store.
      *
@@ -58,7 +117,21 @@ public class DistributedRouteStore extends AbstractStore<RouteEvent, RouteStoreD
      * Sets up distributed route store.
      */
     public void activate() {
-        // Creates and stores maps
+        // map events are applied to the local view in the order they arrive
+        eventExecutor = newSingleThreadExecutor(groupedThreads("onos/route", "store-events", log));
+
+        routeTables = ImmutableMap.of(
+                RouteTableType.IPV4, new IpRouteTable(RouteTableType.IPV4, IpAddress.Version.INET),
+                RouteTableType.IPV6, new IpRouteTable(RouteTableType.IPV6, IpAddress.Version.INET6));
+
+        nextHopsMap = storageService.<IpAddress, NextHopData>consistentMapBuilder()
+                .withName("onos-route-next-hops")
+                .withSerializer(SERIALIZER)
+                .withRelaxedReadConsistency()
+                .buildAsyncMap();
+        nextHopsMap.addListener(nextHopListener, eventExecutor).join();
+        nextHopsMap.entrySet().join()
+                .forEach(e -> nextHops.putIfAbsent(e.getKey(), e.getValue().value()));
         log.info("Started");
     }
 
@@ -66,61 +139,382 @@ public class DistributedRouteStore extends AbstractStore<RouteEvent, RouteStoreD
      * Cleans up distributed route store.
      */
     public void deactivate() {
+        flush();
+        routeTables.values().forEach(IpRouteTable::destroy);
+        nextHopsMap.removeListener(nextHopListener).join();
+        eventExecutor.shutdown();
         log.info("Stopped");
     }
 
+    /**
+     * Waits for the pending route updates to complete.
+     */
+    private void flush() {
+        try {
+            if (pendingUpdates.tryAcquire(MAX_PENDING_UPDATES, PENDING_UPDATE_TIMEOUT_SECONDS,
+                                          TimeUnit.SECONDS)) {
+                pendingUpdates.release(MAX_PENDING_UPDATES);
+            } else {
+                log.warn("Timed out waiting for pending route updates");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Waits until fewer than the maximum number of updates are pending
+    private void awaitPendingSlot() {
+        try {
+            pendingUpdates.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while updating routes", e);
+        }
+    }
+
     @Override
     public void updateRoute(Route route) {
-
+        IpRouteTable table = getRouteTable(route);
+        if (table != null) {
+            table.update((IpRoute) route);
+        }
     }
 
     @Override
     public void removeRoute(Route route) {
+        IpRouteTable table = getRouteTable(route);
+        if (table != null) {
+            IpRoute removed = table.remove(((IpRoute) route).prefix());
 
+            // forget the next hop once no route uses it anymore
+            if (removed != null && !table.hasRoutesForNextHop(removed.ipNextHop())) {
+                nextHopsMap.remove(removed.ipNextHop());
+            }
+        }
     }
 
     @Override
     public Set<RouteTableType> getRouteTables() {
-        return null;
+        return routeTables.keySet();
     }
 
     @Override
     public Collection<Route> getRoutes(RouteTableType table) {
-        return null;
+        IpRouteTable routeTable = routeTables.get(table);
+        if (routeTable == null) {
+            return Collections.emptySet();
+        }
+        return Lists.newArrayList(routeTable.view.values());
     }
 
     @Override
     public IpRoute longestPrefixMatch(IpAddress ip) {
-        return null;
+        return getRouteTable(ip).view.longestPrefixMatch(ip);
     }
 
     @Override
     public Collection<Route> getRoutesForNextHop(IpAddress ip) {
-        return null;
+        return getRouteTable(ip).routesForNextHop(ip);
     }
 
     @Override
     public Collection<Route> getRoutesForNextHop(RouteTableType id, NextHop nextHop) {
-        return null;
+        IpRouteTable routeTable = routeTables.get(id);
+        if (routeTable == null || !(nextHop instanceof IpNextHop)) {
+            return Collections.emptySet();
+        }
+        return routeTable.routesForNextHop(((IpNextHop) nextHop).ip());
     }
 
     @Override
     public void updateNextHop(IpAddress ip, NextHopData nextHopData) {
-
+        checkNotNull(ip);
+        checkNotNull(nextHopData);
+        if (getRouteTable(ip).hasRoutesForNextHop(ip) && !nextHopData.equals(nextHops.get(ip))) {
+            nextHopsMap.put(ip, nextHopData).join();
+        }
     }
 
     @Override
     public void removeNextHop(IpAddress ip, NextHopData nextHopData) {
-
+        checkNotNull(ip);
+        checkNotNull(nextHopData);
+        nextHopsMap.remove(ip, nextHopData).join();
     }
 
     @Override
     public NextHopData getNextHop(IpAddress ip) {
-        return null;
+        return nextHops.get(ip);
     }
 
     @Override
     public Map<IpAddress, NextHopData> getNextHops() {
-        return null;
+        return ImmutableMap.copyOf(nextHops);
+    }
+
+    private IpRouteTable getRouteTable(Route route) {
+        if (!(route instanceof IpRoute)) {
+            log.warn("Distributed route store does not support route {}", route);
+            return null;
+        }
+        return getRouteTable(((IpRoute) route).prefix().address());
+    }
+
+    private IpRouteTable getRouteTable(IpAddress ip) {
+        return routeTables.get(ip.isIp4() ? RouteTableType.IPV4 : RouteTableType.IPV6);
+    }
+
+    private ResolvedRoute resolved(IpRoute route, NextHopData nextHopData) {
+        return new ResolvedRoute(route, nextHopData.mac(), nextHopData.location());
+    }
+
+    /**
+     * Route table backed by a consistent map, with a local view for lookups.
+     * The view and the indexes below are updated under the lock of the table.
+     */
+    private class IpRouteTable {
+
+        private final AsyncConsistentMap<IpPrefix, IpRoute> routes;
+        private final IpPrefixTrie<IpRoute> view;
+        private final Multimap<IpAddress, IpRoute> reverseIndex = HashMultimap.create();
+        // Version of the map entry reflected by the view, per prefix; kept
+        // once the entry is removed, to recognize stale events, until the
+        // map has delivered the removal
+        private final Map<IpPrefix, Long> versions = Maps.newHashMap();
+        // Number of local updates not yet acknowledged by the map, per prefix
+        private final Map<IpPrefix, Integer> pending = Maps.newHashMap();
+        // Prefixes whose map events were skipped while local updates were pending
+        private final Set<IpPrefix> skipped = Sets.newHashSet();
+        private final MapEventListener<IpPrefix, IpRoute> listener = new InternalRouteListener();
+
+        /**
+         * Creates a new route table and loads the routes already stored.
+         *
+         * @param type    route table type
+         * @param version IP version of the routes
+         */
+        IpRouteTable(RouteTableType type, IpAddress.Version version) {
+            view = new IpPrefixTrie<>(version);
+            routes = storageService.<IpPrefix, IpRoute>consistentMapBuilder()
+                    .withName("onos-routes-" + type.name().toLowerCase())
+                    .withSerializer(SERIALIZER)
+                    .withRelaxedReadConsistency()
+                    .buildAsyncMap();
+            routes.addListener(listener, eventExecutor).join();
+            routes.values().join().forEach(this::load);
+        }
+
+        private void destroy() {
+            routes.removeListener(listener).join();
+        }
+
+        private synchronized boolean hasRoutesForNextHop(IpAddress nextHop) {
+            return reverseIndex.containsKey(nextHop);
+        }
+
+        private synchronized Collection<Route> routesForNextHop(IpAddress nextHop) {
+            return Lists.newArrayList(reverseIndex.get(nextHop));
+        }
+
+        // Applies a local route update to the view and writes it to the map
+        private void update(IpRoute route) {
+            IpPrefix prefix = route.prefix();
+            // the prefix is only marked pending once the update can be written
+            awaitPendingSlot();
+            synchronized (this) {
+                pending.merge(prefix, 1, Integer::sum);
+                routeUpdated(route);
+            }
+            routes.putAndGet(prefix, route).whenComplete((stored, error) ->
+                    acknowledged(prefix, stored, error));
+        }
+
+        // Applies a local route removal to the view and writes it to the map;
+        // returns the route removed from the view
+        private IpRoute remove(IpPrefix prefix) {
+            IpRoute removed;
+            awaitPendingSlot();
+            synchronized (this) {
+                pending.merge(prefix, 1, Integer::sum);
+                removed = routeRemoved(prefix);
+            }
+            routes.remove(prefix).whenComplete((previous, error) ->
+                    acknowledged(prefix, previous, error));
+            return removed;
+        }
+
+        // Ends a local update; the prefix is reconciled with the map if the
+        // update failed, or if map events were skipped while it was pending
+        private synchronized void acknowledged(IpPrefix prefix, Versioned<IpRoute> entry,
+                                               Throwable error) {
+            pendingUpdates.release();
+            if (error != null) {
+                log.warn("Failed to update route for {}", prefix, error);
+            } else if (entry != null) {
+                versions.merge(prefix, entry.version(), Math::max);
+            }
+            if (pending.compute(prefix, (p, n) -> n == 1 ? null : n - 1) == null
+                    && (skipped.remove(prefix) || error != null)) {
+                reconcile(prefix);
+            }
+        }
+
+        // Brings the local view of a route back in line with the map
+        private void reconcile(IpPrefix prefix) {
+            Long held = versions.get(prefix);
+            routes.get(prefix).thenAcceptAsync(stored -> reconciled(prefix, held, stored),
+                                               eventExecutor);
+        }
+
+        private synchronized void reconciled(IpPrefix prefix, Long held, Versioned<IpRoute> stored) {
+            if (pending.containsKey(prefix)) {
+                // to be reconciled again once the local updates are acknowledged
+                skipped.add(prefix);
+            } else if (!Objects.equals(held, versions.get(prefix))) {
+                // the view was updated from the map in the meantime
+                return;
+            } else if (stored == null) {
+                // events of the removed entry were delivered before the read
+                versions.remove(prefix);
+                routeRemoved(prefix);
+            } else {
+                versions.put(prefix, stored.version());
+                routeUpdated(stored.value());
+            }
+        }
+
+        // Adds a route loaded from the map to the view, unless it is stale
+        private synchronized void load(Versioned<IpRoute> stored) {
+            IpPrefix prefix = stored.value().prefix();
+            if (stored.version() > versions.getOrDefault(prefix, Long.MIN_VALUE)) {
+                versions.put(prefix, stored.version());
+                install(stored.value());
+            }
+        }
+
+        // Applies a map event to the view, unless it is stale or local
+        // updates of the prefix are pending
+        private synchronized void apply(MapEvent<IpPrefix, IpRoute> event) {
+            IpPrefix prefix = event.key();
+            if (pending.containsKey(prefix)) {
+                skipped.add(prefix);
+                return;
+            }
+            long held = versions.getOrDefault(prefix, Long.MIN_VALUE);
+            switch (event.type()) {
+                case INSERT:
+                case UPDATE:
+                    if (event.newValue().version() > held) {
+                        versions.put(prefix, event.newValue().version());
+                        routeUpdated(event.newValue().value());
+                    }
+                    break;
+                case REMOVE:
+                    if (event.oldValue().version() >= held) {
+                        // no older event of the prefix follows its removal
+                        versions.remove(prefix);
+                        routeRemoved(prefix);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // Adds a route to the local view; returns the route it replaced
+        private IpRoute install(IpRoute route) {
+            IpRoute old = view.put(route.prefix(), route);
+            if (old != null) {
+                reverseIndex.remove(old.ipNextHop(), old);
+            }
+            reverseIndex.put(route.ipNextHop(), route);
+            return old;
+        }
+
+        // Removes a route from the local view; returns the route removed
+        private IpRoute uninstall(IpPrefix prefix) {
+            IpRoute old = view.remove(prefix);
+            if (old != null) {
+                reverseIndex.remove(old.ipNextHop(), old);
+            }
+            return old;
+        }
+
+        private void routeUpdated(IpRoute route) {
+            IpRoute oldRoute = install(route);
+            if (route.equals(oldRoute)) {
+                // No need to send events if the new route is the same
+                return;
+            }
+            NextHopData nextHopData = nextHops.get(route.ipNextHop());
+            if (oldRoute != null && !oldRoute.ipNextHop().equals(route.ipNextHop())) {
+                if (nextHopData == null) {
+                    // We don't know the new MAC address yet so delete the route
+                    notifyDelegate(new RouteEvent(RouteEvent.Type.ROUTE_REMOVED,
+                                                  new ResolvedRoute(oldRoute, null, null)));
+                } else {
+                    notifyDelegate(new RouteEvent(RouteEvent.Type.ROUTE_UPDATED,
+                                                  resolved(route, nextHopData)));
+                }
+            } else if (nextHopData != null) {
+                notifyDelegate(new RouteEvent(RouteEvent.Type.ROUTE_ADDED,
+                                              resolved(route, nextHopData)));
+            }
+        }
+
+        private IpRoute routeRemoved(IpPrefix prefix) {
+            IpRoute removed = uninstall(prefix);
+            if (removed != null) {
+                notifyDelegate(new RouteEvent(RouteEvent.Type.ROUTE_REMOVED,
+                                              new ResolvedRoute(removed, null, null)));
+            }
+            return removed;
+        }
+
+        // Applies the route updates of any instance to the local view.
+        private class InternalRouteListener implements MapEventListener<IpPrefix, IpRoute> {
+            @Override
+            public void event(MapEvent<IpPrefix, IpRoute> event) {
+                apply(event);
+            }
+        }
+    }
+
+    // Resolves, or unresolves, the routes of the next hops updated by any instance.
+    private class InternalNextHopListener implements MapEventListener<IpAddress, NextHopData> {
+        @Override
+        public void event(MapEvent<IpAddress, NextHopData> event) {
+            IpAddress ip = event.key();
+            Collection<Route> routes = getRoutesForNextHop(ip);
+            switch (event.type()) {
+                case INSERT:
+                case UPDATE:
+                    NextHopData nextHopData = event.newValue().value();
+                    NextHopData oldNextHopData = nextHops.put(ip, nextHopData);
+                    for (Route route : routes) {
+                        IpRoute ipRoute = (IpRoute) route;
+                        if (oldNextHopData == null) {
+                            notifyDelegate(new RouteEvent(RouteEvent.Type.ROUTE_ADDED,
+                                                          resolved(ipRoute, nextHopData)));
+                        } else {
+                            notifyDelegate(new RouteEvent(RouteEvent.Type.ROUTE_UPDATED,
+                                                          resolved(ipRoute, nextHopData),
+                                                          resolved(ipRoute, oldNextHopData)));
+                        }
+                    }
+                    break;
+                case REMOVE:
+                    NextHopData removed = nextHops.remove(ip);
+                    if (removed != null) {
+                        for (Route route : routes) {
+                            notifyDelegate(new RouteEvent(RouteEvent.Type.ROUTE_REMOVED,
+                                                          resolved((IpRoute) route, removed)));
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
     }
 }
@@ -21,15 +21,12 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
-import com.googlecode.concurrenttrees.common.KeyValuePair;
-import com.googlecode.concurrenttrees.radix.node.concrete.DefaultByteArrayNodeFactory;
-import com.googlecode.concurrenttrees.radixinverted.ConcurrentInvertedRadixTree;
-import com.googlecode.concurrenttrees.radixinverted.InvertedRadixTree;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Service;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.IpPrefix;
+import org.onlab.util.IpPrefixTrie;
 import org.onosproject.incubator.net.routing.EvpnInstanceName;
 import org.onosproject.incubator.net.routing.EvpnInstanceNextHop;
 import org.onosproject.incubator.net.routing.EvpnInstancePrefix;
@@ -55,7 +52,6 @@ import org.slf4j.LoggerFactory;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -86,8 +82,8 @@ public class LocalRouteStore extends AbstractStore<RouteEvent, RouteStoreDelegat
     @Activate
     public void activate() {
         routeTables = new ConcurrentHashMap<>();
-        routeTables.put(RouteTableType.IPV4, new IpRouteTable());
-        routeTables.put(RouteTableType.IPV6, new IpRouteTable());
+        routeTables.put(RouteTableType.IPV4, new IpRouteTable(IpAddress.Version.INET));
+        routeTables.put(RouteTableType.IPV6, new IpRouteTable(IpAddress.Version.INET6));
         routeTables.put(RouteTableType.EVPN_IPV4, new EvpnRouteTable());
         routeTables.put(RouteTableType.EVPN_IPV6, new EvpnRouteTable());
         log.info("Started");
@@ -243,7 +239,7 @@ public class LocalRouteStore extends AbstractStore<RouteEvent, RouteStoreDelegat
     //New code start from here.
     private class IpRouteTable implements RouteTable {
 
-        private final InvertedRadixTree<IpRoute> routeTable;
+        private final IpPrefixTrie<IpRoute> routeTable;
 
         private final Map<IpPrefix, IpRoute> routes = new ConcurrentHashMap<>();
         private final Multimap<IpAddress, IpRoute> reverseIndex = Multimaps
@@ -251,9 +247,11 @@ public class LocalRouteStore extends AbstractStore<RouteEvent, RouteStoreDelegat
 
         /**
          * Creates a new route table.
+         *
+         * @param version IP version of the routes
          */
-        public IpRouteTable() {
-            routeTable = new ConcurrentInvertedRadixTree<>(new DefaultByteArrayNodeFactory());
+        public IpRouteTable(IpAddress.Version version) {
+            routeTable = new IpPrefixTrie<>(version);
         }
 
         @Override
@@ -261,7 +259,7 @@ public class LocalRouteStore extends AbstractStore<RouteEvent, RouteStoreDelegat
             synchronized (this) {
                 IpRoute ipRoute = (IpRoute) route;
                 IpRoute oldRoute = routes.put(ipRoute.prefix(), ipRoute);
-                routeTable.put(createBinaryString(ipRoute.prefix()), ipRoute);
+                routeTable.put(ipRoute.prefix(), ipRoute);
                 reverseIndex.put(ipRoute.ipNextHop(), ipRoute);
 
                 if (oldRoute != null) {
@@ -309,7 +307,7 @@ public class LocalRouteStore extends AbstractStore<RouteEvent, RouteStoreDelegat
             synchronized (this) {
                 IpRoute ipRoute = (IpRoute) route;
                 IpRoute removed = routes.remove(ipRoute.prefix());
-                routeTable.remove(createBinaryString(ipRoute.prefix()));
+                routeTable.remove(ipRoute.prefix());
 
                 if (removed != null) {
                     reverseIndex.remove(removed.nextHop(), removed);
@@ -330,17 +328,7 @@ public class LocalRouteStore extends AbstractStore<RouteEvent, RouteStoreDelegat
 
         @Override
         public Collection<Route> getRoutes() {
-            Iterator<KeyValuePair<IpRoute>> it = routeTable
-                    .getKeyValuePairsForKeysStartingWith("").iterator();
-
-            List<Route> routes = new LinkedList<Route>();
-
-            while (it.hasNext()) {
-                KeyValuePair<IpRoute> entry = it.next();
-                routes.add(entry.getValue());
-            }
-
-            return routes;
+            return new LinkedList<Route>(routeTable.values());
         }
 
         /**
@@ -350,36 +338,8 @@ public class LocalRouteStore extends AbstractStore<RouteEvent, RouteStoreDelegat
          * @return most specific prefix containing the given
          */
         public IpRoute longestPrefixMatch(IpAddress ip) {
-            Iterable<IpRoute> prefixes = routeTable
-                    .getValuesForKeysPrefixing(createBinaryString(ip
-                                                                          .toIpPrefix()));
-
-            Iterator<IpRoute> it = prefixes.iterator();
-
-            IpRoute route = null;
-            while (it.hasNext()) {
-                route = it.next();
-            }
-
-            return route;
-        }
-
-        private String createBinaryString(IpPrefix ipPrefix) {
-            byte[] octets = ipPrefix.address().toOctets();
-            StringBuilder result = new StringBuilder(ipPrefix.prefixLength());
-            result.append("0");
-            for (int i = 0; i < ipPrefix.prefixLength(); i++) {
-                int byteOffset = i / Byte.SIZE;
-                int bitOffset = i % Byte.SIZE;
-                int mask = 1 << (Byte.SIZE - 1 - bitOffset);
-                byte value = octets[byteOffset];
-                boolean isSet = ((value & mask) != 0);
-                result.append(isSet ? "1" : "0");
-            }
-
-            return result.toString();
+            return routeTable.longestPrefixMatch(ip);
         }
-
     }
 
     private class EvpnRouteTable implements RouteTable {
@@ -173,7 +173,7 @@ public class RouteStoreImpl extends AbstractStore<RouteEvent, RouteStoreDelegate
 
     @Override
     public Collection<Route> getRoutesForNextHop(RouteTableType id, NextHop nextHop) {
-        return null;
+        return currentRouteStore.getRoutesForNextHop(id, nextHop);
     }
 
     @Override
@@ -0,0 +1,467 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.incubator.store.routing.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.junit.TestUtils;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+import org.onlab.packet.MacAddress;
+import org.onosproject.incubator.net.routing.IpRoute;
+import org.onosproject.incubator.net.routing.NextHopData;
+import org.onosproject.incubator.net.routing.RouteEvent;
+import org.onosproject.incubator.net.routing.RouteStoreDelegate;
+import org.onosproject.incubator.net.routing.RouteTableType;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.ConsistentMapBuilder;
+import org.onosproject.store.service.MapEvent;
+import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.MapTransaction;
+import org.onosproject.store.service.StorageServiceAdapter;
+import org.onosproject.store.service.Versioned;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.onlab.junit.TestTools.assertAfter;
+
+/**
+ * Tests for the distributed route store.
+ */
+public class DistributedRouteStoreTest {
+
+    private static final int TIMEOUT_MS = 5000;
+    private static final IpAddress NH1 = IpAddress.valueOf("192.168.1.1");
+    private static final IpAddress NH2 = IpAddress.valueOf("192.168.1.2");
+    private static final NextHopData NH1_DATA = new NextHopData(
+            MacAddress.valueOf("00:00:00:00:00:01"), ConnectPoint.deviceConnectPoint("of:1/1"));
+
+    private final Map<String, TestAsyncConsistentMap<?, ?>> maps = new ConcurrentHashMap<>();
+    private final List<RouteEvent> events = new CopyOnWriteArrayList<>();
+    private ExecutorService ackExecutor;
+    private DistributedRouteStore store;
+
+    @Before
+    public void setUp() {
+        ackExecutor = Executors.newFixedThreadPool(4);
+        store = new DistributedRouteStore(new TestStorageService());
+        store.activate();
+        store.setDelegate(new TestDelegate());
+    }
+
+    @After
+    public void tearDown() {
+        store.deactivate();
+        ackExecutor.shutdownNow();
+    }
+
+    private static IpRoute route(int i, IpAddress nextHop) {
+        return new IpRoute(IpRoute.Source.STATIC,
+                           IpPrefix.valueOf(IpAddress.valueOf("10.0." + i + ".0"), 24), nextHop);
+    }
+
+    @SuppressWarnings("unchecked")
+    private TestAsyncConsistentMap<IpPrefix, IpRoute> ipv4Routes() {
+        return (TestAsyncConsistentMap<IpPrefix, IpRoute>) maps.get("onos-routes-ipv4");
+    }
+
+    /**
+     * Tests that concurrent updates and withdrawals of the same prefixes
+     * leave the view and the next hop index in line with the map.
+     */
+    @Test
+    public void concurrentUpdatesAndWithdrawals() throws Exception {
+        int prefixes = 16;
+        List<IpAddress> nextHops = Lists.newArrayList(NH1, NH2,
+                IpAddress.valueOf("192.168.1.3"), IpAddress.valueOf("192.168.1.4"));
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            writers.execute(() -> {
+                Random random = new Random(seed);
+                for (int n = 0; n < 2000; n++) {
+                    IpRoute route = route(random.nextInt(prefixes),
+                                          nextHops.get(random.nextInt(nextHops.size())));
+                    if (random.nextInt(3) == 0) {
+                        store.removeRoute(route);
+                    } else {
+                        store.updateRoute(route);
+                    }
+                }
+            });
+        }
+        writers.shutdown();
+        assertTrue(writers.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        assertAfter(TIMEOUT_MS, () -> {
+            Map<IpPrefix, IpRoute> stored = ipv4Routes().snapshot();
+            for (int i = 0; i < prefixes; i++) {
+                IpRoute expected = stored.get(route(i, NH1).prefix());
+                assertEquals(expected, store.longestPrefixMatch(IpAddress.valueOf("10.0." + i + ".1")));
+            }
+            for (IpAddress nextHop : nextHops) {
+                Set<IpRoute> expected = stored.values().stream()
+                        .filter(r -> r.ipNextHop().equals(nextHop))
+                        .collect(Collectors.toSet());
+                assertEquals(expected, ImmutableSet.copyOf(store.getRoutesForNextHop(nextHop)));
+            }
+            assertEquals(ImmutableSet.copyOf(stored.values()),
+                         ImmutableSet.copyOf(store.getRoutes(RouteTableType.IPV4)));
+        });
+    }
+
+    /**
+     * Tests that a map event older than the view is dropped.
+     */
+    @Test
+    public void staleEventDropped() {
+        IpRoute route = route(1, NH1);
+        store.updateRoute(route);
+        // the update of another instance
+        IpRoute updated = route(1, NH2);
+        ipv4Routes().putAndGet(updated.prefix(), updated).join();
+        assertAfter(TIMEOUT_MS, () -> {
+            assertEquals(updated, store.longestPrefixMatch(IpAddress.valueOf("10.0.1.1")));
+            // the old next hop is unresolved, so the route is reported as removed
+            assertEquals(1, events.size());
+        });
+
+        ipv4Routes().fire(new MapEvent<>("onos-routes-ipv4", route.prefix(),
+                                         new Versioned<>(route, 1), null));
+        ipv4Routes().fire(new MapEvent<>("onos-routes-ipv4", route.prefix(),
+                                         null, new Versioned<>(route, 1)));
+        store.updateRoute(route(2, NH1));
+        assertAfter(TIMEOUT_MS, () -> assertEquals(1, store.getRoutesForNextHop(NH1).size()));
+        assertEquals(updated, store.longestPrefixMatch(IpAddress.valueOf("10.0.1.1")));
+        assertEquals(1, events.size());
+    }
+
+    /**
+     * Tests that an update interrupted while waiting to be written leaves
+     * the prefix open to the updates of other instances.
+     */
+    @Test
+    public void interruptedUpdate() {
+        IpRoute route = route(1, NH1);
+        Thread.currentThread().interrupt();
+        try {
+            store.updateRoute(route);
+        } catch (IllegalStateException e) {
+            assertTrue(Thread.interrupted());
+        }
+        assertNull(store.longestPrefixMatch(IpAddress.valueOf("10.0.1.1")));
+
+        // the update of another instance
+        IpRoute updated = route(1, NH2);
+        ipv4Routes().putAndGet(updated.prefix(), updated).join();
+        assertAfter(TIMEOUT_MS, () ->
+                assertEquals(updated, store.longestPrefixMatch(IpAddress.valueOf("10.0.1.1"))));
+    }
+
+    /**
+     * Tests that the version of a removed route is forgotten once the map
+     * has delivered the removal.
+     */
+    @Test
+    public void removedVersionPruned() throws Exception {
+        Object table = TestUtils.<DistributedRouteStore, Map<RouteTableType, ?>>getField(
+                store, "routeTables").get(RouteTableType.IPV4);
+        Map<IpPrefix, Long> versions = TestUtils.getField(table, "versions");
+        IpRoute route = route(1, NH1);
+        IpRoute other = route(2, NH2);
+        store.updateRoute(route);
+        store.updateRoute(other);
+        store.removeRoute(route);
+        // the removal of another instance
+        ipv4Routes().remove(other.prefix()).join();
+
+        assertAfter(TIMEOUT_MS, () -> {
+            synchronized (table) {
+                assertTrue(versions.isEmpty());
+            }
+        });
+        assertFalse(store.getRoutes(RouteTableType.IPV4).iterator().hasNext());
+    }
+
+    /**
+     * Tests the lookups of routes and data by next hop.
+     */
+    @Test
+    public void nextHopLookups() {
+        IpRoute route = route(1, NH1);
+        store.updateRoute(route);
+        store.updateNextHop(NH1, NH1_DATA);
+        assertAfter(TIMEOUT_MS, () -> {
+            assertEquals(NH1_DATA, store.getNextHop(NH1));
+            assertEquals(1, events.size());
+            assertEquals(RouteEvent.Type.ROUTE_ADDED, events.get(0).type());
+        });
+        assertEquals(ImmutableSet.of(route), ImmutableSet.copyOf(store.getRoutesForNextHop(NH1)));
+        assertTrue(store.getRoutesForNextHop(NH2).isEmpty());
+
+        store.removeRoute(route);
+        assertTrue(store.getRoutesForNextHop(NH1).isEmpty());
+        assertAfter(TIMEOUT_MS, () -> assertNull(store.getNextHop(NH1)));
+    }
+
+    private class TestDelegate implements RouteStoreDelegate {
+        @Override
+        public void notify(RouteEvent event) {
+            events.add(event);
+        }
+    }
+
+    private class TestStorageService extends StorageServiceAdapter {
+        @Override
+        public <K, V> ConsistentMapBuilder<K, V> consistentMapBuilder() {
+            return new ConsistentMapBuilder<K, V>() {
+                @Override
+                public ConsistentMap<K, V> build() {
+                    return buildAsyncMap().asConsistentMap();
+                }
+
+                @Override
+                public AsyncConsistentMap<K, V> buildAsyncMap() {
+                    TestAsyncConsistentMap<K, V> map = new TestAsyncConsistentMap<>(name());
+                    maps.put(name(), map);
+                    return map;
+                }
+            };
+        }
+    }
+
+    /**
+     * In-memory asynchronous consistent map, which acknowledges updates in
+     * no particular order and delivers events in the order of the updates.
+     */
+    private class TestAsyncConsistentMap<K, V> implements AsyncConsistentMap<K, V> {
+
+        private final String name;
+        private final Map<K, Versioned<V>> map = Maps.newHashMap();
+        private final Map<MapEventListener<K, V>, Executor> listeners = new ConcurrentHashMap<>();
+        private final AtomicLong version = new AtomicLong();
+
+        TestAsyncConsistentMap(String name) {
+            this.name = name;
+        }
+
+        synchronized Map<K, V> snapshot() {
+            return map.entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().value()));
+        }
+
+        void fire(MapEvent<K, V> event) {
+            listeners.forEach((listener, executor) -> executor.execute(() -> listener.event(event)));
+        }
+
+        private <T> CompletableFuture<T> acknowledge(T result) {
+            return CompletableFuture.supplyAsync(() -> result, ackExecutor);
+        }
+
+        private synchronized Versioned<V> update(K key, V value) {
+            Versioned<V> previous = value == null ? map.remove(key)
+                    : map.put(key, new Versioned<>(value, version.incrementAndGet()));
+            Versioned<V> current = map.get(key);
+            if (previous != null || current != null) {
+                fire(new MapEvent<>(name, key, current, previous));
+            }
+            return previous;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public synchronized CompletableFuture<Integer> size() {
+            return CompletableFuture.completedFuture(map.size());
+        }
+
+        @Override
+        public synchronized CompletableFuture<Boolean> containsKey(K key) {
+            return CompletableFuture.completedFuture(map.containsKey(key));
+        }
+
+        @Override
+        public synchronized CompletableFuture<Boolean> containsValue(V value) {
+            return CompletableFuture.completedFuture(
+                    map.values().stream().anyMatch(v -> v.value().equals(value)));
+        }
+
+        @Override
+        public synchronized CompletableFuture<Versioned<V>> get(K key) {
+            return acknowledge(map.get(key));
+        }
+
+        @Override
+        public CompletableFuture<Versioned<V>> computeIf(K key, Predicate<? super V> condition,
+                BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Versioned<V>> put(K key, V value) {
+            return acknowledge(update(key, value));
+        }
+
+        @Override
+        public CompletableFuture<Versioned<V>> putAndGet(K key, V value) {
+            synchronized (this) {
+                update(key, value);
+                return acknowledge(map.get(key));
+            }
+        }
+
+        @Override
+        public CompletableFuture<Versioned<V>> remove(K key) {
+            return acknowledge(update(key, null));
+        }
+
+        @Override
+        public synchronized CompletableFuture<Void> clear() {
+            Lists.newArrayList(map.keySet()).forEach(key -> update(key, null));
+            return acknowledge(null);
+        }
+
+        @Override
+        public synchronized CompletableFuture<Set<K>> keySet() {
+            return acknowledge(ImmutableSet.copyOf(map.keySet()));
+        }
+
+        @Override
+        public synchronized CompletableFuture<Collection<Versioned<V>>> values() {
+            return acknowledge(Lists.newArrayList(map.values()));
+        }
+
+        @Override
+        public synchronized CompletableFuture<Set<Map.Entry<K, Versioned<V>>>> entrySet() {
+            return acknowledge(ImmutableSet.copyOf(map.entrySet()));
+        }
+
+        @Override
+        public synchronized CompletableFuture<Versioned<V>> putIfAbsent(K key, V value) {
+            Versioned<V> existing = map.get(key);
+            if (existing == null) {
+                update(key, value);
+            }
+            return acknowledge(existing);
+        }
+
+        @Override
+        public synchronized CompletableFuture<Boolean> remove(K key, V value) {
+            Versioned<V> existing = map.get(key);
+            boolean removed = existing != null && existing.value().equals(value);
+            if (removed) {
+                update(key, null);
+            }
+            return acknowledge(removed);
+        }
+
+        @Override
+        public synchronized CompletableFuture<Boolean> remove(K key, long version) {
+            Versioned<V> existing = map.get(key);
+            boolean removed = existing != null && existing.version() == version;
+            if (removed) {
+                update(key, null);
+            }
+            return acknowledge(removed);
+        }
+
+        @Override
+        public synchronized CompletableFuture<Versioned<V>> replace(K key, V value) {
+            return acknowledge(map.containsKey(key) ? update(key, value) : null);
+        }
+
+        @Override
+        public synchronized CompletableFuture<Boolean> replace(K key, V oldValue, V newValue) {
+            Versioned<V> existing = map.get(key);
+            boolean replaced = existing != null && existing.value().equals(oldValue);
+            if (replaced) {
+                update(key, newValue);
+            }
+            return acknowledge(replaced);
+        }
+
+        @Override
+        public synchronized CompletableFuture<Boolean> replace(K key, long oldVersion, V newValue) {
+            Versioned<V> existing = map.get(key);
+            boolean replaced = existing != null && existing.version() == oldVersion;
+            if (replaced) {
+                update(key, newValue);
+            }
+            return acknowledge(replaced);
+        }
+
+        @Override
+        public CompletableFuture<Void> addListener(MapEventListener<K, V> listener, Executor executor) {
+            listeners.put(listener, executor);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> removeListener(MapEventListener<K, V> listener) {
+            listeners.remove(listener);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> prepare(MapTransaction<K, V> transaction) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Void> commit(TransactionId transactionId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Void> rollback(TransactionId transactionId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> prepareAndCommit(MapTransaction<K, V> transaction) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -17,7 +17,7 @@
 package org.onosproject.openflow.controller.driver;
 
 import com.google.common.collect.Lists;
-import org.jboss.netty.channel.Channel;
+import io.netty.channel.Channel;
 import org.onlab.packet.IpAddress;
 import org.onosproject.net.Device;
 import org.onosproject.net.driver.AbstractHandlerBehaviour;
@@ -48,6 +48,9 @@ import java.net.SocketAddress;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -61,9 +64,17 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
 
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
+    // Most messages written in one go; larger batches are split
+    private static final int MAX_WRITE_BATCH_SIZE = 1000;
+
     private Channel channel;
     protected String channelId;
 
+    // Messages sent since the last flush of the channel; they are written
+    // and flushed together from the event loop of the channel
+    private final Queue<List<OFMessage>> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
     private boolean connected;
     protected boolean startDriverHandshakeCalled = false;
     private Dpid dpid;
@@ -152,14 +163,17 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
             } else {
                 // not transitioning to MASTER
                 log.warn("Dropping message for switch {} (role: {}, connected: {}): {}",
-                         dpid, role, channel.isConnected(), msgs);
+                         dpid, role, channel.isActive(), msgs);
             }
         }
     }
 
     private void sendMsgsOnChannel(List<OFMessage> msgs) {
-        if (channel.isConnected()) {
-            channel.write(msgs);
+        if (channel.isActive()) {
+            pendingWrites.add(msgs);
+            if (flushScheduled.compareAndSet(false, true)) {
+                channel.eventLoop().execute(this::flushPendingWrites);
+            }
             agent.processDownstreamMessage(dpid, msgs);
         } else {
             log.warn("Dropping messages for switch {} because channel is not connected: {}",
@@ -167,6 +181,36 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
         }
     }
 
+    // Coalesces the messages sent by all threads since the last flush into
+    // as few writes as possible, followed by a single flush. Writing stops
+    // once the outbound buffer of the channel is above its high water mark;
+    // the remaining messages are written when the channel drains.
+    private void flushPendingWrites() {
+        // cleared first, so that messages queued from now on schedule a new flush
+        flushScheduled.set(false);
+        List<OFMessage> batch = new ArrayList<>();
+        while (channel.isWritable()) {
+            List<OFMessage> msgs = pendingWrites.poll();
+            if (msgs == null) {
+                break;
+            }
+            batch.addAll(msgs);
+            if (batch.size() >= MAX_WRITE_BATCH_SIZE) {
+                channel.write(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            channel.write(batch);
+        }
+        channel.flush();
+    }
+
+    @Override
+    public final void resumeWrites() {
+        flushPendingWrites();
+    }
+
     @Override
     public final void sendRoleRequest(OFMessage msg) {
         if (msg instanceof OFRoleRequest ||
@@ -199,7 +243,7 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     @Override
     public final void setChannel(Channel channel) {
         this.channel = channel;
-        final SocketAddress address = channel.getRemoteAddress();
+        final SocketAddress address = channel.remoteAddress();
         if (address instanceof InetSocketAddress) {
             final InetSocketAddress inetAddress = (InetSocketAddress) address;
             final IpAddress ipAddress = IpAddress.valueOf(inetAddress.getAddress());
@@ -514,7 +558,7 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     @Override
     public String toString() {
         return this.getClass().getName() + " [" + ((channel != null)
-                ? channel.getRemoteAddress() : "?")
+                ? channel.remoteAddress() : "?")
                 + " DPID[" + ((getStringId() != null) ? getStringId() : "?") + "]]";
     }
 }
@@ -15,7 +15,7 @@
  */
 package org.onosproject.openflow.controller.driver;
 
-import org.jboss.netty.channel.Channel;
+import io.netty.channel.Channel;
 import org.onosproject.net.driver.HandlerBehaviour;
 import org.onosproject.openflow.controller.Dpid;
 import org.onosproject.openflow.controller.OpenFlowSwitch;
@@ -171,6 +171,12 @@ public interface OpenFlowSwitchDriver extends OpenFlowSwitch, HandlerBehaviour {
      */
     void setChannel(Channel channel);
 
+    /**
+     * Writes the messages held back while the channel was not writable.
+     * Called from the event loop of the channel once it becomes writable.
+     */
+    void resumeWrites();
+
     /**
      * Sets whether the switch is connected.
      *
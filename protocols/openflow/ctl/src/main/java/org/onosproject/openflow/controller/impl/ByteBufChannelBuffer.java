@@ -0,0 +1,235 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import io.netty.buffer.ByteBuf;
+import org.jboss.netty.buffer.AbstractChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferFactory;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.buffer.DuplicatedChannelBuffer;
+import org.jboss.netty.buffer.HeapChannelBufferFactory;
+import org.jboss.netty.buffer.SlicedChannelBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+
+/**
+ * Netty 3 view of the writable region of a Netty 4 buffer, through which
+ * openflowj writes messages straight into the outbound buffer of a channel.
+ * <p>
+ * Index 0 of the view is the writer index of the buffer when the view is
+ * created. The buffer grows as bytes are set past its writer index, and
+ * its writer index follows the highest byte set.
+ * </p>
+ */
+final class ByteBufChannelBuffer extends AbstractChannelBuffer {
+
+    private final ByteBuf buf;
+    private final int base;
+
+    /**
+     * Creates a view of the writable region of a buffer.
+     *
+     * @param buf buffer written through the view
+     */
+    ByteBufChannelBuffer(ByteBuf buf) {
+        this.buf = buf;
+        this.base = buf.writerIndex();
+    }
+
+    // Makes room in the buffer for the bytes set at the given index of the
+    // view and returns the index of the first of them in the buffer.
+    private int reserve(int index, int length) {
+        int start = base + index;
+        int end = start + length;
+        if (end > buf.writerIndex()) {
+            buf.ensureWritable(end - buf.writerIndex());
+            buf.writerIndex(end);
+        }
+        return start;
+    }
+
+    @Override
+    public ChannelBufferFactory factory() {
+        return HeapChannelBufferFactory.getInstance(order());
+    }
+
+    @Override
+    public int capacity() {
+        return buf.maxCapacity() - base;
+    }
+
+    @Override
+    public ByteOrder order() {
+        // netty 4 buffers are big endian unless wrapped otherwise
+        return ByteOrder.BIG_ENDIAN;
+    }
+
+    @Override
+    public boolean isDirect() {
+        return buf.isDirect();
+    }
+
+    @Override
+    public byte getByte(int index) {
+        return buf.getByte(base + index);
+    }
+
+    @Override
+    public short getShort(int index) {
+        return buf.getShort(base + index);
+    }
+
+    @Override
+    public int getUnsignedMedium(int index) {
+        return buf.getUnsignedMedium(base + index);
+    }
+
+    @Override
+    public int getInt(int index) {
+        return buf.getInt(base + index);
+    }
+
+    @Override
+    public long getLong(int index) {
+        return buf.getLong(base + index);
+    }
+
+    @Override
+    public void getBytes(int index, ChannelBuffer dst, int dstIndex, int length) {
+        byte[] bytes = new byte[length];
+        buf.getBytes(base + index, bytes);
+        dst.setBytes(dstIndex, bytes);
+    }
+
+    @Override
+    public void getBytes(int index, byte[] dst, int dstIndex, int length) {
+        buf.getBytes(base + index, dst, dstIndex, length);
+    }
+
+    @Override
+    public void getBytes(int index, ByteBuffer dst) {
+        buf.getBytes(base + index, dst);
+    }
+
+    @Override
+    public void getBytes(int index, OutputStream out, int length) throws IOException {
+        buf.getBytes(base + index, out, length);
+    }
+
+    @Override
+    public int getBytes(int index, GatheringByteChannel out, int length) throws IOException {
+        return buf.getBytes(base + index, out, length);
+    }
+
+    @Override
+    public void setByte(int index, int value) {
+        buf.setByte(reserve(index, 1), value);
+    }
+
+    @Override
+    public void setShort(int index, int value) {
+        buf.setShort(reserve(index, 2), value);
+    }
+
+    @Override
+    public void setMedium(int index, int value) {
+        buf.setMedium(reserve(index, 3), value);
+    }
+
+    @Override
+    public void setInt(int index, int value) {
+        buf.setInt(reserve(index, 4), value);
+    }
+
+    @Override
+    public void setLong(int index, long value) {
+        buf.setLong(reserve(index, 8), value);
+    }
+
+    @Override
+    public void setBytes(int index, ChannelBuffer src, int srcIndex, int length) {
+        byte[] bytes = new byte[length];
+        src.getBytes(srcIndex, bytes);
+        buf.setBytes(reserve(index, length), bytes);
+    }
+
+    @Override
+    public void setBytes(int index, byte[] src, int srcIndex, int length) {
+        buf.setBytes(reserve(index, length), src, srcIndex, length);
+    }
+
+    @Override
+    public void setBytes(int index, ByteBuffer src) {
+        buf.setBytes(reserve(index, src.remaining()), src);
+    }
+
+    @Override
+    public int setBytes(int index, InputStream in, int length) throws IOException {
+        return buf.setBytes(reserve(index, length), in, length);
+    }
+
+    @Override
+    public int setBytes(int index, ScatteringByteChannel in, int length) throws IOException {
+        return buf.setBytes(reserve(index, length), in, length);
+    }
+
+    @Override
+    public ChannelBuffer copy(int index, int length) {
+        byte[] bytes = new byte[length];
+        buf.getBytes(base + index, bytes);
+        return ChannelBuffers.wrappedBuffer(order(), bytes);
+    }
+
+    @Override
+    public ChannelBuffer slice(int index, int length) {
+        if (length == 0) {
+            return ChannelBuffers.EMPTY_BUFFER;
+        }
+        return new SlicedChannelBuffer(this, index, length);
+    }
+
+    @Override
+    public ChannelBuffer duplicate() {
+        return new DuplicatedChannelBuffer(this);
+    }
+
+    @Override
+    public ByteBuffer toByteBuffer(int index, int length) {
+        return buf.nioBuffer(base + index, length);
+    }
+
+    @Override
+    public boolean hasArray() {
+        return buf.hasArray();
+    }
+
+    @Override
+    public byte[] array() {
+        return buf.array();
+    }
+
+    @Override
+    public int arrayOffset() {
+        return buf.arrayOffset() + base;
+    }
+}
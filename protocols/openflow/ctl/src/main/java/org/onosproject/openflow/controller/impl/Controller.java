@@ -18,11 +18,19 @@ package org.onosproject.openflow.controller.impl;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
-import org.jboss.netty.bootstrap.ServerBootstrap;
-import org.jboss.netty.channel.ChannelPipelineFactory;
-import org.jboss.netty.channel.group.ChannelGroup;
-import org.jboss.netty.channel.group.DefaultChannelGroup;
-import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.GlobalEventExecutor;
 
 import org.onlab.util.ItemNotFoundException;
 import org.onosproject.net.DeviceId;
@@ -52,7 +60,6 @@ import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -87,7 +94,9 @@ public class Controller {
 
     private OpenFlowAgent agent;
 
-    private NioServerSocketChannelFactory execFactory;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private Class<? extends ServerChannel> serverChannelClass;
 
     protected String ksLocation;
     protected String tsLocation;
@@ -97,6 +106,8 @@ public class Controller {
 
     // Perf. related configuration
     protected static final int SEND_BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final int WRITE_BUFFER_LOW_WATER_MARK = 1024 * 1024;
+    private static final int WRITE_BUFFER_HIGH_WATER_MARK = 4 * 1024 * 1024;
     private DriverService driverService;
     private boolean enableOfTls = TLS_DISABLED;
 
@@ -125,18 +136,20 @@ public class Controller {
         try {
             final ServerBootstrap bootstrap = createServerBootStrap();
 
-            bootstrap.setOption("reuseAddr", true);
-            bootstrap.setOption("child.keepAlive", true);
-            bootstrap.setOption("child.tcpNoDelay", true);
-            bootstrap.setOption("child.sendBufferSize", Controller.SEND_BUFFER_SIZE);
-
-            ChannelPipelineFactory pfact =
-                    new OpenflowPipelineFactory(this, null, sslContext);
-            bootstrap.setPipelineFactory(pfact);
-            cg = new DefaultChannelGroup();
+            bootstrap.option(ChannelOption.SO_REUSEADDR, true);
+            bootstrap.childOption(ChannelOption.SO_KEEPALIVE, true);
+            bootstrap.childOption(ChannelOption.TCP_NODELAY, true);
+            bootstrap.childOption(ChannelOption.SO_SNDBUF, Controller.SEND_BUFFER_SIZE);
+            bootstrap.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+            bootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                                  new WriteBufferWaterMark(WRITE_BUFFER_LOW_WATER_MARK,
+                                                           WRITE_BUFFER_HIGH_WATER_MARK));
+
+            bootstrap.childHandler(new OFChannelInitializer(this, sslContext));
+            cg = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
             openFlowPorts.forEach(port -> {
                 InetSocketAddress sa = new InetSocketAddress(port);
-                cg.add(bootstrap.bind(sa));
+                cg.add(bootstrap.bind(sa).syncUninterruptibly().channel());
                 log.info("Listening for switch connections on {}", sa);
             });
 
@@ -147,18 +160,31 @@ public class Controller {
     }
 
     private ServerBootstrap createServerBootStrap() {
+        initEventLoopGroups();
+        return new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(serverChannelClass);
+    }
 
-        if (workerThreads == 0) {
-            execFactory = new NioServerSocketChannelFactory(
-                    Executors.newCachedThreadPool(groupedThreads("onos/of", "boss-%d", log)),
-                    Executors.newCachedThreadPool(groupedThreads("onos/of", "worker-%d", log)));
-            return new ServerBootstrap(execFactory);
-        } else {
-            execFactory = new NioServerSocketChannelFactory(
-                    Executors.newCachedThreadPool(groupedThreads("onos/of", "boss-%d", log)),
-                    Executors.newCachedThreadPool(groupedThreads("onos/of", "worker-%d", log)), workerThreads);
-            return new ServerBootstrap(execFactory);
+    private void initEventLoopGroups() {
+        // try Epoll first and if that does work, use nio.
+        // A worker thread count of 0 lets netty pick its default.
+        try {
+            bossGroup = new EpollEventLoopGroup(openFlowPorts.size(),
+                    groupedThreads("onos/of", "boss-%d", log));
+            workerGroup = new EpollEventLoopGroup(workerThreads,
+                    groupedThreads("onos/of", "worker-%d", log));
+            serverChannelClass = EpollServerSocketChannel.class;
+            return;
+        } catch (Throwable e) {
+            log.debug("Failed to initialize native (epoll) transport. "
+                              + "Reason: {}. Proceeding with nio.", e.getMessage());
         }
+        bossGroup = new NioEventLoopGroup(openFlowPorts.size(),
+                groupedThreads("onos/of", "boss-%d", log));
+        workerGroup = new NioEventLoopGroup(workerThreads,
+                groupedThreads("onos/of", "worker-%d", log));
+        serverChannelClass = NioServerSocketChannel.class;
     }
 
     public void setConfigParams(Dictionary<?, ?> properties) {
@@ -316,8 +342,9 @@ public class Controller {
 
     public void stop() {
         log.info("Stopping OpenFlow IO");
-        cg.close();
-        execFactory.shutdown();
+        cg.close().awaitUninterruptibly();
+        bossGroup.shutdownGracefully();
+        workerGroup.shutdownGracefully();
     }
 
 }
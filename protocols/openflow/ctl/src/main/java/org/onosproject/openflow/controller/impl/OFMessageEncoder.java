@@ -16,44 +16,29 @@
 
 package org.onosproject.openflow.controller.impl;
 
-import java.util.List;
-
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
 import org.jboss.netty.buffer.ChannelBuffer;
-import org.jboss.netty.buffer.ChannelBuffers;
-import org.jboss.netty.channel.Channel;
-import org.jboss.netty.channel.ChannelHandlerContext;
-import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
 import org.projectfloodlight.openflow.protocol.OFMessage;
 
 /**
- * Encode an openflow message for output into a ChannelBuffer, for use in a
+ * Encode an openflow message for output into a ByteBuf, for use in a
  * netty pipeline.
  */
-public class OFMessageEncoder extends OneToOneEncoder {
+public class OFMessageEncoder extends MessageToByteEncoder<Iterable<OFMessage>> {
 
     @Override
-    protected Object encode(ChannelHandlerContext ctx, Channel channel,
-                            Object msg) throws Exception {
-        if (!(msg instanceof List)) {
-            return msg;
-        }
-
-        @SuppressWarnings("unchecked")
-        List<OFMessage> msglist = (List<OFMessage>) msg;
-        /* XXX S can't get length of OFMessage in loxigen's openflowj??
-        int size = 0;
-        for (OFMessage ofm : msglist) {
-            size += ofm.getLengthU();
-        }*/
-
-        ChannelBuffer buf = ChannelBuffers.dynamicBuffer();
-
-        for (OFMessage ofm : msglist) {
+    protected void encode(ChannelHandlerContext ctx, Iterable<OFMessage> msgs,
+                          ByteBuf out) throws Exception {
+        // openflowj writes into netty 3 buffers; a view of the outbound
+        // buffer lets it write the messages in place
+        ChannelBuffer buffer = new ByteBufChannelBuffer(out);
+        for (OFMessage ofm : msgs) {
             if (ofm != null) {
-                ofm.writeTo(buf);
+                ofm.writeTo(buffer);
             }
         }
-        return buf;
     }
 
 }
@@ -16,7 +16,7 @@
 package org.onosproject.openflow.controller.impl;
 
 import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
@@ -26,6 +26,8 @@ import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.util.PredictableExecutor;
+import org.onlab.util.PredictableExecutor.PickyRunnable;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.CoreService;
 import org.onosproject.net.device.DeviceEvent;
@@ -128,6 +130,11 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     protected ExecutorService executorMsgs =
         Executors.newFixedThreadPool(32, groupedThreads("onos/of", "event-stats-%d", log));
 
+    // Segments of multipart flow statistics replies are handed over to the
+    // listeners as they arrive, in order for any given switch
+    protected ExecutorService executorFlowStats =
+        new PredictableExecutor(16, groupedThreads("onos/of", "event-flow-stats-%d", log));
+
     private final ExecutorService executorBarrier =
         Executors.newFixedThreadPool(4, groupedThreads("onos/of", "event-barrier-%d", log));
 
@@ -156,16 +163,13 @@ public class OpenFlowControllerImpl implements OpenFlowController {
 
     protected Set<OpenFlowMessageListener> ofMessageListener = new CopyOnWriteArraySet<>();
 
-    protected Multimap<Dpid, OFFlowStatsEntry> fullFlowStats =
-            ArrayListMultimap.create();
-
-    protected Multimap<Dpid, OFTableStatsEntry> fullTableStats =
+    protected ListMultimap<Dpid, OFTableStatsEntry> fullTableStats =
             ArrayListMultimap.create();
 
-    protected Multimap<Dpid, OFGroupStatsEntry> fullGroupStats =
+    protected ListMultimap<Dpid, OFGroupStatsEntry> fullGroupStats =
             ArrayListMultimap.create();
 
-    protected Multimap<Dpid, OFGroupDescStatsEntry> fullGroupDescStats =
+    protected ListMultimap<Dpid, OFGroupDescStatsEntry> fullGroupDescStats =
             ArrayListMultimap.create();
 
     protected Multimap<Dpid, OFPortStatsEntry> fullPortStats =
@@ -286,10 +290,9 @@ public class OpenFlowControllerImpl implements OpenFlowController {
 
     @Override
     public void processPacket(Dpid dpid, OFMessage msg) {
-        Collection<OFFlowStatsEntry> flowStats;
-        Collection<OFTableStatsEntry> tableStats;
-        Collection<OFGroupStatsEntry> groupStats;
-        Collection<OFGroupDescStatsEntry> groupDescStats;
+        List<OFTableStatsEntry> tableStats;
+        List<OFGroupStatsEntry> groupStats;
+        List<OFGroupDescStatsEntry> groupDescStats;
         Collection<OFPortStatsEntry> portStats;
 
         OpenFlowSwitch sw = this.getSwitch(dpid);
@@ -335,21 +338,15 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                     }
                     break;
                 case FLOW:
-                    flowStats = publishFlowStats(dpid, (OFFlowStatsReply) reply);
-                    if (flowStats != null) {
-                        OFFlowStatsReply.Builder rep =
-                                OFFactories.getFactory(msg.getVersion()).buildFlowStatsReply();
-                        rep.setEntries(Lists.newLinkedList(flowStats));
-                        rep.setXid(reply.getXid());
-                        executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
-                    }
+                    // segments are handed over as they arrive, in order
+                    executorFlowStats.execute(new OFMessageHandler(dpid, reply));
                     break;
                 case TABLE:
                     tableStats = publishTableStats(dpid, (OFTableStatsReply) reply);
                     if (tableStats != null) {
                         OFTableStatsReply.Builder rep =
                                 OFFactories.getFactory(msg.getVersion()).buildTableStatsReply();
-                        rep.setEntries(Lists.newLinkedList(tableStats));
+                        rep.setEntries(tableStats);
                         executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
                     }
                     break;
@@ -358,7 +355,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                     if (groupStats != null) {
                         OFGroupStatsReply.Builder rep =
                                 OFFactories.getFactory(msg.getVersion()).buildGroupStatsReply();
-                        rep.setEntries(Lists.newLinkedList(groupStats));
+                        rep.setEntries(groupStats);
                         rep.setXid(reply.getXid());
                         executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
                     }
@@ -369,7 +366,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                     if (groupDescStats != null) {
                         OFGroupDescStatsReply.Builder rep =
                                 OFFactories.getFactory(msg.getVersion()).buildGroupDescStatsReply();
-                        rep.setEntries(Lists.newLinkedList(groupDescStats));
+                        rep.setEntries(groupDescStats);
                         rep.setXid(reply.getXid());
                         executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
                     }
@@ -418,14 +415,9 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                             entries.add(fs);
                         }
                         fsr.setEntries(entries);
-
-                        flowStats = publishFlowStats(dpid, fsr.build());
-                        if (flowStats != null) {
-                            OFFlowStatsReply.Builder rep =
-                                    OFFactories.getFactory(msg.getVersion()).buildFlowStatsReply();
-                            rep.setEntries(Lists.newLinkedList(flowStats));
-                            executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
-                        }
+                        fsr.setFlags(reply.getFlags());
+                        fsr.setXid(reply.getXid());
+                        executorFlowStats.execute(new OFMessageHandler(dpid, fsr.build()));
                     } else {
                         executorMsgs.execute(new OFMessageHandler(dpid, reply));
                     }
@@ -476,19 +468,13 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         }
     }
 
-    private synchronized Collection<OFFlowStatsEntry> publishFlowStats(Dpid dpid,
-                                                                       OFFlowStatsReply reply) {
-        //TODO: Get rid of synchronized
-        fullFlowStats.putAll(dpid, reply.getEntries());
-        if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE)) {
-            return fullFlowStats.removeAll(dpid);
-        }
-        return null;
-    }
-
-    private synchronized Collection<OFTableStatsEntry> publishTableStats(Dpid dpid,
+    private synchronized List<OFTableStatsEntry> publishTableStats(Dpid dpid,
                                                                        OFTableStatsReply reply) {
         //TODO: Get rid of synchronized
+        if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE) && !fullTableStats.containsKey(dpid)) {
+            // single segment reply
+            return reply.getEntries();
+        }
         fullTableStats.putAll(dpid, reply.getEntries());
         if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE)) {
             return fullTableStats.removeAll(dpid);
@@ -496,9 +482,13 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         return null;
     }
 
-    private synchronized Collection<OFGroupStatsEntry> publishGroupStats(Dpid dpid,
+    private synchronized List<OFGroupStatsEntry> publishGroupStats(Dpid dpid,
                                                                       OFGroupStatsReply reply) {
         //TODO: Get rid of synchronized
+        if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE) && !fullGroupStats.containsKey(dpid)) {
+            // single segment reply
+            return reply.getEntries();
+        }
         fullGroupStats.putAll(dpid, reply.getEntries());
         if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE)) {
             return fullGroupStats.removeAll(dpid);
@@ -506,9 +496,13 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         return null;
     }
 
-    private synchronized Collection<OFGroupDescStatsEntry> publishGroupDescStats(Dpid dpid,
+    private synchronized List<OFGroupDescStatsEntry> publishGroupDescStats(Dpid dpid,
                                                                   OFGroupDescStatsReply reply) {
         //TODO: Get rid of synchronized
+        if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE) && !fullGroupDescStats.containsKey(dpid)) {
+            // single segment reply
+            return reply.getEntries();
+        }
         fullGroupDescStats.putAll(dpid, reply.getEntries());
         if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE)) {
             return fullGroupDescStats.removeAll(dpid);
@@ -742,7 +736,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     /**
      * OpenFlow message handler.
      */
-    protected final class OFMessageHandler implements Runnable {
+    protected final class OFMessageHandler implements PickyRunnable {
 
         protected final OFMessage msg;
         protected final Dpid dpid;
@@ -758,5 +752,10 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                 listener.handleMessage(dpid, msg);
             }
         }
+
+        @Override
+        public int hint() {
+            return dpid.hashCode();
+        }
     }
 }
@@ -15,7 +15,7 @@
  */
 package org.onosproject.openflow;
 
-import org.jboss.netty.channel.Channel;
+import io.netty.channel.Channel;
 import org.onosproject.net.Device;
 import org.onosproject.net.driver.DriverData;
 import org.onosproject.net.driver.DriverHandler;
@@ -151,6 +151,11 @@ public class OpenflowSwitchDriverAdapter implements OpenFlowSwitchDriver {
 
     }
 
+    @Override
+    public void resumeWrites() {
+
+    }
+
     @Override
     public void setConnected(boolean connected) {
 
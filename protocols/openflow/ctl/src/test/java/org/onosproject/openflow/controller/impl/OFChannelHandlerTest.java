@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for the OpenFlow channel handler.
+ */
+public class OFChannelHandlerTest {
+
+    // OF version 1.3, unknown message type, xid of 0, total of 8 bytes
+    private static final byte[] MALFORMED = {0x4, 0x7f, 0x0, 0x8, 0x0, 0x0, 0x0, 0x0};
+
+    /**
+     * Tests that a frame the decoder fails to parse disconnects the switch.
+     */
+    @Test
+    public void malformedFrameDisconnects() {
+        EmbeddedChannel channel = new EmbeddedChannel(new OFMessageDecoder(),
+                                                      new OFChannelHandler(new Controller()));
+        channel.writeInbound(Unpooled.copiedBuffer(MALFORMED));
+
+        assertThat(channel.isOpen(), is(false));
+        assertThat(channel.readInbound(), nullValue());
+        // the parse error is handled, not passed on
+        channel.checkException();
+    }
+}
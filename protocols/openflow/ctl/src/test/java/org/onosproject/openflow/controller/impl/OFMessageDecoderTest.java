@@ -16,15 +16,20 @@
 package org.onosproject.openflow.controller.impl;
 
 
-import org.jboss.netty.buffer.ChannelBuffer;
-import org.jboss.netty.buffer.ChannelBuffers;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Test;
-import org.onosproject.core.netty.ChannelAdapter;
-import org.onosproject.openflow.ChannelHandlerContextAdapter;
 import org.projectfloodlight.openflow.protocol.OFHello;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 
@@ -33,19 +38,11 @@ import static org.hamcrest.Matchers.nullValue;
  */
 public class OFMessageDecoderTest {
 
-    static class ConnectedChannel extends ChannelAdapter {
-        @Override
-        public boolean isConnected() {
-            return true;
-        }
-    }
+    // OFHello, OF version 1, xid of 0, total of 8 bytes
+    private static final byte[] HELLO = {0x1, 0x0, 0x0, 0x8, 0x0, 0x0, 0x0, 0x0};
 
-    private ChannelBuffer getHelloMessageBuffer() {
-        // OFHello, OF version 1, xid of 0, total of 8 bytes
-        byte[] messageData = {0x1, 0x0, 0x0, 0x8, 0x0, 0x0, 0x0, 0x0};
-        ChannelBuffer channelBuffer = ChannelBuffers.dynamicBuffer();
-        channelBuffer.writeBytes(messageData);
-        return channelBuffer;
+    private ByteBuf getHelloMessageBuffer() {
+        return Unpooled.copiedBuffer(HELLO);
     }
 
     /**
@@ -56,12 +53,13 @@ public class OFMessageDecoderTest {
     @Test
     public void testDecodeNoChannel() throws Exception {
         OFMessageDecoder decoder = new OFMessageDecoder();
-        ChannelBuffer channelBuffer = getHelloMessageBuffer();
-        Object message =
-                decoder.decode(new ChannelHandlerContextAdapter(),
-                               new ChannelAdapter(),
-                               channelBuffer);
-        assertThat(message, nullValue());
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        ChannelHandlerContext ctx = channel.pipeline().context(decoder);
+        channel.close();
+
+        List<Object> out = new ArrayList<>();
+        decoder.decode(ctx, getHelloMessageBuffer(), out);
+        assertThat(out, hasSize(0));
     }
 
     /**
@@ -71,14 +69,35 @@ public class OFMessageDecoderTest {
      */
     @Test
     public void testDecode() throws Exception {
-        OFMessageDecoder decoder = new OFMessageDecoder();
-        ChannelBuffer channelBuffer = getHelloMessageBuffer();
-        Object message =
-                decoder.decode(new ChannelHandlerContextAdapter(),
-                               new ConnectedChannel(),
-                               channelBuffer);
+        EmbeddedChannel channel = new EmbeddedChannel(new OFMessageDecoder());
+        channel.writeInbound(getHelloMessageBuffer());
+        Object message = channel.readInbound();
         assertThat(message, notNullValue());
         assertThat(message, instanceOf(OFHello.class));
+        assertThat(channel.readInbound(), nullValue());
+    }
+
+    /**
+     * Tests decoding messages split across and packed within reads.
+     *
+     * @throws Exception when an exception is thrown from the decoder
+     */
+    @Test
+    public void testDecodeFragmented() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new OFMessageDecoder());
+        ByteBuf first = Unpooled.buffer();
+        first.writeBytes(HELLO);
+        first.writeBytes(HELLO, 0, 3);
+        ByteBuf second = Unpooled.copiedBuffer(HELLO, 3, HELLO.length - 3);
+
+        channel.writeInbound(first);
+        assertThat(channel.readInbound(), instanceOf(OFHello.class));
+        assertThat(channel.readInbound(), nullValue());
+
+        channel.writeInbound(second);
+        assertThat(channel.readInbound(), instanceOf(OFHello.class));
+        assertThat(channel.readInbound(), nullValue());
+        assertThat(channel.finish(), is(false));
     }
 
 }
@@ -16,15 +16,23 @@
 package org.onosproject.openflow.controller.impl;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
 import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.junit.Test;
 import org.onosproject.openflow.OfMessageAdapter;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
 import org.projectfloodlight.openflow.protocol.OFMessage;
 import org.projectfloodlight.openflow.protocol.OFType;
+import org.projectfloodlight.openflow.protocol.OFVersion;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -58,10 +66,10 @@ public class OFMessageEncoderTest {
      */
     @Test
     public void testNoList() throws Exception {
-        OFMessageEncoder encoder = new OFMessageEncoder();
+        EmbeddedChannel channel = new EmbeddedChannel(new OFMessageEncoder());
         MockOfMessage message = new MockOfMessage();
-        OFMessage returnedMessage =
-                (OFMessage) encoder.encode(null, null, message);
+        channel.writeOutbound(message);
+        OFMessage returnedMessage = channel.readOutbound();
         assertThat(message, is(returnedMessage));
     }
 
@@ -72,19 +80,46 @@ public class OFMessageEncoderTest {
      */
     @Test
     public void testList() throws Exception {
-        OFMessageEncoder encoder = new OFMessageEncoder();
+        EmbeddedChannel channel = new EmbeddedChannel(new OFMessageEncoder());
         MockOfMessage message1 = new MockOfMessage();
         MockOfMessage message2 = new MockOfMessage();
         MockOfMessage message3 = new MockOfMessage();
         List<MockOfMessage> messages = ImmutableList.of(message1, message2, message3);
-        ChannelBuffer returnedChannel =
-                (ChannelBuffer) encoder.encode(null, null, messages);
-        assertThat(returnedChannel, notNullValue());
-        byte[] channelBytes = returnedChannel.array();
+        channel.writeOutbound(messages);
+        ByteBuf returnedBuffer = channel.readOutbound();
+        assertThat(returnedBuffer, notNullValue());
         String expectedListMessage = "message1 message2 message3 ";
-        String listMessage =
-                (new String(channelBytes, StandardCharsets.UTF_8))
-                        .substring(0, expectedListMessage.length());
+        String listMessage = returnedBuffer.toString(StandardCharsets.UTF_8);
         assertThat(listMessage, is(expectedListMessage));
+        returnedBuffer.release();
+    }
+
+    /**
+     * Tests that messages whose length is set after their body is written
+     * are encoded intact, also when the outbound buffer has to grow.
+     *
+     * @throws Exception on exception in the encoder or the reader
+     */
+    @Test
+    public void testEncodedInPlace() throws Exception {
+        OFFactory factory = OFFactories.getFactory(OFVersion.OF_13);
+        List<OFMessage> messages = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            byte[] data = new byte[1000 * i];
+            Arrays.fill(data, (byte) i);
+            messages.add(factory.buildEchoRequest().setXid(i).setData(data).build());
+        }
+        EmbeddedChannel channel = new EmbeddedChannel(new OFMessageEncoder());
+        channel.writeOutbound(messages);
+        ByteBuf returnedBuffer = channel.readOutbound();
+
+        byte[] bytes = new byte[returnedBuffer.readableBytes()];
+        returnedBuffer.readBytes(bytes);
+        returnedBuffer.release();
+        ChannelBuffer encoded = ChannelBuffers.wrappedBuffer(bytes);
+        for (OFMessage message : messages) {
+            assertThat(OFFactories.getGenericReader().readFrom(encoded), is(message));
+        }
+        assertThat(encoded.readable(), is(false));
     }
 }
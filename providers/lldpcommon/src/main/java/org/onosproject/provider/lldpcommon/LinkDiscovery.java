@@ -15,6 +15,8 @@
  */
 package org.onosproject.provider.lldpcommon;
 
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 
 import org.jboss.netty.util.Timeout;
@@ -38,7 +40,11 @@ import org.onosproject.net.link.ProbedLinkProvider;
 import org.slf4j.Logger;
 
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -52,25 +58,38 @@ import static org.slf4j.LoggerFactory.getLogger;
  * fast. Every probeRate milliseconds, loop over all fast ports and send an
  * LLDP, send an LLDP for a single slow port. Based on FlowVisor topology
  * discovery implementation.
+ * <p>
+ * The probes of each port are serialized once and re-sent as is. The ports of
+ * a device are probed in batches spread over the probe interval, starting at
+ * a random offset, rather than all at once.
  */
 public class LinkDiscovery implements TimerTask {
 
     private final Logger log = getLogger(getClass());
 
+    // Ports probed in one batch, at most; unless batches would be sent
+    // more often than every MIN_BATCH_INTERVAL milliseconds
+    private static final int PROBE_BATCH_SIZE = 64;
+    private static final long MIN_BATCH_INTERVAL = 100;
+
     private final Device device;
     private final LinkDiscoveryContext context;
 
-    private final Ethernet ethPacket;
-    private final Ethernet bddpEth;
-
     private Timeout timeout;
     private volatile boolean isStopped;
     // Set of ports to be probed
     private final Set<Long> ports = Sets.newConcurrentHashSet();
+    // Serialized probes of the ports, built with the fingerprint below
+    private final Map<Long, ProbeFrames> probes = Maps.newConcurrentMap();
+    private volatile String probeFingerprint;
+    // Ports probed in the current round, as of its start, the number of
+    // batches they are probed in and the next of these; timer thread only
+    private List<Long> roundPorts = Collections.emptyList();
+    private int roundBatches = 1;
+    private int batch;
 
     /**
-     * Instantiates discovery manager for the given physical switch. Creates a
-     * generic LLDP packet that will be customized for the port it is sent out on.
+     * Instantiates discovery manager for the given physical switch.
      * Starts the the timer for the discovery process.
      *
      * @param device  the physical switch
@@ -80,16 +99,6 @@ public class LinkDiscovery implements TimerTask {
         this.device = device;
         this.context = context;
 
-        ethPacket = new Ethernet();
-        ethPacket.setEtherType(Ethernet.TYPE_LLDP);
-        ethPacket.setDestinationMACAddress(ONOSLLDP.LLDP_ONLAB);
-        ethPacket.setPad(true);
-
-        bddpEth = new Ethernet();
-        bddpEth.setEtherType(Ethernet.TYPE_BSN);
-        bddpEth.setDestinationMACAddress(ONOSLLDP.BDDP_MULTICAST);
-        bddpEth.setPad(true);
-
         isStopped = true;
         start();
         log.debug("Started discovery manager for switch {}", device.id());
@@ -108,7 +117,9 @@ public class LinkDiscovery implements TimerTask {
     public synchronized void start() {
         if (isStopped) {
             isStopped = false;
-            timeout = Timer.getTimer().newTimeout(this, 0, MILLISECONDS);
+            // random offset, so that devices are not probed in lockstep
+            long offset = ThreadLocalRandom.current().nextLong(batchInterval(batchCount(ports.size())));
+            timeout = Timer.getTimer().newTimeout(this, offset, MILLISECONDS);
         } else {
             log.warn("LinkDiscovery started multiple times?");
         }
@@ -129,6 +140,7 @@ public class LinkDiscovery implements TimerTask {
         boolean isMaster = context.mastershipService().isLocalMaster(device.id());
         if (newPort && isMaster) {
             log.debug("Sending initial probe to port {}@{}", port.number().toLong(), device.id());
+            checkFingerprint();
             sendProbes(port.number().toLong());
         }
     }
@@ -139,6 +151,7 @@ public class LinkDiscovery implements TimerTask {
      */
     public void removePort(PortNumber port) {
         ports.remove(port.toLong());
+        probes.remove(port.toLong());
     }
 
     /**
@@ -199,9 +212,15 @@ public class LinkDiscovery implements TimerTask {
     }
 
     /**
-     * Execute this method every t milliseconds. Loops over all ports
-     * labeled as fast and sends out an LLDP. Send out an LLDP on a single slow
-     * port.
+     * Execute this method every t milliseconds. Sends out an LLDP on the
+     * ports of the next batch, so that all ports are probed once every
+     * probeRate milliseconds.
+     * <p>
+     * The ports and the number of batches are fixed at the start of each
+     * round; the ports are split by position into batches of even size.
+     * Ports added during a round are probed once when added and join the
+     * next round.
+     * </p>
      *
      * @param t timeout
      */
@@ -211,16 +230,37 @@ public class LinkDiscovery implements TimerTask {
             return;
         }
 
+        if (batch == 0) {
+            roundPorts = Ordering.natural().sortedCopy(ports);
+            roundBatches = batchCount(roundPorts.size());
+        }
+        int current = batch;
+        batch = (batch + 1) % roundBatches;
         if (context.mastershipService().isLocalMaster(device.id())) {
-            log.trace("Sending probes from {}", device.id());
-            ports.forEach(this::sendProbes);
+            log.trace("Sending probes from {}, batch {} of {}", device.id(), current, roundBatches);
+            checkFingerprint();
+            int size = roundPorts.size();
+            roundPorts.subList(current * size / roundBatches, (current + 1) * size / roundBatches).stream()
+                    .filter(ports::contains)
+                    .forEach(this::sendProbes);
         }
 
         if (!isStopped()) {
-            timeout = Timer.getTimer().newTimeout(this, context.probeRate(), MILLISECONDS);
+            timeout = Timer.getTimer().newTimeout(this, batchInterval(roundBatches), MILLISECONDS);
         }
     }
 
+    // Number of batches the given number of ports are probed in, in a round
+    private int batchCount(int portCount) {
+        long maxBatches = Math.max(1, context.probeRate() / MIN_BATCH_INTERVAL);
+        long batches = (portCount + PROBE_BATCH_SIZE - 1) / PROBE_BATCH_SIZE;
+        return (int) Math.max(1, Math.min(batches, maxBatches));
+    }
+
+    private long batchInterval(int batches) {
+        return Math.max(1, context.probeRate() / batches);
+    }
+
     /**
      * Creates packet_out LLDP for specified output port.
      *
@@ -231,11 +271,7 @@ public class LinkDiscovery implements TimerTask {
         if (port == null) {
             return null;
         }
-        ONOSLLDP lldp = getLinkProbe(port);
-        ethPacket.setSourceMACAddress(context.fingerprint()).setPayload(lldp);
-        return new DefaultOutboundPacket(device.id(),
-                                         builder().setOutput(portNumber(port)).build(),
-                                         ByteBuffer.wrap(ethPacket.serialize()));
+        return createOutBound(port, getProbeFrames(port).lldp);
     }
 
     /**
@@ -248,11 +284,27 @@ public class LinkDiscovery implements TimerTask {
         if (port == null) {
             return null;
         }
-        ONOSLLDP lldp = getLinkProbe(port);
-        bddpEth.setSourceMACAddress(context.fingerprint()).setPayload(lldp);
+        return createOutBound(port, getProbeFrames(port).bddp);
+    }
+
+    private OutboundPacket createOutBound(Long port, byte[] frame) {
         return new DefaultOutboundPacket(device.id(),
                                          builder().setOutput(portNumber(port)).build(),
-                                         ByteBuffer.wrap(bddpEth.serialize()));
+                                         ByteBuffer.wrap(frame));
+    }
+
+    // Probes carry the fingerprint as source MAC; they are all rebuilt,
+    // lazily, if it changed
+    private void checkFingerprint() {
+        String fingerprint = context.fingerprint();
+        if (!fingerprint.equals(probeFingerprint)) {
+            probes.clear();
+            probeFingerprint = fingerprint;
+        }
+    }
+
+    private ProbeFrames getProbeFrames(Long port) {
+        return probes.computeIfAbsent(port, p -> new ProbeFrames(probeFingerprint, getLinkProbe(p)));
     }
 
     private ONOSLLDP getLinkProbe(Long port) {
@@ -272,6 +324,28 @@ public class LinkDiscovery implements TimerTask {
         }
     }
 
+    // Serialized LLDP and BDDP frames probing a port; never modified
+    private static final class ProbeFrames {
+        private final byte[] lldp;
+        private final byte[] bddp;
+
+        private ProbeFrames(String fingerprint, ONOSLLDP lldpProbe) {
+            Ethernet ethPacket = new Ethernet();
+            ethPacket.setEtherType(Ethernet.TYPE_LLDP);
+            ethPacket.setDestinationMACAddress(ONOSLLDP.LLDP_ONLAB);
+            ethPacket.setPad(true);
+            ethPacket.setSourceMACAddress(fingerprint).setPayload(lldpProbe);
+            lldp = ethPacket.serialize();
+
+            Ethernet bddpEth = new Ethernet();
+            bddpEth.setEtherType(Ethernet.TYPE_BSN);
+            bddpEth.setDestinationMACAddress(ONOSLLDP.BDDP_MULTICAST);
+            bddpEth.setPad(true);
+            bddpEth.setSourceMACAddress(fingerprint).setPayload(lldpProbe);
+            bddp = bddpEth.serialize();
+        }
+    }
+
     public boolean containsPort(long portNumber) {
         return ports.contains(portNumber);
     }
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.lldpcommon;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.ChassisId;
+import org.onlab.packet.Ethernet;
+import org.onosproject.mastership.MastershipService;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.DefaultDevice;
+import org.onosproject.net.DefaultPort;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.LinkKey;
+import org.onosproject.net.device.DeviceService;
+import org.onosproject.net.flow.instructions.Instructions.OutputInstruction;
+import org.onosproject.net.link.LinkProviderService;
+import org.onosproject.net.packet.OutboundPacket;
+import org.onosproject.net.packet.PacketService;
+import org.onosproject.net.packet.PacketServiceAdapter;
+import org.onosproject.net.provider.ProviderId;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.PortNumber.portNumber;
+
+/**
+ * Tests of the link discovery of a device.
+ */
+public class LinkDiscoveryTest {
+
+    private static final Device DEVICE =
+            new DefaultDevice(new ProviderId("of", "foo"), DeviceId.deviceId("of:1"), Device.Type.SWITCH,
+                              "", "", "", "", new ChassisId(1));
+    // long enough for the timer not to run the discovery during a test
+    private static final long PROBE_RATE = 3600000;
+    private static final String MAC1 = "02:EB:00:00:00:01";
+    private static final String MAC2 = "02:EB:00:00:00:02";
+
+    private final TestContext context = new TestContext();
+    private LinkDiscovery discovery;
+
+    @Before
+    public void setUp() {
+        discovery = new LinkDiscovery(DEVICE, context);
+    }
+
+    @After
+    public void tearDown() {
+        discovery.stop();
+    }
+
+    private void addPorts(long from, long to) {
+        LongStream.rangeClosed(from, to).forEach(
+                port -> discovery.addPort(new DefaultPort(DEVICE, portNumber(port), true)));
+    }
+
+    private static long outPort(OutboundPacket packet) {
+        return ((OutputInstruction) packet.treatment().allInstructions().get(0)).port().toLong();
+    }
+
+    private static String sourceMac(OutboundPacket packet) throws Exception {
+        byte[] frame = packet.data().array();
+        return Ethernet.deserializer().deserialize(frame, 0, frame.length).getSourceMAC().toString();
+    }
+
+    /**
+     * Tests that the frames of a port are built once and re-sent as is.
+     */
+    @Test
+    public void probeFramesCached() throws Exception {
+        addPorts(1, 1);
+        discovery.run(null);
+        discovery.run(null);
+
+        assertEquals(3, context.emitted.size());
+        byte[] frame = context.emitted.get(0).data().array();
+        assertSame(frame, context.emitted.get(1).data().array());
+        assertSame(frame, context.emitted.get(2).data().array());
+        assertEquals(MAC1, sourceMac(context.emitted.get(2)));
+    }
+
+    /**
+     * Tests that the frames are rebuilt with the new fingerprint once it
+     * changes.
+     */
+    @Test
+    public void probeFramesRebuiltOnFingerprintChange() throws Exception {
+        addPorts(1, 1);
+        discovery.run(null);
+        byte[] frame = context.emitted.get(1).data().array();
+
+        context.fingerprint = MAC2;
+        discovery.run(null);
+        discovery.run(null);
+
+        assertNotSame(frame, context.emitted.get(2).data().array());
+        assertSame(context.emitted.get(2).data().array(), context.emitted.get(3).data().array());
+        assertEquals(MAC2, sourceMac(context.emitted.get(2)));
+    }
+
+    /**
+     * Tests that the ports are spread evenly over the batches of a round,
+     * and that ports added during the round do not change its batches.
+     */
+    @Test
+    public void probesSpreadOverBatches() {
+        // 200 ports, probed in 4 batches of 50
+        addPorts(1, 200);
+        context.emitted.clear();
+
+        Set<Long> probed = new HashSet<>();
+        discovery.run(null);
+        assertEquals(50, context.emitted.size());
+        probed.addAll(emittedPorts());
+
+        // would be probed in 5 batches from the next round on
+        addPorts(201, 300);
+        context.emitted.clear();
+        for (int i = 1; i < 4; i++) {
+            discovery.run(null);
+            assertEquals(50, context.emitted.size());
+            probed.addAll(emittedPorts());
+            context.emitted.clear();
+        }
+        assertEquals(LongStream.rangeClosed(1, 200).boxed().collect(Collectors.toSet()), probed);
+
+        // the next round probes all 300 ports in 5 batches
+        probed.clear();
+        for (int i = 0; i < 5; i++) {
+            discovery.run(null);
+            assertEquals(60, context.emitted.size());
+            probed.addAll(emittedPorts());
+            context.emitted.clear();
+        }
+        assertEquals(300, probed.size());
+        assertTrue(probed.contains(300L));
+    }
+
+    private Set<Long> emittedPorts() {
+        return context.emitted.stream().map(LinkDiscoveryTest::outPort).collect(Collectors.toSet());
+    }
+
+    // Context of a locally mastered device, recording the probes sent.
+    private static class TestContext implements LinkDiscoveryContext {
+        private final List<OutboundPacket> emitted = Lists.newArrayList();
+        private String fingerprint = MAC1;
+
+        private final MastershipService mastershipService = new MastershipServiceAdapter() {
+            @Override
+            public boolean isLocalMaster(DeviceId deviceId) {
+                return true;
+            }
+        };
+
+        private final PacketService packetService = new PacketServiceAdapter() {
+            @Override
+            public void emit(OutboundPacket packet) {
+                emitted.add(packet);
+            }
+        };
+
+        @Override
+        public MastershipService mastershipService() {
+            return mastershipService;
+        }
+
+        @Override
+        public LinkProviderService providerService() {
+            return null;
+        }
+
+        @Override
+        public PacketService packetService() {
+            return packetService;
+        }
+
+        @Override
+        public DeviceService deviceService() {
+            return null;
+        }
+
+        @Override
+        public long probeRate() {
+            return PROBE_RATE;
+        }
+
+        @Override
+        public boolean useBddp() {
+            return false;
+        }
+
+        @Override
+        public void touchLink(LinkKey key) {
+        }
+
+        @Override
+        public String fingerprint() {
+            return fingerprint;
+        }
+    }
+}
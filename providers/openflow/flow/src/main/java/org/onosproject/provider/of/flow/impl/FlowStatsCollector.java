@@ -25,6 +25,7 @@ import org.slf4j.Logger;
 
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -37,12 +38,20 @@ class FlowStatsCollector implements SwitchDataCollector {
 
     public static final int SECONDS = 1000;
 
+    private static final long NO_PENDING_XID = -1;
+    // Polls skipped while a reply is pending, before it is deemed lost
+    private static final int MAX_SKIPPED_POLLS = 3;
+
     private final OpenFlowSwitch sw;
     private Timer timer;
     private TimerTask task;
 
     private int pollInterval;
 
+    // Request whose reply is still being streamed from the switch
+    private final AtomicLong pendingXid = new AtomicLong(NO_PENDING_XID);
+    private int skippedPolls;
+
     /**
      * Creates a new collector for the given switch and poll frequency.
      *
@@ -68,16 +77,33 @@ class FlowStatsCollector implements SwitchDataCollector {
         timer.scheduleAtFixedRate(task, pollInterval * SECONDS, pollInterval * 1000);
     }
 
+    /**
+     * Signals that the last segment of the reply to a request was processed.
+     *
+     * @param xid transaction id of the reply
+     */
+    void replyCompleted(long xid) {
+        pendingXid.compareAndSet(xid, NO_PENDING_XID);
+    }
+
     private class InternalTimerTask extends TimerTask {
         @Override
         public void run() {
             if (sw.getRole() == RoleState.MASTER) {
+                // do not pile up requests on a switch whose flow table is
+                // still being streamed and reconciled
+                if (pendingXid.get() != NO_PENDING_XID && skippedPolls++ < MAX_SKIPPED_POLLS) {
+                    log.debug("Flow stats of {} still pending; skipping poll", sw.getStringId());
+                    return;
+                }
+                skippedPolls = 0;
                 log.trace("Collecting stats for {}", sw.getStringId());
                 OFFlowStatsRequest request = sw.factory().buildFlowStatsRequest()
                         .setMatch(sw.factory().matchWildcardAll())
                         .setTableId(TableId.ALL)
                         .setOutPort(OFPort.NO_MASK)
                         .build();
+                pendingXid.set(request.getXid());
                 sw.sendMsg(request);
             }
         }
@@ -111,7 +111,7 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
     public static final long NO_FLOW_MISSING_XID = (-1);
     private long flowMissingXid = NO_FLOW_MISSING_XID;
 
-    private FlowRuleService flowRuleService;
+    private final FlowRuleService flowRuleService;
 
     /**
      * Creates a new adaptive collector for the given switch and default cal_and_poll frequency.
@@ -121,11 +121,23 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
      * @param pollInterval  cal and immediate poll frequency in seconds
      */
     NewAdaptiveFlowStatsCollector(DriverService driverService, OpenFlowSwitch sw, int pollInterval) {
+        this(driverService, sw, pollInterval, get(FlowRuleService.class));
+    }
+
+    /**
+     * Creates a new adaptive collector for the given switch and default cal_and_poll frequency.
+     *
+     * @param driverService   driver service reference
+     * @param sw              switch to pull
+     * @param pollInterval    cal and immediate poll frequency in seconds
+     * @param flowRuleService flow rule service reference
+     */
+    NewAdaptiveFlowStatsCollector(DriverService driverService, OpenFlowSwitch sw, int pollInterval,
+                                  FlowRuleService flowRuleService) {
         this.driverService = driverService;
         this.sw = sw;
         this.did = DeviceId.deviceId(Dpid.uri(sw.getId()));
-
-        flowRuleService = get(FlowRuleService.class);
+        this.flowRuleService = flowRuleService;
 
         initMemberVars(pollInterval);
     }
@@ -69,6 +69,7 @@ import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
 import org.projectfloodlight.openflow.protocol.OFMessage;
 import org.projectfloodlight.openflow.protocol.OFPortStatus;
 import org.projectfloodlight.openflow.protocol.OFStatsReply;
+import org.projectfloodlight.openflow.protocol.OFStatsReplyFlags;
 import org.projectfloodlight.openflow.protocol.OFStatsType;
 import org.projectfloodlight.openflow.protocol.OFTableStatsEntry;
 import org.projectfloodlight.openflow.protocol.OFTableStatsReply;
@@ -612,6 +613,8 @@ public class OpenFlowRuleProvider extends AbstractProvider
 
             DeviceId did = DeviceId.deviceId(Dpid.uri(dpid));
             NewAdaptiveFlowStatsCollector afsc = afsCollectors.get(dpid);
+            // replies come in segments, which are pushed as they arrive
+            boolean last = !replies.getFlags().contains(OFStatsReplyFlags.REPLY_MORE);
 
             if (adaptiveFlowSampling && afsc != null)  {
                 List<FlowEntry> flowEntries = replies.getEntries().stream()
@@ -619,19 +622,21 @@ public class OpenFlowRuleProvider extends AbstractProvider
                         .collect(Collectors.toList());
 
                 // Check that OFFlowStatsReply Xid is same with the one of OFFlowStatsRequest?
-                if (afsc.getFlowMissingXid() != NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID) {
-                        log.debug("OpenFlowRuleProvider:pushFlowMetrics, flowMissingXid={}, "
-                                          + "OFFlowStatsReply Xid={}, for {}",
-                                  afsc.getFlowMissingXid(), replies.getXid(), dpid);
-                    if (afsc.getFlowMissingXid() == replies.getXid()) {
-                        // call entire flow stats update with flowMissing synchronization.
-                        // used existing pushFlowMetrics
-                        providerService.pushFlowMetrics(did, flowEntries);
+                log.debug("OpenFlowRuleProvider:pushFlowMetrics, flowMissingXid={}, "
+                                  + "OFFlowStatsReply Xid={}, for {}",
+                          afsc.getFlowMissingXid(), replies.getXid(), dpid);
+                if (afsc.getFlowMissingXid() != NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID
+                        && afsc.getFlowMissingXid() == replies.getXid()) {
+                    // call entire flow stats update with flowMissing synchronization.
+                    providerService.pushFlowMetricsSegment(did, flowEntries, replies.getXid(), last);
+                    if (last) {
+                        // reset flowMissingXid to NO_FLOW_MISSING_XID
+                        afsc.setFlowMissingXid(NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID);
                     }
-                    // reset flowMissingXid to NO_FLOW_MISSING_XID
-                    afsc.setFlowMissingXid(NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID);
                 } else {
-                    // call individual flow stats update
+                    // call individual flow stats update; replies to the
+                    // individual requests may interleave with the segments
+                    // of the flowMissing one, which is left pending
                     providerService.pushFlowMetricsWithoutFlowMissing(did, flowEntries);
                 }
             } else {
@@ -639,8 +644,12 @@ public class OpenFlowRuleProvider extends AbstractProvider
                         .map(entry -> new FlowEntryBuilder(did, entry, driverService).build())
                         .collect(Collectors.toList());
 
-                // call existing entire flow stats update with flowMissing synchronization
-                providerService.pushFlowMetrics(did, flowEntries);
+                // call entire flow stats update with flowMissing synchronization
+                providerService.pushFlowMetricsSegment(did, flowEntries, replies.getXid(), last);
+                FlowStatsCollector fsc = simpleCollectors.get(dpid);
+                if (last && fsc != null) {
+                    fsc.replyCompleted(replies.getXid());
+                }
             }
         }
 
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.junit.TestUtils;
+import org.onlab.osgi.ComponentContextAdapter;
+import org.onosproject.cfg.ComponentConfigAdapter;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.driver.DefaultDriver;
+import org.onosproject.net.driver.Driver;
+import org.onosproject.net.driver.DriverServiceAdapter;
+import org.onosproject.net.flow.CompletedBatchOperation;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRuleProvider;
+import org.onosproject.net.flow.FlowRuleProviderRegistry;
+import org.onosproject.net.flow.FlowRuleProviderService;
+import org.onosproject.net.flow.FlowRuleServiceAdapter;
+import org.onosproject.net.flow.TableStatisticsEntry;
+import org.onosproject.net.provider.AbstractProviderService;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.openflow.controller.Dpid;
+import org.onosproject.openflow.controller.OpenFlowEventListener;
+import org.onosproject.openflow.controller.OpenFlowSwitch;
+import org.onosproject.openflow.controller.OpenFlowSwitchAdapter;
+import org.onosproject.openflow.controller.OpenflowControllerAdapter;
+import org.onosproject.openflow.controller.RoleState;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsEntry;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
+import org.projectfloodlight.openflow.protocol.OFStatsReplyFlags;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+import org.projectfloodlight.openflow.types.TableId;
+import org.projectfloodlight.openflow.types.U64;
+
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.EnumSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.onosproject.provider.of.flow.impl.NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID;
+
+/**
+ * Tests of the pushes of flow statistics replies by the OpenFlow flow rule provider.
+ */
+public class OpenFlowRuleProviderTest {
+
+    private static final OFFactory FACTORY = OFFactories.getFactory(OFVersion.OF_13);
+    private static final Dpid DPID = new Dpid(1);
+    private static final DeviceId DID = DeviceId.deviceId(Dpid.uri(DPID));
+
+    private final OpenFlowRuleProvider provider = new OpenFlowRuleProvider();
+    private final TestController controller = new TestController();
+    private final List<String> pushes = Lists.newArrayList();
+
+    @Before
+    public void setUp() {
+        provider.providerRegistry = new TestProviderRegistry();
+        provider.controller = controller;
+        provider.cfgService = new ComponentConfigAdapter();
+        provider.driverService = new TestDriverService();
+        provider.activate(new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                return new Hashtable<>();
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        provider.deactivate(null);
+    }
+
+    private static OFFlowStatsReply reply(long xid, boolean more, int... cookies) {
+        List<OFFlowStatsEntry> entries = Lists.newArrayList();
+        for (int cookie : cookies) {
+            entries.add(FACTORY.buildFlowStatsEntry()
+                                .setMatch(FACTORY.buildMatch().build())
+                                .setTableId(TableId.of(0))
+                                .setPriority(cookie)
+                                .setCookie(U64.of(cookie))
+                                .setInstructions(Collections.emptyList())
+                                .build());
+        }
+        return FACTORY.buildFlowStatsReply()
+                .setXid(xid)
+                .setFlags(more ? EnumSet.of(OFStatsReplyFlags.REPLY_MORE)
+                                  : EnumSet.noneOf(OFStatsReplyFlags.class))
+                .setEntries(entries)
+                .build();
+    }
+
+    // Starts adaptive sampling with a collector waiting for the given reply
+    private NewAdaptiveFlowStatsCollector adaptiveCollector(long flowMissingXid)
+            throws TestUtils.TestUtilsException {
+        NewAdaptiveFlowStatsCollector afsc = new NewAdaptiveFlowStatsCollector(
+                provider.driverService, new TestSwitch(), 60, new FlowRuleServiceAdapter());
+        afsc.setFlowMissingXid(flowMissingXid);
+        TestUtils.setField(provider, "adaptiveFlowSampling", true);
+        Map<Dpid, NewAdaptiveFlowStatsCollector> collectors =
+                TestUtils.getField(provider, "afsCollectors");
+        collectors.put(DPID, afsc);
+        return afsc;
+    }
+
+    /**
+     * Tests that the segments of interleaved replies are pushed with their
+     * reply identifiers, leaving the manager to drop the stale tail of the
+     * superseded reply.
+     */
+    @Test
+    public void interleavedReplies() {
+        controller.reply(reply(7, true, 1, 2));
+        controller.reply(reply(8, false, 1));
+        controller.reply(reply(7, false, 3));
+        assertEquals(ImmutableList.of("segment 7 2 more", "segment 8 1 last", "segment 7 1 last"),
+                     pushes);
+    }
+
+    /**
+     * Tests that a new reply is pushed as such after an abandoned one.
+     */
+    @Test
+    public void abandonedReply() {
+        controller.reply(reply(7, true, 1, 2));
+        controller.reply(reply(8, true, 1, 2));
+        controller.reply(reply(8, false, 3));
+        assertEquals(ImmutableList.of("segment 7 2 more", "segment 8 2 more", "segment 8 1 last"),
+                     pushes);
+    }
+
+    /**
+     * Tests that, with adaptive sampling, replies to individual requests
+     * interleaved with the reply of the entire flow table leave it pending.
+     */
+    @Test
+    public void adaptiveInterleavedReplies() throws TestUtils.TestUtilsException {
+        NewAdaptiveFlowStatsCollector afsc = adaptiveCollector(7);
+        controller.reply(reply(7, true, 1, 2));
+        controller.reply(reply(9, false, 1));
+        assertEquals(7, afsc.getFlowMissingXid());
+        controller.reply(reply(7, false, 3));
+        assertEquals(NO_FLOW_MISSING_XID, afsc.getFlowMissingXid());
+        assertEquals(ImmutableList.of("segment 7 2 more", "individual 1", "segment 7 1 last"),
+                     pushes);
+    }
+
+    /**
+     * Tests that, with adaptive sampling, the rest of an abandoned reply of
+     * the entire flow table is pushed as individual updates.
+     */
+    @Test
+    public void adaptiveAbandonedReply() throws TestUtils.TestUtilsException {
+        NewAdaptiveFlowStatsCollector afsc = adaptiveCollector(7);
+        controller.reply(reply(7, true, 1, 2));
+        // the collector gives up on the reply, and later asks again
+        afsc.setFlowMissingXid(10);
+        controller.reply(reply(7, false, 3));
+        controller.reply(reply(10, false, 1, 2, 3));
+        assertEquals(NO_FLOW_MISSING_XID, afsc.getFlowMissingXid());
+        assertEquals(ImmutableList.of("segment 7 2 more", "individual 1", "segment 10 3 last"),
+                     pushes);
+    }
+
+    private class TestController extends OpenflowControllerAdapter {
+        private OpenFlowEventListener listener;
+
+        @Override
+        public Iterable<OpenFlowSwitch> getSwitches() {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public void addEventListener(OpenFlowEventListener listener) {
+            this.listener = listener;
+        }
+
+        void reply(OFFlowStatsReply reply) {
+            listener.handleMessage(DPID, reply);
+        }
+    }
+
+    // Driver service handing out a driver without any behaviours.
+    private static class TestDriverService extends DriverServiceAdapter {
+        private final Driver driver = new DefaultDriver("test", ImmutableList.of(), "", "", "",
+                                                        ImmutableMap.of(), ImmutableMap.of());
+
+        @Override
+        public Driver getDriver(DeviceId deviceId) {
+            return driver;
+        }
+    }
+
+    // Switch never polled by the collectors, which only poll as master
+    private static class TestSwitch extends OpenFlowSwitchAdapter {
+        @Override
+        public long getId() {
+            return DPID.value();
+        }
+
+        @Override
+        public OFFactory factory() {
+            return FACTORY;
+        }
+
+        @Override
+        public RoleState getRole() {
+            return RoleState.SLAVE;
+        }
+    }
+
+    private class TestProviderRegistry implements FlowRuleProviderRegistry {
+        @Override
+        public FlowRuleProviderService register(FlowRuleProvider provider) {
+            return new TestProviderService(provider);
+        }
+
+        @Override
+        public void unregister(FlowRuleProvider provider) {
+        }
+
+        @Override
+        public Set<ProviderId> getProviders() {
+            return null;
+        }
+    }
+
+    private class TestProviderService extends AbstractProviderService<FlowRuleProvider>
+            implements FlowRuleProviderService {
+
+        TestProviderService(FlowRuleProvider provider) {
+            super(provider);
+        }
+
+        @Override
+        public void flowRemoved(FlowEntry flowEntry) {
+        }
+
+        @Override
+        public void pushFlowMetrics(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
+            pushes.add("entire " + Iterables.size(flowEntries));
+        }
+
+        @Override
+        public void pushFlowMetricsWithoutFlowMissing(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
+            pushes.add("individual " + Iterables.size(flowEntries));
+        }
+
+        @Override
+        public void pushFlowMetricsSegment(DeviceId deviceId, Iterable<FlowEntry> flowEntries,
+                                           long replyId, boolean last) {
+            assertEquals(DID, deviceId);
+            pushes.add("segment " + replyId + " " + Iterables.size(flowEntries) + (last ? " last" : " more"));
+        }
+
+        @Override
+        public void pushTableStatistics(DeviceId deviceId, List<TableStatisticsEntry> tableStatsEntries) {
+        }
+
+        @Override
+        public void batchOperationCompleted(long batchId, CompletedBatchOperation operation) {
+        }
+    }
+}
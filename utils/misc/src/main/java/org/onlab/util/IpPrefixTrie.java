@@ -0,0 +1,370 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.util;
+
+import com.google.common.collect.ImmutableList;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Path-compressed binary trie mapping IP prefixes of one address family to
+ * values, with longest prefix match lookups.
+ * <p>
+ * The trie works on the raw bits of the addresses; a lookup walks at most
+ * one node per distinct prefix length on the path and allocates nothing
+ * but a copy of the address octets. The nodes are immutable and updates
+ * copy the path to the node they change before publishing a new root, so
+ * that reads are lock-free and always see a consistent snapshot, while
+ * updates are serialized.
+ * </p>
+ *
+ * @param <V> type of values
+ */
+public final class IpPrefixTrie<V> {
+
+    private final IpAddress.Version version;
+    private final int maxLength;
+
+    private volatile Node<V> root;
+    private volatile int size;
+
+    // Value replaced or removed by the last update; guarded by this
+    private V previous;
+
+    /**
+     * Creates an empty trie for prefixes of the given address family.
+     *
+     * @param version IP address version
+     */
+    public IpPrefixTrie(IpAddress.Version version) {
+        this.version = checkNotNull(version);
+        this.maxLength = IpAddress.byteLength(version) * Byte.SIZE;
+    }
+
+    /**
+     * Returns the IP address version of the prefixes of the trie.
+     *
+     * @return IP address version
+     */
+    public IpAddress.Version version() {
+        return version;
+    }
+
+    /**
+     * Returns the number of prefixes in the trie.
+     *
+     * @return number of prefixes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Indicates whether the trie is empty.
+     *
+     * @return true if the trie holds no prefix
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Associates a value with a prefix.
+     *
+     * @param prefix IP prefix
+     * @param value  value
+     * @return value previously associated with the prefix; null if none
+     */
+    public synchronized V put(IpPrefix prefix, V value) {
+        checkNotNull(value);
+        checkVersion(prefix.version());
+        byte[] octets = prefix.address().toOctets();
+        previous = null;
+        root = insert(root, high(octets), low(octets), prefix.prefixLength(), prefix, value);
+        V replaced = previous;
+        previous = null;
+        if (replaced == null) {
+            size++;
+        }
+        return replaced;
+    }
+
+    /**
+     * Removes a prefix.
+     *
+     * @param prefix IP prefix
+     * @return value associated with the prefix; null if none
+     */
+    public synchronized V remove(IpPrefix prefix) {
+        checkVersion(prefix.version());
+        byte[] octets = prefix.address().toOctets();
+        previous = null;
+        root = delete(root, high(octets), low(octets), prefix.prefixLength());
+        V removed = previous;
+        previous = null;
+        if (removed != null) {
+            size--;
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all prefixes.
+     */
+    public synchronized void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Returns the value associated with exactly the given prefix.
+     *
+     * @param prefix IP prefix
+     * @return value; null if none
+     */
+    public V get(IpPrefix prefix) {
+        checkVersion(prefix.version());
+        byte[] octets = prefix.address().toOctets();
+        long hi = high(octets);
+        long lo = low(octets);
+        int length = prefix.prefixLength();
+        Node<V> node = root;
+        while (node != null && node.length <= length) {
+            if (commonLength(node.hi, node.lo, hi, lo, node.length) < node.length) {
+                return null;
+            }
+            if (node.length == length) {
+                return node.value;
+            }
+            node = bit(hi, lo, node.length) ? node.one : node.zero;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of the longest prefix containing the given address.
+     *
+     * @param address IP address
+     * @return value of the most specific matching prefix; null if none
+     */
+    public V longestPrefixMatch(IpAddress address) {
+        checkVersion(address.version());
+        byte[] octets = address.toOctets();
+        long hi = high(octets);
+        long lo = low(octets);
+        V match = null;
+        Node<V> node = root;
+        while (node != null) {
+            if (commonLength(node.hi, node.lo, hi, lo, node.length) < node.length) {
+                break;
+            }
+            if (node.value != null) {
+                match = node.value;
+            }
+            if (node.length == maxLength) {
+                break;
+            }
+            node = bit(hi, lo, node.length) ? node.one : node.zero;
+        }
+        return match;
+    }
+
+    /**
+     * Returns a snapshot of the values of the trie, ordered by the bits of
+     * their prefixes.
+     *
+     * @return list of values
+     */
+    public List<V> values() {
+        ImmutableList.Builder<V> values = ImmutableList.builder();
+        forEach((prefix, value) -> values.add(value));
+        return values.build();
+    }
+
+    /**
+     * Performs an action for every prefix of a snapshot of the trie, in the
+     * order of the bits of the prefixes.
+     *
+     * @param action action to perform on every prefix and its value
+     */
+    public void forEach(BiConsumer<IpPrefix, V> action) {
+        Node<V> snapshot = root;
+        if (snapshot == null) {
+            return;
+        }
+        Deque<Node<V>> stack = new ArrayDeque<>();
+        stack.push(snapshot);
+        while (!stack.isEmpty()) {
+            Node<V> node = stack.pop();
+            if (node.value != null) {
+                action.accept(node.prefix, node.value);
+            }
+            if (node.one != null) {
+                stack.push(node.one);
+            }
+            if (node.zero != null) {
+                stack.push(node.zero);
+            }
+        }
+    }
+
+    private void checkVersion(IpAddress.Version other) {
+        checkArgument(version == other, "Expected an %s prefix or address, got %s", version, other);
+    }
+
+    // Inserts a prefix below the given node, copying the nodes on its path.
+    private Node<V> insert(Node<V> node, long hi, long lo, int length,
+                           IpPrefix prefix, V value) {
+        if (node == null) {
+            return new Node<>(hi, lo, length, prefix, value, null, null);
+        }
+        int common = commonLength(node.hi, node.lo, hi, lo, Math.min(node.length, length));
+        if (common == node.length) {
+            if (length == node.length) {
+                previous = node.value;
+                return new Node<>(node.hi, node.lo, length, prefix, value, node.zero, node.one);
+            }
+            if (bit(hi, lo, node.length)) {
+                return node.withChildren(node.zero, insert(node.one, hi, lo, length, prefix, value));
+            }
+            return node.withChildren(insert(node.zero, hi, lo, length, prefix, value), node.one);
+        }
+        if (common == length) {
+            // the new prefix contains the node
+            return bit(node.hi, node.lo, length) ?
+                    new Node<>(hi, lo, length, prefix, value, null, node) :
+                    new Node<>(hi, lo, length, prefix, value, node, null);
+        }
+        // the new prefix and the node diverge; join them under a branch
+        Node<V> leaf = new Node<>(hi, lo, length, prefix, value, null, null);
+        long branchHi = mask(hi, common);
+        long branchLo = mask(lo, common - Long.SIZE);
+        return bit(hi, lo, common) ?
+                new Node<>(branchHi, branchLo, common, null, null, node, leaf) :
+                new Node<>(branchHi, branchLo, common, null, null, leaf, node);
+    }
+
+    // Deletes a prefix below the given node, copying the nodes on its path.
+    private Node<V> delete(Node<V> node, long hi, long lo, int length) {
+        if (node == null || node.length > length ||
+                commonLength(node.hi, node.lo, hi, lo, node.length) < node.length) {
+            return node;
+        }
+        Node<V> updated;
+        if (node.length == length) {
+            if (node.value == null) {
+                return node;
+            }
+            previous = node.value;
+            updated = new Node<>(node.hi, node.lo, length, null, null, node.zero, node.one);
+        } else if (bit(hi, lo, node.length)) {
+            Node<V> one = delete(node.one, hi, lo, length);
+            if (one == node.one) {
+                return node;
+            }
+            updated = node.withChildren(node.zero, one);
+        } else {
+            Node<V> zero = delete(node.zero, hi, lo, length);
+            if (zero == node.zero) {
+                return node;
+            }
+            updated = node.withChildren(zero, node.one);
+        }
+        // branches without a value are only kept while they join two nodes
+        if (updated.value == null && (updated.zero == null || updated.one == null)) {
+            return updated.zero != null ? updated.zero : updated.one;
+        }
+        return updated;
+    }
+
+    private static long high(byte[] octets) {
+        return bits(octets, 0);
+    }
+
+    private static long low(byte[] octets) {
+        return bits(octets, Long.BYTES);
+    }
+
+    // Packs up to eight octets from the given offset, left aligned.
+    private static long bits(byte[] octets, int offset) {
+        long bits = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            bits <<= Byte.SIZE;
+            if (offset + i < octets.length) {
+                bits |= octets[offset + i] & 0xff;
+            }
+        }
+        return bits;
+    }
+
+    private static boolean bit(long hi, long lo, int index) {
+        return index < Long.SIZE ?
+                (hi << index) < 0 :
+                (lo << (index - Long.SIZE)) < 0;
+    }
+
+    // Keeps the given number of leading bits of a word
+    private static long mask(long bits, int length) {
+        if (length <= 0) {
+            return 0;
+        }
+        return length >= Long.SIZE ? bits : bits & (-1L << (Long.SIZE - length));
+    }
+
+    // Number of leading bits two keys have in common, up to the given limit
+    private static int commonLength(long hi1, long lo1, long hi2, long lo2, int limit) {
+        long diff = hi1 ^ hi2;
+        int common = diff != 0 ?
+                Long.numberOfLeadingZeros(diff) :
+                Long.SIZE + Long.numberOfLeadingZeros(lo1 ^ lo2);
+        return Math.min(common, limit);
+    }
+
+    // Immutable trie node; holds a prefix and its value, or only joins
+    // two sub-tries that diverge right after its key.
+    private static final class Node<V> {
+        private final long hi;
+        private final long lo;
+        private final int length;
+        private final IpPrefix prefix;
+        private final V value;
+        private final Node<V> zero;
+        private final Node<V> one;
+
+        private Node(long hi, long lo, int length, IpPrefix prefix, V value,
+                     Node<V> zero, Node<V> one) {
+            this.hi = hi;
+            this.lo = lo;
+            this.length = length;
+            this.prefix = prefix;
+            this.value = value;
+            this.zero = zero;
+            this.one = one;
+        }
+
+        private Node<V> withChildren(Node<V> zero, Node<V> one) {
+            return new Node<>(hi, lo, length, prefix, value, zero, one);
+        }
+    }
+}
@@ -21,7 +21,6 @@ import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.esotericsoftware.kryo.io.ByteBufferOutput;
 import com.esotericsoftware.kryo.io.Input;
-import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.pool.KryoCallback;
 import com.esotericsoftware.kryo.pool.KryoFactory;
 import com.esotericsoftware.kryo.pool.KryoPool;
@@ -71,6 +70,9 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
 
 
 
+    // Output buffers reused by the serializations of all namespaces
+    private static final KryoOutputPool OUTPUTS = new KryoOutputPool();
+
     private final KryoPool pool = new KryoPool.Builder(this)
                                         .softReferences()
                                         .build();
@@ -256,6 +258,8 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * Serializes given object to byte array using Kryo instance in pool.
      * <p>
      * Note: Serialized bytes must be smaller than {@link #MAX_BUFFER_SIZE}.
+     * The object is written to an output buffer reused across calls, and
+     * only the serialized bytes are copied out of it.
      *
      * @param obj Object to serialize
      * @return serialized bytes
@@ -268,16 +272,15 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * Serializes given object to byte array using Kryo instance in pool.
      *
      * @param obj Object to serialize
-     * @param bufferSize maximum size of serialized bytes
+     * @param bufferSize initial size of the output buffer, if none can be reused
      * @return serialized bytes
      */
     public byte[] serialize(final Object obj, final int bufferSize) {
-        Output out = new Output(bufferSize, MAX_BUFFER_SIZE);
-        return pool.run(kryo -> {
+        return OUTPUTS.run(out -> pool.run(kryo -> {
             kryo.writeClassAndObject(out, obj);
             out.flush();
             return out.toBytes();
-        });
+        }), bufferSize);
     }
 
     /**
@@ -312,17 +315,21 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      *
      * @param obj Object to serialize
      * @param stream to write to
-     * @param bufferSize size of the buffer in front of the stream
+     * @param bufferSize size of the buffer in front of the stream, if none can be reused
      */
     public void serialize(final Object obj, final OutputStream stream, final int bufferSize) {
-        ByteBufferOutput out = new ByteBufferOutput(stream, bufferSize);
-        Kryo kryo = borrow();
-        try {
-            kryo.writeClassAndObject(out, obj);
-            out.flush();
-        } finally {
-            release(kryo);
-        }
+        OUTPUTS.run(out -> {
+            out.setOutputStream(stream);
+            Kryo kryo = borrow();
+            try {
+                kryo.writeClassAndObject(out, obj);
+                out.flush();
+            } finally {
+                release(kryo);
+                out.setOutputStream(null);
+            }
+            return null;
+        }, bufferSize);
     }
 
     /**
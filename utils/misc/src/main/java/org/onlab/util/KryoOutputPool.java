@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.util;
+
+import com.esotericsoftware.kryo.io.Output;
+
+import java.lang.ref.SoftReference;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * Pool of Kryo output buffers, reused across serializations so that each
+ * one does not allocate a new buffer and grow it by copying.
+ * <p>
+ * Buffers are held through soft references, and buffers that grew beyond
+ * {@link #MAX_POOLED_BUFFER_SIZE} are dropped rather than kept in the pool.
+ * </p>
+ */
+final class KryoOutputPool {
+
+    /**
+     * Largest buffer kept in the pool.
+     */
+    static final int MAX_POOLED_BUFFER_SIZE = 512 * 1024;
+
+    private final Queue<SoftReference<Output>> outputs = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Runs a function with an empty output taken from the pool, and returns
+     * the output to the pool once the function has completed.
+     *
+     * @param function   function to run
+     * @param bufferSize initial size of the buffer, if a new output is needed
+     * @param <T>        type of the result
+     * @return result of the function
+     */
+    <T> T run(Function<Output, T> function, int bufferSize) {
+        Output output = borrow(bufferSize);
+        try {
+            return function.apply(output);
+        } finally {
+            release(output);
+        }
+    }
+
+    private Output borrow(int bufferSize) {
+        SoftReference<Output> reference = outputs.poll();
+        while (reference != null) {
+            Output output = reference.get();
+            if (output != null) {
+                output.clear();
+                return output;
+            }
+            reference = outputs.poll();
+        }
+        return new Output(bufferSize, KryoNamespace.MAX_BUFFER_SIZE);
+    }
+
+    private void release(Output output) {
+        if (output.getBuffer().length <= MAX_POOLED_BUFFER_SIZE) {
+            outputs.offer(new SoftReference<>(output));
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.util;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link IpPrefixTrie}.
+ */
+public class IpPrefixTrieTest {
+
+    private final IpPrefixTrie<String> trie = new IpPrefixTrie<>(IpAddress.Version.INET);
+
+    private void put(String prefix) {
+        trie.put(IpPrefix.valueOf(prefix), prefix);
+    }
+
+    private String match(String address) {
+        return trie.longestPrefixMatch(IpAddress.valueOf(address));
+    }
+
+    @Test
+    public void longestPrefixMatch() {
+        assertNull(match("10.1.2.3"));
+        put("10.0.0.0/8");
+        put("10.1.0.0/16");
+        put("10.1.2.0/24");
+        put("10.1.3.0/24");
+        put("192.168.1.1/32");
+
+        assertEquals("10.1.2.0/24", match("10.1.2.3"));
+        assertEquals("10.1.3.0/24", match("10.1.3.255"));
+        assertEquals("10.1.0.0/16", match("10.1.4.1"));
+        assertEquals("10.0.0.0/8", match("10.200.0.1"));
+        assertEquals("192.168.1.1/32", match("192.168.1.1"));
+        assertNull(match("192.168.1.2"));
+        assertNull(match("11.0.0.1"));
+
+        put("0.0.0.0/0");
+        assertEquals("0.0.0.0/0", match("11.0.0.1"));
+        assertEquals(6, trie.size());
+    }
+
+    @Test
+    public void replaceAndRemove() {
+        put("10.0.0.0/8");
+        put("10.1.0.0/16");
+        assertEquals("10.0.0.0/8", trie.put(IpPrefix.valueOf("10.0.0.0/8"), "other"));
+        assertEquals(2, trie.size());
+        assertEquals("other", match("10.2.0.1"));
+
+        // removing a missing prefix leaves the trie alone
+        assertNull(trie.remove(IpPrefix.valueOf("10.0.0.0/12")));
+        assertNull(trie.remove(IpPrefix.valueOf("10.1.0.0/24")));
+        assertEquals(2, trie.size());
+
+        assertEquals("other", trie.remove(IpPrefix.valueOf("10.0.0.0/8")));
+        assertNull(match("10.2.0.1"));
+        assertEquals("10.1.0.0/16", match("10.1.0.1"));
+        assertEquals("10.1.0.0/16", trie.get(IpPrefix.valueOf("10.1.0.0/16")));
+        assertNull(trie.get(IpPrefix.valueOf("10.0.0.0/8")));
+
+        assertEquals("10.1.0.0/16", trie.remove(IpPrefix.valueOf("10.1.0.0/16")));
+        assertTrue(trie.isEmpty());
+        assertTrue(trie.values().isEmpty());
+    }
+
+    @Test
+    public void valuesInPrefixOrder() {
+        put("10.1.0.0/16");
+        put("10.0.0.0/8");
+        put("0.0.0.0/0");
+        put("128.0.0.0/1");
+        assertEquals(Lists.newArrayList("0.0.0.0/0", "10.0.0.0/8", "10.1.0.0/16", "128.0.0.0/1"),
+                     trie.values());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongVersion() {
+        trie.put(IpPrefix.valueOf("2001:db8::/32"), "v6");
+    }
+
+    @Test
+    public void randomIp4() {
+        checkRandom(IpAddress.Version.INET, new Random(1));
+    }
+
+    @Test
+    public void randomIp6() {
+        checkRandom(IpAddress.Version.INET6, new Random(2));
+    }
+
+    // Checks random lookups, before and after random removals, against a
+    // linear search of the prefixes.
+    private void checkRandom(IpAddress.Version version, Random random) {
+        IpPrefixTrie<IpPrefix> prefixes = new IpPrefixTrie<>(version);
+        int bits = IpAddress.byteLength(version) * Byte.SIZE;
+        Map<IpPrefix, IpPrefix> expected = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            IpPrefix prefix = IpPrefix.valueOf(randomAddress(version, random), random.nextInt(bits + 1));
+            prefixes.put(prefix, prefix);
+            expected.put(prefix, prefix);
+        }
+        assertEquals(expected.size(), prefixes.size());
+        checkLookups(prefixes, expected, version, random);
+
+        List<IpPrefix> all = Lists.newArrayList(expected.keySet());
+        for (int i = 0; i < all.size(); i += 2) {
+            assertEquals(all.get(i), prefixes.remove(all.get(i)));
+            expected.remove(all.get(i));
+        }
+        assertEquals(expected.size(), prefixes.size());
+        assertEquals(expected.size(), prefixes.values().size());
+        checkLookups(prefixes, expected, version, random);
+    }
+
+    private void checkLookups(IpPrefixTrie<IpPrefix> prefixes, Map<IpPrefix, IpPrefix> expected,
+                              IpAddress.Version version, Random random) {
+        for (IpPrefix prefix : expected.keySet()) {
+            assertEquals(prefix, prefixes.get(prefix));
+            assertEquals(linearMatch(expected, prefix.address()),
+                         prefixes.longestPrefixMatch(prefix.address()));
+        }
+        for (int i = 0; i < 2000; i++) {
+            IpAddress address = randomAddress(version, random);
+            assertEquals(linearMatch(expected, address), prefixes.longestPrefixMatch(address));
+        }
+    }
+
+    private static IpPrefix linearMatch(Map<IpPrefix, IpPrefix> prefixes, IpAddress address) {
+        IpPrefix match = null;
+        for (IpPrefix prefix : prefixes.keySet()) {
+            if (prefix.contains(address) &&
+                    (match == null || prefix.prefixLength() > match.prefixLength())) {
+                match = prefix;
+            }
+        }
+        return match;
+    }
+
+    // Random addresses are drawn from a narrow range so that prefixes nest
+    private static IpAddress randomAddress(IpAddress.Version version, Random random) {
+        byte[] octets = new byte[IpAddress.byteLength(version)];
+        random.nextBytes(octets);
+        octets[0] = (byte) (octets[0] & 0x83);
+        octets[1] = (byte) (octets[1] & 0x0f);
+        return IpAddress.valueOf(version, octets);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.util;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link KryoNamespace}.
+ */
+public class KryoNamespaceTest {
+
+    private final KryoNamespace namespace = KryoNamespace.newBuilder()
+            .register(ArrayList.class, String.class)
+            .build();
+
+    @Test
+    public void reusedBuffers() {
+        List<String> small = Lists.newArrayList("a", "b");
+        List<String> large = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            large.add("element" + i);
+        }
+        for (List<String> list : Lists.newArrayList(small, large, small, large)) {
+            byte[] bytes = namespace.serialize(list);
+            assertEquals(list, namespace.deserialize(bytes));
+        }
+    }
+
+    @Test
+    public void nestedSerialization() {
+        // a serializer encoding its object with the namespace must not
+        // share the output buffer of the enclosing serialization
+        KryoNamespace outer = KryoNamespace.newBuilder()
+                .register(new Serializer<Nested>() {
+                    @Override
+                    public void write(Kryo kryo, Output output, Nested object) {
+                        byte[] bytes = namespace.serialize(object.values);
+                        output.writeVarInt(bytes.length, true);
+                        output.writeBytes(bytes);
+                    }
+
+                    @Override
+                    public Nested read(Kryo kryo, Input input, Class<Nested> type) {
+                        byte[] bytes = input.readBytes(input.readVarInt(true));
+                        return new Nested(namespace.deserialize(bytes));
+                    }
+                }, Nested.class)
+                .build();
+        Nested nested = new Nested(Lists.newArrayList("x", "y", "z"));
+        Nested copy = outer.deserialize(outer.serialize(nested));
+        assertEquals(nested.values, copy.values);
+    }
+
+    @Test
+    public void streams() {
+        List<String> list = Lists.newArrayList("a", "b", "c");
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        namespace.serialize(list, stream, 16);
+        namespace.serialize(list, stream, 16);
+        assertEquals(list, namespace.deserialize(new ByteArrayInputStream(stream.toByteArray())));
+        assertEquals(list, namespace.deserialize(namespace.serialize(list)));
+    }
+
+    private static final class Nested {
+        private final List<String> values;
+
+        private Nested(List<String> values) {
+            this.values = values;
+        }
+    }
+}